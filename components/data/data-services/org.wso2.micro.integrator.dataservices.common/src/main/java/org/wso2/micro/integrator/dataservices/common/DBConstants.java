@@ -389,6 +389,7 @@ public final class DBConstants {
         public static final String CONNECTION_PROPERTIES = "connectionProperties";
         public static final String INIT_SQL = "initSQL";
         public static final String JDBC_INTERCEPTORS = "jdbcInterceptors";
+        public static final String STATEMENT_CACHE_SIZE = "statementCacheSize";
         public static final String VALIDATION_INTERVAL = "validationInterval";
         public static final String JMX_ENABLED = "jmxEnabled";
         public static final String FAIR_QUEUE = "fairQueue";
@@ -408,6 +409,10 @@ public final class DBConstants {
         public static final String FETCH_SIZE = "fetchSize";
         public static final String MAX_FIELD_SIZE = "maxFieldSize";
         public static final String MAX_ROWS = "maxRows";        
+        public static final String NESTED_BATCH_SIZE = "nestedBatchSize";
+        public static final String NESTED_BATCH_PARAM = "nestedBatchParam";
+        public static final String NESTED_BATCH_KEY_COLUMN = "nestedBatchKeyColumn";
+        public static final String PROCESSED_SQL_CACHE_SIZE = "processedSQLCacheSize";
         public static final String DYNAMIC_USER_AUTH_CLASS = "dynamicUserAuthClass";
         public static final String DYNAMIC_USER_AUTH_MAPPING = "dynamicUserAuthMapping";
         public static final String USERNAME_WILDCARD = "*";
@@ -893,6 +898,9 @@ public final class DBConstants {
         public static final String ESCAPE_NON_PRINTABLE_CHAR = "escapeNonPrintableChar";
         public static final String STRUCT_TYPE = "structType";
         public static final String SWAGGER_LOCATION = "publishSwagger";
+        public static final String CACHE = "cache";
+        public static final String TIME_TO_LIVE = "timeToLive";
+        public static final String MAX_ENTRIES = "maxEntries";
     }
 
     /**
@@ -353,6 +353,32 @@ public abstract class ExpressionQuery extends Query {
         return new Object[] { query, resultParamCount };
     }
 
+    /**
+     * Re-organizes the parameters in the same way as {@link #processDynamicQuery(String, InternalParamCollection)},
+     * without processing the query, i.e. when the processed query is already available for the given parameters.
+     */
+    protected void reorderDynamicQueryParams(InternalParamCollection params) {
+        Map<Integer, QueryParam> tempParams = new HashMap<>();
+        int currentOrdinalDiff = 0;
+        InternalParam tmpParam;
+        for (QueryParam queryParam : this.getQueryParams()) {
+            tempParams.put(queryParam.getOrdinal(), queryParam);
+        }
+        for (int i = 1; i <= paramCount; i++) {
+            tmpParam = params.getParam(i);
+            if (tmpParam == null) {
+                continue;
+            }
+            params.remove(i);
+            if (!(tempParams.get(i).isOptional()) && DBConstants.DataTypes.QUERY_STRING.equals(tmpParam.getSqlType())) {
+                currentOrdinalDiff++;
+            } else {
+                tmpParam.setOrdinal(i - currentOrdinalDiff);
+                params.addParam(tmpParam);
+            }
+        }
+    }
+
     private Integer[] extractQueryParamIndices(String query) {
         List<Integer> result = new ArrayList<>();
         boolean doubleQuoteExists = false;
@@ -209,6 +209,21 @@ public class MongoQuery extends Query {
         return expression;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        String expression = this.getExpression();
+        int i1 = expression.indexOf('.');
+        int i2 = expression.indexOf('(', i1);
+        if (i1 == -1 || i2 == -1) {
+            return false;
+        }
+        String operation = expression.substring(i1 + 1, i2).trim();
+        return DBConstants.MongoDB.MongoOperationLabels.FIND.equals(operation)
+                || DBConstants.MongoDB.MongoOperationLabels.FIND_ONE.equals(operation)
+                || DBConstants.MongoDB.MongoOperationLabels.COUNT.equals(operation)
+                || DBConstants.MongoDB.MongoOperationLabels.EXISTS.equals(operation);
+    }
+
     private Object[] decodeQuery(String query) throws DataServiceFault {
         int i1 = query.indexOf('.');
         if (i1 == -1) {
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.description.query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamWriter;
+
+import org.wso2.micro.integrator.dataservices.core.engine.CallQuery;
+import org.wso2.micro.integrator.dataservices.core.engine.DataEntry;
+import org.wso2.micro.integrator.dataservices.core.engine.InternalParamCollection;
+import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
+
+/**
+ * Holds the result entries of a query which are buffered, so that the nested call-queries of
+ * those entries can be executed once for the whole batch instead of once per entry. The batches
+ * of the queries being executed by the current thread are kept in a stack, since queries are
+ * nested.
+ */
+public class NestedQueryBatch {
+
+	private static ThreadLocal<Deque<NestedQueryBatch>> batches = new ThreadLocal<Deque<NestedQueryBatch>>() {
+		@Override
+		protected Deque<NestedQueryBatch> initialValue() {
+			return new ArrayDeque<NestedQueryBatch>();
+		}
+	};
+
+	/* the query whose result entries are buffered, or collected */
+	private final Query query;
+
+	/* the call-queries which are executed for the whole batch */
+	private final List<CallQuery> callQueries;
+
+	private final int capacity;
+
+	/* whether the result entries of the query are collected, instead of being written */
+	private final boolean collecting;
+
+	/* whether the buffered entries are being written out */
+	private boolean flushing;
+
+	private final List<BufferedEntry> entries = new ArrayList<BufferedEntry>();
+
+	/* key - call-query, value - the result entries of the call-query against the parameters */
+	private final Map<CallQuery, Map<String, List<DataEntry>>> prefetchedResults =
+			new HashMap<CallQuery, Map<String, List<DataEntry>>>();
+
+	private NestedQueryBatch(Query query, List<CallQuery> callQueries, int capacity, boolean collecting) {
+		this.query = query;
+		this.callQueries = callQueries;
+		this.capacity = capacity;
+		this.collecting = collecting;
+	}
+
+	/**
+	 * Starts buffering the result entries of the given query.
+	 */
+	static NestedQueryBatch begin(Query query, List<CallQuery> callQueries, int capacity) {
+		NestedQueryBatch batch = new NestedQueryBatch(query, callQueries, capacity, false);
+		batches.get().push(batch);
+		return batch;
+	}
+
+	/**
+	 * Starts collecting the result entries of the given query, instead of writing them.
+	 */
+	static NestedQueryBatch beginCollecting(Query query) {
+		NestedQueryBatch batch = new NestedQueryBatch(query, null, 0, true);
+		batches.get().push(batch);
+		return batch;
+	}
+
+	static void end(NestedQueryBatch batch) {
+		Deque<NestedQueryBatch> stack = batches.get();
+		if (stack.peek() == batch) {
+			stack.pop();
+		} else {
+			stack.remove(batch);
+		}
+	}
+
+	/**
+	 * Returns the innermost batch of the current thread, or null if there is none.
+	 */
+	static NestedQueryBatch current() {
+		return batches.get().peek();
+	}
+
+	/**
+	 * Returns the result of the given call-query prefetched for the whole batch, for the
+	 * given parameters.
+	 * @param callQuery The call-query
+	 * @param queryParams The parameters the call-query executes its query with
+	 * @return The result entries, or null if the result has not been prefetched, or no result
+	 * entry of the prefetched result matched the parameters
+	 */
+	public static List<DataEntry> getPrefetchedResult(CallQuery callQuery, Map<String, ParamValue> queryParams) {
+		NestedQueryBatch batch = current();
+		if (batch == null || batch.collecting) {
+			return null;
+		}
+		Map<String, List<DataEntry>> results = batch.prefetchedResults.get(callQuery);
+		if (results == null) {
+			return null;
+		}
+		String key = createResultKey(callQuery, queryParams);
+		return key != null ? results.get(key) : null;
+	}
+
+	/**
+	 * Creates the key of the result of a call-query, from the batch param value and the other
+	 * parameters of the call-query.
+	 * @return The key, or null if the batch param does not have a scalar value
+	 */
+	static String createResultKey(CallQuery callQuery, Map<String, ParamValue> queryParams) {
+		ParamValue batchValue = queryParams.get(callQuery.getNestedBatchParam());
+		if (batchValue == null || batchValue.getValueType() != ParamValue.PARAM_VALUE_SCALAR
+				|| batchValue.getScalarValue() == null) {
+			return null;
+		}
+		return createResultKey(createGroupKey(callQuery, queryParams), batchValue.getScalarValue());
+	}
+
+	private static String createResultKey(String groupKey, String batchValue) {
+		return groupKey + '\u0000' + batchValue;
+	}
+
+	/**
+	 * Creates the key of the parameters, other than the batch param, of a call-query. Only the
+	 * entries with the same key can be fetched together.
+	 */
+	static String createGroupKey(CallQuery callQuery, Map<String, ParamValue> queryParams) {
+		Map<String, ParamValue> otherParams = new HashMap<String, ParamValue>(queryParams);
+		otherParams.remove(callQuery.getNestedBatchParam());
+		return QueryResultCache.createKey(otherParams, null);
+	}
+
+	/**
+	 * Returns whether the result entries of the given query are currently being collected.
+	 */
+	static boolean isCollecting(Query query) {
+		NestedQueryBatch batch = current();
+		return batch != null && batch.collecting && batch.query == query;
+	}
+
+	Query getQuery() {
+		return query;
+	}
+
+	List<CallQuery> getCallQueries() {
+		return callQueries;
+	}
+
+	boolean isCollecting() {
+		return collecting;
+	}
+
+	boolean isFlushing() {
+		return flushing;
+	}
+
+	void setFlushing(boolean flushing) {
+		this.flushing = flushing;
+	}
+
+	boolean isFull() {
+		return this.entries.size() >= this.capacity;
+	}
+
+	void addEntry(XMLStreamWriter xmlWriter, DataEntry dataEntry, InternalParamCollection params,
+			int queryLevel) {
+		this.entries.add(new BufferedEntry(xmlWriter, dataEntry, params, queryLevel));
+	}
+
+	List<BufferedEntry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Collects a result entry, when this is a collecting batch.
+	 */
+	void collect(DataEntry dataEntry) {
+		this.entries.add(new BufferedEntry(null, dataEntry, null, 0));
+	}
+
+	List<DataEntry> getCollectedEntries() {
+		List<DataEntry> result = new ArrayList<DataEntry>(this.entries.size());
+		for (BufferedEntry entry : this.entries) {
+			result.add(entry.getDataEntry());
+		}
+		return result;
+	}
+
+	void addPrefetchedResult(CallQuery callQuery, String groupKey, String batchValue,
+			List<DataEntry> result) {
+		Map<String, List<DataEntry>> results = this.prefetchedResults.get(callQuery);
+		if (results == null) {
+			results = new HashMap<String, List<DataEntry>>();
+			this.prefetchedResults.put(callQuery, results);
+		}
+		results.put(createResultKey(groupKey, batchValue), result);
+	}
+
+	/**
+	 * Clears the buffered entries and the prefetched results, once they have been written.
+	 */
+	void clear() {
+		this.entries.clear();
+		this.prefetchedResults.clear();
+	}
+
+	/**
+	 * A result entry waiting to be written.
+	 */
+	static class BufferedEntry {
+
+		private final XMLStreamWriter xmlWriter;
+
+		private final DataEntry dataEntry;
+
+		private final InternalParamCollection params;
+
+		private final int queryLevel;
+
+		BufferedEntry(XMLStreamWriter xmlWriter, DataEntry dataEntry, InternalParamCollection params,
+				int queryLevel) {
+			this.xmlWriter = xmlWriter;
+			this.dataEntry = dataEntry;
+			this.params = params;
+			this.queryLevel = queryLevel;
+		}
+
+		XMLStreamWriter getXmlWriter() {
+			return xmlWriter;
+		}
+
+		DataEntry getDataEntry() {
+			return dataEntry;
+		}
+
+		InternalParamCollection getParams() {
+			return params;
+		}
+
+		int getQueryLevel() {
+			return queryLevel;
+		}
+
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.description.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.wso2.micro.integrator.dataservices.common.DBConstants;
+import org.wso2.micro.integrator.dataservices.core.engine.InternalParam;
+import org.wso2.micro.integrator.dataservices.core.engine.InternalParamCollection;
+import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
+
+/**
+ * Caches the SQL text of a query after the optional parameters, the "QUERY_STRING" parameters
+ * and the array parameters are processed. The processed SQL only depends on the shape of the
+ * parameters of an invocation, i.e. which parameters are present, the values of the
+ * "QUERY_STRING" parameters and the sizes of the arrays, so the key is built from these and
+ * invocations with the same shape reuse the same SQL. The least recently used entry is evicted
+ * when the maximum number of entries is reached.
+ */
+public class ProcessedSQLCache {
+
+	private static final char KEY_SEPARATOR = '\u0000';
+
+	private final int maxEntries;
+
+	private final Map<String, ProcessedSQL> entries;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * @param maxEntries The maximum number of processed SQL statements kept
+	 */
+	public ProcessedSQLCache(final int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, ProcessedSQL>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ProcessedSQL> eldest) {
+				if (this.size() > maxEntries) {
+					evictionCount.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Creates the cache key of a query invocation from the shape of its parameters. This must be
+	 * called before the parameters are re-organized for the processed SQL.
+	 * @param params The parameters of the query invocation
+	 * @param paramCount The number of parameters of the query
+	 * @return The cache key
+	 */
+	public static String createKey(InternalParamCollection params, int paramCount) {
+		StringBuilder key = new StringBuilder();
+		InternalParam param;
+		ParamValue value;
+		for (int i = 1; i <= paramCount; i++) {
+			param = params.getParam(i);
+			if (param == null) {
+				key.append('-');
+			} else if (DBConstants.DataTypes.QUERY_STRING.equals(param.getSqlType())) {
+				value = param.getValue();
+				key.append("q:").append(value != null ? value.getScalarValue() : null);
+			} else {
+				value = param.getValue();
+				if (value != null && value.getValueType() == ParamValue.PARAM_VALUE_ARRAY) {
+					key.append('a').append(value.getArrayValue().size());
+				} else {
+					key.append('s');
+				}
+			}
+			key.append(KEY_SEPARATOR);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Returns the processed SQL for the given key.
+	 * @param key The cache key
+	 * @return The processed SQL, or null if it is not cached
+	 */
+	public ProcessedSQL get(String key) {
+		ProcessedSQL result;
+		synchronized (this) {
+			result = this.entries.get(key);
+		}
+		if (result == null) {
+			this.missCount.incrementAndGet();
+		} else {
+			this.hitCount.incrementAndGet();
+		}
+		return result;
+	}
+
+	public synchronized void put(String key, ProcessedSQL processedSQL) {
+		this.entries.put(key, processedSQL);
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Represents the processed SQL of a query and the number of parameters left in it, after the
+	 * "QUERY_STRING" parameters are substituted.
+	 */
+	public static class ProcessedSQL {
+
+		private final String sql;
+
+		private final int paramCount;
+
+		public ProcessedSQL(String sql, int paramCount) {
+			this.sql = sql;
+			this.paramCount = paramCount;
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		public int getParamCount() {
+			return paramCount;
+		}
+
+	}
+
+}
@@ -26,16 +26,19 @@ import org.wso2.micro.integrator.dataservices.common.DBConstants.QueryParamTypes
 import org.wso2.micro.integrator.dataservices.common.DBConstants.QueryTypes;
 import org.wso2.micro.integrator.dataservices.core.DBUtils;
 import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
+import org.wso2.micro.integrator.dataservices.core.DataServiceUser;
 import org.wso2.micro.integrator.dataservices.core.TLConnectionStore;
 import org.wso2.micro.integrator.dataservices.core.boxcarring.TLParamStore;
 import org.wso2.micro.integrator.dataservices.core.description.event.EventTrigger;
 import org.wso2.micro.integrator.dataservices.core.dispatch.DispatchStatus;
+import org.wso2.micro.integrator.dataservices.core.engine.CallQuery;
 import org.wso2.micro.integrator.dataservices.core.engine.DataEntry;
 import org.wso2.micro.integrator.dataservices.core.engine.DataService;
 import org.wso2.micro.integrator.dataservices.core.engine.ExternalParam;
 import org.wso2.micro.integrator.dataservices.core.engine.ExternalParamCollection;
 import org.wso2.micro.integrator.dataservices.core.engine.InternalParam;
 import org.wso2.micro.integrator.dataservices.core.engine.InternalParamCollection;
+import org.wso2.micro.integrator.dataservices.core.engine.OutputElementGroup;
 import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
 import org.wso2.micro.integrator.dataservices.core.engine.QueryParam;
 import org.wso2.micro.integrator.dataservices.core.engine.Result;
@@ -47,9 +50,15 @@ import org.wso2.micro.integrator.dataservices.core.validation.Validator;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a query in a data service.
@@ -82,6 +91,16 @@ public abstract class Query extends XMLWriterHelper {
 	
 	private boolean useColumnNumbers;
 
+	/* the cache of the results of this query, null if the results are not cached */
+	private QueryResultCache resultCache;
+
+	/* the configs the result of this query is read from, resolved on first use */
+	private volatile Set<String> resultConfigIds;
+
+	/* the call-queries in the result of this query, which are executed in batches,
+	 * created lazily since the call-queries are initialized after this query */
+	private volatile List<CallQuery> batchableCallQueries;
+
 	private static ThreadLocal<Object> queryPreprocessObjects = new ThreadLocal<Object>() {
 	    @Override
 	    public Object initialValue() {
@@ -190,6 +209,23 @@ public abstract class Query extends XMLWriterHelper {
 		return useColumnNumbers;
 	}
 
+	public QueryResultCache getResultCache() {
+		return resultCache;
+	}
+
+	public void setResultCache(QueryResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	/**
+	 * Returns whether executing this query leaves the data source unchanged. Queries which are
+	 * not read-only clear the result caches of the queries using the same config, and their
+	 * own results cannot be cached.
+	 */
+	public boolean isReadOnly() {
+		return this.hasResult();
+	}
+
 	/**
 	 * Converts the parameter map passed into the query, to InternalParam objects,
 	 * where they are created by taking in information also that is mentioned in
@@ -287,8 +323,11 @@ public abstract class Query extends XMLWriterHelper {
 		InternalParamCollection internalParams = this.extractParams(params);
 		boolean error = true;
         Object result;
+        boolean initial = Query.isQueryPreprocessInitial();
+        /* when the result entries are collected for a nested batch, they are not written out,
+         * so the result cache is bypassed */
+        boolean collecting = NestedQueryBatch.isCollecting(this);
         try {
-            boolean initial = Query.isQueryPreprocessInitial();
             boolean secondary = Query.isQueryPreprocessSecondary();
             /* write the content */
             if (initial) {
@@ -298,7 +337,24 @@ public abstract class Query extends XMLWriterHelper {
                 this.processContentFiltering();
                 /* process input events */
                 this.processInputEvents(internalParams);
-                result = this.runPreQuery(internalParams, queryLevel);
+                if (!this.isReadOnly()) {
+                    /* the results read from now on are not cached, they are invalidated again once
+                     * the changes are committed */
+                    this.getDataService().invalidateQueryResultCaches(this.getConfigId());
+                }
+                QueryResultCache cache = collecting ? null : this.getResultCache();
+                if (cache == null) {
+                    result = this.runPreQuery(internalParams, queryLevel);
+                } else {
+                    String key = this.createResultCacheKey(params);
+                    /* read before the query, so that a write while it runs is noticed */
+                    long version = cache.getVersion();
+                    result = cache.get(key);
+                    if (result == null) {
+                        result = new QueryResultCache.PendingQueryResult(
+                                this.runPreQuery(internalParams, queryLevel), key, version);
+                    }
+                }
                 Query.addQueryPreprocessedObject(result);
             }
             if (secondary) {
@@ -307,7 +363,14 @@ public abstract class Query extends XMLWriterHelper {
                 Query.resetCurrentInternalParams();
                 Query.setQueryPreprocessingInitial(true);
                 result = Query.getAndRemoveQueryPreprocessObject();
-                this.runPostQuery(result, xmlWriter, internalParams, queryLevel);
+                if (result instanceof QueryResultCache.CachedQueryResult) {
+                    ((QueryResultCache.CachedQueryResult) result).writeTo(xmlWriter);
+                } else if (result instanceof QueryResultCache.PendingQueryResult) {
+                    this.runAndCachePostQuery((QueryResultCache.PendingQueryResult) result, xmlWriter,
+                            internalParams, queryLevel);
+                } else {
+                    this.runBatchedPostQuery(result, xmlWriter, internalParams, queryLevel);
+                }
             }
             error = false;
         } finally {
@@ -320,6 +383,284 @@ public abstract class Query extends XMLWriterHelper {
         }
 	}
 
+	private String createResultCacheKey(Map<String, ParamValue> params) {
+		DataServiceUser currentUser = DataService.getCurrentUser();
+		return QueryResultCache.createKey(params, currentUser != null ? currentUser.getUserRoles() : null);
+	}
+
+	/**
+	 * Runs the query and caches its output, unless the cache has been invalidated meanwhile,
+	 * before writing it to the given writer.
+	 */
+	private void runAndCachePostQuery(QueryResultCache.PendingQueryResult result,
+			XMLStreamWriter xmlWriter, InternalParamCollection internalParams,
+			int queryLevel) throws DataServiceFault {
+		QueryResultCache cache = this.getResultCache();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		QueryResultCache.CachedQueryResult cachedResult;
+		try {
+			XMLStreamWriter captureWriter = QueryResultCache.createCaptureWriter(out);
+			this.runBatchedPostQuery(result.getResult(), captureWriter, internalParams, queryLevel);
+			cachedResult = cache.completeCapture(captureWriter, out);
+		} catch (XMLStreamException e) {
+			throw new DataServiceFault(e, "Error in caching the result of query: " + this.getQueryId());
+		}
+		cache.put(result.getKey(), cachedResult, result.getVersion());
+		cachedResult.writeTo(xmlWriter);
+	}
+
+	/**
+	 * Returns the ids of the configs the result of this query is read from, i.e. the config of
+	 * this query and the configs of the call-queries nested in its result.
+	 */
+	public Set<String> getResultConfigIds() {
+		Set<String> configIds = this.resultConfigIds;
+		if (configIds == null) {
+			configIds = new HashSet<String>();
+			this.collectResultConfigIds(configIds, new HashSet<Query>());
+			this.resultConfigIds = configIds;
+		}
+		return configIds;
+	}
+
+	private void collectResultConfigIds(Set<String> configIds, Set<Query> visited) {
+		if (!visited.add(this)) {
+			return;
+		}
+		configIds.add(this.getConfigId());
+		if (this.getResult() != null) {
+			collectResultConfigIds(this.getResult().getDefaultElementGroup(), configIds, visited);
+		}
+	}
+
+	private static void collectResultConfigIds(OutputElementGroup group, Set<String> configIds,
+			Set<Query> visited) {
+		if (group == null) {
+			return;
+		}
+		for (CallQuery callQuery : group.getCallQueryEntries()) {
+			if (callQuery.getQuery() != null) {
+				callQuery.getQuery().collectResultConfigIds(configIds, visited);
+			}
+		}
+		for (OutputElementGroup nestedGroup : group.getOutputElementGroupEntries()) {
+			collectResultConfigIds(nestedGroup, configIds, visited);
+		}
+	}
+
+	/**
+	 * Runs the query, executing the batchable call-queries in its result once for each batch
+	 * of result entries, instead of once for each entry.
+	 */
+	private void runBatchedPostQuery(Object result, XMLStreamWriter xmlWriter,
+			InternalParamCollection internalParams, int queryLevel) throws DataServiceFault {
+		NestedQueryBatch batch = this.beginNestedBatch();
+		if (batch == null) {
+			this.runPostQuery(result, xmlWriter, internalParams, queryLevel);
+			return;
+		}
+		try {
+			this.runPostQuery(result, xmlWriter, internalParams, queryLevel);
+			this.flushNestedBatch(batch);
+		} finally {
+			NestedQueryBatch.end(batch);
+		}
+	}
+
+	/**
+	 * Writes the result of this query, which has already been retrieved as part of a batch
+	 * executed for several parent result entries.
+	 * @param xmlWriter The XML writer to write the result to
+	 * @param params The parameters this query is called with
+	 * @param entries The result entries of this query for the given parameters
+	 * @param queryLevel The level of the query
+	 * @throws DataServiceFault
+	 */
+	public void writePrefetchedResult(XMLStreamWriter xmlWriter, Map<String, ParamValue> params,
+			List<DataEntry> entries, int queryLevel) throws DataServiceFault {
+		this.preprocessParams(params);
+		Query.resetCurrentInternalParams();
+		InternalParamCollection internalParams = this.extractParams(params);
+		Query.resetCurrentInternalParams();
+		this.validateParams(params);
+		this.processContentFiltering();
+		NestedQueryBatch batch = this.beginNestedBatch();
+		try {
+			for (DataEntry dataEntry : entries) {
+				this.writeResultEntry(xmlWriter, dataEntry, internalParams, queryLevel);
+			}
+			if (batch != null) {
+				this.flushNestedBatch(batch);
+			}
+		} finally {
+			if (batch != null) {
+				NestedQueryBatch.end(batch);
+			}
+		}
+	}
+
+	/**
+	 * Starts buffering the result entries of this query, if there are call-queries in its
+	 * result which can be executed in batches.
+	 * @return The started batch, or null if the result entries are not batched
+	 */
+	private NestedQueryBatch beginNestedBatch() {
+		List<CallQuery> callQueries = this.getBatchableCallQueries();
+		if (callQueries.isEmpty() || NestedQueryBatch.isCollecting(this)) {
+			return null;
+		}
+		int capacity = Integer.MAX_VALUE;
+		for (CallQuery callQuery : callQueries) {
+			capacity = Math.min(capacity, callQuery.getNestedBatchSize());
+		}
+		return NestedQueryBatch.begin(this, callQueries, capacity);
+	}
+
+	private List<CallQuery> getBatchableCallQueries() {
+		List<CallQuery> callQueries = this.batchableCallQueries;
+		if (callQueries == null) {
+			callQueries = new ArrayList<CallQuery>();
+			if (this.hasResult() && this.getResult().getDefaultElementGroup() != null) {
+				this.addBatchableCallQueries(this.getResult().getDefaultElementGroup(), callQueries);
+			}
+			this.batchableCallQueries = callQueries;
+		}
+		return callQueries;
+	}
+
+	private void addBatchableCallQueries(OutputElementGroup group, List<CallQuery> callQueries) {
+		for (CallQuery callQuery : group.getCallQueryEntries()) {
+			if (callQuery.isBatchable()) {
+				callQueries.add(callQuery);
+			}
+		}
+		for (OutputElementGroup childGroup : group.getOutputElementGroupEntries()) {
+			this.addBatchableCallQueries(childGroup, callQueries);
+		}
+	}
+
+	/**
+	 * Executes the batchable call-queries for the buffered result entries of the given batch,
+	 * and writes out the entries, which then use the prefetched results of the call-queries.
+	 */
+	private void flushNestedBatch(NestedQueryBatch batch) throws DataServiceFault {
+		List<NestedQueryBatch.BufferedEntry> entries = batch.getEntries();
+		if (entries.isEmpty()) {
+			return;
+		}
+		try {
+			for (CallQuery callQuery : batch.getCallQueries()) {
+				this.prefetchNestedResults(batch, callQuery);
+			}
+			batch.setFlushing(true);
+			for (NestedQueryBatch.BufferedEntry entry : entries) {
+				this.doWriteResultEntry(entry.getXmlWriter(), entry.getDataEntry(), entry.getParams(),
+						entry.getQueryLevel());
+			}
+		} finally {
+			batch.setFlushing(false);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Executes the given call-query once for each distinct set of parameters, other than the
+	 * batch param, of the buffered result entries, with all their batch param values, and
+	 * splits the result by the key column.
+	 */
+	private void prefetchNestedResults(NestedQueryBatch batch, CallQuery callQuery)
+			throws DataServiceFault {
+		/* key - the key of the other parameters, value - the other parameters */
+		Map<String, Map<String, ParamValue>> groupParams = new LinkedHashMap<String, Map<String, ParamValue>>();
+		/* key - the key of the other parameters, value - the batch param values */
+		Map<String, Set<String>> groupValues = new HashMap<String, Set<String>>();
+		/* key - the key of the other parameters, value - the query level to execute the group with */
+		Map<String, Integer> groupLevels = new HashMap<String, Integer>();
+		String batchParam = callQuery.getNestedBatchParam();
+		for (NestedQueryBatch.BufferedEntry entry : batch.getEntries()) {
+			Map<String, ParamValue> qparams = callQuery.createQueryParams(
+					this.createExternalParamCollection(entry.getDataEntry(), entry.getParams()));
+			if (NestedQueryBatch.createResultKey(callQuery, qparams) == null) {
+				/* the entry falls back to executing the call-query by itself */
+				continue;
+			}
+			String groupKey = NestedQueryBatch.createGroupKey(callQuery, qparams);
+			Set<String> values = groupValues.get(groupKey);
+			if (values == null) {
+				values = new LinkedHashSet<String>();
+				groupValues.put(groupKey, values);
+				groupParams.put(groupKey, qparams);
+				/* the call-query is executed with the incremented query level of the entries */
+				groupLevels.put(groupKey, entry.getQueryLevel() + 1);
+			}
+			values.add(qparams.get(batchParam).getScalarValue());
+		}
+		for (Map.Entry<String, Map<String, ParamValue>> group : groupParams.entrySet()) {
+			Set<String> values = groupValues.get(group.getKey());
+			Map<String, ParamValue> params = new HashMap<String, ParamValue>(group.getValue());
+			ParamValue arrayValue = new ParamValue(ParamValue.PARAM_VALUE_ARRAY);
+			for (String value : values) {
+				arrayValue.addArrayValue(new ParamValue(value));
+			}
+			params.put(batchParam, arrayValue);
+			/* only the values with matching result entries get a prefetched result, the other
+			 * entries fall back to executing the call-query by themselves, so that a key column
+			 * with a different representation does not yield an empty result */
+			Map<String, List<DataEntry>> results = new HashMap<String, List<DataEntry>>();
+			for (DataEntry dataEntry : callQuery.getQuery().collectResultEntries(params,
+					groupLevels.get(group.getKey()))) {
+				ParamValue keyValue = this.getColumnValue(dataEntry, callQuery.getNestedBatchKeyColumn());
+				if (keyValue == null || keyValue.getScalarValue() == null) {
+					continue;
+				}
+				String key = keyValue.getScalarValue();
+				if (!values.contains(key)) {
+					continue;
+				}
+				List<DataEntry> result = results.get(key);
+				if (result == null) {
+					result = new ArrayList<DataEntry>();
+					results.put(key, result);
+				}
+				result.add(dataEntry);
+			}
+			for (Map.Entry<String, List<DataEntry>> result : results.entrySet()) {
+				batch.addPrefetchedResult(callQuery, group.getKey(), result.getKey(), result.getValue());
+			}
+		}
+	}
+
+	private ParamValue getColumnValue(DataEntry dataEntry, String column) {
+		ParamValue value = dataEntry.getValue(column);
+		if (value == null) {
+			for (String name : dataEntry.getNames()) {
+				if (name.equalsIgnoreCase(column)) {
+					return dataEntry.getValue(name);
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Executes this query, and returns its result entries instead of writing them out.
+	 */
+	private List<DataEntry> collectResultEntries(Map<String, ParamValue> params, int queryLevel)
+			throws DataServiceFault {
+		NestedQueryBatch batch = NestedQueryBatch.beginCollecting(this);
+		try {
+			/* nothing is written to this writer, since the entries are collected */
+			XMLStreamWriter xmlWriter = QueryResultCache.createCaptureWriter(new ByteArrayOutputStream());
+			Query.resetCurrentInternalParams();
+			this.execute(xmlWriter, params, queryLevel);
+			return batch.getCollectedEntries();
+		} catch (XMLStreamException e) {
+			throw new DataServiceFault(e, "Error in executing the nested batch of query: " + this.getQueryId());
+		} finally {
+			NestedQueryBatch.end(batch);
+		}
+	}
+
     private void processContentFiltering() throws DataServiceFault {
         if (this.hasResult()) {
 			/* set required roles in result */
@@ -351,6 +692,7 @@ public abstract class Query extends XMLWriterHelper {
 	        }
 	        TLConnectionStore.closeAll();
         }
+        DataService.invalidateWrittenQueryResultCaches();
 	}
 	
 	private OMElement createOMElementFromInputParams(InternalParamCollection params) {
@@ -414,10 +756,30 @@ public abstract class Query extends XMLWriterHelper {
                                   int queryLevel) throws DataServiceFault;
 	
 	/**
-	 * writes an result entry to the output.
+	 * writes an result entry to the output, or buffers it if the call-queries in the result
+	 * are executed in batches.
 	 */
 	public void writeResultEntry(XMLStreamWriter xmlWriter, DataEntry dataEntry,
                                  InternalParamCollection ipc, int queryLevel) throws DataServiceFault {
+		NestedQueryBatch batch = NestedQueryBatch.current();
+		if (batch != null && batch.getQuery() == this) {
+			if (batch.isCollecting()) {
+				batch.collect(dataEntry);
+				return;
+			}
+			if (!batch.isFlushing()) {
+				batch.addEntry(xmlWriter, dataEntry, ipc, queryLevel);
+				if (batch.isFull()) {
+					this.flushNestedBatch(batch);
+				}
+				return;
+			}
+		}
+		this.doWriteResultEntry(xmlWriter, dataEntry, ipc, queryLevel);
+	}
+
+	private void doWriteResultEntry(XMLStreamWriter xmlWriter, DataEntry dataEntry,
+                                    InternalParamCollection ipc, int queryLevel) throws DataServiceFault {
 		/* increment query level */
 		queryLevel++;
 		
@@ -75,6 +75,10 @@ import java.util.TreeSet;
  * A factory class to create queries in a data service.
  */
 public class QueryFactory {
+
+	private static final int DEFAULT_RESULT_CACHE_MAX_ENTRIES = 1000;
+
+	private static final long DEFAULT_RESULT_CACHE_TIME_TO_LIVE = 60000;
 	
 	private QueryFactory() { }
 
@@ -114,9 +118,43 @@ public class QueryFactory {
 			throw new DataServiceFault("Invalid configType: " +
 					sourceType + " in :- \n" + queryEl);
 		}
+		OMElement cacheEl = queryEl.getFirstChildWithName(new QName(DBSFields.CACHE));
+		if (cacheEl != null) {
+			query.setResultCache(createResultCache(query, cacheEl));
+		}
 		return query;
 	}
 
+	private static QueryResultCache createResultCache(Query query, OMElement cacheEl)
+			throws DataServiceFault {
+		if (!query.isReadOnly()) {
+			throw new DataServiceFault("Result caching is only supported for read-only queries "
+					+ "with a result, query: " + query.getQueryId());
+		}
+		long timeToLive;
+		int maxEntries;
+		try {
+			String ttlValue = cacheEl.getAttributeValue(new QName(DBSFields.TIME_TO_LIVE));
+			timeToLive = DBUtils.isEmptyString(ttlValue) ? DEFAULT_RESULT_CACHE_TIME_TO_LIVE :
+					Long.parseLong(ttlValue.trim());
+			String maxEntriesValue = cacheEl.getAttributeValue(new QName(DBSFields.MAX_ENTRIES));
+			maxEntries = DBUtils.isEmptyString(maxEntriesValue) ? DEFAULT_RESULT_CACHE_MAX_ENTRIES :
+					Integer.parseInt(maxEntriesValue.trim());
+		} catch (NumberFormatException e) {
+			throw new DataServiceFault(e, "Invalid result cache configuration in query: "
+					+ query.getQueryId());
+		}
+		if (timeToLive <= 0) {
+			throw new DataServiceFault("The time to live of the cached results must be positive, query: "
+					+ query.getQueryId());
+		}
+		if (maxEntries <= 0) {
+			throw new DataServiceFault("The maximum number of cached results must be positive, query: "
+					+ query.getQueryId());
+		}
+		return new QueryResultCache(timeToLive, maxEntries);
+	}
+
 	private static String getConfigId(OMElement queryEl) {
 		String configId = queryEl.getAttributeValue(new QName(DBSFields.USE_CONFIG));
 		if (configId == null) {
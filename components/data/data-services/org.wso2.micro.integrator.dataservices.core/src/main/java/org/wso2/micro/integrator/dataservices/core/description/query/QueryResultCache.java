@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.description.query;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.wso2.micro.integrator.dataservices.core.DBUtils;
+import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
+import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
+
+/**
+ * Caches the results of a read-only query, configured with the "cache" element of the query
+ * in the data service descriptor. The results are stored as serialized XML fragments, keyed
+ * by the query parameters, and are evicted when their time to live expires or when the
+ * maximum number of entries is reached, least recently used first.
+ * <p>
+ * Each invalidation increments the version of the cache. A result is only stored if the
+ * version has not changed since the query started, so a result read before a write to the
+ * data source is never cached after it.
+ */
+public class QueryResultCache {
+
+	private static final String RESULT_WRAPPER = "cached-result";
+
+	private static final char KEY_SEPARATOR = '\u0000';
+
+	private final long timeToLive;
+
+	private final int maxEntries;
+
+	private final Map<String, CachedQueryResult> entries;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/* incremented on each invalidation, guarded by this cache */
+	private long version;
+
+	/**
+	 * @param timeToLive The time in milliseconds a result is kept
+	 * @param maxEntries The maximum number of results kept
+	 */
+	public QueryResultCache(long timeToLive, final int maxEntries) {
+		this.timeToLive = timeToLive;
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, CachedQueryResult>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedQueryResult> eldest) {
+				if (this.size() > maxEntries) {
+					evictionCount.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Creates the cache key of a query invocation. The user roles are part of the key, since the
+	 * content of the result is filtered by them.
+	 * @param params The parameters of the query invocation
+	 * @param userRoles The roles of the current user, or null if there is no user
+	 * @return The cache key
+	 */
+	public static String createKey(Map<String, ParamValue> params, Set<String> userRoles) {
+		StringBuilder key = new StringBuilder();
+		for (Map.Entry<String, ParamValue> entry : new TreeMap<String, ParamValue>(params).entrySet()) {
+			ParamValue value = entry.getValue();
+			key.append(entry.getKey()).append('=');
+			if (value != null) {
+				key.append(value.getValueType()).append(':').append(value.getValueAsString());
+			}
+			key.append(KEY_SEPARATOR);
+		}
+		if (userRoles != null) {
+			for (String role : new TreeSet<String>(userRoles)) {
+				key.append(KEY_SEPARATOR).append(role);
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Returns the cached result for the given key.
+	 * @param key The cache key
+	 * @return The cached result, or null if there is no result or it has expired
+	 */
+	public CachedQueryResult get(String key) {
+		CachedQueryResult result;
+		synchronized (this) {
+			result = this.entries.get(key);
+			if (result != null && result.isExpired()) {
+				this.entries.remove(key);
+				this.evictionCount.incrementAndGet();
+				result = null;
+			}
+		}
+		if (result == null) {
+			this.missCount.incrementAndGet();
+		} else {
+			this.hitCount.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the current version of the cache, to be passed to
+	 * {@link #put(String, CachedQueryResult, long)} once the result is read.
+	 */
+	public synchronized long getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Stores the given result, unless the cache has been invalidated since the query started.
+	 * @param key The cache key
+	 * @param result The result to be cached
+	 * @param version The version of the cache when the query started
+	 * @return Whether the result was stored
+	 */
+	public synchronized boolean put(String key, CachedQueryResult result, long version) {
+		if (version != this.version) {
+			return false;
+		}
+		this.entries.put(key, result);
+		return true;
+	}
+
+	/**
+	 * Removes all the results, e.g. when a query has written to the data source. The results
+	 * of the queries already running are not stored either.
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+		this.version++;
+	}
+
+	/**
+	 * Removes the expired results.
+	 */
+	public synchronized void removeExpired() {
+		Iterator<CachedQueryResult> itr = this.entries.values().iterator();
+		while (itr.hasNext()) {
+			if (itr.next().isExpired()) {
+				itr.remove();
+				this.evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Creates a writer which captures the output of a query to be cached.
+	 * @param out The stream the captured output is written to
+	 * @return The writer to pass to the query
+	 */
+	static XMLStreamWriter createCaptureWriter(ByteArrayOutputStream out) throws XMLStreamException {
+		XMLStreamWriter xmlWriter = DBUtils.getXMLOutputFactory().createXMLStreamWriter(out, "UTF-8");
+		/* the query output may have several top level elements, so wrap it */
+		xmlWriter.writeStartElement(RESULT_WRAPPER);
+		return xmlWriter;
+	}
+
+	/**
+	 * Completes the output captured with {@link #createCaptureWriter(ByteArrayOutputStream)}.
+	 * @param xmlWriter The capture writer
+	 * @param out The stream the captured output was written to
+	 * @return The cacheable result
+	 */
+	CachedQueryResult completeCapture(XMLStreamWriter xmlWriter, ByteArrayOutputStream out)
+			throws XMLStreamException {
+		xmlWriter.writeEndElement();
+		xmlWriter.close();
+		return new CachedQueryResult(out.toByteArray(), System.currentTimeMillis() + this.timeToLive);
+	}
+
+	/**
+	 * The result of the first phase of a query whose result is not cached yet, along with what
+	 * is needed to cache it once the second phase completes.
+	 */
+	static class PendingQueryResult {
+
+		private final Object result;
+
+		private final String key;
+
+		private final long version;
+
+		PendingQueryResult(Object result, String key, long version) {
+			this.result = result;
+			this.key = key;
+			this.version = version;
+		}
+
+		Object getResult() {
+			return result;
+		}
+
+		String getKey() {
+			return key;
+		}
+
+		long getVersion() {
+			return version;
+		}
+
+	}
+
+	/**
+	 * A query result held in the cache as a serialized XML fragment.
+	 */
+	public static class CachedQueryResult {
+
+		private final byte[] content;
+
+		private final long expiryTime;
+
+		CachedQueryResult(byte[] content, long expiryTime) {
+			this.content = content;
+			this.expiryTime = expiryTime;
+		}
+
+		public boolean isExpired() {
+			return System.currentTimeMillis() >= this.expiryTime;
+		}
+
+		public int getSize() {
+			return this.content.length;
+		}
+
+		/**
+		 * Writes the cached result to the given writer, as the query would have written it.
+		 * @param xmlWriter The writer of the query output
+		 */
+		public void writeTo(XMLStreamWriter xmlWriter) throws DataServiceFault {
+			try {
+				XMLStreamReader reader = DBUtils.getXMLInputFactory().createXMLStreamReader(
+						new ByteArrayInputStream(this.content));
+				try {
+					/* the depth of the current element, the result wrapper is at depth 1 */
+					int depth = 0;
+					while (reader.hasNext()) {
+						int event = reader.next();
+						if (event == XMLStreamConstants.START_ELEMENT) {
+							depth++;
+							if (depth > 1) {
+								writeStartElement(reader, xmlWriter);
+							}
+						} else if (event == XMLStreamConstants.END_ELEMENT) {
+							if (depth > 1) {
+								xmlWriter.writeEndElement();
+							}
+							depth--;
+						} else if (depth > 1 && (event == XMLStreamConstants.CHARACTERS
+								|| event == XMLStreamConstants.SPACE)) {
+							xmlWriter.writeCharacters(reader.getText());
+						} else if (depth > 1 && event == XMLStreamConstants.CDATA) {
+							xmlWriter.writeCData(reader.getText());
+						}
+					}
+				} finally {
+					reader.close();
+				}
+			} catch (XMLStreamException e) {
+				throw new DataServiceFault(e, "Error in writing the cached query result");
+			}
+		}
+
+		private static void writeStartElement(XMLStreamReader reader, XMLStreamWriter xmlWriter)
+				throws XMLStreamException {
+			String prefix = reader.getPrefix();
+			String namespace = reader.getNamespaceURI();
+			if (namespace == null) {
+				xmlWriter.writeStartElement(reader.getLocalName());
+			} else {
+				xmlWriter.writeStartElement(prefix == null ? "" : prefix, reader.getLocalName(),
+						namespace);
+			}
+			for (int i = 0; i < reader.getNamespaceCount(); i++) {
+				String nsPrefix = reader.getNamespacePrefix(i);
+				if (nsPrefix == null || nsPrefix.length() == 0) {
+					xmlWriter.writeDefaultNamespace(reader.getNamespaceURI(i));
+				} else {
+					xmlWriter.writeNamespace(nsPrefix, reader.getNamespaceURI(i));
+				}
+			}
+			for (int i = 0; i < reader.getAttributeCount(); i++) {
+				String attrNamespace = reader.getAttributeNamespace(i);
+				if (attrNamespace == null || attrNamespace.length() == 0) {
+					xmlWriter.writeAttribute(reader.getAttributeLocalName(i),
+							reader.getAttributeValue(i));
+				} else {
+					xmlWriter.writeAttribute(reader.getAttributePrefix(i), attrNamespace,
+							reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+				}
+			}
+		}
+
+	}
+
+}
@@ -64,7 +64,6 @@ import java.sql.DatabaseMetaData;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
@@ -88,6 +87,8 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
 
     private static final Log log = LogFactory.getLog(SQLQuery.class);
 
+    private static final int DEFAULT_PROCESSED_SQL_CACHE_SIZE = 100;
+
     public static final int DS_QUERY_TYPE_NORMAL = 0x01;
 
     public static final int DS_QUERY_TYPE_STORED_PROC = 0x02;
@@ -130,6 +131,14 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
 
     private int queryTimeout;
 
+    private int nestedBatchSize;
+
+    private String nestedBatchParam;
+
+    private String nestedBatchKeyColumn;
+
+    private ProcessedSQLCache processedSQLCache = new ProcessedSQLCache(DEFAULT_PROCESSED_SQL_CACHE_SIZE);
+
     private boolean returnGeneratedKeys;
 
     private boolean returnUpdatedRowCount;
@@ -484,6 +493,42 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         } else {
             this.hasMaxRows = false;
         }
+        /* process nested batching, used when this query is called from the result of another query */
+        String nestedBatchSizeProp = props.get(RDBMS.NESTED_BATCH_SIZE);
+        if (!DBUtils.isEmptyString(nestedBatchSizeProp)) {
+            nestedBatchSizeProp = nestedBatchSizeProp.trim();
+            try {
+                this.nestedBatchSize = Integer.parseInt(nestedBatchSizeProp);
+            } catch (NumberFormatException e) {
+                throw new DataServiceFault(e, "Invalid nested batch size: " + nestedBatchSizeProp
+                        + ", nested batch size should be an integer");
+            }
+            this.nestedBatchParam = props.get(RDBMS.NESTED_BATCH_PARAM);
+            this.nestedBatchKeyColumn = props.get(RDBMS.NESTED_BATCH_KEY_COLUMN);
+            if (this.nestedBatchSize > 1 && (DBUtils.isEmptyString(this.nestedBatchParam)
+                    || DBUtils.isEmptyString(this.nestedBatchKeyColumn))) {
+                throw new DataServiceFault("Both " + RDBMS.NESTED_BATCH_PARAM + " and "
+                        + RDBMS.NESTED_BATCH_KEY_COLUMN + " are required for nested batching in query: "
+                        + this.getQueryId());
+            }
+        }
+        /* process the cache of processed SQL statements, a non-positive size disables it */
+        String processedSQLCacheSizeProp = props.get(RDBMS.PROCESSED_SQL_CACHE_SIZE);
+        if (!DBUtils.isEmptyString(processedSQLCacheSizeProp)) {
+            processedSQLCacheSizeProp = processedSQLCacheSizeProp.trim();
+            int processedSQLCacheSize;
+            try {
+                processedSQLCacheSize = Integer.parseInt(processedSQLCacheSizeProp);
+            } catch (NumberFormatException e) {
+                throw new DataServiceFault(e, "Invalid processed SQL cache size: " + processedSQLCacheSizeProp
+                        + ", processed SQL cache size should be an integer");
+            }
+            if (processedSQLCacheSize > 0) {
+                this.processedSQLCache = new ProcessedSQLCache(processedSQLCacheSize);
+            } else {
+                this.processedSQLCache = null;
+            }
+        }
         /* process query timeout */
         String queryTimeoutProp = props.get(RDBMS.QUERY_TIMEOUT);
         if (!DBUtils.isEmptyString(queryTimeoutProp)) {
@@ -618,6 +663,44 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         return queryType;
     }
 
+    /**
+     * Returns the maximum number of parent rows for which this query is executed at once, when it
+     * is called from the result of another query. The values of the nested batch param of those
+     * rows are passed in together as an array, and the result rows are grouped back to the parent
+     * rows by the nested batch key column.
+     */
+    public int getNestedBatchSize() {
+        return nestedBatchSize;
+    }
+
+    public String getNestedBatchParam() {
+        return nestedBatchParam;
+    }
+
+    public String getNestedBatchKeyColumn() {
+        return nestedBatchKeyColumn;
+    }
+
+    /**
+     * Returns the cache of the SQL statements processed for the shapes of the parameters this
+     * query is invoked with, or null if it is disabled.
+     */
+    public ProcessedSQLCache getProcessedSQLCache() {
+        return processedSQLCache;
+    }
+
+    /**
+     * Only plain SELECT statements are considered read-only, stored procedures may write.
+     */
+    @Override
+    public boolean isReadOnly() {
+        if (!this.hasResult() || this.getQueryType() != SQLQuery.DS_QUERY_TYPE_NORMAL) {
+            return false;
+        }
+        String sql = this.getQuery().trim();
+        return sql.regionMatches(true, 0, "SELECT", 0, 6) || sql.regionMatches(true, 0, "WITH", 0, 4);
+    }
+
     public SQLConfig getConfig() {
         return config;
     }
@@ -733,8 +816,10 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         DataEntry dataEntry;
         try {
             krs = stmt.getGeneratedKeys();
+            ResultSet keysRS = new ResultSetWrapper(krs);
+            SQLRowMapper rowMapper = this.createRowMapper(keysRS);
             while (krs.next()) {
-                dataEntry = this.getDataEntryFromRS(new ResultSetWrapper(krs));
+                dataEntry = rowMapper.mapRow(keysRS);
                 this.writeResultEntry(xmlWriter, dataEntry, params, queryLevel);
             }
         } finally {
@@ -843,8 +928,10 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                 }
             } else {
                 DataEntry dataEntry;
+                ResultSet resultRS = new ResultSetWrapper(rs);
+                SQLRowMapper rowMapper = this.createRowMapper(resultRS);
                 while (rs.next()) {
-                    dataEntry = this.getDataEntryFromRS(new ResultSetWrapper(rs));
+                    dataEntry = rowMapper.mapRow(resultRS);
                     this.writeResultEntry(xmlWriter, dataEntry, params, queryLevel);
                 }
             }
@@ -1018,8 +1105,10 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                     } else {
                         /* do-while loop since, 'rs.next()' has already been called once */
                         DataEntry dataEntry;
+                        ResultSet resultRS = new ResultSetWrapper(rs);
+                        SQLRowMapper rowMapper = this.createRowMapper(resultRS);
                         do {
-                            dataEntry = this.getDataEntryFromRS(new ResultSetWrapper(rs));
+                            dataEntry = rowMapper.mapRow(resultRS);
                             this.writeResultEntry(xmlWriter, dataEntry, params, queryLevel);
                         } while (rs.next());
                     }
@@ -1065,8 +1154,10 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                 return entries;
             }
         }
+        ResultSet resultRS = new ResultSetWrapper(rs);
+        SQLRowMapper rowMapper = this.createRowMapper(resultRS);
         do {
-            entries.add(this.getDataEntryFromRS(new ResultSetWrapper(rs)));
+            entries.add(rowMapper.mapRow(resultRS));
         } while (rs.next());
         return entries;
     }
@@ -1133,205 +1224,13 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         return dataEntry;
     }
 
-    private DataEntry getDataEntryFromRS(ResultSet rs) throws SQLException {
-        DataEntry dataEntry = new DataEntry();
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        int columnType;
-        String value;
-        ParamValue paramValue;
-        Time sqlTime;
-        Date sqlDate;
-        Timestamp sqlTimestamp;
-        Blob sqlBlob;
-        BigDecimal bigDecimal;
-        InputStream binInStream;
-        boolean useColumnNumbers = this.isUsingColumnNumbers();
-        for (int i = 1; i <= columnCount; i++) {
-            /* retrieve values according to the column type */
-            columnType = metaData.getColumnType(i);
-            switch (columnType) {
-            /* handle string types */
-            case Types.VARCHAR:
-                /* fall through */
-            case Types.LONGVARCHAR:
-                /* fall through */
-            case Types.CHAR:
-                /* fall through */
-            case Types.CLOB:
-                /* fall through */
-            case Types.NCHAR:
-                /* fall through */
-            case Types.NCLOB:
-                /* fall through */
-            case Types.NVARCHAR:
-                /* fall through */
-            case Types.LONGNVARCHAR:
-                value = rs.getString(i);
-                paramValue = new ParamValue(value);
-                break;
-            /* handle numbers */
-            case Types.INTEGER:
-                /* fall through */
-            case Types.TINYINT:
-                /* fall through */
-            case Types.SMALLINT:
-                value = ConverterUtil.convertToString(rs.getInt(i));
-                paramValue = new ParamValue(rs.wasNull() ? null : value);
-                break;
-            case Types.DOUBLE:
-                value = ConverterUtil.convertToString(rs.getDouble(i));
-                paramValue = new ParamValue(rs.wasNull() ? null : value);
-                break;
-            case Types.FLOAT:
-                value = ConverterUtil.convertToString(rs.getFloat(i));
-                paramValue = new ParamValue(rs.wasNull() ? null : value);
-                break;
-            case Types.BOOLEAN:
-                /* fall through */
-            case Types.BIT:
-                value = ConverterUtil.convertToString(rs.getBoolean(i));
-                paramValue = new ParamValue(rs.wasNull() ? null : value);
-                break;
-            case Types.DECIMAL:
-                bigDecimal = rs.getBigDecimal(i);
-                if (bigDecimal != null) {
-                    value = ConverterUtil.convertToString(bigDecimal);
-                } else {
-                    value = null;
-                }
-                paramValue = new ParamValue(value);
-                break;
-            /* handle data/time values */
-            case Types.TIME:
-                /* handle time data type */
-                sqlTime = rs.getTime(i);
-                if (sqlTime != null) {
-                    value = this.convertToTimeString(sqlTime);
-                } else {
-                    value = null;
-                }
-                paramValue = new ParamValue(value);
-                break;
-            case Types.DATE:
-                /* handle date data type */
-                sqlDate = rs.getDate(i);
-                if (sqlDate != null) {
-                    value = ConverterUtil.convertToString(sqlDate);
-                } else {
-                    value = null;
-                }
-                paramValue = new ParamValue(value);
-                break;
-            case Types.TIMESTAMP:
-                if (timeConvertEnabled) {
-                    sqlTimestamp = rs.getTimestamp(i, calendar);
-                } else {
-                    sqlTimestamp = rs.getTimestamp(i);
-                }
-                if (sqlTimestamp != null) {
-                    value = this.convertToTimestampString(sqlTimestamp);
-                } else {
-                    value = null;
-                }
-                paramValue = new ParamValue(value);
-                break;
-            /* handle binary types */
-            case Types.BLOB:
-                sqlBlob = rs.getBlob(i);
-                if (sqlBlob != null) {
-                    value = this.getBase64StringFromInputStream(sqlBlob.getBinaryStream());
-                } else {
-                    value = null;
-                }
-                paramValue = new ParamValue(value);
-                break;
-            case Types.BINARY:
-                /* fall through */
-            case Types.LONGVARBINARY:
-                /* fall through */
-            case Types.VARBINARY:
-                binInStream = rs.getBinaryStream(i);
-                if (binInStream != null) {
-                    value = this.getBase64StringFromInputStream(binInStream);
-                } else {
-                    value = null;
-                }
-                paramValue = new ParamValue(value);
-                break;
-            /* handling User Defined Types */
-            case Types.STRUCT:
-                Struct udt = (Struct) rs.getObject(i);
-                paramValue = new ParamValue(udt);
-                break;
-            case Types.ARRAY:
-                paramValue = new ParamValue(ParamValue.PARAM_VALUE_ARRAY);
-                Array dataArray = (Array) rs.getObject(i);
-                if (dataArray == null) {
-                    break;
-                }
-                paramValue = this.processSQLArray(dataArray, paramValue);
-                break;
-            case Types.NUMERIC:
-                bigDecimal = rs.getBigDecimal(i);
-                if (bigDecimal != null) {
-                    value = ConverterUtil.convertToString(bigDecimal);
-                } else {
-                    value = null;
-                }
-                paramValue = new ParamValue(value);
-                break;
-            case Types.BIGINT:
-                value = ConverterUtil.convertToString(rs.getLong(i));
-                paramValue = new ParamValue(rs.wasNull() ? null : value);
-                break;
-
-            /* handle all other types as strings */
-            default:
-                value = rs.getString(i);
-                paramValue = new ParamValue(value);
-                break;
-            }
-            dataEntry.addValue(useColumnNumbers ? Integer.toString(i) : metaData.getColumnLabel(i),
-                    paramValue);
-        }
-        return dataEntry;
-    }
-
     /**
-     * Processes a SQL Array instance and transform it into a ParamValue
-     * instance
-     *
-     * @param dataArray
-     *            SQLArray instance
-     * @param paramValue
-     *            Container into which the SQLArray elements should be populated
-     * @return ParamValue instance containing all the elements of the
-     *         corresponding SQLArray instance
-     * @throws SQLException
-     *             When it fails to processes the result set produced by the
-     *             SQLArray instance
+     * Creates the mapper of the rows of the given result set, which resolves the column types once for the
+     * result set.
      */
-    private ParamValue processSQLArray(Array dataArray, ParamValue paramValue) throws SQLException {
-        ResultSet rs = null;
-        try {
-            rs = dataArray.getResultSet();
-            while (rs.next()) {
-                Object arrayEl = rs.getObject(2);
-                if (arrayEl instanceof Struct) {
-                    paramValue.getArrayValue().add(new ParamValue((Struct) arrayEl));
-                } else if (arrayEl instanceof Array) {
-                    paramValue.getArrayValue().add(
-                            processSQLArray((Array) arrayEl, new ParamValue(
-                                    ParamValue.PARAM_VALUE_ARRAY)));
-                } else {
-                    paramValue.getArrayValue().add(new ParamValue(String.valueOf(arrayEl)));
-                }
-            }
-            return paramValue;
-        } finally {
-            this.releaseResources(rs, null);
-        }
+    private SQLRowMapper createRowMapper(ResultSet rs) throws SQLException {
+        return new SQLRowMapper(rs.getMetaData(), this.isUsingColumnNumbers(),
+                this.timeConvertEnabled ? this.calendar : null);
     }
 
     public static String convertToTimeString(Time sqlTime) {
@@ -1392,23 +1291,10 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
             /*Creating a new update query based on the parameters passed in the payload, checking whether the missing
              parameters are optional*/
             String query = this.getQuery();
+            ProcessedSQLCache sqlCache = this.getProcessedSQLCache();
+            String sqlCacheKey = null;
+            ProcessedSQLCache.ProcessedSQL cachedSQL = null;
 
-            boolean hasOptional = false;
-            for (QueryParam queryParam : this.getQueryParams()) {
-                if (queryParam.isOptional()) {
-                    hasOptional = true;
-                    break;
-                }
-            }
-
-            if (getSqlQueryType() == QueryType.UPDATE && hasOptional) {
-                query = generateSQLupdateQuery(params, query);
-            }
-
-            String paramsStr1 = "";
-            for (int i = 1; i <= this.getParamCount(); i++) {
-                paramsStr1 = paramsStr1 + params.getParam(i) + ",";
-            }
             /*
              * lets see first if there's already a batch prepared statement
              * created
@@ -1419,15 +1305,40 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
 
             /* create a new prepared statement */
             if (stmt == null) {
-                /* batch mode is not supported for dynamic queries */
-                Object[] result = this.processDynamicQuery(query, params);
-                String dynamicSQL = (String) result[0];
-                currentParamCount = (Integer) result[1];
-                String processedSQL = this.createProcessedQuery(dynamicSQL, params, currentParamCount);
+                /* the processed SQL only depends on the shape of the params, so look it up before they are changed */
+                if (sqlCache != null) {
+                    sqlCacheKey = ProcessedSQLCache.createKey(params, currentParamCount);
+                    cachedSQL = sqlCache.get(sqlCacheKey);
+                }
+                String processedSQL;
+                if (cachedSQL != null) {
+                    this.reorderDynamicQueryParams(params);
+                    processedSQL = cachedSQL.getSql();
+                    currentParamCount = cachedSQL.getParamCount();
+                } else {
+                    boolean hasOptional = false;
+                    for (QueryParam queryParam : this.getQueryParams()) {
+                        if (queryParam.isOptional()) {
+                            hasOptional = true;
+                            break;
+                        }
+                    }
+                    if (getSqlQueryType() == QueryType.UPDATE && hasOptional) {
+                        query = generateSQLupdateQuery(params, query);
+                    }
+                    /* batch mode is not supported for dynamic queries */
+                    Object[] result = this.processDynamicQuery(query, params);
+                    String dynamicSQL = (String) result[0];
+                    currentParamCount = (Integer) result[1];
+                    processedSQL = this.createProcessedQuery(dynamicSQL, params, currentParamCount);
+                    if (sqlCache != null) {
+                        sqlCache.put(sqlCacheKey, new ProcessedSQLCache.ProcessedSQL(processedSQL, currentParamCount));
+                    }
+                }
                 if (log.isDebugEnabled()) {
-                    String paramsStr = "";
+                    StringBuilder paramsStr = new StringBuilder();
                     for (int i = 1; i <= this.getParamCount(); i++) {
-                        paramsStr = paramsStr + params.getParam(i) + ",";
+                        paramsStr.append(params.getParam(i)).append(',');
                     }
                     log.debug("Starting DB calls: for \"" + processedSQL + "\" with params - " + paramsStr +
                               ", ThreadID - " + Thread.currentThread().getId());
@@ -2262,7 +2173,7 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                 Array dataArray = cs.getArray(ordinal);
                 ParamValue paramValue = new ParamValue(ParamValue.PARAM_VALUE_ARRAY);
                 if (dataArray != null) {
-                    this.processSQLArray(dataArray, paramValue);
+                    SQLRowMapper.processSQLArray(dataArray, paramValue);
                 }
                 return paramValue;
             } else if (type.equals(DBConstants.DataTypes.NUMERIC)) {
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.description.query;
+
+import org.apache.axis2.databinding.utils.ConverterUtil;
+import org.wso2.micro.integrator.dataservices.core.engine.DataEntry;
+import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
+import org.wso2.micro.integrator.dataservices.core.engine.PrimitiveParamValue;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Struct;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Calendar;
+
+/**
+ * Maps the rows of a result set to data entries. The column names and the extractors of the column values are
+ * resolved once from the result set metadata, instead of for every row.
+ */
+class SQLRowMapper {
+
+    private final String[] columnNames;
+
+    private final ColumnExtractor[] extractors;
+
+    /**
+     * @param metaData         the metadata of the result set
+     * @param useColumnNumbers whether the values are named by the column numbers instead of the column labels
+     * @param calendar         the calendar used to read timestamps, or null to use the default time zone
+     * @throws SQLException if the metadata cannot be read
+     */
+    SQLRowMapper(ResultSetMetaData metaData, boolean useColumnNumbers, Calendar calendar) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        this.columnNames = new String[columnCount];
+        this.extractors = new ColumnExtractor[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            this.columnNames[i] = useColumnNumbers ? Integer.toString(i + 1) : metaData.getColumnLabel(i + 1);
+            this.extractors[i] = createExtractor(metaData.getColumnType(i + 1), calendar);
+        }
+    }
+
+    /**
+     * Maps the current row of the given result set to a data entry.
+     */
+    DataEntry mapRow(ResultSet rs) throws SQLException {
+        DataEntry dataEntry = new DataEntry(this.columnNames.length);
+        for (int i = 0; i < this.columnNames.length; i++) {
+            dataEntry.addValue(this.columnNames[i], this.extractors[i].extract(rs, i + 1));
+        }
+        return dataEntry;
+    }
+
+    private static ColumnExtractor createExtractor(int columnType, final Calendar calendar) {
+        switch (columnType) {
+        /* handle string types */
+        case Types.VARCHAR:
+        case Types.LONGVARCHAR:
+        case Types.CHAR:
+        case Types.CLOB:
+        case Types.NCHAR:
+        case Types.NCLOB:
+        case Types.NVARCHAR:
+        case Types.LONGNVARCHAR:
+            return STRING_EXTRACTOR;
+        /* handle numbers, which are kept as primitives until they are serialized */
+        case Types.INTEGER:
+        case Types.TINYINT:
+        case Types.SMALLINT:
+            return (rs, i) -> {
+                int value = rs.getInt(i);
+                return rs.wasNull() ? new ParamValue((String) null) : PrimitiveParamValue.ofInt(value);
+            };
+        case Types.BIGINT:
+            return (rs, i) -> {
+                long value = rs.getLong(i);
+                return rs.wasNull() ? new ParamValue((String) null) : PrimitiveParamValue.ofLong(value);
+            };
+        case Types.DOUBLE:
+            return (rs, i) -> {
+                double value = rs.getDouble(i);
+                return rs.wasNull() ? new ParamValue((String) null) : PrimitiveParamValue.ofDouble(value);
+            };
+        case Types.FLOAT:
+            return (rs, i) -> {
+                float value = rs.getFloat(i);
+                return rs.wasNull() ? new ParamValue((String) null) : PrimitiveParamValue.ofFloat(value);
+            };
+        case Types.BOOLEAN:
+        case Types.BIT:
+            return (rs, i) -> {
+                boolean value = rs.getBoolean(i);
+                return rs.wasNull() ? new ParamValue((String) null) : PrimitiveParamValue.ofBoolean(value);
+            };
+        case Types.DECIMAL:
+        case Types.NUMERIC:
+            return (rs, i) -> {
+                BigDecimal value = rs.getBigDecimal(i);
+                return new ParamValue(value != null ? ConverterUtil.convertToString(value) : null);
+            };
+        /* handle data/time values */
+        case Types.TIME:
+            return (rs, i) -> {
+                Time value = rs.getTime(i);
+                return new ParamValue(value != null ? SQLQuery.convertToTimeString(value) : null);
+            };
+        case Types.DATE:
+            return (rs, i) -> {
+                Date value = rs.getDate(i);
+                return new ParamValue(value != null ? ConverterUtil.convertToString(value) : null);
+            };
+        case Types.TIMESTAMP:
+            return (rs, i) -> {
+                Timestamp value = calendar != null ? rs.getTimestamp(i, calendar) : rs.getTimestamp(i);
+                return new ParamValue(value != null ? SQLQuery.convertToTimestampString(value) : null);
+            };
+        /* handle binary types */
+        case Types.BLOB:
+            return (rs, i) -> {
+                Blob value = rs.getBlob(i);
+                return new ParamValue(value != null ?
+                        SQLQuery.getBase64StringFromInputStream(value.getBinaryStream()) : null);
+            };
+        case Types.BINARY:
+        case Types.LONGVARBINARY:
+        case Types.VARBINARY:
+            return (rs, i) -> {
+                InputStream value = rs.getBinaryStream(i);
+                return new ParamValue(value != null ? SQLQuery.getBase64StringFromInputStream(value) : null);
+            };
+        /* handling User Defined Types */
+        case Types.STRUCT:
+            return (rs, i) -> new ParamValue((Struct) rs.getObject(i));
+        case Types.ARRAY:
+            return (rs, i) -> {
+                ParamValue paramValue = new ParamValue(ParamValue.PARAM_VALUE_ARRAY);
+                Array value = (Array) rs.getObject(i);
+                return value != null ? processSQLArray(value, paramValue) : paramValue;
+            };
+        /* handle all other types as strings */
+        default:
+            return STRING_EXTRACTOR;
+        }
+    }
+
+    private static final ColumnExtractor STRING_EXTRACTOR = (rs, i) -> new ParamValue(rs.getString(i));
+
+    /**
+     * Processes a SQL Array instance and transform it into a ParamValue
+     * instance
+     *
+     * @param dataArray
+     *            SQLArray instance
+     * @param paramValue
+     *            Container into which the SQLArray elements should be populated
+     * @return ParamValue instance containing all the elements of the
+     *         corresponding SQLArray instance
+     * @throws SQLException
+     *             When it fails to processes the result set produced by the
+     *             SQLArray instance
+     */
+    static ParamValue processSQLArray(Array dataArray, ParamValue paramValue) throws SQLException {
+        ResultSet rs = null;
+        try {
+            rs = dataArray.getResultSet();
+            while (rs.next()) {
+                Object arrayEl = rs.getObject(2);
+                if (arrayEl instanceof Struct) {
+                    paramValue.getArrayValue().add(new ParamValue((Struct) arrayEl));
+                } else if (arrayEl instanceof Array) {
+                    paramValue.getArrayValue().add(
+                            processSQLArray((Array) arrayEl, new ParamValue(
+                                    ParamValue.PARAM_VALUE_ARRAY)));
+                } else {
+                    paramValue.getArrayValue().add(new ParamValue(String.valueOf(arrayEl)));
+                }
+            }
+            return paramValue;
+        } finally {
+            if (rs != null) {
+                try {
+                    rs.close();
+                } catch (Exception ignore) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Extracts the value of a column from the current row of a result set.
+     */
+    private interface ColumnExtractor {
+
+        ParamValue extract(ResultSet rs, int column) throws SQLException;
+
+    }
+
+}
@@ -142,6 +142,7 @@ public class BatchDataServiceRequest extends DataServiceRequest {
             }
             TLConnectionStore.closeAll();
         }
+        DataService.invalidateWrittenQueryResultCaches();
 	}
 
 }
@@ -27,6 +27,7 @@ import org.wso2.micro.integrator.dataservices.core.DSSessionManager;
 import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
 import org.wso2.micro.integrator.dataservices.core.TLConnectionStore;
 import org.wso2.micro.integrator.dataservices.core.boxcarring.TLParamStore;
+import org.wso2.micro.integrator.dataservices.core.engine.DataService;
 
 /**
  * Boxcarring data service request for service call grouping.
@@ -110,6 +111,7 @@ public class BoxcarringDataServiceRequest extends DataServiceRequest {
                 this.getDataService().getDSSTxManager().commit();
             }
         }
+        DataService.invalidateWrittenQueryResultCaches();
     }
 	
 	private OMElement createBoxcarringRequestResultWrapper() {
@@ -104,6 +104,7 @@ public class RequestBoxRequest extends DataServiceRequest {
                 this.getDataService().getDSSTxManager().commit();
             }
         }
+        DataService.invalidateWrittenQueryResultCaches();
     }
 }
 
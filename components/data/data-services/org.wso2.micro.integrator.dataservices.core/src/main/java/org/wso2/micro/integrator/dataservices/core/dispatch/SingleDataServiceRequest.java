@@ -17,7 +17,9 @@
  */
 package org.wso2.micro.integrator.dataservices.core.dispatch;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
@@ -29,8 +31,10 @@ import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
 import org.wso2.micro.integrator.dataservices.core.XSLTTransformer;
 import org.wso2.micro.integrator.dataservices.core.description.event.EventTrigger;
 import org.wso2.micro.integrator.dataservices.core.description.query.Query;
+import org.wso2.micro.integrator.dataservices.core.engine.CallQuery;
 import org.wso2.micro.integrator.dataservices.core.engine.DSOMDataSource;
 import org.wso2.micro.integrator.dataservices.core.engine.DataService;
+import org.wso2.micro.integrator.dataservices.core.engine.OutputElementGroup;
 import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
 import org.wso2.micro.integrator.dataservices.core.engine.Result;
 
@@ -91,6 +95,20 @@ public class SingleDataServiceRequest extends DataServiceRequest {
 
                 /* process events */
                 this.processOutputEvents(result, defQuery);
+
+                /*
+                 * If the result is sent out as it is, let it be serialized straight to the
+                 * transport's writer, e.g. the JSON formatter, without building it first.
+                 * Such a result is executed again on each serialization, hence only read-only
+                 * queries are streamed.
+                 */
+                if (result instanceof OMSourcedElementImpl
+                        && ((OMSourcedElementImpl) result).getDataSource() == dsomDS && !this.isDisableStreaming()
+                        && !DispatchStatus.isBatchRequest() && !DispatchStatus.isBoxcarringRequest()
+                        && defQuery.getOutputEventTrigger() == null
+                        && this.isReadOnly(defQuery, new HashSet<Query>())) {
+                    dsomDS.setStreamingResult(true);
+                }
             }
 			return result;
 		} catch (DataServiceFault e) {
@@ -120,6 +138,37 @@ public class SingleDataServiceRequest extends DataServiceRequest {
 		}
 	}
 
+	/**
+	 * Checks whether the given query, and the queries nested in its result, are read-only.
+	 */
+	private boolean isReadOnly(Query query, Set<Query> visited) {
+		if (!visited.add(query)) {
+			return true;
+		}
+		if (!query.isReadOnly()) {
+			return false;
+		}
+		Result result = query.getResult();
+		return result == null || this.isReadOnly(result.getDefaultElementGroup(), visited);
+	}
+
+	private boolean isReadOnly(OutputElementGroup group, Set<Query> visited) {
+		if (group == null) {
+			return true;
+		}
+		for (CallQuery callQuery : group.getCallQueryEntries()) {
+			if (!this.isReadOnly(callQuery.getQuery(), visited)) {
+				return false;
+			}
+		}
+		for (OutputElementGroup nestedGroup : group.getOutputElementGroupEntries()) {
+			if (!this.isReadOnly(nestedGroup, visited)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private OMElement executeXsltTranformation(OMElement input, Query query)
             throws DataServiceFault {
 		Result result = query.getResult();
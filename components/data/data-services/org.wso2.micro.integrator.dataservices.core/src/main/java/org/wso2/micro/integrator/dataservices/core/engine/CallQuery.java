@@ -19,11 +19,13 @@ package org.wso2.micro.integrator.dataservices.core.engine;
 
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.databinding.types.NCName;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.micro.core.Constants;
 import org.wso2.micro.integrator.dataservices.common.DBConstants;
 import org.wso2.micro.integrator.dataservices.common.DBConstants.DBSFields;
 import org.wso2.micro.integrator.dataservices.common.DBConstants.FaultCodes;
-import org.wso2.micro.integrator.dataservices.core.DataServiceFault;import org.wso2.micro.integrator.dataservices.core.description.query.Query;import org.wso2.micro.integrator.dataservices.core.description.query.SQLQuery;
+import org.wso2.micro.integrator.dataservices.core.DataServiceFault;import org.wso2.micro.integrator.dataservices.core.description.query.NestedQueryBatch;import org.wso2.micro.integrator.dataservices.core.description.query.Query;import org.wso2.micro.integrator.dataservices.core.description.query.SQLQuery;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
@@ -40,6 +42,8 @@ import java.util.Map.Entry;
  */
 public class CallQuery extends OutputElement {
 
+	private static final Log log = LogFactory.getLog(CallQuery.class);
+
 	private DataService dataService;
 
 	private String queryId;
@@ -49,6 +53,13 @@ public class CallQuery extends OutputElement {
 	/* key - target query's query-param name, value - withparam */
     private Map<String, WithParam> withParams;
 
+	/* whether the executions of this call-query for the result entries of the parent query
+	 * can be batched into a single execution of the query */
+	private boolean batchable;
+
+	/* the name of the query param, which takes the values of all the entries in a batch */
+	private String nestedBatchParam;
+
 	public CallQuery(DataService dataService, String queryId, Map<String, WithParam> withParams,
 			Set<String> requiredRoles) {
         super(null, requiredRoles);
@@ -64,6 +75,58 @@ public class CallQuery extends OutputElement {
                     "Query with the query id: '" + this.getQueryId() + "' cannot be found");
         }
         this.setNamespace(this.getQuery().getNamespace());
+        this.batchable = this.checkBatchable();
+	}
+
+	/**
+	 * Checks whether the query of this call-query has been configured for batched execution,
+	 * and can be executed once for a batch of parent result entries, i.e. it is a read-only SQL
+	 * query which takes the batched values as an array parameter.
+	 */
+	private boolean checkBatchable() {
+		if (!(this.getQuery() instanceof SQLQuery)) {
+			return false;
+		}
+		SQLQuery sqlQuery = (SQLQuery) this.getQuery();
+		if (sqlQuery.getNestedBatchSize() <= 1) {
+			return false;
+		}
+		if (!sqlQuery.isReadOnly() || sqlQuery.isHasMaxRows() || sqlQuery.getInputEventTrigger() != null
+				|| sqlQuery.getOutputEventTrigger() != null) {
+			log.warn("Nested batching is disabled for query: " + sqlQuery.getQueryId()
+					+ ", since it is not a read-only SELECT query without max rows or events");
+			return false;
+		}
+		for (QueryParam queryParam : sqlQuery.getQueryParams()) {
+			if (queryParam.getName().equalsIgnoreCase(sqlQuery.getNestedBatchParam())) {
+				if (!DBConstants.QueryParamTypes.ARRAY.equals(queryParam.getParamType())) {
+					log.warn("Nested batching is disabled for query: " + sqlQuery.getQueryId()
+							+ ", since the param: " + queryParam.getName() + " is not an array");
+					return false;
+				}
+				this.nestedBatchParam = queryParam.getName();
+				return true;
+			}
+		}
+		log.warn("Nested batching is disabled for query: " + sqlQuery.getQueryId()
+				+ ", since it does not have the param: " + sqlQuery.getNestedBatchParam());
+		return false;
+	}
+
+	public boolean isBatchable() {
+		return batchable;
+	}
+
+	public String getNestedBatchParam() {
+		return nestedBatchParam;
+	}
+
+	public String getNestedBatchKeyColumn() {
+		return ((SQLQuery) this.getQuery()).getNestedBatchKeyColumn();
+	}
+
+	public int getNestedBatchSize() {
+		return ((SQLQuery) this.getQuery()).getNestedBatchSize();
 	}
 	
 	public Map<String, WithParam> getWithParams() {
@@ -272,14 +335,18 @@ public class CallQuery extends OutputElement {
                         this.getQuery().getResult().getResultType());
             }
 
-			 /* handle default values */
-            this.processDefaultValues(params);
-		    /* convert/filter params according to the WithParams */
-            Map<String, ParamValue> qparams = extractParams(params);
-		    /* execute query */
-            this.getQuery().execute(xmlWriter, qparams, queryLevel);
-		    /* clear temp values */
-            params.clearTempValues();
+            Map<String, ParamValue> qparams = this.createQueryParams(params);
+            List<DataEntry> prefetchedResult = null;
+            if (this.isBatchable()) {
+                prefetchedResult = NestedQueryBatch.getPrefetchedResult(this, qparams);
+            }
+            if (prefetchedResult != null) {
+                /* the query has already been executed for the whole batch of parent entries */
+                this.getQuery().writePrefetchedResult(xmlWriter, qparams, prefetchedResult, queryLevel);
+            } else {
+                /* execute query */
+                this.getQuery().execute(xmlWriter, qparams, queryLevel);
+            }
 
 			/* end write result wrapper */
             if (this.isHasResult() && this.getResultWrapper() != null) {
@@ -290,6 +357,21 @@ public class CallQuery extends OutputElement {
         }
     }
 
+    /**
+     * Creates the parameters, which the query of this call-query is executed with, from the
+     * given parameters of the parent query.
+     */
+    public Map<String, ParamValue> createQueryParams(ExternalParamCollection params)
+            throws DataServiceFault {
+        /* handle default values */
+        this.processDefaultValues(params);
+        /* convert/filter params according to the WithParams */
+        Map<String, ParamValue> qparams = this.extractParams(params);
+        /* clear temp values */
+        params.clearTempValues();
+        return qparams;
+    }
+
     /**
 	 * Convert's a call-query's ExternalParams to parameters (parameter map)
 	 * that can be passed into actual query objects, by making necessary
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.engine;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-memory output stream which stores the written bytes in fixed size chunks, so that
+ * the buffer never has to be copied when it grows. The content is read back with
+ * {@link #getInputStream()}, which releases each chunk as soon as it has been read, so that
+ * the memory held by the buffer shrinks while the content is being consumed.
+ */
+public class ChunkedOutputBuffer extends OutputStream {
+
+	private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+	private final int chunkSize;
+
+	private final List<byte[]> chunks = new ArrayList<byte[]>();
+
+	private byte[] currentChunk;
+
+	private int currentChunkPos;
+
+	private boolean consumed;
+
+	public ChunkedOutputBuffer() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	public ChunkedOutputBuffer(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public void write(int b) {
+		this.ensureCapacity();
+		this.currentChunk[this.currentChunkPos++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		while (len > 0) {
+			this.ensureCapacity();
+			int count = Math.min(len, this.chunkSize - this.currentChunkPos);
+			System.arraycopy(b, off, this.currentChunk, this.currentChunkPos, count);
+			this.currentChunkPos += count;
+			off += count;
+			len -= count;
+		}
+	}
+
+	private void ensureCapacity() {
+		if (this.consumed) {
+			throw new IllegalStateException("The buffer has already been consumed");
+		}
+		if (this.currentChunk == null || this.currentChunkPos == this.chunkSize) {
+			this.currentChunk = new byte[this.chunkSize];
+			this.currentChunkPos = 0;
+			this.chunks.add(this.currentChunk);
+		}
+	}
+
+	/**
+	 * Returns the content of the buffer as a stream. The buffer can be read only once and
+	 * nothing can be written to it afterwards.
+	 * @return The content of the buffer
+	 */
+	public InputStream getInputStream() {
+		this.consumed = true;
+		return new ChunkInputStream();
+	}
+
+	private class ChunkInputStream extends InputStream {
+
+		private int chunkIndex;
+
+		private int pos;
+
+		private int remaining() {
+			int i = this.chunkIndex;
+			if (i >= chunks.size()) {
+				return 0;
+			}
+			int limit = (i == chunks.size() - 1) ? currentChunkPos : chunkSize;
+			return limit - this.pos;
+		}
+
+		private boolean nextChunk() {
+			while (this.chunkIndex < chunks.size() && this.remaining() == 0) {
+				/* release the chunk which has been read */
+				chunks.set(this.chunkIndex, null);
+				this.chunkIndex++;
+				this.pos = 0;
+			}
+			return this.chunkIndex < chunks.size();
+		}
+
+		@Override
+		public int read() {
+			if (!this.nextChunk()) {
+				return -1;
+			}
+			return chunks.get(this.chunkIndex)[this.pos++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!this.nextChunk()) {
+				return -1;
+			}
+			int count = Math.min(len, this.remaining());
+			System.arraycopy(chunks.get(this.chunkIndex), this.pos, b, off, count);
+			this.pos += count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return this.remaining();
+		}
+
+	}
+
+}
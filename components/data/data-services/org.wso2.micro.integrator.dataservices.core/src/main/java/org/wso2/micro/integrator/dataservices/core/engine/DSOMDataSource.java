@@ -19,15 +19,18 @@ package org.wso2.micro.integrator.dataservices.core.engine;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
-import org.apache.axiom.om.OMDataSource;
+import org.apache.axiom.om.OMDataSourceExt;
 import org.apache.axiom.om.OMOutputFormat;
 import org.apache.commons.io.output.NullOutputStream;
 import org.wso2.micro.integrator.dataservices.core.DBUtils;import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
@@ -38,15 +41,20 @@ import org.wso2.micro.integrator.dataservices.core.DBUtils;import org.wso2.micro
  * and it is used in on-demand data retrieval, and effectively
  * streaming data.
  */
-public class DSOMDataSource implements OMDataSource {
-	
-	private static final int XMLREADER_DEFAULT_MESSAGE_SIZE = 1024;
+public class DSOMDataSource implements OMDataSourceExt {
 
 	private DataService dataService;
 	
 	private String opName;
 	
 	private Map<String, ParamValue> params;
+
+	/**
+	 * Whether the result can be serialized directly to a writer, instead of being built first
+	 */
+	private boolean streamingResult;
+
+	private Map<String, Object> properties;
 			
 	public DSOMDataSource(DataService dataService, String opName,
 			Map<String, ParamValue> params) {
@@ -67,6 +75,21 @@ public class DSOMDataSource implements OMDataSource {
 		return params;
 	}
 
+	/**
+	 * Sets whether the result is sent out as it is, so that serializing it to a writer, such as
+	 * the one of the JSON message formatter, can execute the request directly against that
+	 * writer instead of building the result in memory first. Each such serialization executes
+	 * the request again, so this must only be set when the result is serialized once.
+	 * @param streamingResult Whether the result can be serialized directly to a writer
+	 */
+	public void setStreamingResult(boolean streamingResult) {
+		this.streamingResult = streamingResult;
+	}
+
+	public boolean isStreamingResult() {
+		return streamingResult;
+	}
+
 	/**
 	 * This method is called when the current request is a in-only operations,
 	 * so a result is not expected.
@@ -105,13 +128,77 @@ public class DSOMDataSource implements OMDataSource {
 		this.execute(xmlWriter);
 	}
 
+	/**
+	 * The result is written to a chunked buffer which is released while the reader consumes it,
+	 * so the serialized result is held in memory once, and never copied.
+	 */
 	public XMLStreamReader getReader() throws XMLStreamException {
-		ByteArrayOutputStream byteOut = new ByteArrayOutputStream(XMLREADER_DEFAULT_MESSAGE_SIZE);
-		XMLStreamWriter xmlWriter = DBUtils.getXMLOutputFactory().createXMLStreamWriter(byteOut);
+		ChunkedOutputBuffer buffer = new ChunkedOutputBuffer();
+		XMLStreamWriter xmlWriter = DBUtils.getXMLOutputFactory().createXMLStreamWriter(buffer);
 		this.serialize(xmlWriter);
 	    xmlWriter.close();
-		ByteArrayInputStream byteIn = new ByteArrayInputStream(byteOut.toByteArray());
-		return DBUtils.getXMLInputFactory().createXMLStreamReader(byteIn);
+		return DBUtils.getXMLInputFactory().createXMLStreamReader(buffer.getInputStream());
+	}
+
+	public Object getObject() {
+		return null;
+	}
+
+	/**
+	 * Each read executes the request again.
+	 */
+	public boolean isDestructiveRead() {
+		return false;
+	}
+
+	/**
+	 * When the result is not a streaming result, it is built on the first serialization, so
+	 * that the request is executed only once.
+	 */
+	public boolean isDestructiveWrite() {
+		return !this.streamingResult;
+	}
+
+	public InputStream getXMLInputStream(String encoding) throws UnsupportedEncodingException {
+		return new ByteArrayInputStream(this.getXMLBytes(encoding));
+	}
+
+	public byte[] getXMLBytes(String encoding) throws UnsupportedEncodingException {
+		ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+		try {
+			XMLStreamWriter xmlWriter = DBUtils.getXMLOutputFactory().createXMLStreamWriter(
+					byteOut, encoding);
+			this.serialize(xmlWriter);
+			xmlWriter.close();
+		} catch (XMLStreamException e) {
+			throw new RuntimeException("Error in serializing the data service result", e);
+		}
+		return byteOut.toByteArray();
+	}
+
+	public void close() {
+		/* nothing to release, the request is executed on each serialization */
+	}
+
+	public OMDataSourceExt copy() {
+		DSOMDataSource copy = new DSOMDataSource(this.dataService, this.opName, this.params);
+		copy.setStreamingResult(this.streamingResult);
+		return copy;
+	}
+
+	public Object getProperty(String key) {
+		return this.properties == null ? null : this.properties.get(key);
+	}
+
+	public Object setProperty(String key, Object value) {
+		if (this.properties == null) {
+			this.properties = new HashMap<String, Object>();
+		}
+		return this.properties.put(key, value);
+	}
+
+	public boolean hasProperty(String key) {
+		return this.properties != null && this.properties.containsKey(key);
 	}
 	
 }
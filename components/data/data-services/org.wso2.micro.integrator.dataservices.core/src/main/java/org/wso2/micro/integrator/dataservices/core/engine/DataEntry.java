@@ -32,6 +32,13 @@ public class DataEntry {
 		this.values = new HashMap<String, ParamValue>();
 	}
 
+	/**
+	 * Creates an entry sized for the given number of values, e.g. the column count of a result set.
+	 */
+	public DataEntry(int valueCount) {
+		this.values = new HashMap<String, ParamValue>((int) (valueCount / 0.75f) + 1);
+	}
+
 	public Map<String, ParamValue> getData() {
 		return values;
 	}
@@ -44,6 +44,7 @@ import javax.transaction.TransactionManager;
 import javax.xml.stream.XMLStreamWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -150,6 +151,17 @@ public class DataService implements AxisResources {
      */
     private static ThreadLocal<DataServiceUser> currentUser = new ThreadLocal<DataServiceUser>();
 
+    /**
+     * The configs written to in the current transaction, against their data services
+     */
+    private static ThreadLocal<Map<DataService, Set<String>>> writtenConfigs =
+            new ThreadLocal<Map<DataService, Set<String>>>() {
+                @Override
+                protected Map<DataService, Set<String>> initialValue() {
+                    return new HashMap<DataService, Set<String>>();
+                }
+            };
+
     /**
      * the JNDI name of the app server transaction manager
      */
@@ -536,6 +548,56 @@ public class DataService implements AxisResources {
         this.getQueries().put(query.getQueryId(), query);
     }
 
+    /**
+     * Clears the cached results of the queries reading from the given config, either directly
+     * or through their nested queries.
+     *
+     * @param configId The id of the config which has been written to
+     */
+    public void clearQueryResultCaches(String configId) {
+        for (Query query : this.getQueries().values()) {
+            if (query.getResultCache() != null && query.getResultConfigIds().contains(configId)) {
+                query.getResultCache().clear();
+            }
+        }
+    }
+
+    /**
+     * Clears the cached results of the queries reading from the given config, which is about to
+     * be written to in the current transaction. They are cleared again by
+     * {@link #invalidateWrittenQueryResultCaches()} once the transaction ends, since the results
+     * read in the meantime do not have the uncommitted changes.
+     *
+     * @param configId The id of the config which is written to
+     */
+    public void invalidateQueryResultCaches(String configId) {
+        this.clearQueryResultCaches(configId);
+        Map<DataService, Set<String>> written = writtenConfigs.get();
+        Set<String> configIds = written.get(this);
+        if (configIds == null) {
+            configIds = new HashSet<String>();
+            written.put(this, configIds);
+        }
+        configIds.add(configId);
+    }
+
+    /**
+     * Clears the cached results of the queries reading from the configs written to in the
+     * transaction which has just been committed or rolled back.
+     */
+    public static void invalidateWrittenQueryResultCaches() {
+        Map<DataService, Set<String>> written = writtenConfigs.get();
+        if (written.isEmpty()) {
+            return;
+        }
+        writtenConfigs.remove();
+        for (Entry<DataService, Set<String>> entry : written.entrySet()) {
+            for (String configId : entry.getValue()) {
+                entry.getKey().clearQueryResultCaches(configId);
+            }
+        }
+    }
+
     public SecretResolver getSecretResolver() {
         return secretResolver;
     }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.engine;
+
+import org.apache.axis2.databinding.utils.ConverterUtil;
+
+/**
+ * A scalar ParamValue read from a numeric or boolean column, which keeps the primitive value and converts it to
+ * the string representation only when the scalar value is first requested, i.e. when it is serialized.
+ */
+public class PrimitiveParamValue extends ParamValue {
+
+    private static final int TYPE_INT = 1;
+
+    private static final int TYPE_LONG = 2;
+
+    private static final int TYPE_DOUBLE = 3;
+
+    private static final int TYPE_FLOAT = 4;
+
+    private static final int TYPE_BOOLEAN = 5;
+
+    private final int primitiveType;
+
+    private final long longValue;
+
+    private final double doubleValue;
+
+    /* whether the scalar value has been set, either by the conversion or explicitly */
+    private boolean converted;
+
+    private PrimitiveParamValue(int primitiveType, long longValue, double doubleValue) {
+        super((String) null);
+        this.primitiveType = primitiveType;
+        this.longValue = longValue;
+        this.doubleValue = doubleValue;
+    }
+
+    public static ParamValue ofInt(int value) {
+        return new PrimitiveParamValue(TYPE_INT, value, 0);
+    }
+
+    public static ParamValue ofLong(long value) {
+        return new PrimitiveParamValue(TYPE_LONG, value, 0);
+    }
+
+    public static ParamValue ofDouble(double value) {
+        return new PrimitiveParamValue(TYPE_DOUBLE, 0, value);
+    }
+
+    public static ParamValue ofFloat(float value) {
+        return new PrimitiveParamValue(TYPE_FLOAT, 0, value);
+    }
+
+    public static ParamValue ofBoolean(boolean value) {
+        return new PrimitiveParamValue(TYPE_BOOLEAN, value ? 1 : 0, 0);
+    }
+
+    @Override
+    public String getScalarValue() {
+        if (!this.converted) {
+            super.setScalarValue(this.convertToString());
+            this.converted = true;
+        }
+        return super.getScalarValue();
+    }
+
+    @Override
+    public void setScalarValue(String scalarValue) {
+        super.setScalarValue(scalarValue);
+        this.converted = true;
+    }
+
+    private String convertToString() {
+        switch (this.primitiveType) {
+        case TYPE_INT:
+            return ConverterUtil.convertToString((int) this.longValue);
+        case TYPE_LONG:
+            return ConverterUtil.convertToString(this.longValue);
+        case TYPE_DOUBLE:
+            return ConverterUtil.convertToString(this.doubleValue);
+        case TYPE_FLOAT:
+            return ConverterUtil.convertToString((float) this.doubleValue);
+        default:
+            return ConverterUtil.convertToString(this.longValue != 0);
+        }
+    }
+
+}
@@ -31,7 +31,10 @@ import org.wso2.micro.integrator.dataservices.core.description.config.RDBMSConfi
 import org.wso2.micro.integrator.dataservices.core.description.config.SQLCarbonDataSourceConfig;
 import org.wso2.micro.integrator.dataservices.core.description.config.SQLConfig;
 import org.wso2.micro.integrator.dataservices.core.description.operation.Operation;
+import org.wso2.micro.integrator.dataservices.core.description.query.ProcessedSQLCache;
 import org.wso2.micro.integrator.dataservices.core.description.query.Query;
+import org.wso2.micro.integrator.dataservices.core.description.query.QueryResultCache;
+import org.wso2.micro.integrator.dataservices.core.description.query.SQLQuery;
 import org.wso2.micro.integrator.dataservices.core.description.resource.Resource;
 import org.wso2.micro.integrator.dataservices.core.engine.DataService;
 
@@ -164,5 +167,69 @@ public class DataServiceInstance implements DataServiceInstanceMBean {
 			return -1;
 		}
 	}
+
+	private QueryResultCache getQueryResultCache(String queryId) {
+		Query query = this.getDataService().getQuery(queryId);
+		if (query != null) {
+			return query.getResultCache();
+		} else {
+			return null;
+		}
+	}
+
+	public long getQueryResultCacheHitCount(String queryId) {
+		QueryResultCache cache = this.getQueryResultCache(queryId);
+		return cache != null ? cache.getHitCount() : -1;
+	}
+
+	public long getQueryResultCacheMissCount(String queryId) {
+		QueryResultCache cache = this.getQueryResultCache(queryId);
+		return cache != null ? cache.getMissCount() : -1;
+	}
+
+	public long getQueryResultCacheEvictionCount(String queryId) {
+		QueryResultCache cache = this.getQueryResultCache(queryId);
+		return cache != null ? cache.getEvictionCount() : -1;
+	}
+
+	public int getQueryResultCacheSize(String queryId) {
+		QueryResultCache cache = this.getQueryResultCache(queryId);
+		if (cache == null) {
+			return -1;
+		}
+		cache.removeExpired();
+		return cache.size();
+	}
+
+	public void clearQueryResultCache(String queryId) {
+		QueryResultCache cache = this.getQueryResultCache(queryId);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	private ProcessedSQLCache getProcessedSQLCache(String queryId) {
+		Query query = this.getDataService().getQuery(queryId);
+		if (query instanceof SQLQuery) {
+			return ((SQLQuery) query).getProcessedSQLCache();
+		} else {
+			return null;
+		}
+	}
+
+	public long getProcessedSQLCacheHitCount(String queryId) {
+		ProcessedSQLCache cache = this.getProcessedSQLCache(queryId);
+		return cache != null ? cache.getHitCount() : -1;
+	}
+
+	public long getProcessedSQLCacheMissCount(String queryId) {
+		ProcessedSQLCache cache = this.getProcessedSQLCache(queryId);
+		return cache != null ? cache.getMissCount() : -1;
+	}
+
+	public int getProcessedSQLCacheSize(String queryId) {
+		ProcessedSQLCache cache = this.getProcessedSQLCache(queryId);
+		return cache != null ? cache.size() : -1;
+	}
 	
 }
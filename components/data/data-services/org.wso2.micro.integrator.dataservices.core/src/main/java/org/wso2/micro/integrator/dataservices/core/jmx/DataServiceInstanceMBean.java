@@ -48,4 +48,20 @@ public interface DataServiceInstanceMBean {
 	
 	int getOpenDatabaseConnectionsCount(String configId);
 
+	long getQueryResultCacheHitCount(String queryId);
+
+	long getQueryResultCacheMissCount(String queryId);
+
+	long getQueryResultCacheEvictionCount(String queryId);
+
+	int getQueryResultCacheSize(String queryId);
+
+	void clearQueryResultCache(String queryId);
+
+	long getProcessedSQLCacheHitCount(String queryId);
+
+	long getProcessedSQLCacheMissCount(String queryId);
+
+	int getProcessedSQLCacheSize(String queryId);
+
 }
@@ -125,6 +125,12 @@ public class CassandraDataHandler implements ODataDataHandler {
         return entryList;
     }
 
+    @Override
+    public ODataQueryResult readTable(String tableName, ODataQuery query) throws ODataServiceFault {
+        // query options are evaluated in memory
+        return new ODataQueryResult(readTable(tableName));
+    }
+
     @Override
     public List<ODataEntry> readTableWithKeys(String tableName, ODataEntry keys) throws ODataServiceFault {
         List<ColumnMetadata> cassandraTableMetaData = this.session.getCluster().getMetadata().getKeyspace(this.keyspace)
@@ -176,6 +176,12 @@ public class MongoDataHandler implements ODataDataHandler {
         return entryList;
     }
 
+    @Override
+    public ODataQueryResult readTable(String tableName, ODataQuery query) throws ODataServiceFault {
+        // query options are evaluated in memory
+        return new ODataQueryResult(readTable(tableName));
+    }
+
     /**
      * This method reads the collection data for a given key(i.e. _id).
      * Returns a list of DataEntry object which has been wrapped the entity.
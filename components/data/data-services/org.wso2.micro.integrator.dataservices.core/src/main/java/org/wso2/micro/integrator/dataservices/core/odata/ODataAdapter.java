@@ -197,6 +197,7 @@ public class ODataAdapter implements ServiceHandler {
         EdmEntityType entityType;
         Entity parentEntity;
         EdmEntitySet edmEntitySet;
+        ODataQueryResult queryResult = null;
         EntityDetails details = new EntityDetails();
         String baseURL = request.getODataRequest().getRawBaseUri();
         UriInfo uriInfo = request.getUriInfo();
@@ -215,7 +216,9 @@ public class ODataAdapter implements ServiceHandler {
                         details.eTagMatched = true;
                     }
                 } else {
-                    entitySet = getEntityCollection(edmEntitySet.getName(), baseURL);
+                    queryResult = this.dataHandler.readTable(edmEntitySet.getName(), createODataQuery(uriInfo));
+                    entitySet = createEntityCollectionFromDataEntryList(edmEntitySet.getName(),
+                                                                        queryResult.getEntries(), baseURL);
                 }
             }
             ExpandOption expandOption = uriInfo.getExpandOption();
@@ -300,19 +303,25 @@ public class ODataAdapter implements ServiceHandler {
             SkipOption skipOption = uriInfo.getSkipOption();
             TopOption topOption = uriInfo.getTopOption();
             SkipTokenOption skipTokenOption = uriInfo.getSkipTokenOption();
-            if (filterOption != null) {
+            // the query options already applied by the data handler are not applied again
+            if (filterOption != null && (queryResult == null || !queryResult.isFilterApplied())) {
                 QueryHandler.applyFilterSystemQuery(filterOption, details.entitySet, edmEntitySet);
             }
             if (countOption != null) {
-                QueryHandler.applyCountSystemQueryOption(countOption, details.entitySet);
+                if (queryResult != null && queryResult.getCount() != null) {
+                    details.entitySet.setCount(queryResult.getCount().intValue());
+                } else {
+                    QueryHandler.applyCountSystemQueryOption(countOption, details.entitySet);
+                }
             }
-            if (orderByOption != null) {
+            if (orderByOption != null && (queryResult == null || !queryResult.isOrderApplied())) {
                 QueryHandler.applyOrderByOption(orderByOption, details.entitySet, edmEntitySet);
             }
-            if (skipOption != null) {
+            boolean pagingApplied = queryResult != null && queryResult.isPagingApplied();
+            if (skipOption != null && !pagingApplied) {
                 QueryHandler.applySkipSystemQueryHandler(skipOption, details.entitySet);
             }
-            if (topOption != null) {
+            if (topOption != null && !pagingApplied) {
                 QueryHandler.applyTopSystemQueryOption(topOption, details.entitySet);
             }
             if (skipTokenOption != null) {
@@ -1349,14 +1358,22 @@ public class ODataAdapter implements ServiceHandler {
     }
 
     /**
-     * This method returns the entity collection from the ODataDataHandler
+     * This method creates the query options to be applied by the ODataDataHandler when reading an entity set.
      *
-     * @param tableName Name of the table
-     * @return EntityCollection
-     * @throws ODataServiceFault
+     * @param uriInfo Uri info of the request
+     * @return ODataQuery
      */
-    private EntityCollection getEntityCollection(String tableName, String baseUrl) throws ODataServiceFault {
-        return createEntityCollectionFromDataEntryList(tableName, this.dataHandler.readTable(tableName), baseUrl);
+    private ODataQuery createODataQuery(UriInfo uriInfo) {
+        FilterOption filterOption = uriInfo.getFilterOption();
+        OrderByOption orderByOption = uriInfo.getOrderByOption();
+        SkipOption skipOption = uriInfo.getSkipOption();
+        TopOption topOption = uriInfo.getTopOption();
+        CountOption countOption = uriInfo.getCountOption();
+        return new ODataQuery(filterOption != null ? filterOption.getExpression() : null,
+                              orderByOption != null ? orderByOption.getOrders() : null,
+                              skipOption != null ? skipOption.getValue() : null,
+                              topOption != null ? topOption.getValue() : null,
+                              countOption != null && countOption.getValue());
     }
 
     /**
@@ -39,6 +39,19 @@ public interface ODataDataHandler {
      */
     List<ODataEntry> readTable(String tableName) throws ODataServiceFault;
 
+    /**
+     * This method read the table data for the given query and return.
+     * The query options which can be evaluated in the data source are applied while reading, and the result tells
+     * which of them were applied, so that the rest are applied in memory.
+     *
+     * @param tableName Name of the table
+     * @param query     Query options
+     * @return Query result
+     * @throws ODataServiceFault
+     * @see ODataQueryResult
+     */
+    ODataQueryResult readTable(String tableName, ODataQuery query) throws ODataServiceFault;
+
     /**
      * This method read the table with Keys and return.
      * Return a list of DataEntry object which has been wrapped the entity.
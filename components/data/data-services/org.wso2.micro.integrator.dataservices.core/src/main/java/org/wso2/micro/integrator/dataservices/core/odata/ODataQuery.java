@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.odata;
+
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the system query options of an entity set read request, which a data handler may apply in the data
+ * source instead of loading the whole entity set.
+ */
+public class ODataQuery {
+
+    /**
+     * Expression of the $filter option, or null if there is no filter.
+     */
+    private final Expression filter;
+
+    /**
+     * Items of the $orderby option.
+     */
+    private final List<OrderByItem> orderByItems;
+
+    /**
+     * Value of the $skip option, or null if there is no skip.
+     */
+    private final Integer skip;
+
+    /**
+     * Value of the $top option, or null if there is no top.
+     */
+    private final Integer top;
+
+    /**
+     * Whether the $count option is true.
+     */
+    private final boolean count;
+
+    public ODataQuery(Expression filter, List<OrderByItem> orderByItems, Integer skip, Integer top, boolean count) {
+        this.filter = filter;
+        this.orderByItems = orderByItems != null ? orderByItems : Collections.<OrderByItem>emptyList();
+        this.skip = skip;
+        this.top = top;
+        this.count = count;
+    }
+
+    public Expression getFilter() {
+        return filter;
+    }
+
+    public List<OrderByItem> getOrderByItems() {
+        return orderByItems;
+    }
+
+    public Integer getSkip() {
+        return skip;
+    }
+
+    public Integer getTop() {
+        return top;
+    }
+
+    public boolean isCount() {
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.odata;
+
+import java.util.List;
+
+/**
+ * Represents the entities read for an OData query, along with the query options which were already applied by the
+ * data handler. The query options which were not applied are evaluated in memory on the returned entities.
+ *
+ * @see ODataQuery
+ */
+public class ODataQueryResult {
+
+    private final List<ODataEntry> entries;
+
+    /**
+     * Whether the filter has been applied.
+     */
+    private boolean filterApplied;
+
+    /**
+     * Whether the entries are in the requested order.
+     */
+    private boolean orderApplied;
+
+    /**
+     * Whether skip and top have been applied.
+     */
+    private boolean pagingApplied;
+
+    /**
+     * Number of entities matching the filter, before paging, or null if not counted.
+     */
+    private Long count;
+
+    public ODataQueryResult(List<ODataEntry> entries) {
+        this.entries = entries;
+    }
+
+    public List<ODataEntry> getEntries() {
+        return entries;
+    }
+
+    public boolean isFilterApplied() {
+        return filterApplied;
+    }
+
+    public void setFilterApplied(boolean filterApplied) {
+        this.filterApplied = filterApplied;
+    }
+
+    public boolean isOrderApplied() {
+        return orderApplied;
+    }
+
+    public void setOrderApplied(boolean orderApplied) {
+        this.orderApplied = orderApplied;
+    }
+
+    public boolean isPagingApplied() {
+        return pagingApplied;
+    }
+
+    public void setPagingApplied(boolean pagingApplied) {
+        this.pagingApplied = pagingApplied;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+}
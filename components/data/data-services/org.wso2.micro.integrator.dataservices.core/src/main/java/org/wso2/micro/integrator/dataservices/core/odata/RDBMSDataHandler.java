@@ -22,11 +22,15 @@ import org.apache.axis2.databinding.utils.ConverterUtil;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
 import org.wso2.micro.integrator.dataservices.common.DBConstants;
 import org.wso2.micro.integrator.dataservices.core.odata.DataColumn.ODataDataType;
 import org.wso2.micro.integrator.dataservices.core.DBUtils;
 import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
 import org.wso2.micro.integrator.dataservices.core.engine.DataEntry;
+import org.wso2.micro.integrator.dataservices.core.odata.expression.SQLExpressionVisitor;
 
 import javax.sql.DataSource;
 import java.io.BufferedReader;
@@ -93,6 +97,25 @@ public class RDBMSDataHandler implements ODataDataHandler {
     public static final String ORACLE_SERVER = "oracle";
     public static final String MSSQL_SERVER = "microsoft sql server";
 
+    /**
+     * Databases which support LIMIT and OFFSET clauses.
+     */
+    private static final String[] LIMIT_OFFSET_SERVERS = { "mysql", "mariadb", "postgresql", "h2", "hsql", "sqlite" };
+
+    /**
+     * Syntax used to push paging down to the database.
+     */
+    private enum PagingSyntax {
+        NONE, LIMIT_OFFSET, OFFSET_FETCH
+    }
+
+    private PagingSyntax pagingSyntax = PagingSyntax.NONE;
+
+    /**
+     * Whether the database requires an ORDER BY clause for paging.
+     */
+    private boolean orderRequiredForPaging;
+
     private ThreadLocal<Connection> transactionalConnection = new ThreadLocal<Connection>() {
         protected synchronized Connection initialValue() {
             return null;
@@ -113,6 +136,7 @@ public class RDBMSDataHandler implements ODataDataHandler {
         this.configID = configId;
         this.rdbmsDataTypes = new HashMap<>(this.tableList.size());
         initializeMetaData();
+        initializePagingSyntax();
     }
 
     @Override
@@ -390,6 +414,186 @@ public class RDBMSDataHandler implements ODataDataHandler {
         }
     }
 
+    @Override
+    public ODataQueryResult readTable(String tableName, ODataQuery query) throws ODataServiceFault {
+        SQLExpressionVisitor visitor = new SQLExpressionVisitor(this.rdbmsDataTypes.get(tableName));
+        SQLExpressionVisitor.SQLFragment condition = null;
+        boolean filterApplied = true;
+        if (query.getFilter() != null) {
+            try {
+                condition = visitor.translateFilter(query.getFilter());
+            } catch (ExpressionVisitException | ODataApplicationException e) {
+                filterApplied = false;
+                if (log.isDebugEnabled()) {
+                    log.debug("Filter of the query on " + tableName + " table is evaluated in memory. :" +
+                              e.getMessage());
+                }
+            }
+        }
+        List<String> orderByClauses = createOrderByClauses(visitor, tableName, query.getOrderByItems());
+        boolean pagingApplied = filterApplied && orderByClauses != null && query.getTop() != null &&
+                                query.getTop() >= 0 && (query.getSkip() == null || query.getSkip() >= 0) &&
+                                this.pagingSyntax != PagingSyntax.NONE;
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT * FROM ").append(tableName);
+        if (condition != null) {
+            sql.append(" WHERE ").append(condition.getSql());
+        }
+        if (orderByClauses != null && !orderByClauses.isEmpty()) {
+            sql.append(" ORDER BY ").append(String.join(", ", orderByClauses));
+        } else if (pagingApplied && this.orderRequiredForPaging) {
+            sql.append(" ORDER BY (SELECT NULL)");
+        }
+        int skip = query.getSkip() != null ? query.getSkip() : 0;
+        if (pagingApplied) {
+            if (this.pagingSyntax == PagingSyntax.LIMIT_OFFSET) {
+                sql.append(" LIMIT ? OFFSET ?");
+            } else {
+                sql.append(" OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+            }
+        }
+        ResultSet resultSet = null;
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = initializeConnection();
+            List<ODataEntry> entries;
+            if (pagingApplied && query.getTop() == 0) {
+                // no entity is requested, and fetching 0 rows is rejected or means no limit on some databases
+                entries = new ArrayList<>();
+            } else {
+                statement = connection.prepareStatement(sql.toString());
+                int index = bindConditionParameters(condition, statement);
+                if (pagingApplied) {
+                    if (this.pagingSyntax == PagingSyntax.LIMIT_OFFSET) {
+                        statement.setInt(index++, query.getTop());
+                        statement.setInt(index, skip);
+                    } else {
+                        statement.setInt(index++, skip);
+                        statement.setInt(index, query.getTop());
+                    }
+                }
+                resultSet = statement.executeQuery();
+                entries = createDataEntryCollectionFromRS(tableName, resultSet);
+            }
+            ODataQueryResult result = new ODataQueryResult(entries);
+            result.setFilterApplied(filterApplied);
+            result.setOrderApplied(orderByClauses != null);
+            result.setPagingApplied(pagingApplied);
+            if (pagingApplied && query.isCount()) {
+                // the count is of the filtered entities before paging, so it cannot be taken from the result
+                result.setCount(countEntities(connection, tableName, condition));
+            }
+            return result;
+        } catch (SQLException | ParseException e) {
+            throw new ODataServiceFault(e, "Error occurred while reading entities from " + tableName + " table. :" +
+                                           e.getMessage());
+        } finally {
+            releaseResources(resultSet, statement);
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * This method creates the ORDER BY clauses for the given order by items. The null values are ordered before
+     * the other values, as in the in memory ordering.
+     *
+     * @param visitor      SQL expression visitor of the table
+     * @param tableName    Name of the table
+     * @param orderByItems Order by items
+     * @return ORDER BY clauses, or null if an item cannot be ordered in SQL
+     */
+    private List<String> createOrderByClauses(SQLExpressionVisitor visitor, String tableName,
+                                              List<OrderByItem> orderByItems) {
+        List<String> clauses = new ArrayList<>();
+        try {
+            for (OrderByItem item : orderByItems) {
+                String column = visitor.translateOrderBy(item.getExpression());
+                String direction = item.isDescending() ? " DESC" : " ASC";
+                clauses.add("CASE WHEN " + column + " IS NULL THEN 0 ELSE 1 END" + direction);
+                clauses.add(column + direction);
+            }
+            return clauses;
+        } catch (ExpressionVisitException | ODataApplicationException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Order of the query on " + tableName + " table is evaluated in memory. :" + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * This method binds the parameters of the given condition to the statement.
+     *
+     * @param condition SQL condition, or null if there is no condition
+     * @param statement Statement
+     * @return Index of the next parameter
+     * @throws SQLException
+     * @throws ParseException
+     * @throws ODataServiceFault
+     */
+    private int bindConditionParameters(SQLExpressionVisitor.SQLFragment condition, PreparedStatement statement)
+            throws SQLException, ParseException, ODataServiceFault {
+        int index = 1;
+        if (condition != null) {
+            for (SQLExpressionVisitor.SQLParameter parameter : condition.getParameters()) {
+                bindValuesToPreparedStatement(parameter.getType(), parameter.getValue(), index, statement);
+                index++;
+            }
+        }
+        return index;
+    }
+
+    private long countEntities(Connection connection, String tableName, SQLExpressionVisitor.SQLFragment condition)
+            throws SQLException, ParseException, ODataServiceFault {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT COUNT(*) FROM ").append(tableName);
+        if (condition != null) {
+            sql.append(" WHERE ").append(condition.getSql());
+        }
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = connection.prepareStatement(sql.toString());
+            bindConditionParameters(condition, statement);
+            resultSet = statement.executeQuery();
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        } finally {
+            releaseResources(resultSet, statement);
+        }
+    }
+
+    /**
+     * This method decides the syntax used to push paging down to the database, from the database product.
+     */
+    private void initializePagingSyntax() {
+        Connection connection = null;
+        try {
+            connection = initializeConnection();
+            DatabaseMetaData meta = connection.getMetaData();
+            String productName = meta.getDatabaseProductName().toLowerCase();
+            int majorVersion = meta.getDatabaseMajorVersion();
+            for (String server : LIMIT_OFFSET_SERVERS) {
+                if (productName.contains(server)) {
+                    this.pagingSyntax = PagingSyntax.LIMIT_OFFSET;
+                    return;
+                }
+            }
+            if (productName.contains(MSSQL_SERVER) && majorVersion >= 11) {
+                this.pagingSyntax = PagingSyntax.OFFSET_FETCH;
+                this.orderRequiredForPaging = true;
+            } else if ((productName.contains(ORACLE_SERVER) && majorVersion >= 12) ||
+                       productName.contains("derby") || (productName.startsWith("db2") && majorVersion >= 11)) {
+                this.pagingSyntax = PagingSyntax.OFFSET_FETCH;
+            }
+        } catch (SQLException e) {
+            log.warn("Error occurred while reading the database product, paging is evaluated in memory. :" +
+                     e.getMessage());
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
     @Override
     public List<String> getTableList() {
         return this.tableList;
@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.odata.expression;
+
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class translates an OData filter expression to a parameterized SQL condition on the columns of a table.
+ * Only comparisons of columns with literals, logical operators and the contains, startswith and endswith methods are
+ * translated. The other expressions are not implemented, and have to be evaluated in memory using
+ * {@link ExpressionVisitorImpl}. The translated conditions are true or false for null column values, never unknown,
+ * so that they match the in memory evaluation.
+ */
+public class SQLExpressionVisitor implements ExpressionVisitor<SQLExpressionVisitor.SQLFragment> {
+
+    private static final String NULL_LITERAL = "null";
+
+    private static final char LIKE_ESCAPE = '!';
+
+    private static final Set<EdmPrimitiveTypeKind> INTEGRAL_TYPES =
+            EnumSet.of(EdmPrimitiveTypeKind.Byte, EdmPrimitiveTypeKind.SByte, EdmPrimitiveTypeKind.Int16,
+                       EdmPrimitiveTypeKind.Int32, EdmPrimitiveTypeKind.Int64);
+
+    private static final Set<EdmPrimitiveTypeKind> DECIMAL_TYPES =
+            EnumSet.of(EdmPrimitiveTypeKind.Decimal, EdmPrimitiveTypeKind.Double, EdmPrimitiveTypeKind.Single);
+
+    /**
+     * SQL types of the columns of the table (Map<Column Name, SQL Type>).
+     */
+    private final Map<String, Integer> columnTypes;
+
+    public SQLExpressionVisitor(Map<String, Integer> columnTypes) {
+        this.columnTypes = columnTypes;
+    }
+
+    /**
+     * This method translates the given filter expression to a SQL condition.
+     *
+     * @param expression Filter expression
+     * @return SQL condition
+     * @throws ExpressionVisitException
+     * @throws ODataApplicationException if the expression cannot be translated
+     */
+    public SQLFragment translateFilter(Expression expression)
+            throws ExpressionVisitException, ODataApplicationException {
+        SQLFragment condition = expression.accept(this);
+        if (condition.kind != FragmentKind.CONDITION) {
+            return throwNotImplemented();
+        }
+        return condition;
+    }
+
+    /**
+     * This method translates the given order by expression to the name of the column to be sorted.
+     *
+     * @param expression Order by expression
+     * @return Column name
+     * @throws ExpressionVisitException
+     * @throws ODataApplicationException if the expression is not a sortable column
+     */
+    public String translateOrderBy(Expression expression) throws ExpressionVisitException, ODataApplicationException {
+        SQLFragment column = expression.accept(this);
+        if (column.kind != FragmentKind.COLUMN || getComparableType(column.column) == Types.NULL) {
+            return throwNotImplemented();
+        }
+        return column.column;
+    }
+
+    @Override
+    public SQLFragment visitBinaryOperator(BinaryOperatorKind operator, SQLFragment left, SQLFragment right)
+            throws ExpressionVisitException, ODataApplicationException {
+        switch (operator) {
+            case AND:
+            case OR:
+                if (left.kind != FragmentKind.CONDITION || right.kind != FragmentKind.CONDITION) {
+                    return throwNotImplemented();
+                }
+                return SQLFragment.condition("(" + left.sql + " " + operator.name() + " " + right.sql + ")",
+                                             left.parameters, right.parameters);
+            case EQ:
+            case NE:
+            case LT:
+            case LE:
+            case GT:
+            case GE:
+                if (left.kind == FragmentKind.COLUMN) {
+                    return createComparison(operator, left, right);
+                } else if (right.kind == FragmentKind.COLUMN) {
+                    return createComparison(mirror(operator), right, left);
+                }
+                return throwNotImplemented();
+            default:
+                return throwNotImplemented();
+        }
+    }
+
+    /**
+     * This method returns the operator which gives the same result when the operands are swapped.
+     *
+     * @param operator Comparison operator
+     * @return Mirrored operator
+     */
+    private BinaryOperatorKind mirror(BinaryOperatorKind operator) {
+        switch (operator) {
+            case LT:
+                return BinaryOperatorKind.GT;
+            case LE:
+                return BinaryOperatorKind.GE;
+            case GT:
+                return BinaryOperatorKind.LT;
+            case GE:
+                return BinaryOperatorKind.LE;
+            default:
+                return operator;
+        }
+    }
+
+    private SQLFragment createComparison(BinaryOperatorKind operator, SQLFragment column, SQLFragment value)
+            throws ODataApplicationException {
+        String columnName = column.column;
+        if (value.kind == FragmentKind.NULL) {
+            if (operator == BinaryOperatorKind.EQ) {
+                return SQLFragment.condition(columnName + " IS NULL");
+            } else if (operator == BinaryOperatorKind.NE) {
+                return SQLFragment.condition(columnName + " IS NOT NULL");
+            }
+            return throwNotImplemented();
+        }
+        if (value.kind != FragmentKind.LITERAL) {
+            return throwNotImplemented();
+        }
+        List<SQLParameter> parameters = Collections.singletonList(createParameter(columnName, value));
+        switch (operator) {
+            case EQ:
+                return SQLFragment.condition("(" + columnName + " IS NOT NULL AND " + columnName + " = ?)",
+                                             parameters);
+            case NE:
+                // null is not equal to any value
+                return SQLFragment.condition("(" + columnName + " IS NULL OR " + columnName + " <> ?)", parameters);
+            case LT:
+                return SQLFragment.condition("(" + columnName + " IS NOT NULL AND " + columnName + " < ?)",
+                                             parameters);
+            case LE:
+                return SQLFragment.condition("(" + columnName + " IS NOT NULL AND " + columnName + " <= ?)",
+                                             parameters);
+            case GT:
+                return SQLFragment.condition("(" + columnName + " IS NOT NULL AND " + columnName + " > ?)",
+                                             parameters);
+            case GE:
+                return SQLFragment.condition("(" + columnName + " IS NOT NULL AND " + columnName + " >= ?)",
+                                             parameters);
+            default:
+                return throwNotImplemented();
+        }
+    }
+
+    /**
+     * This method creates the parameter to compare the given column with the given literal, if the literal is
+     * compatible with the type of the column.
+     *
+     * @param column  Column name
+     * @param literal Literal
+     * @return Parameter
+     * @throws ODataApplicationException if the literal cannot be compared with the column in SQL
+     */
+    private SQLParameter createParameter(String column, SQLFragment literal) throws ODataApplicationException {
+        int columnType = getComparableType(column);
+        EdmPrimitiveTypeKind literalType = literal.literalType;
+        switch (columnType) {
+            case Types.BIGINT:
+                if (INTEGRAL_TYPES.contains(literalType)) {
+                    return new SQLParameter(Types.BIGINT, literal.sql);
+                }
+                break;
+            case Types.DECIMAL:
+                if ((INTEGRAL_TYPES.contains(literalType) || DECIMAL_TYPES.contains(literalType))
+                    && isDecimal(literal.sql)) {
+                    return new SQLParameter(Types.DECIMAL, literal.sql);
+                }
+                break;
+            case Types.BOOLEAN:
+                if (literalType == EdmPrimitiveTypeKind.Boolean) {
+                    return new SQLParameter(Types.BOOLEAN, literal.sql);
+                }
+                break;
+            case Types.DATE:
+                if (literalType == EdmPrimitiveTypeKind.Date) {
+                    return new SQLParameter(Types.DATE, literal.sql);
+                }
+                break;
+            case Types.NULL:
+                break;
+            default:
+                if (literalType == EdmPrimitiveTypeKind.String) {
+                    // the column is a string column, so the parameter is bound as the type of the column
+                    return new SQLParameter(columnType, literal.sql);
+                }
+        }
+        return throwNotImplemented();
+    }
+
+    private boolean isDecimal(String value) {
+        try {
+            new BigDecimal(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method returns the SQL type which the values of the given column are compared as. BIGINT is returned for
+     * integral columns, DECIMAL for the other numeric columns, the column type for string columns, and NULL if the
+     * column cannot be compared in SQL, such as LOB and binary columns.
+     *
+     * @param column Column name
+     * @return SQL type
+     */
+    private int getComparableType(String column) {
+        Integer columnType = this.columnTypes.get(column);
+        if (columnType == null) {
+            return Types.NULL;
+        }
+        switch (columnType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return Types.BIGINT;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return Types.DECIMAL;
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return Types.BOOLEAN;
+            case Types.DATE:
+                return Types.DATE;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return columnType;
+            default:
+                return Types.NULL;
+        }
+    }
+
+    private boolean isStringColumn(String column) {
+        switch (getComparableType(column)) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public SQLFragment visitUnaryOperator(UnaryOperatorKind operator, SQLFragment operand)
+            throws ExpressionVisitException, ODataApplicationException {
+        if (operator == UnaryOperatorKind.NOT && operand.kind == FragmentKind.CONDITION) {
+            return SQLFragment.condition("(NOT " + operand.sql + ")", operand.parameters);
+        }
+        return throwNotImplemented();
+    }
+
+    @Override
+    public SQLFragment visitMethodCall(MethodKind methodCall, List<SQLFragment> parameters)
+            throws ExpressionVisitException, ODataApplicationException {
+        String prefix;
+        String suffix;
+        switch (methodCall) {
+            case CONTAINS:
+                prefix = "%";
+                suffix = "%";
+                break;
+            case STARTSWITH:
+                prefix = "";
+                suffix = "%";
+                break;
+            case ENDSWITH:
+                prefix = "%";
+                suffix = "";
+                break;
+            default:
+                return throwNotImplemented();
+        }
+        SQLFragment column = parameters.get(0);
+        SQLFragment value = parameters.get(1);
+        if (column.kind != FragmentKind.COLUMN || !isStringColumn(column.column) || value.kind != FragmentKind.LITERAL
+            || value.literalType != EdmPrimitiveTypeKind.String) {
+            return throwNotImplemented();
+        }
+        String pattern = prefix + escapeLikePattern(value.sql) + suffix;
+        return SQLFragment.condition(
+                "(" + column.column + " IS NOT NULL AND " + column.column + " LIKE ? ESCAPE '" + LIKE_ESCAPE + "')",
+                Collections.singletonList(new SQLParameter(getComparableType(column.column), pattern)));
+    }
+
+    private String escapeLikePattern(String value) {
+        StringBuilder pattern = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.toString();
+    }
+
+    @Override
+    public SQLFragment visitLambdaExpression(String lambdaFunction, String lambdaVariable, Expression expression)
+            throws ExpressionVisitException, ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public SQLFragment visitLiteral(Literal literal) throws ExpressionVisitException, ODataApplicationException {
+        String text = literal.getText();
+        if (NULL_LITERAL.equals(text)) {
+            return new SQLFragment(FragmentKind.NULL, null, null, null, Collections.<SQLParameter>emptyList());
+        }
+        EdmType type = literal.getType();
+        if (type == null || type.getKind() != EdmTypeKind.PRIMITIVE) {
+            return throwNotImplemented();
+        }
+        EdmPrimitiveTypeKind literalType;
+        try {
+            literalType = EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName());
+        } catch (IllegalArgumentException e) {
+            return throwNotImplemented();
+        }
+        String value = text;
+        if (literalType == EdmPrimitiveTypeKind.String) {
+            if (text.length() < 2 || text.charAt(0) != '\'' || text.charAt(text.length() - 1) != '\'') {
+                return throwNotImplemented();
+            }
+            value = text.substring(1, text.length() - 1).replace("''", "'");
+        }
+        return new SQLFragment(FragmentKind.LITERAL, value, null, literalType, Collections.<SQLParameter>emptyList());
+    }
+
+    @Override
+    public SQLFragment visitMember(Member member) throws ExpressionVisitException, ODataApplicationException {
+        List<UriResource> uriResourceParts = member.getResourcePath().getUriResourceParts();
+        if (uriResourceParts.size() == 1 && uriResourceParts.get(0) instanceof UriResourcePrimitiveProperty) {
+            String column = ((UriResourcePrimitiveProperty) uriResourceParts.get(0)).getProperty().getName();
+            if (this.columnTypes.containsKey(column)) {
+                return new SQLFragment(FragmentKind.COLUMN, column, column, null,
+                                       Collections.<SQLParameter>emptyList());
+            }
+        }
+        return throwNotImplemented();
+    }
+
+    @Override
+    public SQLFragment visitAlias(String aliasName) throws ExpressionVisitException, ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public SQLFragment visitTypeLiteral(EdmType type) throws ExpressionVisitException, ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public SQLFragment visitLambdaReference(String variableName)
+            throws ExpressionVisitException, ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public SQLFragment visitEnum(EdmEnumType type, List<String> enumValues)
+            throws ExpressionVisitException, ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    private <T> T throwNotImplemented() throws ODataApplicationException {
+        throw new ODataApplicationException("Not implemented in SQL", HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(),
+                                            Locale.ROOT);
+    }
+
+    private enum FragmentKind {
+        COLUMN, LITERAL, NULL, CONDITION
+    }
+
+    /**
+     * Represents a translated part of an expression.
+     */
+    public static class SQLFragment {
+
+        private final FragmentKind kind;
+
+        /**
+         * SQL of a condition or a column, or the value of a literal.
+         */
+        private final String sql;
+
+        private final String column;
+
+        private final EdmPrimitiveTypeKind literalType;
+
+        private final List<SQLParameter> parameters;
+
+        private SQLFragment(FragmentKind kind, String sql, String column, EdmPrimitiveTypeKind literalType,
+                            List<SQLParameter> parameters) {
+            this.kind = kind;
+            this.sql = sql;
+            this.column = column;
+            this.literalType = literalType;
+            this.parameters = parameters;
+        }
+
+        private static SQLFragment condition(String sql) {
+            return new SQLFragment(FragmentKind.CONDITION, sql, null, null, Collections.<SQLParameter>emptyList());
+        }
+
+        private static SQLFragment condition(String sql, List<SQLParameter> parameters) {
+            return new SQLFragment(FragmentKind.CONDITION, sql, null, null, parameters);
+        }
+
+        private static SQLFragment condition(String sql, List<SQLParameter> leftParameters,
+                                             List<SQLParameter> rightParameters) {
+            List<SQLParameter> parameters = new ArrayList<>(leftParameters.size() + rightParameters.size());
+            parameters.addAll(leftParameters);
+            parameters.addAll(rightParameters);
+            return new SQLFragment(FragmentKind.CONDITION, sql, null, null, parameters);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return Parameters of the SQL, in the order of their placeholders
+         */
+        public List<SQLParameter> getParameters() {
+            return parameters;
+        }
+    }
+
+    /**
+     * Represents a value bound to a placeholder of the translated SQL.
+     */
+    public static class SQLParameter {
+
+        private final int type;
+
+        private final String value;
+
+        public SQLParameter(int type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        /**
+         * @return SQL type the value is bound as
+         */
+        public int getType() {
+            return type;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
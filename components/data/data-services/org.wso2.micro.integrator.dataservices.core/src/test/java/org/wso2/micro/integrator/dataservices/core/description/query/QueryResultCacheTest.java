@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.description.query;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLStreamWriter;
+
+import junit.framework.TestCase;
+import org.wso2.micro.integrator.dataservices.core.DBUtils;
+
+/**
+ * Tests the expiry, eviction and invalidation of the {@link QueryResultCache}.
+ */
+public class QueryResultCacheTest extends TestCase {
+
+	/**
+	 * Test that a cached result is written out as the query wrote it.
+	 */
+	public void testWriteCachedResult() throws Exception {
+		QueryResultCache cache = new QueryResultCache(60000, 10);
+		assertTrue(cache.put("key", this.createResult(cache, "1"), cache.getVersion()));
+		StringWriter out = new StringWriter();
+		XMLStreamWriter xmlWriter = DBUtils.getXMLOutputFactory().createXMLStreamWriter(out);
+		xmlWriter.writeStartElement("entries");
+		cache.get("key").writeTo(xmlWriter);
+		xmlWriter.writeEndElement();
+		xmlWriter.close();
+		assertEquals("<entries><entry id=\"1\">value</entry></entries>", out.toString());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	/**
+	 * Test that a result read before an invalidation is not cached after it.
+	 */
+	public void testResultReadBeforeInvalidationIsNotCached() throws Exception {
+		QueryResultCache cache = new QueryResultCache(60000, 10);
+		long version = cache.getVersion();
+		QueryResultCache.CachedQueryResult result = this.createResult(cache, "1");
+		/* a write to the data source while the query runs */
+		cache.clear();
+		assertFalse("Stale result is cached", cache.put("key", result, version));
+		assertNull(cache.get("key"));
+		assertTrue(cache.put("key", result, cache.getVersion()));
+		assertNotNull(cache.get("key"));
+	}
+
+	/**
+	 * Test that the results expire after their time to live.
+	 */
+	public void testExpiry() throws Exception {
+		QueryResultCache cache = new QueryResultCache(1, 10);
+		cache.put("key", this.createResult(cache, "1"), cache.getVersion());
+		Thread.sleep(10);
+		assertNull("Expired result is returned", cache.get("key"));
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Test that the least recently used result is evicted when the cache is full.
+	 */
+	public void testEviction() throws Exception {
+		QueryResultCache cache = new QueryResultCache(60000, 2);
+		cache.put("first", this.createResult(cache, "1"), cache.getVersion());
+		cache.put("second", this.createResult(cache, "2"), cache.getVersion());
+		cache.get("first");
+		cache.put("third", this.createResult(cache, "3"), cache.getVersion());
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNull("Least recently used result is kept", cache.get("second"));
+		assertNotNull(cache.get("first"));
+		assertNotNull(cache.get("third"));
+	}
+
+	private QueryResultCache.CachedQueryResult createResult(QueryResultCache cache, String id)
+			throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XMLStreamWriter xmlWriter = QueryResultCache.createCaptureWriter(out);
+		xmlWriter.writeStartElement("entry");
+		xmlWriter.writeAttribute("id", id);
+		xmlWriter.writeCharacters("value");
+		xmlWriter.writeEndElement();
+		return cache.completeCapture(xmlWriter, out);
+	}
+
+}
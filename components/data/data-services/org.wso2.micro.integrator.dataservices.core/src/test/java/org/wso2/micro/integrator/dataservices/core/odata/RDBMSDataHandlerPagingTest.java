@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.odata;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.h2.jdbcx.JdbcDataSource;
+
+/**
+ * Tests the paging of the entities read by the {@link RDBMSDataHandler} in the database.
+ */
+public class RDBMSDataHandlerPagingTest extends TestCase {
+
+	private static final String TABLE = "PAGING_CUSTOMER";
+
+	private RDBMSDataHandler handler;
+
+	@Override
+	protected void setUp() throws Exception {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:odataPaging;DB_CLOSE_DELAY=-1");
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS " + TABLE);
+			statement.execute("CREATE TABLE " + TABLE + " (ID INT PRIMARY KEY, NAME VARCHAR(20))");
+			statement.execute("INSERT INTO " + TABLE + " VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+		}
+		this.handler = new RDBMSDataHandler(dataSource, "odataPaging");
+	}
+
+	/**
+	 * Test that $top=0 returns no entities, while the count is of all the matching entities.
+	 */
+	public void testTopZero() throws Exception {
+		ODataQueryResult result = this.handler.readTable(TABLE,
+				new ODataQuery(null, Collections.<OrderByItem>emptyList(), null, 0, true));
+		assertTrue(result.isPagingApplied());
+		assertTrue("Entities are returned for $top=0", result.getEntries().isEmpty());
+		assertEquals(Long.valueOf(3), result.getCount());
+	}
+
+	/**
+	 * Test that skip and top are applied in the database.
+	 */
+	public void testSkipAndTop() throws Exception {
+		ODataQueryResult result = this.handler.readTable(TABLE,
+				new ODataQuery(null, Collections.<OrderByItem>emptyList(), 1, 1, false));
+		assertTrue(result.isPagingApplied());
+		assertEquals(1, result.getEntries().size());
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.odata.expression;
+
+import java.lang.reflect.Proxy;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+
+/**
+ * Tests the translation of OData filter and order by expressions to SQL by the {@link SQLExpressionVisitor}.
+ */
+public class SQLExpressionVisitorTest extends TestCase {
+
+	private SQLExpressionVisitor visitor;
+
+	@Override
+	protected void setUp() throws Exception {
+		Map<String, Integer> columnTypes = new HashMap<>();
+		columnTypes.put("AGE", Types.INTEGER);
+		columnTypes.put("NAME", Types.VARCHAR);
+		columnTypes.put("PHOTO", Types.BLOB);
+		this.visitor = new SQLExpressionVisitor(columnTypes);
+	}
+
+	/**
+	 * Test that a comparison of a column with a literal is translated to a parameterized condition.
+	 */
+	public void testComparison() throws Exception {
+		SQLExpressionVisitor.SQLFragment condition = this.visitor.visitBinaryOperator(BinaryOperatorKind.GT,
+				this.visitor.visitMember(member("AGE")),
+				this.visitor.visitLiteral(literal("30", EdmPrimitiveTypeKind.Int32)));
+		assertEquals("(AGE IS NOT NULL AND AGE > ?)", condition.getSql());
+		assertParameters(condition, Types.BIGINT, "30");
+	}
+
+	/**
+	 * Test that a comparison with the literal on the left is mirrored.
+	 */
+	public void testMirroredComparison() throws Exception {
+		SQLExpressionVisitor.SQLFragment condition = this.visitor.visitBinaryOperator(BinaryOperatorKind.LT,
+				this.visitor.visitLiteral(literal("30", EdmPrimitiveTypeKind.Int32)),
+				this.visitor.visitMember(member("AGE")));
+		assertEquals("(AGE IS NOT NULL AND AGE > ?)", condition.getSql());
+	}
+
+	/**
+	 * Test that a comparison with null is translated to a null check.
+	 */
+	public void testNullComparison() throws Exception {
+		SQLExpressionVisitor.SQLFragment condition = this.visitor.visitBinaryOperator(BinaryOperatorKind.NE,
+				this.visitor.visitMember(member("NAME")), this.visitor.visitLiteral(literal("null", null)));
+		assertEquals("NAME IS NOT NULL", condition.getSql());
+		assertTrue(condition.getParameters().isEmpty());
+	}
+
+	/**
+	 * Test that the quotes of a string literal are removed and its escaped quotes are unescaped.
+	 */
+	public void testStringLiteral() throws Exception {
+		SQLExpressionVisitor.SQLFragment condition = this.visitor.visitBinaryOperator(BinaryOperatorKind.EQ,
+				this.visitor.visitMember(member("NAME")),
+				this.visitor.visitLiteral(literal("'O''Brien'", EdmPrimitiveTypeKind.String)));
+		assertEquals("(NAME IS NOT NULL AND NAME = ?)", condition.getSql());
+		assertParameters(condition, Types.VARCHAR, "O'Brien");
+	}
+
+	/**
+	 * Test that the parameters of combined conditions are in the order of their placeholders.
+	 */
+	public void testAnd() throws Exception {
+		SQLExpressionVisitor.SQLFragment age = this.visitor.visitBinaryOperator(BinaryOperatorKind.GE,
+				this.visitor.visitMember(member("AGE")),
+				this.visitor.visitLiteral(literal("18", EdmPrimitiveTypeKind.Int32)));
+		SQLExpressionVisitor.SQLFragment name = this.visitor.visitBinaryOperator(BinaryOperatorKind.EQ,
+				this.visitor.visitMember(member("NAME")),
+				this.visitor.visitLiteral(literal("'a'", EdmPrimitiveTypeKind.String)));
+		SQLExpressionVisitor.SQLFragment condition =
+				this.visitor.visitBinaryOperator(BinaryOperatorKind.AND, age, name);
+		assertEquals("((AGE IS NOT NULL AND AGE >= ?) AND (NAME IS NOT NULL AND NAME = ?))", condition.getSql());
+		assertParameters(condition, Types.BIGINT, "18", Types.VARCHAR, "a");
+	}
+
+	/**
+	 * Test that the expressions which cannot be evaluated in SQL are rejected, so that they are evaluated in memory.
+	 */
+	public void testNotTranslated() throws Exception {
+		assertNotTranslated(BinaryOperatorKind.EQ, member("AGE"), literal("'x'", EdmPrimitiveTypeKind.String));
+		assertNotTranslated(BinaryOperatorKind.EQ, member("PHOTO"), literal("'x'", EdmPrimitiveTypeKind.String));
+		try {
+			this.visitor.visitMember(member("UNKNOWN"));
+			fail("Unknown column is translated");
+		} catch (ODataApplicationException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Test that only the comparable columns are ordered in SQL.
+	 */
+	public void testOrderBy() throws Exception {
+		assertEquals("AGE", this.visitor.translateOrderBy(member("AGE")));
+		try {
+			this.visitor.translateOrderBy(member("PHOTO"));
+			fail("LOB column is ordered in SQL");
+		} catch (ODataApplicationException e) {
+			// expected
+		}
+	}
+
+	private void assertNotTranslated(BinaryOperatorKind operator, Member member, Literal literal) throws Exception {
+		try {
+			this.visitor.visitBinaryOperator(operator, this.visitor.visitMember(member),
+					this.visitor.visitLiteral(literal));
+			fail("Comparison of " + member + " with " + literal.getText() + " is translated");
+		} catch (ODataApplicationException e) {
+			// expected
+		}
+	}
+
+	private static void assertParameters(SQLExpressionVisitor.SQLFragment condition, Object... typesAndValues) {
+		List<SQLExpressionVisitor.SQLParameter> parameters = condition.getParameters();
+		assertEquals(typesAndValues.length / 2, parameters.size());
+		for (int i = 0; i < parameters.size(); i++) {
+			assertEquals(typesAndValues[2 * i], parameters.get(i).getType());
+			assertEquals(typesAndValues[2 * i + 1], parameters.get(i).getValue());
+		}
+	}
+
+	private static Literal literal(String text, EdmPrimitiveTypeKind kind) {
+		Map<String, Object> values = new HashMap<>();
+		values.put("getText", text);
+		values.put("getType", kind == null ? null : EdmPrimitiveTypeFactory.getInstance(kind));
+		return proxy(Literal.class, values);
+	}
+
+	private static Member member(String column) {
+		Map<String, Object> propertyValues = new HashMap<>();
+		propertyValues.put("getName", column);
+		Map<String, Object> resourceValues = new HashMap<>();
+		resourceValues.put("getProperty", proxy(EdmProperty.class, propertyValues));
+		Map<String, Object> pathValues = new HashMap<>();
+		pathValues.put("getUriResourceParts",
+				Collections.<UriResource>singletonList(proxy(UriResourcePrimitiveProperty.class, resourceValues)));
+		Map<String, Object> memberValues = new HashMap<>();
+		memberValues.put("getResourcePath", proxy(UriInfoResource.class, pathValues));
+		memberValues.put("toString", column);
+		return proxy(Member.class, memberValues);
+	}
+
+	/**
+	 * Creates an implementation of the given interface, which returns the given values. An expression accepts a
+	 * visitor by visiting itself as a member or a literal.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, Map<String, Object> values) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			if ("accept".equals(method.getName())) {
+				ExpressionVisitor<?> visitor = (ExpressionVisitor<?>) args[0];
+				return proxy instanceof Member ? visitor.visitMember((Member) proxy)
+						: visitor.visitLiteral((Literal) proxy);
+			}
+			return values.get(method.getName());
+		});
+	}
+
+}
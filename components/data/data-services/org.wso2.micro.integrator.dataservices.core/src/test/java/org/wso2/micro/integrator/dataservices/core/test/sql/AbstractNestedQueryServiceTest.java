@@ -62,6 +62,27 @@ public abstract class AbstractNestedQueryServiceTest extends
 		}
 	}
 	
+	/*
+	 * Test that a nested query executed in batches gives the same result as when it is
+	 * executed once per parent row
+	 */
+	protected void nestedBatchQuery() {
+		TestUtils.showMessage(this.epr + " - nestedBatchQuery");
+		try {
+            TestUtils.checkForService(this.epr);
+			OMElement expected = TestUtils.callOperation(this.epr,
+					"payment_info_op", null);
+			OMElement result = TestUtils.callOperation(this.epr,
+					"payment_info_batch_op", null);
+			assertTrue(TestUtils.validateResultStructure(result,
+					TestUtils.PAYMENT_INFO_NESTED_XSD_PATH));
+			assertEquals(expected.toString(), result.toString());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
 	/*
 	 * Test nested query with DateTime 
 	 */
@@ -26,6 +26,15 @@ public class AnalyticsDataPublisherConstants {
     public static final String FLOW_STATISTIC_JMX_PUBLISHING = STAT_CONFIG_ELEMENT + ".JmxPublishingDisable";
     public static final String FLOW_STATISTIC_WORKER_COUNT = STAT_CONFIG_ELEMENT + ".StatWorkerCount";
     public static final int FLOW_STATISTIC_WORKER_COUNT_DEFAULT = 2;
+    public static final String FLOW_STATISTIC_WORKER_BATCH_SIZE = STAT_CONFIG_ELEMENT + ".StatWorkerBatchSize";
+    public static final int FLOW_STATISTIC_WORKER_BATCH_SIZE_DEFAULT = 100;
+    public static final String FLOW_STATISTIC_MAX_PROCESSING_LAG = STAT_CONFIG_ELEMENT + ".StatMaxProcessingLag";
+    public static final long FLOW_STATISTIC_MAX_PROCESSING_LAG_DEFAULT = -1;//in milliseconds, disabled by default
+    public static final String FLOW_STATISTIC_SAMPLE_RATE = STAT_CONFIG_ELEMENT + ".StatSampleRate";
+    public static final double FLOW_STATISTIC_SAMPLE_RATE_DEFAULT = 1.0;//publish every message flow
+    public static final String FLOW_STATISTIC_SLOW_FLOW_THRESHOLD = STAT_CONFIG_ELEMENT + ".StatSlowFlowThreshold";
+    public static final long FLOW_STATISTIC_SLOW_FLOW_THRESHOLD_DEFAULT = -1;//in milliseconds, disabled by default
+    public static final String FLOW_STATISTIC_KEEP_FAULTY_FLOWS = STAT_CONFIG_ELEMENT + ".StatKeepFaultyFlows";
     public static final String FLOW_STATISTIC_ANALYTICS_PUBLISHING = STAT_CONFIG_ELEMENT + ".AnalyticPublishingDisable";
     public static final String STAT_OBSERVERS = STAT_CONFIG_ELEMENT + ".Observers";
     public static final String FLOW_STATISTIC_NODE_HOST_NAME = STAT_CONFIG_ELEMENT + ".NodeHostName";
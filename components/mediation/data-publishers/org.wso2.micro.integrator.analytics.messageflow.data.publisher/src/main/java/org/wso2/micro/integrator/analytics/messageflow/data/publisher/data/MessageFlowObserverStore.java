@@ -19,8 +19,11 @@ package org.wso2.micro.integrator.analytics.messageflow.data.publisher.data;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.aspects.ComponentType;
 import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.InvocationCountObserver;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.MessageFlowObserver;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.SampledMessageFlowObserver;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -65,8 +68,22 @@ public class MessageFlowObserverStore {
     }
 
     public void notifyObservers(PublishingFlow publishingFlow) {
+        notifyObservers(publishingFlow, true);
+    }
+
+    /**
+     * Notify the observers of a message flow
+     *
+     * @param publishingFlow The message flow
+     * @param sampled        Whether the message flow is picked by the sampling policy. Otherwise the
+     *                       {@link SampledMessageFlowObserver}s are not notified
+     */
+    public void notifyObservers(PublishingFlow publishingFlow, boolean sampled) {
 
         for (MessageFlowObserver o : observers) {
+            if (!sampled && o instanceof SampledMessageFlowObserver) {
+                continue;
+            }
             try {
                 o.updateStatistics(publishingFlow);
             } catch (Throwable t) {
@@ -75,6 +92,55 @@ public class MessageFlowObserverStore {
         }
     }
 
+    /**
+     * Count an invocation of a component in a message flow which is not picked by the sampling policy
+     *
+     * @param componentType type of the component
+     * @param componentName name of the component
+     * @param faulty        whether the invocation had a fault
+     */
+    public void countInvocation(ComponentType componentType, String componentName, boolean faulty) {
+
+        for (MessageFlowObserver o : observers) {
+            if (o instanceof InvocationCountObserver) {
+                try {
+                    ((InvocationCountObserver) o).countInvocation(componentType, componentName, faulty);
+                } catch (Throwable t) {
+                    log.error("Error occurred while notifying the statistics observer", t);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether any of the observers counts the component invocations of the message flows which are not picked by the
+     * sampling policy
+     *
+     * @return true if there is an {@link InvocationCountObserver}
+     */
+    public boolean hasInvocationCountObservers() {
+        for (MessageFlowObserver o : observers) {
+            if (o instanceof InvocationCountObserver) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether any of the observers receives the message flows which are not picked by the sampling policy
+     *
+     * @return true if there is an observer which is not a {@link SampledMessageFlowObserver}
+     */
+    public boolean hasUnsampledObservers() {
+        for (MessageFlowObserver o : observers) {
+            if (!(o instanceof SampledMessageFlowObserver)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public MessageFlowObserverStore() {
     }
 
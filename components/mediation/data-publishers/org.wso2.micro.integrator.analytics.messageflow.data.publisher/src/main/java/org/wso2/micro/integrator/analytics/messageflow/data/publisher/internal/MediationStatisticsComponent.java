@@ -20,6 +20,7 @@ package org.wso2.micro.integrator.analytics.messageflow.data.publisher.internal;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.aspects.flow.statistics.collectors.RuntimeStatisticCollector;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
@@ -35,14 +36,18 @@ import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.A
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.MessageFlowObserver;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.TenantInformation;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.jmx.JMXMediationFlowObserver;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.services.FlowSamplingPolicy;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.services.MediationConfigReporterThread;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.services.MessageFlowReporterStatistics;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.services.MessageFlowReporterThread;
 import org.wso2.micro.integrator.core.services.Axis2ConfigurationContextService;
 import org.wso2.micro.integrator.core.services.CarbonServerConfigurationService;
 import org.wso2.micro.integrator.initializer.services.SynapseEnvironmentService;
 import org.wso2.micro.integrator.initializer.services.SynapseRegistrationsService;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -58,7 +63,8 @@ public class MediationStatisticsComponent {
 
     private Map<Integer, MessageFlowObserverStore> stores = new HashMap<Integer, MessageFlowObserverStore>();
 
-    private Map<Integer, MessageFlowReporterThread> reporterThreads = new HashMap<Integer, MessageFlowReporterThread>();
+    private Map<Integer, List<MessageFlowReporterThread>> reporterThreads =
+            new HashMap<Integer, List<MessageFlowReporterThread>>();
 
     private Map<Integer, MediationConfigReporterThread> configReporterThreads = new HashMap<Integer, MediationConfigReporterThread>();
 
@@ -129,13 +135,47 @@ public class MediationStatisticsComponent {
                 workerCount = AnalyticsDataPublisherConstants.FLOW_STATISTIC_WORKER_COUNT_DEFAULT;
             }
         }
+        String batchSizeString = serverConf
+                .getFirstProperty(AnalyticsDataPublisherConstants.FLOW_STATISTIC_WORKER_BATCH_SIZE);
+        int batchSize = AnalyticsDataPublisherConstants.FLOW_STATISTIC_WORKER_BATCH_SIZE_DEFAULT;
+        if (batchSizeString != null) {
+            try {
+                batchSize = Integer.parseInt(batchSizeString);
+            } catch (NumberFormatException ignored) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Invalid StatWorkerBatchSize. It will use default value - "
+                                      + AnalyticsDataPublisherConstants.FLOW_STATISTIC_WORKER_BATCH_SIZE_DEFAULT);
+                }
+            }
+        }
+        String maxLagString = serverConf
+                .getFirstProperty(AnalyticsDataPublisherConstants.FLOW_STATISTIC_MAX_PROCESSING_LAG);
+        long maxProcessingLag = AnalyticsDataPublisherConstants.FLOW_STATISTIC_MAX_PROCESSING_LAG_DEFAULT;
+        if (maxLagString != null) {
+            try {
+                maxProcessingLag = Long.parseLong(maxLagString);
+            } catch (NumberFormatException ignored) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Invalid StatMaxProcessingLag. It will use default value - "
+                                      + AnalyticsDataPublisherConstants.FLOW_STATISTIC_MAX_PROCESSING_LAG_DEFAULT);
+                }
+            }
+        }
+        configureSamplingPolicy(serverConf);
+        MessageFlowReporterStatistics reporterStatistics = new MessageFlowReporterStatistics();
+        MBeanRegistrar.getInstance().registerMBean(reporterStatistics, MessageFlowReporterStatistics.MBEAN_CATEGORY,
+                                                   MessageFlowReporterStatistics.MBEAN_ID + tenantId);
+        List<MessageFlowReporterThread> tenantReporterThreads = new ArrayList<>(workerCount);
         for (int i = 0; i < workerCount; i++) {
-            reporterThread = new MessageFlowReporterThread(synEnvService, observerStore);
+            reporterThread = new MessageFlowReporterThread(synEnvService, observerStore, reporterStatistics);
             reporterThread.setName("message-flow-reporter-" + i + "-tenant-" + tenantId);
             reporterThread.setDelay(delay);
+            reporterThread.setBatchSize(batchSize);
+            reporterThread.setMaxProcessingLag(maxProcessingLag);
             reporterThread.start();
-            reporterThreads.put(tenantId, reporterThread);
+            tenantReporterThreads.add(reporterThread);
         }
+        reporterThreads.put(tenantId, tenantReporterThreads);
         String disableJmxStr = serverConf
                 .getFirstProperty(AnalyticsDataPublisherConstants.FLOW_STATISTIC_JMX_PUBLISHING);
         boolean enableJmxPublishing = !Boolean.parseBoolean(disableJmxStr);
@@ -188,13 +228,63 @@ public class MediationStatisticsComponent {
         configReporterThreads.put(tenantId, configReporterThread);
     }
 
+    /**
+     * Configure which message flows are published to the observers.
+     *
+     * @param serverConf server configuration holding the sampling configuration
+     */
+    private void configureSamplingPolicy(CarbonServerConfigurationService serverConf) {
+        FlowSamplingPolicy samplingPolicy = FlowSamplingPolicy.getInstance();
+        String sampleRateString = serverConf
+                .getFirstProperty(AnalyticsDataPublisherConstants.FLOW_STATISTIC_SAMPLE_RATE);
+        double sampleRate = AnalyticsDataPublisherConstants.FLOW_STATISTIC_SAMPLE_RATE_DEFAULT;
+        if (sampleRateString != null) {
+            try {
+                sampleRate = Double.parseDouble(sampleRateString);
+            } catch (NumberFormatException ignored) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Invalid StatSampleRate. It will use default value - "
+                                      + AnalyticsDataPublisherConstants.FLOW_STATISTIC_SAMPLE_RATE_DEFAULT);
+                }
+            }
+        }
+        try {
+            samplingPolicy.setSampleRate(sampleRate);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid StatSampleRate " + sampleRate + ". It will use default value - "
+                             + AnalyticsDataPublisherConstants.FLOW_STATISTIC_SAMPLE_RATE_DEFAULT);
+            samplingPolicy.setSampleRate(AnalyticsDataPublisherConstants.FLOW_STATISTIC_SAMPLE_RATE_DEFAULT);
+        }
+        String slowThresholdString = serverConf
+                .getFirstProperty(AnalyticsDataPublisherConstants.FLOW_STATISTIC_SLOW_FLOW_THRESHOLD);
+        long slowFlowThreshold = AnalyticsDataPublisherConstants.FLOW_STATISTIC_SLOW_FLOW_THRESHOLD_DEFAULT;
+        if (slowThresholdString != null) {
+            try {
+                slowFlowThreshold = Long.parseLong(slowThresholdString);
+            } catch (NumberFormatException ignored) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Invalid StatSlowFlowThreshold. It will use default value - "
+                                      + AnalyticsDataPublisherConstants.FLOW_STATISTIC_SLOW_FLOW_THRESHOLD_DEFAULT);
+                }
+            }
+        }
+        samplingPolicy.setSlowFlowThreshold(slowFlowThreshold);
+        String keepFaultyFlows = serverConf
+                .getFirstProperty(AnalyticsDataPublisherConstants.FLOW_STATISTIC_KEEP_FAULTY_FLOWS);
+        samplingPolicy.setKeepFaultyFlows(keepFaultyFlows == null || Boolean.parseBoolean(keepFaultyFlows));
+    }
+
     @Deactivate
     protected void deactivate(ComponentContext ctxt) {
 
-        Set<Map.Entry<Integer, MessageFlowReporterThread>> threadEntries = reporterThreads.entrySet();
-        for (Map.Entry<Integer, MessageFlowReporterThread> threadEntry : threadEntries) {
-            MessageFlowReporterThread reporterThread = threadEntry.getValue();
-            if (reporterThread != null && reporterThread.isAlive()) {
+        Set<Map.Entry<Integer, List<MessageFlowReporterThread>>> threadEntries = reporterThreads.entrySet();
+        for (Map.Entry<Integer, List<MessageFlowReporterThread>> threadEntry : threadEntries) {
+            MBeanRegistrar.getInstance().unRegisterMBean(MessageFlowReporterStatistics.MBEAN_CATEGORY,
+                                                         MessageFlowReporterStatistics.MBEAN_ID + threadEntry.getKey());
+            for (MessageFlowReporterThread reporterThread : threadEntry.getValue()) {
+                if (reporterThread == null || !reporterThread.isAlive()) {
+                    continue;
+                }
                 reporterThread.shutdown();
                 // This should wake up the thread if it is asleep
                 reporterThread.interrupt();
@@ -282,8 +372,14 @@ public class MediationStatisticsComponent {
 
         try {
             int tenantId = registrationsService.getTenantId();
-            MessageFlowReporterThread reporterThread = reporterThreads.get(tenantId);
-            if (reporterThread != null && reporterThread.isAlive()) {
+            List<MessageFlowReporterThread> tenantReporterThreads = reporterThreads.get(tenantId);
+            if (tenantReporterThreads == null) {
+                return;
+            }
+            for (MessageFlowReporterThread reporterThread : tenantReporterThreads) {
+                if (reporterThread == null || !reporterThread.isAlive()) {
+                    continue;
+                }
                 reporterThread.shutdown();
                 // This should wake up the thread if it is asleep
                 reporterThread.interrupt();
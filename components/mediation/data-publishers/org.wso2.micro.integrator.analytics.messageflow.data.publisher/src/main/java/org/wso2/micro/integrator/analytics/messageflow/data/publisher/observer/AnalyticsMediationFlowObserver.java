@@ -22,7 +22,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.publish.StatisticsPublisher;
 
-public class AnalyticsMediationFlowObserver implements MessageFlowObserver, TenantInformation {
+public class AnalyticsMediationFlowObserver implements SampledMessageFlowObserver, TenantInformation {
 
     private static final Log log = LogFactory.getLog(AnalyticsMediationFlowObserver.class);
     private int tenantId = -1234;
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer;
+
+import org.apache.synapse.aspects.ComponentType;
+
+/**
+ * A {@link SampledMessageFlowObserver} which maintains per component counts. It receives the message flows picked by
+ * the {@link org.wso2.micro.integrator.analytics.messageflow.data.publisher.services.FlowSamplingPolicy} in full, and
+ * only the invocations of the components of the other message flows, which are counted from the raw statistic events
+ * without building their publishing flows. This keeps the counts exact while the durations are taken from the sampled
+ * message flows.
+ */
+public interface InvocationCountObserver extends SampledMessageFlowObserver {
+
+    /**
+     * Counts an invocation of a component in a message flow which is not picked by the sampling policy.
+     *
+     * @param componentType type of the component, mediators are not counted
+     * @param componentName name of the component
+     * @param faulty        whether the invocation had a fault
+     */
+    void countInvocation(ComponentType componentType, String componentName, boolean faulty);
+}
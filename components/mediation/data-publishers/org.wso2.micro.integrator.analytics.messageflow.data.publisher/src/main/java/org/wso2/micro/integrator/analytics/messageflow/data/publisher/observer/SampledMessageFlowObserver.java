@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer;
+
+/**
+ * Marks a message flow observer which only receives the message flows picked by the
+ * {@link org.wso2.micro.integrator.analytics.messageflow.data.publisher.services.FlowSamplingPolicy}, e.g. an
+ * observer publishing each message flow to an analytics server. The other observers, such as the ones maintaining
+ * metrics, receive every message flow, so that their counts are not affected by the sampling.
+ */
+public interface SampledMessageFlowObserver extends MessageFlowObserver {
+
+}
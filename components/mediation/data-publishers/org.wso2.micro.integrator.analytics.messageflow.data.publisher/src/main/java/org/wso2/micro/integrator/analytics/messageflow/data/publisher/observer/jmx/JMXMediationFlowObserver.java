@@ -20,11 +20,12 @@ package org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.aspects.ComponentType;
 import org.apache.synapse.aspects.flow.statistics.publishing.PublishingEvent;
 import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
 import org.apache.synapse.aspects.flow.statistics.util.StatisticsConstants;
 import org.apache.synapse.commons.jmx.MBeanRegistrar;
-import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.MessageFlowObserver;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.InvocationCountObserver;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.TenantInformation;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.jmx.data.StatisticCollectionViewMXBean;
 import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.jmx.data.StatisticsCompositeObject;
@@ -34,9 +35,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Publish statistics data for JMX monitoring.
+ * Publish statistics data for JMX monitoring. The message flows which are not sampled are only counted, so the times
+ * are computed from the sampled message flows.
  */
-public class JMXMediationFlowObserver implements StatisticCollectionViewMXBean, MessageFlowObserver, TenantInformation {
+public class JMXMediationFlowObserver
+        implements StatisticCollectionViewMXBean, InvocationCountObserver, TenantInformation {
 
     private static final Log log = LogFactory.getLog(JMXMediationFlowObserver.class);
 
@@ -191,6 +194,36 @@ public class JMXMediationFlowObserver implements StatisticCollectionViewMXBean,
         }
     }
 
+    @Override
+    public void countInvocation(ComponentType componentType, String componentName, boolean faulty) {
+        Map<String, SummeryStatisticObject> statistics;
+        switch (componentType) {
+        case ENDPOINT:
+            statistics = endpointStatistics;
+            break;
+        case SEQUENCE:
+            statistics = sequenceStatistics;
+            break;
+        case PROXYSERVICE:
+            statistics = proxyStatistics;
+            break;
+        case API:
+            statistics = apiStatistics;
+            break;
+        case INBOUNDENDPOINT:
+            statistics = inboundEndpointStatistics;
+            break;
+        default:
+            return;
+        }
+        SummeryStatisticObject statisticObject = statistics.get(componentName);
+        if (statisticObject == null) {
+            statistics.put(componentName, new SummeryStatisticObject(componentName, faulty));
+        } else {
+            statisticObject.countInvocation(faulty);
+        }
+    }
+
     @Override
     public int getTenantId() {
         return tenantId;
@@ -35,27 +35,47 @@ public class SummeryStatisticObject {
 
     private long count = 0;
 
+    /**
+     * Number of the invocations the times are computed from, which excludes the invocations only counted
+     */
+    private long timedCount = 0;
+
     private long faultCount;
 
     public SummeryStatisticObject(PublishingEvent publishingEvent) {
         name = publishingEvent.getComponentName();
-        minTime = maxTime = avgTime = publishingEvent.getDuration();
-        count++;
-        if (publishingEvent.getFaultCount() > 0) {
-            faultCount++;
-        }
+        updateStatistics(publishingEvent);
+    }
+
+    public SummeryStatisticObject(String name, boolean faulty) {
+        this.name = name;
+        countInvocation(faulty);
     }
 
     public void updateStatistics(PublishingEvent publishingEvent) {
         long duration = publishingEvent.getDuration();
-        avgTime = (avgTime * count + duration) / (count + 1);
-        if (minTime > duration) {
-            minTime = duration;
-        } else if (maxTime < duration) {
-            maxTime = duration;
+        if (timedCount == 0) {
+            minTime = maxTime = avgTime = duration;
+        } else {
+            avgTime = (avgTime * timedCount + duration) / (timedCount + 1);
+            if (minTime > duration) {
+                minTime = duration;
+            } else if (maxTime < duration) {
+                maxTime = duration;
+            }
         }
+        timedCount++;
+        countInvocation(publishingEvent.getFaultCount() > 0);
+    }
+
+    /**
+     * Counts an invocation whose duration is not known, i.e. of a message flow which is not sampled.
+     *
+     * @param faulty whether the invocation had a fault
+     */
+    public void countInvocation(boolean faulty) {
         count++;
-        if (publishingEvent.getFaultCount() > 0) {
+        if (faulty) {
             faultCount++;
         }
     }
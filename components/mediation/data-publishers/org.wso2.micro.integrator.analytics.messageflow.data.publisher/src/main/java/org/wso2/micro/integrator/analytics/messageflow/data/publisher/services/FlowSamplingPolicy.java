@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.analytics.messageflow.data.publisher.services;
+
+import org.apache.synapse.aspects.flow.statistics.log.StatisticsReportingEvent;
+import org.apache.synapse.aspects.flow.statistics.log.templates.AbstractStatisticEvent;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.SampledMessageFlowObserver;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which message flows are published to the {@link SampledMessageFlowObserver}s, e.g. the analytics
+ * publisher, while the observers maintaining metrics receive every message flow. A message flow is published if it
+ * is picked by the probabilistic sample, or if it matches one of the tail rules, i.e. it has faults or it took longer
+ * than the slow flow threshold. The decision is taken on the raw statistic events, so that the statistic logs and the
+ * publishing flow are not built for the message flows which are sampled out when no observer needs them.
+ * <p>
+ * The sampling configuration is shared by all the reporter threads and can be changed at runtime.
+ */
+public class FlowSamplingPolicy {
+
+    private static final FlowSamplingPolicy INSTANCE = new FlowSamplingPolicy();
+
+    /**
+     * Fraction of the message flows to be published, between 0 and 1
+     */
+    private volatile double sampleRate = 1.0;
+
+    /**
+     * Duration in milliseconds above which a message flow is always published, or a negative value to disable
+     */
+    private volatile long slowFlowThreshold = -1;
+
+    /**
+     * Whether the message flows with faults are always published
+     */
+    private volatile boolean keepFaultyFlows = true;
+
+    private FlowSamplingPolicy() {
+    }
+
+    public static FlowSamplingPolicy getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Decides whether the message flow made of the given events should be published.
+     *
+     * @param events statistic events of the message flow
+     * @return whether the message flow should be published
+     */
+    public boolean isSampled(List<StatisticsReportingEvent> events) {
+        double rate = sampleRate;
+        if (rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            return true;
+        }
+        boolean checkFaults = keepFaultyFlows;
+        long threshold = slowFlowThreshold;
+        if (!checkFaults && threshold < 0) {
+            return false;
+        }
+        long startTime = events.get(0).getDataUnit().getTime();
+        long endTime = startTime;
+        for (StatisticsReportingEvent event : events) {
+            if (checkFaults && event.getEventType() == AbstractStatisticEvent.EventType.FAULT_EVENT) {
+                return true;
+            }
+            long time = event.getDataUnit().getTime();
+            if (time > endTime) {
+                endTime = time;
+            }
+        }
+        return threshold > -1 && endTime - startTime > threshold;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Set the fraction of the message flows to be published.
+     *
+     * @param sampleRate fraction of the message flows to be published, between 0 and 1
+     */
+    public void setSampleRate(double sampleRate) {
+        if (Double.isNaN(sampleRate) || sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate should be between 0 and 1 : " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public long getSlowFlowThreshold() {
+        return slowFlowThreshold;
+    }
+
+    /**
+     * Set the duration above which a message flow is published regardless of the sample rate.
+     *
+     * @param slowFlowThreshold duration in milliseconds, or a negative value to disable
+     */
+    public void setSlowFlowThreshold(long slowFlowThreshold) {
+        this.slowFlowThreshold = slowFlowThreshold < 0 ? -1 : slowFlowThreshold;
+    }
+
+    public boolean isKeepFaultyFlows() {
+        return keepFaultyFlows;
+    }
+
+    /**
+     * Set whether the message flows with faults are published regardless of the sample rate.
+     *
+     * @param keepFaultyFlows whether the message flows with faults are always published
+     */
+    public void setKeepFaultyFlows(boolean keepFaultyFlows) {
+        this.keepFaultyFlows = keepFaultyFlows;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.analytics.messageflow.data.publisher.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the message flow reporter threads of a tenant, shared by all the threads.
+ */
+public class MessageFlowReporterStatistics implements MessageFlowReporterStatisticsMXBean {
+
+    public static final String MBEAN_CATEGORY = "Mediation Flow Reporter";
+
+    public static final String MBEAN_ID = "MediationFlowReporter_";
+
+    private final LongAdder processedFlowCount = new LongAdder();
+
+    private final LongAdder droppedFlowCount = new LongAdder();
+
+    private final LongAdder sampledOutFlowCount = new LongAdder();
+
+    private final AtomicLong maxProcessingLag = new AtomicLong();
+
+    private volatile int lastBatchSize;
+
+    private volatile long processingLag;
+
+    void recordBatch(int batchSize) {
+        lastBatchSize = batchSize;
+    }
+
+    void recordProcessed(long lag) {
+        processedFlowCount.increment();
+        recordLag(lag);
+    }
+
+    void recordDropped(long lag) {
+        droppedFlowCount.increment();
+        recordLag(lag);
+    }
+
+    void recordSampledOut() {
+        sampledOutFlowCount.increment();
+    }
+
+    private void recordLag(long lag) {
+        processingLag = lag;
+        long max = maxProcessingLag.get();
+        while (lag > max && !maxProcessingLag.compareAndSet(max, lag)) {
+            max = maxProcessingLag.get();
+        }
+    }
+
+    @Override
+    public long getProcessedFlowCount() {
+        return processedFlowCount.sum();
+    }
+
+    @Override
+    public long getDroppedFlowCount() {
+        return droppedFlowCount.sum();
+    }
+
+    @Override
+    public long getSampledOutFlowCount() {
+        return sampledOutFlowCount.sum();
+    }
+
+    @Override
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    @Override
+    public long getProcessingLag() {
+        return processingLag;
+    }
+
+    @Override
+    public long getMaxProcessingLag() {
+        return maxProcessingLag.get();
+    }
+
+    @Override
+    public void resetStatistics() {
+        processedFlowCount.reset();
+        droppedFlowCount.reset();
+        sampledOutFlowCount.reset();
+        maxProcessingLag.set(0);
+    }
+}
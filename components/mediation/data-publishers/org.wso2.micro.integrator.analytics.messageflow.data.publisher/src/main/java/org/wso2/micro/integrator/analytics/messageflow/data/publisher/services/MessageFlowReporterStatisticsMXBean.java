@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.analytics.messageflow.data.publisher.services;
+
+/**
+ * MBean interface to expose the state of the message flow reporter threads using JMX.
+ */
+public interface MessageFlowReporterStatisticsMXBean {
+
+    /**
+     * @return number of message flows published to the observers
+     */
+    long getProcessedFlowCount();
+
+    /**
+     * @return number of message flows dropped since they were not processed within the maximum processing lag
+     */
+    long getDroppedFlowCount();
+
+    /**
+     * @return number of message flows not published to the sampled observers, since they were not picked by the
+     * sampling policy
+     */
+    long getSampledOutFlowCount();
+
+    /**
+     * @return number of message flows drained from the message data store in the last batch
+     */
+    int getLastBatchSize();
+
+    /**
+     * @return time in milliseconds between the start of the last processed message flow and its processing
+     */
+    long getProcessingLag();
+
+    /**
+     * @return maximum processing lag observed in milliseconds
+     */
+    long getMaxProcessingLag();
+
+    /**
+     * Reset the processed, dropped and sampled out flow counts and the maximum processing lag.
+     */
+    void resetStatistics();
+}
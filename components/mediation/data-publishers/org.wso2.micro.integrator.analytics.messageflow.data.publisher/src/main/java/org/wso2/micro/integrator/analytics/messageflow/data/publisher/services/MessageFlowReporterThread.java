@@ -33,10 +33,17 @@ import org.wso2.micro.integrator.analytics.messageflow.data.publisher.data.Messa
 import org.wso2.micro.integrator.initializer.services.SynapseEnvironmentService;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
- * Worker which processes statistic events and publish to analytic server.
+ * Worker which processes statistic events and publish to analytic server. Several workers drain the message data store
+ * concurrently, each taking a batch of message flows at a time. Message flows which wait longer than the maximum
+ * processing lag are dropped instead of being published, so that the workers catch up under load. Message flows which
+ * are not picked by the {@link FlowSamplingPolicy} are only published to the observers maintaining metrics, and are
+ * discarded before their publishing flow is built when there is no such observer. The component invocations of those
+ * message flows are counted from their raw events for the observers which only count them, see
+ * {@link org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.InvocationCountObserver}.
  */
 public class MessageFlowReporterThread extends Thread {
     public static final String IGNORE_ELEMENT = "IgnoreElement";
@@ -52,12 +59,44 @@ public class MessageFlowReporterThread extends Thread {
      */
     private SynapseEnvironmentService synapseEnvironmentService;
 
+    /**
+     * Minimum time to wait when the message data store is empty, which is doubled up to the delay while it stays empty
+     */
+    private static final long MIN_IDLE_DELAY = 10;
+
     private long delay = 5000;
 
+    private int batchSize = 1;
+
+    private long maxProcessingLag = -1;
+
+    private final MessageFlowReporterStatistics statistics;
+
+    /**
+     * Lists reused for each message flow processed by this worker
+     */
+    private final List<StatisticsLog> messageFlowLogs = new ArrayList<>();
+
+    private final List<StatisticsReportingEvent> remainingEvents = new ArrayList<>();
+
+    /**
+     * Data units of the components, and the components with faults, of a message flow which is only counted
+     */
+    private final List<StatisticDataUnit> componentDataUnits = new ArrayList<>();
+
+    private final BitSet faultyComponents = new BitSet();
+
     public MessageFlowReporterThread(SynapseEnvironmentService synEnvSvc,
                                      MessageFlowObserverStore messageFlowObserverStore) {
+        this(synEnvSvc, messageFlowObserverStore, new MessageFlowReporterStatistics());
+    }
+
+    public MessageFlowReporterThread(SynapseEnvironmentService synEnvSvc,
+                                     MessageFlowObserverStore messageFlowObserverStore,
+                                     MessageFlowReporterStatistics statistics) {
         this.synapseEnvironmentService = synEnvSvc;
         this.messageFlowObserverStore = messageFlowObserverStore;
+        this.statistics = statistics;
     }
 
     public void setDelay(long delay) {
@@ -67,56 +106,169 @@ public class MessageFlowReporterThread extends Thread {
         this.delay = delay;
     }
 
-    private void delay() {
+    /**
+     * Set the maximum number of message flows taken from the message data store at a time.
+     *
+     * @param batchSize maximum number of message flows in a batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Set the maximum time a message flow may wait to be processed before it is dropped.
+     *
+     * @param maxProcessingLag maximum processing lag in milliseconds, or a negative value to never drop flows
+     */
+    public void setMaxProcessingLag(long maxProcessingLag) {
+        this.maxProcessingLag = maxProcessingLag;
+    }
+
+    private long delay(long idleDelay) {
         if (delay <= 0) {
-            return;
+            return idleDelay;
         }
-
+        long sleepTime = Math.min(idleDelay, delay);
         try {
-            Thread.sleep(delay);
+            Thread.sleep(sleepTime);
         } catch (InterruptedException ignore) {
 
         }
+        return Math.min(sleepTime * 2, delay);
     }
 
     public void run() {
-        StatisticsReportingEventHolder statisticsReportingEventHolder;
+        List<StatisticsReportingEventHolder> batch = new ArrayList<>(batchSize);
+        long idleDelay = MIN_IDLE_DELAY;
         while (!shutdownRequested) {
             try {
-                statisticsReportingEventHolder = synapseEnvironmentService.getSynapseEnvironment().getMessageDataStore()
-                        .dequeue();
-                if (statisticsReportingEventHolder != null) {
-                    processAndPublishEventList(statisticsReportingEventHolder);
-                } else {
-                    delay();
+                StatisticsReportingEventHolder statisticsReportingEventHolder;
+                while (batch.size() < batchSize && (statisticsReportingEventHolder = synapseEnvironmentService
+                        .getSynapseEnvironment().getMessageDataStore().dequeue()) != null) {
+                    batch.add(statisticsReportingEventHolder);
+                }
+                if (batch.isEmpty()) {
+                    idleDelay = delay(idleDelay);
+                    continue;
+                }
+                idleDelay = MIN_IDLE_DELAY;
+                statistics.recordBatch(batch.size());
+                for (StatisticsReportingEventHolder holder : batch) {
+                    try {
+                        processAndPublish(holder);
+                    } catch (Exception exception) {
+                        log.error("Error in mediation flow statistic data consumer while processing a flow",
+                                  exception);
+                    }
                 }
             } catch (Exception exception) {//catching throwable since this shouldn't fail
                 log.error("Error in mediation flow statistic data consumer while consuming data", exception);
+            } finally {
+                batch.clear();
             }
         }
     }
 
-    private void processAndPublishEventList(StatisticsReportingEventHolder statisticsReportingEventHolder) {
+    void processAndPublish(StatisticsReportingEventHolder statisticsReportingEventHolder) {
+        List<StatisticsReportingEvent> events = statisticsReportingEventHolder.getEventList();
+        if (events.isEmpty()) {
+            return;
+        }
+        // the flow is enqueued when its last event is reported, so the time it ran is not part of the lag
+        long lag = System.currentTimeMillis() - events.get(events.size() - 1).getDataUnit().getTime();
+        if (maxProcessingLag > -1 && lag > maxProcessingLag) {
+            statistics.recordDropped(lag);
+            if (log.isDebugEnabled()) {
+                log.debug("Dropping a message flow which waited " + lag + " ms to be processed");
+            }
+            return;
+        }
+        boolean sampled = FlowSamplingPolicy.getInstance().isSampled(events);
+        if (!sampled) {
+            statistics.recordSampledOut();
+            if (messageFlowObserverStore.hasInvocationCountObservers()) {
+                try {
+                    countInvocations(events);
+                } finally {
+                    componentDataUnits.clear();
+                    faultyComponents.clear();
+                }
+            }
+            if (!messageFlowObserverStore.hasUnsampledObservers()) {
+                return;
+            }
+        }
+        try {
+            processAndPublishEventList(statisticsReportingEventHolder, sampled);
+        } finally {
+            messageFlowLogs.clear();
+            remainingEvents.clear();
+        }
+        statistics.recordProcessed(lag);
+    }
+
+    /**
+     * Counts the component invocations of a message flow from its raw events, without building its statistic logs.
+     * Faults are attributed to the component they occurred in and to its parents, and the repeated entries of an API
+     * are skipped, as when the publishing flow is built.
+     */
+    private void countInvocations(List<StatisticsReportingEvent> events) {
+        for (StatisticsReportingEvent event : events) {
+            if (event.getEventType() == AbstractStatisticEvent.EventType.STATISTICS_OPEN_EVENT) {
+                StatisticDataUnit dataUnit = (StatisticDataUnit) event.getDataUnit();
+                int currentIndex = dataUnit.getCurrentIndex();
+                while (componentDataUnits.size() <= currentIndex) {
+                    componentDataUnits.add(null);
+                }
+                componentDataUnits.set(currentIndex, dataUnit);
+            }
+        }
+        for (StatisticsReportingEvent event : events) {
+            if (event.getEventType() == AbstractStatisticEvent.EventType.FAULT_EVENT) {
+                int index = event.getDataUnit().getCurrentIndex();
+                while (index > -1 && index < componentDataUnits.size() && componentDataUnits.get(index) != null
+                        && !faultyComponents.get(index)) {
+                    faultyComponents.set(index);
+                    index = componentDataUnits.get(index).getParentIndex();
+                }
+            }
+        }
+        StatisticDataUnit flowDataUnit = componentDataUnits.isEmpty() ? null : componentDataUnits.get(0);
+        for (int i = 0; i < componentDataUnits.size(); i++) {
+            StatisticDataUnit dataUnit = componentDataUnits.get(i);
+            if (dataUnit == null || dataUnit.getComponentType() == ComponentType.MEDIATOR) {
+                continue;
+            }
+            if (i > 0 && dataUnit.getComponentType() == ComponentType.API && flowDataUnit != null
+                    && ComponentType.API == flowDataUnit.getComponentType()
+                    && flowDataUnit.getComponentId().equals(dataUnit.getComponentId())) {
+                continue;
+            }
+            messageFlowObserverStore.countInvocation(dataUnit.getComponentType(), dataUnit.getComponentName(),
+                                                     faultyComponents.get(i));
+        }
+    }
 
-        List<StatisticsReportingEvent> remainingEvents = new ArrayList<>();
-        List<StatisticsLog> messageFlowLogs = new ArrayList<>();
+    private void processAndPublishEventList(StatisticsReportingEventHolder statisticsReportingEventHolder,
+                                            boolean sampled) {
 
         for (StatisticsReportingEvent event : statisticsReportingEventHolder.getEventList()) {
             if (event.getEventType() == AbstractStatisticEvent.EventType.STATISTICS_OPEN_EVENT) {
                 StatisticDataUnit statisticDataUnit = (StatisticDataUnit) event.getDataUnit();
                 StatisticsLog statisticsLog = new StatisticsLog(statisticDataUnit);
 
-                if (statisticDataUnit.getCurrentIndex() < messageFlowLogs.size()) {
-                    messageFlowLogs.set(statisticDataUnit.getCurrentIndex(), statisticsLog);
+                int currentIndex = statisticDataUnit.getCurrentIndex();
+                if (currentIndex < messageFlowLogs.size()) {
+                    messageFlowLogs.set(currentIndex, statisticsLog);
                 } else {
 
                     // Filling the gaps, if messageFlowLogs size is less than current index given
-                    for (int i = messageFlowLogs.size(); i < statisticDataUnit.getCurrentIndex(); i++) {
+                    while (messageFlowLogs.size() < currentIndex) {
                         messageFlowLogs.add(null);
                     }
 
                     // After filling gaps, add the new statistic-data-unit
-                    messageFlowLogs.add(statisticDataUnit.getCurrentIndex(), statisticsLog);
+                    messageFlowLogs.add(statisticsLog);
                 }
 
                 if (statisticDataUnit.getParentList() != null && !statisticDataUnit.getParentList().isEmpty()) {
@@ -216,7 +368,7 @@ public class MessageFlowReporterThread extends Thread {
 
         PublishingFlow publishingFlow = TracingDataCollectionHelper.createPublishingFlow(messageFlowLogs);
 
-        messageFlowObserverStore.notifyObservers(publishingFlow);
+        messageFlowObserverStore.notifyObservers(publishingFlow, sampled);
     }
 
     void updateParents(List<StatisticsLog> messageFlowLogs, int index, long endTime) {
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.analytics.messageflow.data.publisher.services;
+
+import org.apache.synapse.aspects.ComponentType;
+import org.apache.synapse.aspects.flow.statistics.data.raw.StatisticDataUnit;
+import org.apache.synapse.aspects.flow.statistics.log.StatisticsReportingEventHolder;
+import org.apache.synapse.aspects.flow.statistics.log.templates.StatisticsCloseEvent;
+import org.apache.synapse.aspects.flow.statistics.log.templates.StatisticsOpenEvent;
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.data.MessageFlowObserverStore;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.InvocationCountObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test the processing lag based dropping of the message flows and the counting of the message flows which are not
+ * sampled.
+ */
+public class MessageFlowReporterThreadTest {
+
+    private static final long MAX_PROCESSING_LAG = 1000;
+
+    private double sampleRate;
+
+    private boolean keepFaultyFlows;
+
+    private MessageFlowReporterStatistics statistics;
+
+    private MessageFlowObserverStore observerStore;
+
+    private MessageFlowReporterThread reporterThread;
+
+    @Before
+    public void setUp() {
+        // sample out every flow, so that the flows which are not dropped are not built and published
+        FlowSamplingPolicy policy = FlowSamplingPolicy.getInstance();
+        sampleRate = policy.getSampleRate();
+        keepFaultyFlows = policy.isKeepFaultyFlows();
+        policy.setSampleRate(0);
+        policy.setKeepFaultyFlows(false);
+
+        statistics = new MessageFlowReporterStatistics();
+        observerStore = new MessageFlowObserverStore();
+        reporterThread = new MessageFlowReporterThread(null, observerStore, statistics);
+        reporterThread.setMaxProcessingLag(MAX_PROCESSING_LAG);
+    }
+
+    @After
+    public void tearDown() {
+        FlowSamplingPolicy.getInstance().setSampleRate(sampleRate);
+        FlowSamplingPolicy.getInstance().setKeepFaultyFlows(keepFaultyFlows);
+    }
+
+    @Test
+    public void testLongFlowIsNotDropped() {
+        long now = System.currentTimeMillis();
+        reporterThread.processAndPublish(createFlow(now - 10 * MAX_PROCESSING_LAG, now));
+
+        Assert.assertEquals("A flow which ran longer than the maximum lag is dropped", 0,
+                            statistics.getDroppedFlowCount());
+        Assert.assertEquals(1, statistics.getSampledOutFlowCount());
+    }
+
+    @Test
+    public void testLaggingFlowIsDropped() {
+        long now = System.currentTimeMillis();
+        reporterThread.processAndPublish(createFlow(now - 11 * MAX_PROCESSING_LAG, now - 10 * MAX_PROCESSING_LAG));
+
+        Assert.assertEquals("A flow which waited longer than the maximum lag is not dropped", 1,
+                            statistics.getDroppedFlowCount());
+        Assert.assertEquals(0, statistics.getSampledOutFlowCount());
+    }
+
+    @Test
+    public void testSampledOutFlowIsCounted() {
+        CountingObserver observer = new CountingObserver();
+        observerStore.registerObserver(observer);
+        long now = System.currentTimeMillis();
+        StatisticsReportingEventHolder holder = new StatisticsReportingEventHolder();
+        holder.addEvent(new StatisticsOpenEvent(createDataUnit(0, -1, ComponentType.PROXYSERVICE, "proxy", now)));
+        holder.addEvent(new StatisticsOpenEvent(createDataUnit(1, 0, ComponentType.MEDIATOR, "log", now)));
+        holder.addEvent(new StatisticsCloseEvent(createDataUnit(1, 0, ComponentType.MEDIATOR, "log", now)));
+        holder.addEvent(new StatisticsOpenEvent(createDataUnit(2, 0, ComponentType.ENDPOINT, "backend", now)));
+        holder.addEvent(new StatisticsCloseEvent(createDataUnit(2, 0, ComponentType.ENDPOINT, "backend", now)));
+        holder.addEvent(new StatisticsCloseEvent(createDataUnit(0, -1, ComponentType.PROXYSERVICE, "proxy", now)));
+
+        reporterThread.processAndPublish(holder);
+
+        Assert.assertEquals(1, statistics.getSampledOutFlowCount());
+        Assert.assertEquals("The components of the flow are not counted, or the mediators are counted",
+                            "PROXYSERVICE:proxy,ENDPOINT:backend", String.join(",", observer.invocations));
+        Assert.assertEquals("A flow which is only counted is published", 0, observer.publishedFlowCount);
+    }
+
+    private static StatisticsReportingEventHolder createFlow(long startTime, long endTime) {
+        StatisticsReportingEventHolder holder = new StatisticsReportingEventHolder();
+        holder.addEvent(new StatisticsOpenEvent(createDataUnit(0, -1, ComponentType.PROXYSERVICE, "proxy",
+                                                               startTime)));
+        holder.addEvent(new StatisticsCloseEvent(createDataUnit(0, -1, ComponentType.PROXYSERVICE, "proxy",
+                                                                endTime)));
+        return holder;
+    }
+
+    private static StatisticDataUnit createDataUnit(int currentIndex, int parentIndex, ComponentType componentType,
+                                                    String componentName, long time) {
+        StatisticDataUnit dataUnit = new StatisticDataUnit();
+        dataUnit.setStatisticId("test-flow");
+        dataUnit.setCurrentIndex(currentIndex);
+        dataUnit.setParentIndex(parentIndex);
+        dataUnit.setComponentType(componentType);
+        dataUnit.setComponentName(componentName);
+        dataUnit.setComponentId(componentName);
+        dataUnit.setTime(time);
+        return dataUnit;
+    }
+
+    /**
+     * Observer which records the invocations counted and the flows published to it.
+     */
+    private static class CountingObserver implements InvocationCountObserver {
+
+        private final List<String> invocations = new ArrayList<>();
+
+        private int publishedFlowCount;
+
+        @Override
+        public void countInvocation(ComponentType componentType, String componentName, boolean faulty) {
+            invocations.add(componentType + ":" + componentName);
+        }
+
+        @Override
+        public void updateStatistics(PublishingFlow snapshot) {
+            publishedFlowCount++;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
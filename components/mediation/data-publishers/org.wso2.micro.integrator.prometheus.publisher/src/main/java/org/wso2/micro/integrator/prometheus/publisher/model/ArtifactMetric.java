@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.prometheus.publisher.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request count, error count and latency of a single integration artifact
+ */
+public class ArtifactMetric {
+
+    private final String labelString;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LatencyHistogram latency;
+
+    /**
+     * @param artifactName Name of the artifact
+     * @param buckets      Upper bounds of the latency histogram buckets
+     */
+    public ArtifactMetric(String artifactName, HistogramBuckets buckets) {
+
+        this.labelString = "name=\"" + escapeLabelValue(artifactName) + "\"";
+        this.latency = new LatencyHistogram(buckets);
+    }
+
+    /**
+     * Records a single invocation of the artifact
+     *
+     * @param durationMillis Time taken by the invocation in milliseconds
+     * @param faulty         Whether the invocation faulted
+     */
+    public void record(long durationMillis, boolean faulty) {
+
+        requestCount.increment();
+        if (faulty) {
+            errorCount.increment();
+        }
+        latency.observe(durationMillis);
+    }
+
+    /**
+     * @return Labels of the metrics of the artifact without the enclosing braces
+     */
+    public String getLabelString() {
+
+        return labelString;
+    }
+
+    public long getRequestCount() {
+
+        return requestCount.sum();
+    }
+
+    public long getErrorCount() {
+
+        return errorCount.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+
+        return latency;
+    }
+
+    private static String escapeLabelValue(String value) {
+
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                escaped.append('\\').append(c);
+            } else if (c == '\n') {
+                escaped.append("\\n");
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
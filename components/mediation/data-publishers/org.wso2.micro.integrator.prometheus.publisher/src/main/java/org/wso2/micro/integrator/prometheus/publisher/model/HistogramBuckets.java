@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.prometheus.publisher.model;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Upper bounds of the buckets of latency histograms
+ */
+public class HistogramBuckets {
+
+    private static final Log LOGGER = LogFactory.getLog(HistogramBuckets.class);
+
+    /**
+     * Default bucket bounds in seconds
+     */
+    public static final String DEFAULT_BUCKETS = "0.005,0.01,0.025,0.05,0.1,0.25,0.5,1,2.5,5,10";
+
+    private final long[] boundsMillis;
+    private final String[] labels;
+
+    private HistogramBuckets(long[] boundsMillis, String[] labels) {
+
+        this.boundsMillis = boundsMillis;
+        this.labels = labels;
+    }
+
+    /**
+     * Creates the buckets from a comma separated list of upper bounds in seconds. Since latencies are measured in
+     * milliseconds, bounds are rounded up to the nearest millisecond. The default buckets are used if the list is
+     * invalid.
+     *
+     * @param buckets Comma separated bucket bounds in seconds, in increasing order
+     * @return Histogram buckets
+     */
+    public static HistogramBuckets parse(String buckets) {
+
+        if (buckets == null || buckets.trim().isEmpty()) {
+            buckets = DEFAULT_BUCKETS;
+        }
+        String[] values = buckets.split(",");
+        long[] boundsMillis = new long[values.length];
+        String[] labels = new String[values.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                BigDecimal seconds = new BigDecimal(values[i].trim());
+                boundsMillis[i] = seconds.movePointRight(3).setScale(0, RoundingMode.CEILING).longValueExact();
+                labels[i] = seconds.stripTrailingZeros().toPlainString();
+                if (boundsMillis[i] <= 0 || (i > 0 && boundsMillis[i] <= boundsMillis[i - 1])) {
+                    throw new NumberFormatException("Bucket bounds must be positive and increasing");
+                }
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            LOGGER.warn("Invalid latency histogram buckets " + buckets + ". The default buckets "
+                                + DEFAULT_BUCKETS + " will be used.");
+            return parse(DEFAULT_BUCKETS);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Latency histogram buckets : " + Arrays.toString(labels));
+        }
+        return new HistogramBuckets(boundsMillis, labels);
+    }
+
+    /**
+     * @return Number of buckets excluding the +Inf bucket
+     */
+    public int size() {
+
+        return boundsMillis.length;
+    }
+
+    /**
+     * Gives the index of the bucket to which the given latency belongs
+     *
+     * @param durationMillis Latency in milliseconds
+     * @return Bucket index, which is {@link #size()} for the +Inf bucket
+     */
+    public int indexOf(long durationMillis) {
+
+        int index = Arrays.binarySearch(boundsMillis, durationMillis);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * @param index Bucket index
+     * @return Value of the le label of the bucket
+     */
+    public String getLabel(int index) {
+
+        return index < labels.length ? labels[index] : "+Inf";
+    }
+}
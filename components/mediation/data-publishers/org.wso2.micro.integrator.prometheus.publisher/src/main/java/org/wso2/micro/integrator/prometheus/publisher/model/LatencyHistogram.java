@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.prometheus.publisher.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with cumulative buckets, recorded on striped counters without locking
+ */
+public class LatencyHistogram {
+
+    private final HistogramBuckets bucketBounds;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param bucketBounds Upper bounds of the buckets
+     */
+    public LatencyHistogram(HistogramBuckets bucketBounds) {
+
+        this.bucketBounds = bucketBounds;
+        buckets = new LongAdder[bucketBounds.size() + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a single observation
+     *
+     * @param durationMillis Observed latency in milliseconds
+     */
+    public void observe(long durationMillis) {
+
+        buckets[bucketBounds.indexOf(durationMillis)].increment();
+        sum.add(durationMillis);
+    }
+
+    /**
+     * Writes the buckets, sum and count of the histogram in Prometheus format
+     *
+     * @param writer      Writer to write the histogram to
+     * @param metricName  Name of the histogram metric
+     * @param labelString Labels of the histogram without the enclosing braces
+     * @throws IOException If the histogram could not be written
+     */
+    public void write(Writer writer, String metricName, String labelString) throws IOException {
+
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            writer.write(metricName);
+            writer.write("_bucket{");
+            writer.write(labelString);
+            writer.write(",le=\"");
+            writer.write(bucketBounds.getLabel(i));
+            writer.write("\"} ");
+            writer.write(Long.toString(cumulative));
+            writer.write('\n');
+        }
+        writer.write(metricName);
+        writer.write("_sum{");
+        writer.write(labelString);
+        writer.write("} ");
+        writer.write(Double.toString(sum.sum() / 1000.0));
+        writer.write('\n');
+        writer.write(metricName);
+        writer.write("_count{");
+        writer.write(labelString);
+        writer.write("} ");
+        writer.write(Long.toString(cumulative));
+        writer.write('\n');
+    }
+}
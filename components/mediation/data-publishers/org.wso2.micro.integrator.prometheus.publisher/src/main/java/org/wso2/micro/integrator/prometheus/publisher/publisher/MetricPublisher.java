@@ -17,6 +17,10 @@
  */
 package org.wso2.micro.integrator.prometheus.publisher.publisher;
 
+import org.wso2.micro.integrator.prometheus.publisher.util.PrometheusPublisherConstants;
+
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -31,4 +35,22 @@ public class MetricPublisher {
 
         return new MetricCollector().collect();
     }
+
+    /**
+     * Writes the metrics of the metric registry, followed by the MBean metrics if they are enabled
+     *
+     * @param writer Writer to write the metric data to
+     * @throws IOException If the metric data could not be written
+     */
+    public void writeMetrics(Writer writer) throws IOException {
+
+        MetricRegistry registry = MetricRegistry.getInstance();
+        registry.write(writer);
+        String jmxScraping = System.getProperty(PrometheusPublisherConstants.JMX_SCRAPING_ENABLED);
+        if (jmxScraping != null ? Boolean.parseBoolean(jmxScraping) : !registry.isActive()) {
+            for (String metric : getMetrics()) {
+                writer.write(metric);
+            }
+        }
+    }
 }
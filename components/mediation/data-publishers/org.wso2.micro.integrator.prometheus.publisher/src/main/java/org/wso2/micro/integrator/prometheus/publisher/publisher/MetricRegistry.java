@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.prometheus.publisher.publisher;
+
+import org.wso2.micro.integrator.prometheus.publisher.model.ArtifactMetric;
+import org.wso2.micro.integrator.prometheus.publisher.model.HistogramBuckets;
+import org.wso2.micro.integrator.prometheus.publisher.util.PrometheusPublisherConstants;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the metrics of the integration artifacts, which are updated directly from the mediation statistics events,
+ * and writes them in Prometheus format on demand
+ */
+public class MetricRegistry {
+
+    public static final String ARTIFACT_TYPE_PROXY = "proxy";
+    public static final String ARTIFACT_TYPE_API = "api";
+    public static final String ARTIFACT_TYPE_INBOUND_ENDPOINT = "inbound_endpoint";
+    public static final String ARTIFACT_TYPE_ENDPOINT = "endpoint";
+    public static final String ARTIFACT_TYPE_SEQUENCE = "sequence";
+    public static final String ARTIFACT_TYPE_MEDIATOR = "mediator";
+
+    private static final String METRIC_PREFIX = "wso2_integration_";
+    private static final MetricRegistry INSTANCE = new MetricRegistry();
+
+    /**
+     * Metrics per artifact name, per artifact type. The artifact types are kept in the order they are written.
+     */
+    private final Map<String, ConcurrentMap<String, ArtifactMetric>> metrics;
+
+    private final HistogramBuckets buckets;
+
+    private final boolean mediatorMetricsEnabled;
+
+    private volatile boolean active;
+
+    private MetricRegistry() {
+
+        buckets = HistogramBuckets.parse(System.getProperty(PrometheusPublisherConstants.LATENCY_BUCKETS));
+        mediatorMetricsEnabled = Boolean.parseBoolean(
+                System.getProperty(PrometheusPublisherConstants.MEDIATOR_METRICS_ENABLED));
+
+        Map<String, ConcurrentMap<String, ArtifactMetric>> metricsPerType = new LinkedHashMap<>();
+        metricsPerType.put(ARTIFACT_TYPE_PROXY, new ConcurrentHashMap<>());
+        metricsPerType.put(ARTIFACT_TYPE_API, new ConcurrentHashMap<>());
+        metricsPerType.put(ARTIFACT_TYPE_INBOUND_ENDPOINT, new ConcurrentHashMap<>());
+        metricsPerType.put(ARTIFACT_TYPE_ENDPOINT, new ConcurrentHashMap<>());
+        metricsPerType.put(ARTIFACT_TYPE_SEQUENCE, new ConcurrentHashMap<>());
+        metricsPerType.put(ARTIFACT_TYPE_MEDIATOR, new ConcurrentHashMap<>());
+        metrics = Collections.unmodifiableMap(metricsPerType);
+    }
+
+    public static MetricRegistry getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Records a single invocation of an artifact
+     *
+     * @param artifactType   Type of the artifact, one of the ARTIFACT_TYPE constants
+     * @param artifactName   Name of the artifact
+     * @param durationMillis Time taken by the invocation in milliseconds
+     * @param faulty         Whether the invocation faulted
+     */
+    public void record(String artifactType, String artifactName, long durationMillis, boolean faulty) {
+
+        ConcurrentMap<String, ArtifactMetric> metricsOfType = metrics.get(artifactType);
+        if (metricsOfType == null || artifactName == null) {
+            return;
+        }
+        ArtifactMetric metric = metricsOfType.get(artifactName);
+        if (metric == null) {
+            metric = metricsOfType.computeIfAbsent(artifactName, name -> new ArtifactMetric(name, buckets));
+        }
+        metric.record(durationMillis, faulty);
+    }
+
+    /**
+     * Writes all the metrics in Prometheus format
+     *
+     * @param writer Writer to write the metrics to
+     * @throws IOException If the metrics could not be written
+     */
+    public void write(Writer writer) throws IOException {
+
+        for (Map.Entry<String, ConcurrentMap<String, ArtifactMetric>> entry : metrics.entrySet()) {
+            Map<String, ArtifactMetric> metricsOfType = entry.getValue();
+            if (metricsOfType.isEmpty()) {
+                continue;
+            }
+            String baseName = METRIC_PREFIX + entry.getKey();
+
+            String requestsName = baseName + "_requests_total";
+            writeHeader(writer, requestsName, "Total number of requests served by the " + entry.getKey(),
+                        "counter");
+            for (ArtifactMetric metric : metricsOfType.values()) {
+                writeSample(writer, requestsName, metric.getLabelString(), metric.getRequestCount());
+            }
+
+            String errorsName = baseName + "_errors_total";
+            writeHeader(writer, errorsName, "Total number of faulty requests served by the " + entry.getKey(),
+                        "counter");
+            for (ArtifactMetric metric : metricsOfType.values()) {
+                writeSample(writer, errorsName, metric.getLabelString(), metric.getErrorCount());
+            }
+
+            String latencyName = baseName + "_latency_seconds";
+            writeHeader(writer, latencyName, "Latency of the requests served by the " + entry.getKey(),
+                        "histogram");
+            for (ArtifactMetric metric : metricsOfType.values()) {
+                metric.getLatency().write(writer, latencyName, metric.getLabelString());
+            }
+        }
+    }
+
+    /**
+     * Removes all the recorded metrics
+     */
+    public void clear() {
+
+        for (Map<String, ArtifactMetric> metricsOfType : metrics.values()) {
+            metricsOfType.clear();
+        }
+    }
+
+    /**
+     * @return Whether the latencies of the individual mediators are recorded
+     */
+    public boolean isMediatorMetricsEnabled() {
+
+        return mediatorMetricsEnabled;
+    }
+
+    /**
+     * @return Whether the registry is fed with mediation statistics events
+     */
+    public boolean isActive() {
+
+        return active;
+    }
+
+    void setActive(boolean active) {
+
+        this.active = active;
+    }
+
+    private void writeHeader(Writer writer, String metricName, String help, String type) throws IOException {
+
+        writer.write(PrometheusPublisherConstants.PROMETHEUS_HELP_TAG);
+        writer.write(metricName);
+        writer.write(' ');
+        writer.write(help);
+        writer.write('\n');
+        writer.write(PrometheusPublisherConstants.PROMETHEUS_TYPE_TAG);
+        writer.write(metricName);
+        writer.write(' ');
+        writer.write(type);
+        writer.write('\n');
+    }
+
+    private void writeSample(Writer writer, String metricName, String labelString, long value) throws IOException {
+
+        writer.write(metricName);
+        writer.write('{');
+        writer.write(labelString);
+        writer.write("} ");
+        writer.write(Long.toString(value));
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.prometheus.publisher.publisher;
+
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingEvent;
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
+import org.apache.synapse.aspects.flow.statistics.util.StatisticsConstants;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.observer.MessageFlowObserver;
+
+/**
+ * Mediation flow observer which feeds the {@link MetricRegistry} with the statistics events of the proxies, APIs,
+ * inbound endpoints, endpoints and sequences, and optionally of the mediators. Engage it by adding this class to the
+ * MediationFlowStatisticConfig.Observers server configuration.
+ */
+public class PrometheusMediationFlowObserver implements MessageFlowObserver {
+
+    private final MetricRegistry registry = MetricRegistry.getInstance();
+
+    public PrometheusMediationFlowObserver() {
+
+        registry.setActive(true);
+    }
+
+    @Override
+    public void destroy() {
+
+        registry.setActive(false);
+    }
+
+    @Override
+    public void updateStatistics(PublishingFlow snapshot) {
+
+        boolean mediatorMetricsEnabled = registry.isMediatorMetricsEnabled();
+        for (PublishingEvent event : snapshot.getEvents()) {
+            String componentType = event.getComponentType();
+            //Mediator is the most common component type, therefore checking it first
+            if (StatisticsConstants.FLOW_STATISTICS_MEDIATOR.equals(componentType)) {
+                if (mediatorMetricsEnabled) {
+                    // mediator names are not unique, hence the component id which includes the position is used
+                    registry.record(MetricRegistry.ARTIFACT_TYPE_MEDIATOR, event.getComponentId(),
+                                    event.getDuration(), event.getFaultCount() > 0);
+                }
+                continue;
+            }
+            String artifactType = getArtifactType(componentType);
+            if (artifactType != null) {
+                registry.record(artifactType, event.getComponentName(), event.getDuration(),
+                                event.getFaultCount() > 0);
+            }
+        }
+    }
+
+    private String getArtifactType(String componentType) {
+
+        if (StatisticsConstants.FLOW_STATISTICS_ENDPOINT.equals(componentType)) {
+            return MetricRegistry.ARTIFACT_TYPE_ENDPOINT;
+        } else if (StatisticsConstants.FLOW_STATISTICS_SEQUENCE.equals(componentType)) {
+            return MetricRegistry.ARTIFACT_TYPE_SEQUENCE;
+        } else if (StatisticsConstants.FLOW_STATISTICS_PROXYSERVICE.equals(componentType)) {
+            return MetricRegistry.ARTIFACT_TYPE_PROXY;
+        } else if (StatisticsConstants.FLOW_STATISTICS_API.equals(componentType)) {
+            return MetricRegistry.ARTIFACT_TYPE_API;
+        } else if (StatisticsConstants.FLOW_STATISTICS_INBOUNDENDPOINT.equals(componentType)) {
+            return MetricRegistry.ARTIFACT_TYPE_INBOUND_ENDPOINT;
+        }
+        return null;
+    }
+}
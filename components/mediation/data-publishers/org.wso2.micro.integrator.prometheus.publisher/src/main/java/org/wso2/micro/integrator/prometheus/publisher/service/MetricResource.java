@@ -28,8 +28,9 @@ import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.wso2.carbon.inbound.endpoint.internal.http.api.APIResource;
 import org.wso2.micro.integrator.prometheus.publisher.publisher.MetricPublisher;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -40,6 +41,7 @@ public class MetricResource extends APIResource {
     private static Log log = LogFactory.getLog(MetricResource.class);
     private MetricPublisher metricPublisher;
     public static final String NO_ENTITY_BODY = "NO_ENTITY_BODY";
+    private static final int INITIAL_BUFFER_SIZE = 8192;
 
     public MetricResource(String urlTemplate) {
 
@@ -65,15 +67,19 @@ public class MetricResource extends APIResource {
 
         log.debug("Retrieving metric data to be published to Prometheus");
 
-        List<String> metrics = metricPublisher.getMetrics();
+        StringWriter metrics = new StringWriter(INITIAL_BUFFER_SIZE);
+        try {
+            metricPublisher.writeMetrics(metrics);
+        } catch (IOException e) {
+            log.error("Error in writing metric data", e);
+        }
 
-        if (metrics != null && !metrics.isEmpty()) {
+        if (metrics.getBuffer().length() > 0) {
             log.debug("Retrieving metric data successful");
-            textRootElem.setText(String.join("", metrics));
         } else {
-            textRootElem.setText("");
             log.info("No metrics retrieved to be published to Prometheus");
         }
+        textRootElem.setText(metrics.toString());
 
         synCtx.getEnvelope().getBody().addChild(textRootElem);
 
@@ -28,4 +28,20 @@ public class PrometheusPublisherConstants {
 
     public static final String PROMETHEUS_HELP_TAG = "# HELP ";
     public static final String PROMETHEUS_TYPE_TAG = "# TYPE ";
+
+    /**
+     * System property to enable or disable exposing the Synapse MBean attributes. By default they are exposed only
+     * when the metric registry is not fed with mediation statistics events.
+     */
+    public static final String JMX_SCRAPING_ENABLED = "prometheus.jmx.scraping.enabled";
+
+    /**
+     * System property with the comma separated upper bounds, in seconds, of the latency histogram buckets.
+     */
+    public static final String LATENCY_BUCKETS = "prometheus.latency.buckets";
+
+    /**
+     * System property to record the latency of each mediator. Disabled by default.
+     */
+    public static final String MEDIATOR_METRICS_ENABLED = "prometheus.mediator.metrics.enabled";
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.file;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Tracks the files created or modified in a local directory with a {@link WatchService}, so that the directory does
+ * not have to be listed on each poll. The files which were left in the directory by a poll are remembered and
+ * examined again on the next poll together with the changed files.
+ */
+class DirectoryWatcher {
+
+    private static final Log log = LogFactory.getLog(DirectoryWatcher.class);
+
+    private final Path directory;
+    private final WatchService watchService;
+    private final Set<String> pendingFiles = new LinkedHashSet<>();
+    private boolean fullScanRequired = true;
+    private boolean valid = true;
+
+    DirectoryWatcher(Path directory) throws IOException {
+        this.directory = directory;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Collects the change events received since the last poll.
+     *
+     * @return names of the files to be examined, or null if the whole directory has to be listed since the events
+     * were lost or this is the first poll
+     */
+    Set<String> getChangedFiles() {
+        try {
+            WatchKey key;
+            while ((key = watchService.poll()) != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        fullScanRequired = true;
+                        continue;
+                    }
+                    String fileName = event.context().toString();
+                    if (!fileName.endsWith(InboundFileConstants.LOCK_FILE_SUFFIX) && !fileName
+                            .endsWith(InboundFileConstants.FAIL_FILE_SUFFIX)) {
+                        pendingFiles.add(fileName);
+                    }
+                }
+                if (!key.reset()) {
+                    valid = false;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            valid = false;
+        }
+        if (!valid) {
+            log.warn("Directory " + directory + " is no longer watched, listing the whole directory.");
+            return null;
+        }
+        if (fullScanRequired) {
+            return null;
+        }
+        return new LinkedHashSet<>(pendingFiles);
+    }
+
+    /**
+     * Records the files which are left in the directory after a poll.
+     *
+     * @param fileNames names of the files to be examined again on the next poll
+     */
+    void setPendingFiles(Collection<String> fileNames) {
+        pendingFiles.clear();
+        pendingFiles.addAll(fileNames);
+        fullScanRequired = false;
+    }
+
+    /**
+     * @return whether the directory is still being watched. The watcher has to be recreated otherwise
+     */
+    boolean isValid() {
+        return valid;
+    }
+
+    void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Error while closing the watch service of directory " + directory, e);
+        }
+    }
+}
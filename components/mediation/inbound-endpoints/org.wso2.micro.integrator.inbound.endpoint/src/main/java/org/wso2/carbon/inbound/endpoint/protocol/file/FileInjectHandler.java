@@ -72,13 +72,21 @@ public class FileInjectHandler {
      * Inject the message to the sequence
      */
     public boolean invoke(Object object, String name) throws SynapseException {
+        return invoke(object, name, transportHeaders);
+    }
+
+    /**
+     * Inject the message to the sequence with the given transport headers. This can be called concurrently for
+     * different files.
+     */
+    public boolean invoke(Object object, String name, Map<String, Object> transportHeaders) throws SynapseException {
 
         ManagedDataSource dataSource = null;
         ;
         FileObject file = (FileObject) object;
         InputStream in = null;
         try {
-            org.apache.synapse.MessageContext msgCtx = createMessageContext();
+            org.apache.synapse.MessageContext msgCtx = createMessageContext(transportHeaders);
             msgCtx.setProperty(SynapseConstants.INBOUND_ENDPOINT_NAME, name);
             msgCtx.setProperty(SynapseConstants.IS_INBOUND, true);
             InboundEndpoint inboundEndpoint = msgCtx.getConfiguration().getInboundEndpoint(name);
@@ -200,7 +208,7 @@ public class FileInjectHandler {
     /**
      * Create the initial message context for the file
      */
-    private org.apache.synapse.MessageContext createMessageContext() {
+    private org.apache.synapse.MessageContext createMessageContext(Map<String, Object> transportHeaders) {
 
         org.apache.synapse.MessageContext msgCtx = synapseEnvironment.createMessageContext();
         MessageContext axis2MsgCtx = ((org.apache.synapse.core.axis2.Axis2MessageContext) msgCtx)
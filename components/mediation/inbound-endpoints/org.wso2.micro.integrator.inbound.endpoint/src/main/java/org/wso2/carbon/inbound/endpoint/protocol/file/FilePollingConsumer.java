@@ -35,13 +35,28 @@ import org.apache.synapse.commons.vfs.VFSParamDTO;
 import org.apache.synapse.commons.vfs.VFSUtils;
 import org.apache.synapse.core.SynapseEnvironment;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class implement the processing logic related to inbound file protocol.
@@ -75,6 +90,10 @@ public class FilePollingConsumer {
     private boolean distributedLock;
     private Long distributedLockTimeout;
     private FileSystemOptions fso;
+    private int processingThreads = InboundFileConstants.DEFAULT_PROCESSING_THREADS;
+    private ExecutorService processingExecutor;
+    private boolean directoryWatch;
+    private DirectoryWatcher directoryWatcher;
 
     public FilePollingConsumer(Properties vfsProperties, String name, SynapseEnvironment synapseEnvironment,
                                long scanInterval) {
@@ -101,6 +120,15 @@ public class FilePollingConsumer {
             log.warn("Unable to set the sftp Options", e);
             fso = null;
         }
+        if (processingThreads > 1) {
+            // The queue is bounded so that the polling thread processes the files itself when the workers are busy,
+            // instead of holding the whole directory listing in memory
+            processingExecutor = new ThreadPoolExecutor(processingThreads, processingThreads, 0L,
+                                                        TimeUnit.MILLISECONDS,
+                                                        new ArrayBlockingQueue<Runnable>(processingThreads),
+                                                        new FileProcessorThreadFactory(name),
+                                                        new ThreadPoolExecutor.CallerRunsPolicy());
+        }
     }
 
     /**
@@ -167,7 +195,7 @@ public class FilePollingConsumer {
             if (fileObject.exists() && fileObject.isReadable()) {
                 FileObject[] children = null;
                 try {
-                    children = fileObject.getChildren();
+                    children = listChildren();
                 } catch (FileNotFolderException ignored) {
                     if (log.isDebugEnabled()) {
                         log.debug("No Folder found. Only file found on : " + VFSUtils.maskURLPassword(fileURI));
@@ -189,7 +217,7 @@ public class FilePollingConsumer {
                     } else {
                         try {
                             lastCycle = 2;
-                            moveOrDeleteAfterProcessing(fileObject);
+                            moveOrDeleteAfterProcessing(fileObject, lastCycle);
                         } catch (SynapseException synapseException) {
                             log.error("File object '" + VFSUtils.maskURLPassword(fileObject.getURL().toString()) + "' "
                                               + "cloud not be moved after first attempt", synapseException);
@@ -209,6 +237,7 @@ public class FilePollingConsumer {
                         return fileObject;
                     }
                 }
+                updatePendingFiles(children);
             } else {
                 log.warn("Unable to access or read file or directory : " + VFSUtils.maskURLPassword(fileURI) + "."
                                  + " Reason: " + (fileObject.exists() ?
@@ -259,7 +288,7 @@ public class FilePollingConsumer {
 
                 if (runPostProcess) {
                     try {
-                        moveOrDeleteAfterProcessing(fileObject);
+                        moveOrDeleteAfterProcessing(fileObject, lastCycle);
                     } catch (SynapseException synapseException) {
                         lastCycle = 3;
                         log.error("File object '" + VFSUtils.maskURLPassword(fileObject.getURL().toString()) + "' "
@@ -289,6 +318,75 @@ public class FilePollingConsumer {
         }
     }
 
+    /**
+     * List the files of the directory. When the directory is watched, only the files changed since the last poll and
+     * the files left by the last poll are returned.
+     *
+     * @return the files of the directory
+     * @throws FileSystemException if the file object is not a directory or it cannot be listed
+     */
+    private FileObject[] listChildren() throws FileSystemException {
+        if (directoryWatch && InboundFileConstants.LOCAL_FILE_SCHEME.equals(fileObject.getName().getScheme())
+                && fileObject.getType() == FileType.FOLDER) {
+            if (directoryWatcher != null && !directoryWatcher.isValid()) {
+                directoryWatcher.close();
+                directoryWatcher = null;
+            }
+            if (directoryWatcher == null) {
+                try {
+                    directoryWatcher = new DirectoryWatcher(Paths.get(fileObject.getURL().toURI()));
+                } catch (IOException | URISyntaxException | RuntimeException e) {
+                    log.warn("Unable to watch the directory : " + VFSUtils.maskURLPassword(fileURI)
+                                     + ". The directory will be listed on each poll.", e);
+                    directoryWatch = false;
+                }
+            }
+            if (directoryWatcher != null) {
+                Set<String> changedFiles = directoryWatcher.getChangedFiles();
+                if (changedFiles != null) {
+                    List<FileObject> children = new ArrayList<>(changedFiles.size());
+                    for (String changedFile : changedFiles) {
+                        FileObject child = fileObject.resolveFile(changedFile);
+                        if (child.exists()) {
+                            children.add(child);
+                        }
+                    }
+                    return children.toArray(new FileObject[0]);
+                }
+            }
+        }
+        return fileObject.getChildren();
+    }
+
+    /**
+     * Remember the files which are left in the watched directory after processing, so that they are examined again
+     * on the next poll
+     *
+     * @param children the files examined in this poll
+     * @throws FileSystemException
+     */
+    private void updatePendingFiles(FileObject[] children) throws FileSystemException {
+        if (directoryWatcher == null) {
+            return;
+        }
+        if (children == null) {
+            directoryWatcher.setPendingFiles(Collections.<String>emptyList());
+            return;
+        }
+        List<String> pendingFiles = new ArrayList<>();
+        for (FileObject child : children) {
+            String baseName = child.getName().getBaseName();
+            if (baseName.endsWith(InboundFileConstants.LOCK_FILE_SUFFIX) || baseName
+                    .endsWith(InboundFileConstants.FAIL_FILE_SUFFIX)) {
+                continue;
+            }
+            if ((strFilePattern == null || baseName.matches(strFilePattern)) && child.exists()) {
+                pendingFiles.add(baseName);
+            }
+        }
+        directoryWatcher.setPendingFiles(pendingFiles);
+    }
+
     /**
      * Setup the required parameters
      */
@@ -404,6 +502,22 @@ public class FilePollingConsumer {
 
         }
 
+        String strProcessingThreads = vfsProperties.getProperty(InboundFileConstants.PROCESSING_THREADS);
+        if (strProcessingThreads != null) {
+            try {
+                processingThreads = Integer.parseInt(strProcessingThreads);
+            } catch (NumberFormatException e) {
+                log.warn("Invalid param value for " + InboundFileConstants.PROCESSING_THREADS + " : "
+                                 + strProcessingThreads + ". Expected numeric value.");
+            }
+        }
+        if (processingThreads > 1 && iFileProcessingInterval != null && iFileProcessingInterval > 0) {
+            log.warn(InboundFileConstants.PROCESSING_THREADS + " is ignored since "
+                             + VFSConstants.TRANSPORT_FILE_INTERVAL + " is set for the inbound endpoint : " + name);
+            processingThreads = InboundFileConstants.DEFAULT_PROCESSING_THREADS;
+        }
+        directoryWatch = Boolean.parseBoolean(vfsProperties.getProperty(InboundFileConstants.DIRECTORY_WATCH));
+
         waitTimeBeforeRead = null;
         String strWaitTimeBeforeRead = vfsProperties.getProperty(VFSConstants.WAIT_TIME_BEFORE_READ);
         if (strWaitTimeBeforeRead != null) {
@@ -427,9 +541,9 @@ public class FilePollingConsumer {
     private FileObject directoryHandler(FileObject[] children) throws FileSystemException {
         // Process Directory
         lastCycle = 0;
-        int failCount = 0;
-        int successCount = 0;
+        ProcessingCounts counts = new ProcessingCounts();
         int processCount = 0;
+        List<Future<?>> processingTasks = new ArrayList<>();
 
         if (log.isDebugEnabled()) {
             log.debug(
@@ -452,16 +566,10 @@ public class FilePollingConsumer {
                 Arrays.sort(children, new FileNameAscComparator());
             } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_NAME) && !bSortOrderAsscending) {
                 Arrays.sort(children, new FileNameDesComparator());
-            } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_SIZE) && bSortOrderAsscending) {
-                Arrays.sort(children, new FileSizeAscComparator());
-            } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_SIZE) && !bSortOrderAsscending) {
-                Arrays.sort(children, new FileSizeDesComparator());
-            } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP)
-                    && bSortOrderAsscending) {
-                Arrays.sort(children, new FileLastmodifiedtimestampAscComparator());
-            } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP)
-                    && !bSortOrderAsscending) {
-                Arrays.sort(children, new FileLastmodifiedtimestampDesComparator());
+            } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_SIZE)
+                    || strSortParam.equals(VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP)) {
+                sortByAttribute(children, strSortParam.equals(VFSConstants.FILE_SORT_VALUE_SIZE),
+                                bSortOrderAsscending);
             }
             log.debug("End Sorting the files.");
         }
@@ -484,57 +592,22 @@ public class FilePollingConsumer {
                 }
 
                 if ((!fileLock || (fileLock && acquireLock(fsManager, child)))) {
-                    // process the file
-                    boolean runPostProcess = true;
-                    try {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Processing file :" + VFSUtils.maskURLPassword(child.toString()));
-                        }
-                        processCount++;
-                        if (processFile(child) == null) {
-                            runPostProcess = false;
-                        } else {
-                            successCount++;
-                        }
-                        // tell moveOrDeleteAfterProcessing() file was success
-                        lastCycle = 1;
-                    } catch (Exception e) {
-                        if (e.getCause() instanceof FileNotFoundException) {
-                            log.warn("Error processing File URI : " + VFSUtils
-                                    .maskURLPassword(child.getName().toString())
-                                             + ". This can be due to file moved from another process.");
-                            runPostProcess = false;
-                        } else {
-                            log.error("Error processing File URI : " + VFSUtils
-                                    .maskURLPassword(child.getName().toString()), e);
-                            failCount++;
-                            // tell moveOrDeleteAfterProcessing() file failed
-                            lastCycle = 2;
-                        }
-
-                    }
-                    // skipping un-locking file if failed to do delete/move
-                    // after process
-                    boolean skipUnlock = false;
-                    if (runPostProcess) {
-                        try {
-                            moveOrDeleteAfterProcessing(child);
-                        } catch (SynapseException synapseException) {
-                            log.error("File object '" + VFSUtils.maskURLPassword(child.getURL().toString())
-                                              + "'cloud not be moved, will remain in \"locked\" state",
-                                      synapseException);
-                            skipUnlock = true;
-                            failCount++;
-                            lastCycle = 3;
-                            VFSUtils.markFailRecord(fsManager, child);
+                    processCount++;
+                    if (processingExecutor != null) {
+                        // the file is closed by the worker once it is processed
+                        processingTasks.add(processingExecutor.submit(() -> {
+                            try {
+                                processLockedFile(child, counts);
+                            } finally {
+                                closeQuietly(child);
+                            }
+                        }));
+                        if (iFileProcessingCount != null && iFileProcessingCount <= processCount) {
+                            break;
                         }
+                        continue;
                     }
-                    // if there is a failure or not we'll try to release the
-                    // lock
-                    if (fileLock && !skipUnlock) {
-                        // TODO: passing null to avoid build break. Fix properly
-                        VFSUtils.releaseLock(fsManager, child, fso);
-                    }
+                    processLockedFile(child, counts);
                     if (injectHandler == null) {
                         return child;
                     }
@@ -547,7 +620,7 @@ public class FilePollingConsumer {
                 // it is a failed record
                 try {
                     lastCycle = 1;
-                    moveOrDeleteAfterProcessing(child);
+                    moveOrDeleteAfterProcessing(child, lastCycle);
                 } catch (SynapseException synapseException) {
                     log.error("File object '" + VFSUtils.maskURLPassword(child.getURL().toString())
                                       + "'cloud not be moved, will remain in \"fail\" state", synapseException);
@@ -566,10 +639,7 @@ public class FilePollingConsumer {
             }
 
             //close the file system after processing
-            try {
-                child.close();
-            } catch (Exception e) {
-            }
+            closeQuietly(child);
 
             // Manage throttling of file processing
             if (iFileProcessingInterval != null && iFileProcessingInterval > 0) {
@@ -585,6 +655,9 @@ public class FilePollingConsumer {
                 break;
             }
         }
+        awaitProcessing(processingTasks);
+        int failCount = counts.failCount.get();
+        int successCount = counts.successCount.get();
         if (failCount == 0 && successCount > 0) {
             lastCycle = 1;
         } else if (successCount == 0 && failCount > 0) {
@@ -595,6 +668,112 @@ public class FilePollingConsumer {
         return null;
     }
 
+    /**
+     * Process a file of the directory which is locked for this consumer, and move or delete it afterwards. This can be
+     * called concurrently for different files.
+     *
+     * @param child  the file
+     * @param counts the number of succeeded and failed files of the directory
+     */
+    private void processLockedFile(FileObject child, ProcessingCounts counts) {
+        boolean runPostProcess = true;
+        // tell moveOrDeleteAfterProcessing() whether the file was success
+        int cycle = 1;
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Processing file :" + VFSUtils.maskURLPassword(child.toString()));
+            }
+            if (processFile(child) == null) {
+                runPostProcess = false;
+            } else {
+                counts.successCount.incrementAndGet();
+            }
+        } catch (Exception e) {
+            if (e.getCause() instanceof FileNotFoundException) {
+                log.warn("Error processing File URI : " + VFSUtils.maskURLPassword(child.getName().toString())
+                                 + ". This can be due to file moved from another process.");
+                runPostProcess = false;
+            } else {
+                log.error("Error processing File URI : " + VFSUtils.maskURLPassword(child.getName().toString()), e);
+                counts.failCount.incrementAndGet();
+                cycle = 2;
+            }
+        }
+        // skipping un-locking file if failed to do delete/move
+        // after process
+        boolean skipUnlock = false;
+        if (runPostProcess) {
+            try {
+                moveOrDeleteAfterProcessing(child, cycle);
+            } catch (SynapseException synapseException) {
+                log.error("File object '" + VFSUtils.maskURLPassword(child.getName().getURI())
+                                  + "'cloud not be moved, will remain in \"locked\" state", synapseException);
+                skipUnlock = true;
+                counts.failCount.incrementAndGet();
+                VFSUtils.markFailRecord(fsManager, child);
+            }
+        }
+        // if there is a failure or not we'll try to release the
+        // lock
+        if (fileLock && !skipUnlock) {
+            VFSUtils.releaseLock(fsManager, child, fso);
+        }
+    }
+
+    /**
+     * Wait until the files handed over to the processing threads are processed
+     *
+     * @param processingTasks the tasks processing the files of the directory
+     */
+    private void awaitProcessing(List<Future<?>> processingTasks) {
+        for (Future<?> processingTask : processingTasks) {
+            try {
+                processingTask.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for the files to be processed : " + name);
+                return;
+            } catch (ExecutionException e) {
+                log.error("Error while processing a file of : " + VFSUtils.maskURLPassword(fileURI), e.getCause());
+            }
+        }
+    }
+
+    private void closeQuietly(FileObject file) {
+        try {
+            file.close();
+        } catch (Exception e) {
+        }
+    }
+
+    /**
+     * Sort the files by size or last modified timestamp. The attribute of each file is read once, instead of on each
+     * comparison, since it can be a remote call.
+     *
+     * @param children  the files to be sorted
+     * @param bySize    whether to sort by size or by last modified timestamp
+     * @param ascending whether to sort in ascending order
+     */
+    private void sortByAttribute(FileObject[] children, boolean bySize, boolean ascending) {
+        SortKey[] keys = new SortKey[children.length];
+        for (int i = 0; i < children.length; i++) {
+            long key = 0;
+            try {
+                FileContent content = children[i].getContent();
+                key = bySize ? content.getSize() : content.getLastModifiedTime();
+            } catch (FileSystemException e) {
+                log.warn("Unable to read the " + (bySize ? "size" : "lastmodified timestamp") + " of the file : "
+                                 + VFSUtils.maskURLPassword(children[i].toString()), e);
+            }
+            keys[i] = new SortKey(children[i], key);
+        }
+        Comparator<SortKey> comparator = Comparator.comparingLong(sortKey -> sortKey.key);
+        Arrays.sort(keys, ascending ? comparator : comparator.reversed());
+        for (int i = 0; i < keys.length; i++) {
+            children[i] = keys[i].file;
+        }
+    }
+
     /**
      * Check if the file/folder exists before proceeding and retrying
      */
@@ -696,9 +875,8 @@ public class FilePollingConsumer {
                     log.warn("Unable to set file length or last modified date header.", e);
                 }
 
-                injectHandler.setTransportHeaders(transportHeaders);
                 // injectHandler
-                if (!injectHandler.invoke(file, name)) {
+                if (!injectHandler.invoke(file, name, transportHeaders)) {
                     return null;
                 }
             }
@@ -713,13 +891,14 @@ public class FilePollingConsumer {
      * Do the post processing actions
      *
      * @param fileObject
+     * @param cycle      1 if the file was processed successfully, 2 if the processing failed
      * @throws synapseException
      */
-    private void moveOrDeleteAfterProcessing(FileObject fileObject) throws SynapseException {
+    private void moveOrDeleteAfterProcessing(FileObject fileObject, int cycle) throws SynapseException {
 
         String moveToDirectoryURI = null;
         try {
-            switch (lastCycle) {
+            switch (cycle) {
             case 1:
                 if ("MOVE".equals(vfsProperties.getProperty(VFSConstants.TRANSPORT_FILE_ACTION_AFTER_PROCESS))) {
                     moveToDirectoryURI = vfsProperties.getProperty(VFSConstants.TRANSPORT_FILE_MOVE_AFTER_PROCESS);
@@ -829,62 +1008,47 @@ public class FilePollingConsumer {
         }
     }
 
-    class FileLastmodifiedtimestampAscComparator implements Comparator<FileObject> {
+    class FileNameDesComparator implements Comparator<FileObject> {
         @Override
         public int compare(FileObject o1, FileObject o2) {
-            Long lDiff = 0l;
-            try {
-                lDiff = o1.getContent().getLastModifiedTime() - o2.getContent().getLastModifiedTime();
-            } catch (FileSystemException e) {
-                log.warn("Unable to compare lastmodified timestamp of the two files.", e);
-            }
-            return lDiff.intValue();
+            return o2.getName().compareTo(o1.getName());
         }
     }
 
-    class FileSizeAscComparator implements Comparator<FileObject> {
-        @Override
-        public int compare(FileObject o1, FileObject o2) {
-            Long lDiff = 0l;
-            try {
-                lDiff = o1.getContent().getSize() - o2.getContent().getSize();
-            } catch (FileSystemException e) {
-                log.warn("Unable to compare size of the two files.", e);
-            }
-            return lDiff.intValue();
+    /**
+     * File with the attribute it is sorted by
+     */
+    private static class SortKey {
+        private final FileObject file;
+        private final long key;
+
+        SortKey(FileObject file, long key) {
+            this.file = file;
+            this.key = key;
         }
     }
 
-    class FileNameDesComparator implements Comparator<FileObject> {
-        @Override
-        public int compare(FileObject o1, FileObject o2) {
-            return o2.getName().compareTo(o1.getName());
-        }
+    /**
+     * Number of succeeded and failed files of a directory, updated by the processing threads
+     */
+    private static class ProcessingCounts {
+        private final AtomicInteger successCount = new AtomicInteger();
+        private final AtomicInteger failCount = new AtomicInteger();
     }
 
-    class FileLastmodifiedtimestampDesComparator implements Comparator<FileObject> {
-        @Override
-        public int compare(FileObject o1, FileObject o2) {
-            Long lDiff = 0l;
-            try {
-                lDiff = o2.getContent().getLastModifiedTime() - o1.getContent().getLastModifiedTime();
-            } catch (FileSystemException e) {
-                log.warn("Unable to compare lastmodified timestamp of the two files.", e);
-            }
-            return lDiff.intValue();
+    private static class FileProcessorThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        FileProcessorThreadFactory(String name) {
+            this.name = name;
         }
-    }
 
-    class FileSizeDesComparator implements Comparator<FileObject> {
         @Override
-        public int compare(FileObject o1, FileObject o2) {
-            Long lDiff = 0l;
-            try {
-                lDiff = o2.getContent().getSize() - o1.getContent().getSize();
-            } catch (FileSystemException e) {
-                log.warn("Unable to compare size of the two files.", e);
-            }
-            return lDiff.intValue();
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "file-inbound-" + name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 
@@ -893,6 +1057,20 @@ public class FilePollingConsumer {
     }
 
     void destroy() {
+        if (processingExecutor != null) {
+            processingExecutor.shutdown();
+            try {
+                if (!processingExecutor.awaitTermination(scanInterval, TimeUnit.MILLISECONDS)) {
+                    processingExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                processingExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (directoryWatcher != null) {
+            directoryWatcher.close();
+        }
         fsManager.close();
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.file;
+
+/**
+ * Parameters of the file inbound endpoint which are not shared with the VFS transport.
+ */
+public class InboundFileConstants {
+
+    /**
+     * Number of threads used to process the files of a directory in parallel. The files are processed one after the
+     * other by the polling thread by default.
+     */
+    public static final String PROCESSING_THREADS = "transport.vfs.ProcessingThreads";
+
+    /**
+     * Whether the changes of a local directory are tracked with a watch service, so that the directory is listed only
+     * on the first poll and when the change events are lost.
+     */
+    public static final String DIRECTORY_WATCH = "transport.vfs.DirectoryWatch";
+
+    public static final int DEFAULT_PROCESSING_THREADS = 1;
+
+    public static final String LOCAL_FILE_SCHEME = "file";
+
+    public static final String LOCK_FILE_SUFFIX = ".lock";
+
+    public static final String FAIL_FILE_SUFFIX = ".fail";
+}
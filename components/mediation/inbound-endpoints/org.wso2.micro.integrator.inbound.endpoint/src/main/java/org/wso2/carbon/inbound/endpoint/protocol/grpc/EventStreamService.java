@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.grpc;
+
+import com.google.protobuf.Empty;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import static io.grpc.MethodDescriptor.generateFullMethodName;
+
+/**
+ * Streaming counterpart of the EventService, which uses the same messages. Its definition is
+ * <pre>
+ * service EventStreamService {
+ *     rpc processStream (stream Event) returns (stream Event);
+ *     rpc consumeStream (stream Event) returns (google.protobuf.Empty);
+ *     rpc processServerStream (Event) returns (stream Event);
+ * }
+ * </pre>
+ * in the eventservice package. Each event of a processStream or consumeStream call is mediated separately, with the
+ * responses of processStream sent back on the stream. A processStream event which is not responded to within the
+ * response timeout no longer holds back the stream. The response of a processServerStream call is split into its
+ * items, i.e. the elements of a JSON array or the children of the XML payload, which are sent as separate events.
+ */
+public class EventStreamService implements BindableService {
+
+    private static final Log log = LogFactory.getLog(EventStreamService.class);
+
+    static final MethodDescriptor<Event, Event> PROCESS_STREAM_METHOD = MethodDescriptor.<Event, Event>newBuilder()
+            .setType(MethodDescriptor.MethodType.BIDI_STREAMING)
+            .setFullMethodName(generateFullMethodName(InboundGRPCConstants.STREAM_SERVICE_NAME, "processStream"))
+            .setRequestMarshaller(ProtoUtils.marshaller(Event.getDefaultInstance()))
+            .setResponseMarshaller(ProtoUtils.marshaller(Event.getDefaultInstance()))
+            .build();
+
+    static final MethodDescriptor<Event, Empty> CONSUME_STREAM_METHOD = MethodDescriptor.<Event, Empty>newBuilder()
+            .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+            .setFullMethodName(generateFullMethodName(InboundGRPCConstants.STREAM_SERVICE_NAME, "consumeStream"))
+            .setRequestMarshaller(ProtoUtils.marshaller(Event.getDefaultInstance()))
+            .setResponseMarshaller(ProtoUtils.marshaller(Empty.getDefaultInstance()))
+            .build();
+
+    static final MethodDescriptor<Event, Event> PROCESS_SERVER_STREAM_METHOD =
+            MethodDescriptor.<Event, Event>newBuilder()
+                    .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+                    .setFullMethodName(generateFullMethodName(InboundGRPCConstants.STREAM_SERVICE_NAME,
+                                                              "processServerStream"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(Event.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(Event.getDefaultInstance()))
+                    .build();
+
+    private final GRPCInjectHandler injectHandler;
+
+    private final int window;
+
+    private final ScheduledExecutorService timeoutScheduler;
+
+    private final long responseTimeout;
+
+    /**
+     * @param injectHandler    handler which injects the received events
+     * @param window           maximum number of events of a stream mediated or waiting for their response at a time
+     * @param timeoutScheduler scheduler of the response timeouts of the processStream events
+     * @param responseTimeout  time in milliseconds after which a processStream event which is not responded to no
+     *                         longer counts against the window, or 0 if the responses do not time out
+     */
+    EventStreamService(GRPCInjectHandler injectHandler, int window, ScheduledExecutorService timeoutScheduler,
+                       long responseTimeout) {
+        this.injectHandler = injectHandler;
+        this.window = window;
+        this.timeoutScheduler = timeoutScheduler;
+        this.responseTimeout = responseTimeout;
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(InboundGRPCConstants.STREAM_SERVICE_NAME)
+                .addMethod(PROCESS_STREAM_METHOD, ServerCalls.asyncBidiStreamingCall(responseObserver -> {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Stream opened for gRPC Listener processStream method");
+                    }
+                    return new GRPCStreamingCall<Event>(responseObserver, window, null, timeoutScheduler,
+                                                        responseTimeout) {
+                        @Override
+                        protected void mediate(Event event, PendingEvent pendingEvent) {
+                            injectHandler.invokeProcessStream(event, this, pendingEvent);
+                        }
+                    }.start();
+                }))
+                .addMethod(CONSUME_STREAM_METHOD, ServerCalls.asyncClientStreamingCall(responseObserver -> {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Stream opened for gRPC Listener consumeStream method");
+                    }
+                    return new GRPCStreamingCall<Empty>(responseObserver, window, Empty.getDefaultInstance()) {
+                        @Override
+                        protected void mediate(Event event, PendingEvent pendingEvent) {
+                            injectHandler.invokeConsumeStream(event, this);
+                        }
+                    }.start();
+                }))
+                .addMethod(PROCESS_SERVER_STREAM_METHOD,
+                           ServerCalls.asyncServerStreamingCall((request, responseObserver) -> {
+                               if (log.isDebugEnabled()) {
+                                   log.debug("Event received for gRPC Listener processServerStream method");
+                               }
+                               injectHandler.invokeProcessServerStream(request, responseObserver);
+                           }))
+                .build();
+    }
+}
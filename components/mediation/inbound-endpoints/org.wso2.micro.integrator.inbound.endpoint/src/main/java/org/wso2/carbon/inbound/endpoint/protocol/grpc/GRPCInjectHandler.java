@@ -32,6 +32,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
+import org.apache.synapse.commons.json.JsonUtil;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.inbound.InboundEndpointConstants;
 import org.apache.synapse.mediators.base.SequenceMediator;
@@ -40,6 +41,7 @@ import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.function.Consumer;
 
 /**
  * Inject gRPC message into the sequence.
@@ -49,6 +51,7 @@ public class GRPCInjectHandler {
     private String injectingSeq;
     private String onErrorSeq;
     private boolean sequential;
+    private boolean payloadPassThrough;
     private SynapseEnvironment synapseEnvironment;
 
     /**
@@ -57,14 +60,16 @@ public class GRPCInjectHandler {
      * @param injectingSeq injecting sequence mentioned in the inbound endpoint
      * @param onErrorSeq error Sequence mentioned in the inbound endpoint
      * @param sequential is sequential
+     * @param payloadPassThrough whether JSON payloads are handed over as a stream, without building them
      * @param synapseEnvironment The SynapseEnvironment allows access into the the host SOAP engine. It allows
      *                           the sending of messages, class loader access etc
      */
-    GRPCInjectHandler(String injectingSeq, String onErrorSeq, boolean sequential,
+    GRPCInjectHandler(String injectingSeq, String onErrorSeq, boolean sequential, boolean payloadPassThrough,
                       SynapseEnvironment synapseEnvironment) {
         this.injectingSeq = injectingSeq;
         this.onErrorSeq = onErrorSeq;
         this.sequential = sequential;
+        this.payloadPassThrough = payloadPassThrough;
         this.synapseEnvironment = synapseEnvironment;
     }
 
@@ -80,32 +85,100 @@ public class GRPCInjectHandler {
             org.apache.synapse.MessageContext msgCtx = createMessageContext();
             msgCtx.setProperty(InboundEndpointConstants.INBOUND_ENDPOINT_RESPONSE_WORKER,
                     new GRPCResponseSender(responseObserver));
-            initiateSequenceAndInjectPayload(responseObserver, receivedEvent, msgCtx);
+            initiateSequenceAndInjectPayload(responseObserver::onError, receivedEvent, msgCtx, sequential);
         } catch (AxisFault e) {
             log.error("Error while processing the gRPC Message", e);
             throw new SynapseException("Error while processing the gRPC Message", e);
         }
     }
 
+    /**
+     * This method will be called when the initiated gRPC call is expecting a stream of responses.
+     * The response of the sequence is split into its items, which are sent back as separate messages.
+     * @param receivedEvent received event from gRPC
+     * @param responseObserver object to be used when sending the responses back to the gRPC client
+     */
+    public void invokeProcessServerStream(Event receivedEvent, StreamObserver<Event> responseObserver) {
+        try {
+            org.apache.synapse.MessageContext msgCtx = createMessageContext();
+            msgCtx.setProperty(InboundEndpointConstants.INBOUND_ENDPOINT_RESPONSE_WORKER,
+                    new GRPCResponseSender(responseObserver, true));
+            initiateSequenceAndInjectPayload(responseObserver::onError, receivedEvent, msgCtx, sequential);
+        } catch (AxisFault e) {
+            log.error("Error while processing the gRPC Message", e);
+            throw new SynapseException("Error while processing the gRPC Message", e);
+        }
+    }
+
+    /**
+     * This method will be called for each message of a bidirectional gRPC stream.
+     * The message is mediated on the calling thread and its response is sent back on the stream. If the mediation
+     * ends in the fault sequence, the message no longer waits for its response.
+     * @param receivedEvent received event from gRPC
+     * @param streamingCall the stream to which the response is sent back
+     * @param pendingEvent slot of the message in the window of the stream
+     */
+    void invokeProcessStream(Event receivedEvent, GRPCStreamingCall<Event> streamingCall,
+                             GRPCStreamingCall.PendingEvent pendingEvent) {
+        try {
+            org.apache.synapse.MessageContext msgCtx = createMessageContext();
+            msgCtx.setProperty(InboundEndpointConstants.INBOUND_ENDPOINT_RESPONSE_WORKER,
+                    new GRPCResponseSender(streamingCall, pendingEvent));
+            if (initiateSequenceAndInjectPayload(streamingCall::fail, receivedEvent, msgCtx, true)
+                    && msgCtx.getProperty(SynapseConstants.ERROR_CODE) != null) {
+                streamingCall.release(pendingEvent);
+            }
+        } catch (AxisFault e) {
+            log.error("Error while processing the gRPC Message", e);
+            throw new SynapseException("Error while processing the gRPC Message", e);
+        }
+    }
+
+    /**
+     * This method will be called for each message of a client streaming gRPC call.
+     * The message is mediated on the calling thread.
+     * @param receivedEvent received event from gRPC
+     * @param streamingCall the stream to which message processing errors are sent back
+     */
+    void invokeConsumeStream(Event receivedEvent, GRPCStreamingCall<Empty> streamingCall) {
+        try {
+            initiateSequenceAndInjectPayload(streamingCall::fail, receivedEvent, createMessageContext(), true);
+        } catch (AxisFault e) {
+            log.error("Error while consuming the gRPC Message", e);
+            throw new SynapseException("Error while consuming the gRPC Message", e);
+        }
+    }
+
     /**
      * This method will be called when the initiated gRPC call is not expecting an response.
      * This will inject the gRPC message to the to the message sequence as well as the responseObserver .
      * inject the message.
      * @param receivedEvent received event from gRPC
      * @param responseObserver object to be used to send message processing error back to gRPC client
+     * @return whether the message was injected to the sequence
      */
-    public void invokeConsume(Event receivedEvent, StreamObserver<Empty> responseObserver) {
+    public boolean invokeConsume(Event receivedEvent, StreamObserver<Empty> responseObserver) {
         try {
-            initiateSequenceAndInjectPayload(responseObserver, receivedEvent, createMessageContext());
+            return initiateSequenceAndInjectPayload(responseObserver::onError, receivedEvent,
+                                                    createMessageContext(), sequential);
         } catch (AxisFault e) {
             log.error("Error while consuming the gRPC Message", e);
             throw new SynapseException("Error while consuming the JMS Message", e);
         }
     }
 
-    private void initiateSequenceAndInjectPayload(StreamObserver responseObserver,
+    /**
+     * Builds the payload of the received event into the message context and injects it to the sequence.
+     * @param errorHandler handler to be used to send message processing errors back to the gRPC client
+     * @param receivedEvent received event from gRPC
+     * @param msgCtx message context to be injected
+     * @param sequential whether to mediate the message on the calling thread
+     * @return whether the message was injected to the sequence
+     */
+    private boolean initiateSequenceAndInjectPayload(Consumer<Throwable> errorHandler,
                                                   Event receivedEvent,
-                                                  org.apache.synapse.MessageContext msgCtx) throws AxisFault {
+                                                  org.apache.synapse.MessageContext msgCtx,
+                                                  boolean sequential) throws AxisFault {
         String msgPayload = receivedEvent.getPayload();
         String sequenceName = receivedEvent.getHeadersMap().get(InboundGRPCConstants.HEADER_MAP_SEQUENCE_PARAMETER_NAME);
         SequenceMediator seq;
@@ -117,7 +190,8 @@ public class GRPCInjectHandler {
         } else {
             if (injectingSeq == null || injectingSeq.isEmpty()) {
                 log.error("Sequence name is not specified in inbound endpoint or empty.");
-                return;
+                errorHandler.accept(new Throwable("Sequence name is not specified in inbound endpoint or empty."));
+                return false;
             }
             if (log.isDebugEnabled()) {
                 log.debug(injectingSeq + " sequence, received via the inbound endpoint.");
@@ -125,21 +199,6 @@ public class GRPCInjectHandler {
             seq = (SequenceMediator) synapseEnvironment.getSynapseConfiguration().getSequence(injectingSeq);
         }
         msgCtx.setProperty(SynapseConstants.IS_INBOUND, true);
-        //validating the sequence
-        if (seq != null) {
-            if (!seq.isInitialized()) {
-                seq.init(synapseEnvironment);
-            }
-            seq.setErrorHandler(onErrorSeq);
-            if (log.isDebugEnabled()) {
-                log.debug("injecting received gRPC message to sequence : " + injectingSeq);
-            }
-            if (!synapseEnvironment.injectInbound(msgCtx, seq, this.sequential)) {
-                return;
-            }
-        } else {
-            log.error("Sequence: " + injectingSeq + " not found");
-        }
         MessageContext axis2MsgCtx =
                 ((org.apache.synapse.core.axis2.Axis2MessageContext) msgCtx).getAxis2MessageContext();
         //setting transport headers
@@ -160,29 +219,35 @@ public class GRPCInjectHandler {
             } else {
                 log.error("Error occurred when processing gRPC message. " + contentType +
                         " type found in gRPC header is not supported");
-                responseObserver.onError(
+                errorHandler.accept(
                         new Throwable("Error occurred when processing gRPC message. " + contentType +
                                 " type found in gRPC header is not supported"));
-                return;
+                return false;
             }
         } else {
             log.error("Invalid content type found in gRPC header. JSON, XML and text is supported");
-            responseObserver.onError(
+            errorHandler.accept(
                     new Throwable("Invalid content type found in gRPC header. JSON, XML and text is supported"));
-            return;
+            return false;
         }
 
-        Builder builder = BuilderUtil.getBuilderFromSelector(contentType, axis2MsgCtx);
         OMElement documentElement;
         // set the message payload to the message context
         InputStream in = null;
         try {
             in = new AutoCloseInputStream(new ByteArrayInputStream(msgPayload.getBytes()));
-            documentElement = builder.processDocument(in, contentType, axis2MsgCtx);
+            if (payloadPassThrough && InboundGRPCConstants.CONTENT_TYPE_JSON_MIME_TYPE.equals(contentType)) {
+                // keep the JSON payload as a stream, it is only converted to XML if a mediator requires so
+                documentElement = JsonUtil.getNewJsonPayload(axis2MsgCtx, in, true, true);
+            } else {
+                Builder builder = BuilderUtil.getBuilderFromSelector(contentType, axis2MsgCtx);
+                documentElement = builder.processDocument(in, contentType, axis2MsgCtx);
+            }
         } catch (AxisFault ex) {
             // Handle message building error
             log.error("Error while building the message", ex);
-            return;
+            errorHandler.accept(new Throwable("Error while building the gRPC message. " + ex.getMessage()));
+            return false;
         } finally {
             if (in != null) {
                 try {
@@ -192,8 +257,24 @@ public class GRPCInjectHandler {
                 }
             }
         }
-        // Inject the message to the sequence.
         msgCtx.setEnvelope(TransportUtils.createSOAPEnvelope(documentElement));
+        //validating the sequence
+        if (seq != null) {
+            if (!seq.isInitialized()) {
+                seq.init(synapseEnvironment);
+            }
+            seq.setErrorHandler(onErrorSeq);
+            if (log.isDebugEnabled()) {
+                log.debug("injecting received gRPC message to sequence : " + injectingSeq);
+            }
+            // Inject the message to the sequence.
+            synapseEnvironment.injectInbound(msgCtx, seq, sequential);
+            return true;
+        } else {
+            log.error("Sequence: " + injectingSeq + " not found");
+            errorHandler.accept(new Throwable("Sequence: " + injectingSeq + " not found"));
+            return false;
+        }
     }
 
     /**
@@ -18,8 +18,11 @@
 
 package org.wso2.carbon.inbound.endpoint.protocol.grpc;
 
-
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import io.grpc.stub.StreamObserver;
+import org.apache.axiom.om.OMElement;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.MessageContext;
@@ -32,53 +35,60 @@ import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import static org.apache.axis2.Constants.Configuration.MESSAGE_TYPE;
 
 public class GRPCResponseSender implements InboundResponseSender {
     private StreamObserver<Event> responseObserver;
+    private GRPCStreamingCall<Event> streamingCall;
+    private GRPCStreamingCall.PendingEvent pendingEvent;
+    private boolean splitResponse;
     private static final Log log = LogFactory.getLog(GRPCResponseSender.class.getName());
     GRPCResponseSender(StreamObserver<Event> responseObserver) {
+        this(responseObserver, false);
+    }
+
+    /**
+     * @param responseObserver object to be used when sending the response back to the gRPC client
+     * @param splitResponse whether to send the items of the response, i.e. the elements of a JSON array or the
+     *                      children of the XML payload, as separate messages
+     */
+    GRPCResponseSender(StreamObserver<Event> responseObserver, boolean splitResponse) {
         this.responseObserver = responseObserver;
+        this.splitResponse = splitResponse;
+    }
+
+    /**
+     * @param streamingCall bidirectional stream to which the response is sent back
+     * @param pendingEvent slot of the responded event in the window of the stream
+     */
+    GRPCResponseSender(GRPCStreamingCall<Event> streamingCall, GRPCStreamingCall.PendingEvent pendingEvent) {
+        this.streamingCall = streamingCall;
+        this.pendingEvent = pendingEvent;
     }
+
     @Override
     public void sendBack(MessageContext messageContext) {
-        if (responseObserver != null) {
+        if (responseObserver != null || streamingCall != null) {
             org.apache.axis2.context.MessageContext msgContext = ((Axis2MessageContext) messageContext).getAxis2MessageContext();
-            String content;
             String contentType = msgContext.getProperty(MESSAGE_TYPE).toString();
             if (log.isDebugEnabled()) {
                 log.debug("Message content type retrieved in the message is: " + contentType);
             }
-            if (contentType.equalsIgnoreCase(InboundGRPCConstants.CONTENT_TYPE_JSON_MIME_TYPE)) {
-                BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(JsonUtil.getJsonPayload(msgContext)));
-                StringBuilder stringBuilder = new StringBuilder();
-                String line;
-                try {
-                    while ((line = bufferedReader.readLine()) != null) {
-                        stringBuilder.append(line);
-                    }
-                    content = stringBuilder.toString();
-                } catch (IOException e) {
-                    String msg = "Error occurred while converting payload to json. " + e.getMessage();
-                    log.error(msg, e);
-                    throw new SynapseException(msg, e);
+            if (streamingCall != null) {
+                streamingCall.sendResponse(pendingEvent, createEvent(getContent(msgContext, contentType)));
+                return;
+            }
+            if (splitResponse) {
+                for (String item : getContentItems(msgContext, contentType)) {
+                    responseObserver.onNext(createEvent(item));
                 }
-            } else if (contentType.equalsIgnoreCase(InboundGRPCConstants.CONTENT_TYPE_XML_MIME_TYPE) ||
-                    contentType.equalsIgnoreCase(InboundGRPCConstants.CONTENT_TYPE_TEXT_MIME_TYPE)) {
-                content = msgContext.getEnvelope().getBody().toString();
             } else {
-                String msg = "Error occurred when sending response. " + contentType + " type not supported";
-                log.error(msg);
-                throw new SynapseException(msg);
-            }
-            if (log.isDebugEnabled()) {
-                log.debug("Extracted content: " + content);
+                responseObserver.onNext(createEvent(getContent(msgContext, contentType)));
             }
-            Event.Builder responseBuilder = Event.newBuilder();
-            responseBuilder.setPayload(content);
-            Event response = responseBuilder.build();
-            responseObserver.onNext(response);
             responseObserver.onCompleted();
         } else {
             String msg = "Message context doesn't contain gRPC Response Observer. " +
@@ -87,4 +97,86 @@ public class GRPCResponseSender implements InboundResponseSender {
             throw new SynapseException(msg);
         }
     }
+
+    private String getContent(org.apache.axis2.context.MessageContext msgContext, String contentType) {
+        String content;
+        if (contentType.equalsIgnoreCase(InboundGRPCConstants.CONTENT_TYPE_JSON_MIME_TYPE)) {
+            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(JsonUtil.getJsonPayload(msgContext)));
+            StringBuilder stringBuilder = new StringBuilder();
+            String line;
+            try {
+                while ((line = bufferedReader.readLine()) != null) {
+                    stringBuilder.append(line);
+                }
+                content = stringBuilder.toString();
+            } catch (IOException e) {
+                String msg = "Error occurred while converting payload to json. " + e.getMessage();
+                log.error(msg, e);
+                throw new SynapseException(msg, e);
+            }
+        } else if (contentType.equalsIgnoreCase(InboundGRPCConstants.CONTENT_TYPE_XML_MIME_TYPE) ||
+                contentType.equalsIgnoreCase(InboundGRPCConstants.CONTENT_TYPE_TEXT_MIME_TYPE)) {
+            content = msgContext.getEnvelope().getBody().toString();
+        } else {
+            String msg = "Error occurred when sending response. " + contentType + " type not supported";
+            log.error(msg);
+            throw new SynapseException(msg);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Extracted content: " + content);
+        }
+        return content;
+    }
+
+    /**
+     * Splits the response into the elements of a JSON array or the children of the XML payload. Any other response
+     * is a single item.
+     */
+    private List<String> getContentItems(org.apache.axis2.context.MessageContext msgContext, String contentType) {
+        List<String> items = new ArrayList<>();
+        if (contentType.equalsIgnoreCase(InboundGRPCConstants.CONTENT_TYPE_XML_MIME_TYPE)) {
+            OMElement payload = msgContext.getEnvelope().getBody().getFirstElement();
+            if (payload != null) {
+                Iterator children = payload.getChildElements();
+                while (children.hasNext()) {
+                    items.add(children.next().toString());
+                }
+                return items;
+            }
+        }
+        String content = getContent(msgContext, contentType);
+        if (contentType.equalsIgnoreCase(InboundGRPCConstants.CONTENT_TYPE_JSON_MIME_TYPE)) {
+            return splitJsonArray(content);
+        }
+        items.add(content);
+        return items;
+    }
+
+    /**
+     * Splits a JSON array into the JSON strings of its elements. Any other JSON string is a single item.
+     */
+    static List<String> splitJsonArray(String json) {
+        List<String> items = new ArrayList<>();
+        JsonElement element;
+        try {
+            element = new JsonParser().parse(json);
+        } catch (JsonParseException e) {
+            items.add(json);
+            return items;
+        }
+        if (!element.isJsonArray()) {
+            items.add(json);
+            return items;
+        }
+        for (JsonElement item : element.getAsJsonArray()) {
+            items.add(item.toString());
+        }
+        return items;
+    }
+
+    private static Event createEvent(String content) {
+        Event.Builder responseBuilder = Event.newBuilder();
+        responseBuilder.setPayload(content);
+        return responseBuilder.build();
+    }
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.grpc;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A client or bidirectional streaming gRPC call, of which each received event is mediated separately. Events are
+ * mediated in the order they are received, on the thread of the call. The call uses gRPC flow control to request
+ * events from the client only while fewer than the window of events are being mediated or, for bidirectional calls,
+ * waiting for their response, and only while the client is ready to receive responses.
+ * <p>
+ * In a bidirectional call, each event is expected to be responded to exactly once, as in the unary process call. An
+ * event which is not responded to within the response timeout, or whose mediation ends in the fault sequence without
+ * a response, no longer counts against the window. The call is completed once the client has sent all its events and
+ * none of them are in flight.
+ *
+ * @param <R> type of the response of the call
+ */
+public abstract class GRPCStreamingCall<R> implements StreamObserver<Event> {
+
+    private static final Log log = LogFactory.getLog(GRPCStreamingCall.class);
+
+    private final ServerCallStreamObserver<R> responseObserver;
+
+    private final int window;
+
+    /**
+     * Response sent once all the events of a client streaming call are mediated, or null for a bidirectional call
+     */
+    private final R completionResponse;
+
+    /**
+     * Scheduler of the response timeouts, or null if the responses do not time out
+     */
+    private final ScheduledExecutorService timeoutScheduler;
+
+    private final long responseTimeout;
+
+    /**
+     * Events requested from the client but not yet received. Guarded by this instance.
+     */
+    private int requested;
+
+    /**
+     * Events being mediated or waiting for their response. Guarded by this instance.
+     */
+    private int inFlight;
+
+    /**
+     * Whether the client has sent all its events. Guarded by this instance.
+     */
+    private boolean halfClosed;
+
+    /**
+     * Whether the call is completed, failed or cancelled. Guarded by this instance.
+     */
+    private boolean completed;
+
+    /**
+     * @param responseObserver   observer of the responses of the call
+     * @param window             maximum number of events mediated or waiting for their response at a time
+     * @param completionResponse response sent once all the events of a client streaming call are mediated, or null
+     *                           for a bidirectional call
+     */
+    GRPCStreamingCall(StreamObserver<R> responseObserver, int window, R completionResponse) {
+        this(responseObserver, window, completionResponse, null, 0);
+    }
+
+    /**
+     * @param responseObserver   observer of the responses of the call
+     * @param window             maximum number of events mediated or waiting for their response at a time
+     * @param completionResponse response sent once all the events of a client streaming call are mediated, or null
+     *                           for a bidirectional call
+     * @param timeoutScheduler   scheduler of the response timeouts, or null if the responses do not time out
+     * @param responseTimeout    time in milliseconds after which an event which is not responded to no longer counts
+     *                           against the window, or 0 if the responses do not time out
+     */
+    GRPCStreamingCall(StreamObserver<R> responseObserver, int window, R completionResponse,
+                      ScheduledExecutorService timeoutScheduler, long responseTimeout) {
+        this.responseObserver = (ServerCallStreamObserver<R>) responseObserver;
+        this.window = window;
+        this.completionResponse = completionResponse;
+        this.timeoutScheduler = timeoutScheduler;
+        this.responseTimeout = responseTimeout;
+    }
+
+    /**
+     * Takes over the flow control of the call and requests the first events. Should be called before returning from
+     * the method handler of the call.
+     *
+     * @return this call, to be returned as the observer of the received events
+     */
+    GRPCStreamingCall<R> start() {
+        responseObserver.disableAutoInboundFlowControl();
+        responseObserver.setOnReadyHandler(this::requestEvents);
+        responseObserver.setOnCancelHandler(() -> {
+            synchronized (this) {
+                completed = true;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("gRPC stream cancelled by the client");
+            }
+        });
+        requestEvents();
+        return this;
+    }
+
+    /**
+     * Mediates a received event.
+     *
+     * @param event        the received event
+     * @param pendingEvent slot of the event in the window, to be released once the event is responded to
+     */
+    protected abstract void mediate(Event event, PendingEvent pendingEvent);
+
+    @Override
+    public void onNext(Event event) {
+        PendingEvent pendingEvent = new PendingEvent();
+        synchronized (this) {
+            requested--;
+            if (completed) {
+                return;
+            }
+            inFlight++;
+        }
+        try {
+            mediate(event, pendingEvent);
+        } catch (RuntimeException e) {
+            log.error("Error while mediating the event received via gRPC stream", e);
+            fail(e);
+            return;
+        }
+        if (expectsResponses()) {
+            scheduleTimeout(pendingEvent);
+        } else {
+            release(pendingEvent);
+        }
+        requestEvents();
+        completeIfDone();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        synchronized (this) {
+            completed = true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("gRPC stream terminated by the client", t);
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        synchronized (this) {
+            halfClosed = true;
+        }
+        completeIfDone();
+    }
+
+    /**
+     * Sends the response of an event of a bidirectional call.
+     *
+     * @param pendingEvent slot of the event in the window
+     * @param response     the response
+     */
+    void sendResponse(PendingEvent pendingEvent, R response) {
+        synchronized (this) {
+            if (completed) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Dropping the response of an event since the gRPC stream is already completed");
+                }
+                return;
+            }
+            responseObserver.onNext(response);
+        }
+        release(pendingEvent);
+    }
+
+    /**
+     * Releases the slot of an event in the window, unless it is already released, so that further events are
+     * requested from the client.
+     *
+     * @param pendingEvent slot of the event in the window
+     * @return whether the slot was released by this call
+     */
+    boolean release(PendingEvent pendingEvent) {
+        synchronized (this) {
+            if (pendingEvent.released) {
+                return false;
+            }
+            pendingEvent.released = true;
+            inFlight--;
+            if (pendingEvent.timeout != null) {
+                pendingEvent.timeout.cancel(false);
+            }
+        }
+        requestEvents();
+        completeIfDone();
+        return true;
+    }
+
+    /**
+     * Terminates the call with an error.
+     *
+     * @param t the error sent to the client
+     */
+    synchronized void fail(Throwable t) {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        responseObserver.onError(t);
+    }
+
+    /**
+     * @return whether each event of the call is expected to be responded to
+     */
+    boolean expectsResponses() {
+        return completionResponse == null;
+    }
+
+    private synchronized void scheduleTimeout(PendingEvent pendingEvent) {
+        if (timeoutScheduler == null || responseTimeout <= 0 || completed || pendingEvent.released) {
+            return;
+        }
+        try {
+            pendingEvent.timeout = timeoutScheduler.schedule(() -> {
+                if (release(pendingEvent)) {
+                    log.warn("No response was sent within " + responseTimeout + " ms for an event of a gRPC stream. "
+                                     + "The event no longer counts against the stream window.");
+                }
+            }, responseTimeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the listener is being stopped, so the stream is cancelled as well
+            if (log.isDebugEnabled()) {
+                log.debug("Response timeout of the gRPC stream event is not scheduled", e);
+            }
+        }
+    }
+
+    private synchronized void requestEvents() {
+        if (completed || halfClosed) {
+            return;
+        }
+        int count = window - inFlight - requested;
+        if (count > 0 && responseObserver.isReady()) {
+            requested += count;
+            responseObserver.request(count);
+        }
+    }
+
+    private synchronized void completeIfDone() {
+        if (completed || !halfClosed || inFlight > 0) {
+            return;
+        }
+        completed = true;
+        if (completionResponse != null) {
+            responseObserver.onNext(completionResponse);
+        }
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Slot of a received event in the window. It is released once, when the event is responded to, when its
+     * mediation ends without a response being expected or when its response times out.
+     */
+    static final class PendingEvent {
+
+        /**
+         * Whether the slot is released. Guarded by the call.
+         */
+        private boolean released;
+
+        /**
+         * Response timeout of the event. Guarded by the call.
+         */
+        private ScheduledFuture<?> timeout;
+    }
+}
@@ -28,4 +28,19 @@ public class InboundGRPCConstants {
     public static final String HEADER_MAP_SEQUENCE_PARAMETER_NAME = "sequence";
     public static final String HEADER_MAP_CONTENT_TYPE_PARAMETER_NAME = "Content-Type";
     public static final int DEFAULT_INBOUND_ENDPOINT_GRPC_PORT = 8888;
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_EXECUTOR_THREADS = "inbound.grpc.executor.threads";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_KEEPALIVE_TIME = "inbound.grpc.keepalive.time";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_KEEPALIVE_TIMEOUT = "inbound.grpc.keepalive.timeout";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_PERMIT_KEEPALIVE_TIME =
+            "inbound.grpc.permit.keepalive.time";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_MAX_CONCURRENT_STREAMS =
+            "inbound.grpc.max.concurrent.streams";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_FLOW_CONTROL_WINDOW = "inbound.grpc.flow.control.window";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_WINDOW = "inbound.grpc.stream.window";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_PAYLOAD_PASS_THROUGH = "inbound.grpc.payload.passthrough";
+    public static final int DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_WINDOW = 1;
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_RESPONSE_TIMEOUT =
+            "inbound.grpc.stream.response.timeout";
+    public static final long DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_RESPONSE_TIMEOUT = 60000;
+    public static final String STREAM_SERVICE_NAME = "eventservice.EventStreamService";
 }
@@ -19,7 +19,7 @@ package org.wso2.carbon.inbound.endpoint.protocol.grpc;
 
 import com.google.protobuf.Empty;
 import io.grpc.Server;
-import io.grpc.ServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
 import io.grpc.stub.StreamObserver;
 import org.apache.log4j.Logger;
 import org.apache.synapse.SynapseException;
@@ -30,15 +30,32 @@ import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.EventServiceGrpc;
 import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
 
 import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class InboundGRPCListener implements InboundRequestProcessor {
     private int port;
     private GRPCInjectHandler injectHandler;
     private static final Logger log = Logger.getLogger(InboundGRPCListener.class.getName());
     private Server server;
+    private String name;
+    private int executorThreads;
+    private ExecutorService executor;
+    private long keepAliveTime;
+    private long keepAliveTimeout;
+    private long permitKeepAliveTime;
+    private int maxConcurrentStreams;
+    private int flowControlWindow;
+    private int streamWindow;
+    private long streamResponseTimeout;
+    private ScheduledExecutorService timeoutScheduler;
 
     public InboundGRPCListener(InboundProcessorParams params) {
+        name = params.getName();
         String injectingSeq = params.getInjectingSeq();
         String onErrorSeq = params.getOnErrorSeq();
         SynapseEnvironment synapseEnvironment = params.getSynapseEnvironment();
@@ -50,7 +67,46 @@ public class InboundGRPCListener implements InboundRequestProcessor {
                     " property. Setting the port as " + InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_PORT);
             port = InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_PORT;
         }
-        injectHandler = new GRPCInjectHandler(injectingSeq, onErrorSeq, false, synapseEnvironment);
+        Properties properties = params.getProperties();
+        executorThreads = (int) getNumericParameter(properties,
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_EXECUTOR_THREADS, 0);
+        keepAliveTime = getNumericParameter(properties,
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_KEEPALIVE_TIME, 0);
+        keepAliveTimeout = getNumericParameter(properties,
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_KEEPALIVE_TIMEOUT, 0);
+        permitKeepAliveTime = getNumericParameter(properties,
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_PERMIT_KEEPALIVE_TIME, 0);
+        maxConcurrentStreams = (int) getNumericParameter(properties,
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_MAX_CONCURRENT_STREAMS, 0);
+        flowControlWindow = (int) getNumericParameter(properties,
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_FLOW_CONTROL_WINDOW, 0);
+        streamWindow = (int) getNumericParameter(properties,
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_WINDOW,
+                InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_WINDOW);
+        if (streamWindow <= 0) {
+            streamWindow = InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_WINDOW;
+        }
+        streamResponseTimeout = getNumericParameter(properties,
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_RESPONSE_TIMEOUT,
+                InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_RESPONSE_TIMEOUT);
+        boolean payloadPassThrough = Boolean.parseBoolean(
+                properties.getProperty(InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_PAYLOAD_PASS_THROUGH));
+        injectHandler = new GRPCInjectHandler(injectingSeq, onErrorSeq, false, payloadPassThrough,
+                                              synapseEnvironment);
+    }
+
+    private static long getNumericParameter(Properties properties, String parameter, long defaultValue) {
+        String value = properties.getProperty(parameter);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid numeric value " + value + " for " + parameter + " property. Using the default value "
+                    + defaultValue);
+            return defaultValue;
+        }
     }
 
     public void init() {
@@ -73,7 +129,37 @@ public class InboundGRPCListener implements InboundRequestProcessor {
         if (server != null) {
             throw new IllegalStateException("gRPC Listener Server already started");
         }
-        server = ServerBuilder.forPort(port).addService(new EventServiceGrpc.EventServiceImplBase() {
+        NettyServerBuilder serverBuilder = NettyServerBuilder.forPort(port);
+        if (executorThreads > 0) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(executorThreads, runnable -> {
+                Thread thread = new Thread(runnable, "grpc-inbound-" + name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            serverBuilder.executor(executor);
+        }
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "grpc-inbound-" + name + "-stream-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (keepAliveTime > 0) {
+            serverBuilder.keepAliveTime(keepAliveTime, TimeUnit.MILLISECONDS);
+        }
+        if (keepAliveTimeout > 0) {
+            serverBuilder.keepAliveTimeout(keepAliveTimeout, TimeUnit.MILLISECONDS);
+        }
+        if (permitKeepAliveTime > 0) {
+            serverBuilder.permitKeepAliveTime(permitKeepAliveTime, TimeUnit.MILLISECONDS);
+        }
+        if (maxConcurrentStreams > 0) {
+            serverBuilder.maxConcurrentCallsPerConnection(maxConcurrentStreams);
+        }
+        if (flowControlWindow > 0) {
+            serverBuilder.flowControlWindow(flowControlWindow);
+        }
+        server = serverBuilder.addService(new EventServiceGrpc.EventServiceImplBase() {
             @Override
             public void process(Event request, StreamObserver<Event> responseObserver) {
                 if (log.isDebugEnabled()) {
@@ -87,11 +173,13 @@ public class InboundGRPCListener implements InboundRequestProcessor {
                 if (log.isDebugEnabled()) {
                     log.debug("Event received for gRPC Listener consume method");
                 }
-                injectHandler.invokeConsume(request, responseObserver);
-                responseObserver.onNext(Empty.getDefaultInstance());
-                responseObserver.onCompleted();
+                if (injectHandler.invokeConsume(request, responseObserver)) {
+                    responseObserver.onNext(Empty.getDefaultInstance());
+                    responseObserver.onCompleted();
+                }
             }
-        }).build();
+        }).addService(new EventStreamService(injectHandler, streamWindow, timeoutScheduler, streamResponseTimeout))
+                .build();
         server.start();
         log.debug("gRPC Listener Server started");
     }
@@ -104,13 +192,26 @@ public class InboundGRPCListener implements InboundRequestProcessor {
         server = null;
         s.shutdown();
         if (s.awaitTermination(1, TimeUnit.SECONDS)) {
+            shutdownExecutor();
             log.debug("gRPC Listener Server stopped");
             return;
         }
         s.shutdownNow();
         if (s.awaitTermination(1, TimeUnit.SECONDS)) {
+            shutdownExecutor();
             return;
         }
         throw new RuntimeException("Unable to shutdown gRPC Listener Server");
     }
+
+    private void shutdownExecutor() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (timeoutScheduler != null) {
+            timeoutScheduler.shutdownNow();
+            timeoutScheduler = null;
+        }
+    }
 }
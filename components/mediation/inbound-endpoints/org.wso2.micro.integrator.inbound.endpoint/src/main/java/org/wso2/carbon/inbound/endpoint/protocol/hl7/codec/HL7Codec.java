@@ -19,6 +19,7 @@
 package org.wso2.carbon.inbound.endpoint.protocol.hl7.codec;
 
 import ca.uhn.hl7v2.HL7Exception;
+import ca.uhn.hl7v2.model.Message;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.context.MLLPContext;
@@ -47,6 +48,8 @@ public class HL7Codec {
 
     private volatile int state;
 
+    private boolean blockEndPending = false;
+
     private int responseReadPosition = 0;
     private byte[] responseBytes = null;
 
@@ -67,8 +70,11 @@ public class HL7Codec {
         }
 
         if (this.state == READ_HEADER) {
-            if (dst.get(0) == MLLPConstants.HL7_HEADER[0]) {
-                dst.position(1);
+            if (!dst.hasRemaining()) {
+                return 0;
+            }
+            if (dst.get(dst.position()) == MLLPConstants.HL7_HEADER[0]) {
+                dst.position(dst.position() + 1);
                 this.state = READ_CONTENT;
             } else {
                 throw new MLLProtocolException("Could not find header in incoming message.");
@@ -76,31 +82,17 @@ public class HL7Codec {
         }
 
         if (this.state == READ_CONTENT) {
-
-            int trailerIndex = findTrailer(dst);
-
-            if (trailerIndex > -1) {
-                dst.limit(trailerIndex);
-                this.state = READ_TRAILER;
-            }
-
-            context.getRequestBuffer().append(charsetDecoder.decode(dst).toString());
+            readContent(dst, context.getRequestBuffer());
         }
 
         if (this.state == READ_TRAILER) {
             this.state = READ_COMPLETE;
-            try {
-                if (context.isPreProcess()) {
-                    context.setHl7Message(HL7MessageUtils.parse(context.getRequestBuffer().toString(),
-                                                                context.getPreProcessParser()));
-                } else {
-                    context.setHl7Message(
-                            HL7MessageUtils.parse(context.getRequestBuffer().toString(), context.isValidateMessage()));
-                }
-                context.getRequestBuffer().setLength(0);
-            } catch (HL7Exception e) {
-                log.error("Error while parsing request message: " + context.getRequestBuffer());
-                throw e;
+            context.getRequestBuffer().trimTrailing(MLLPConstants.CR[0]);
+            if (context.isFastAck()) {
+                // the message is parsed by the worker, only the MSH segment is read to build the ACK
+                context.setFastAckMessage(HL7MessageUtils.createFastAck(context.getRawMessage()));
+            } else {
+                context.setHl7Message(parse(context.getRawMessage(), context));
             }
         }
 
@@ -108,18 +100,71 @@ public class HL7Codec {
 
     }
 
-    private int findTrailer(ByteBuffer dst) {
-        for (int i = 0; i < dst.limit(); i++) {
-            if (dst.get(i) == MLLPConstants.HL7_TRAILER[0]) {
-                if (dst.get(i + 1) == MLLPConstants.HL7_TRAILER[1]) {
-                    return i - 1;
-                }
+    /**
+     * Copies the frame content of the buffer into the request buffer, up to the block end if it is found. The block
+     * end may be split across two reads, in which case the end block character is held back until the next read.
+     */
+    private void readContent(ByteBuffer dst, HL7FrameBuffer requestBuffer) {
+        int from = dst.position();
+        int limit = dst.limit();
+
+        if (blockEndPending && from < limit) {
+            blockEndPending = false;
+            if (dst.get(from) == MLLPConstants.HL7_TRAILER[1]) {
+                dst.position(from + 1);
+                this.state = READ_TRAILER;
+                return;
+            }
+            requestBuffer.append(MLLPConstants.HL7_TRAILER[0]);
+        }
+
+        int trailerIndex = findTrailer(dst, from, limit);
+
+        if (trailerIndex > -1) {
+            requestBuffer.append(dst, from, trailerIndex);
+            dst.position(trailerIndex + MLLPConstants.HL7_TRAILER.length);
+            this.state = READ_TRAILER;
+        } else if (limit > from && dst.get(limit - 1) == MLLPConstants.HL7_TRAILER[0]) {
+            requestBuffer.append(dst, from, limit - 1);
+            dst.position(limit);
+            blockEndPending = true;
+        } else {
+            requestBuffer.append(dst, from, limit);
+            dst.position(limit);
+        }
+    }
+
+    private int findTrailer(ByteBuffer dst, int from, int limit) {
+        for (int i = from; i < limit - 1; i++) {
+            if (dst.get(i) == MLLPConstants.HL7_TRAILER[0] && dst.get(i + 1) == MLLPConstants.HL7_TRAILER[1]) {
+                return i;
             }
         }
 
         return -1;
     }
 
+    /**
+     * Parses the given raw HL7 message with the message preprocessor or the pipe parser of the context.
+     *
+     * @param rawMessage the raw HL7 message
+     * @param context    the MLLP context the message was read on
+     * @return the parsed HL7 message
+     * @throws HL7Exception if the message could not be parsed
+     */
+    public static Message parse(String rawMessage, MLLPContext context) throws HL7Exception {
+        try {
+            if (context.isPreProcess()) {
+                return HL7MessageUtils.parse(rawMessage, context.getPreProcessParser());
+            } else {
+                return HL7MessageUtils.parse(rawMessage, context.isValidateMessage());
+            }
+        } catch (HL7Exception e) {
+            log.error("Error while parsing request message: " + rawMessage);
+            throw e;
+        }
+    }
+
     public int encode(ByteBuffer outBuf, MLLPContext context) throws HL7Exception, IOException {
 
         if (this.state < READ_COMPLETE) {
@@ -128,7 +173,9 @@ public class HL7Codec {
 
         if (this.state == READ_COMPLETE) {
 
-            if ((context.isAutoAck() || context.isApplicationAck()) && !context.isNackMode()) {
+            if (context.getFastAckMessage() != null && !context.isNackMode()) {
+                responseBytes = context.getFastAckMessage().getBytes(charsetDecoder.charset());
+            } else if ((context.isAutoAck() || context.isApplicationAck()) && !context.isNackMode()) {
                 responseBytes = context.getHl7Message().generateACK().encode().getBytes(charsetDecoder.charset());
                 context.setApplicationAck(false);
             } else {
@@ -212,6 +259,9 @@ public class HL7Codec {
 
     public void setState(int state) {
         this.state = state;
+        if (state == READ_HEADER) {
+            this.blockEndPending = false;
+        }
     }
 
     public CharsetDecoder getCharsetDecoder() {
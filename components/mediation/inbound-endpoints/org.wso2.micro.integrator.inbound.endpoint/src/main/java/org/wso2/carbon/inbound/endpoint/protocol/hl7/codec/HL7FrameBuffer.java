@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.hl7.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Holds the content bytes of the MLLP frame being read on a connection. The bytes are copied once from the pooled
+ * input buffers and are decoded into a string only when the complete frame has been read. The backing array is
+ * reused for the following frames of the connection, and is released if a large frame made it grow beyond
+ * {@link #MAX_RETAINED_CAPACITY}.
+ */
+public class HL7FrameBuffer {
+
+    public static final int INITIAL_CAPACITY = 8 * 1024;
+
+    public static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+    private byte[] bytes;
+    private int length;
+
+    public HL7FrameBuffer() {
+        this.bytes = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Appends the bytes of the source buffer between the given absolute indexes. The position and limit of the source
+     * buffer are left as they were.
+     *
+     * @param src  buffer to copy from
+     * @param from index of the first byte to copy
+     * @param to   index after the last byte to copy
+     */
+    public void append(ByteBuffer src, int from, int to) {
+        int count = to - from;
+        if (count <= 0) {
+            return;
+        }
+        ensureCapacity(length + count);
+        if (src.hasArray()) {
+            System.arraycopy(src.array(), src.arrayOffset() + from, bytes, length, count);
+        } else {
+            ByteBuffer view = src.duplicate();
+            view.limit(to);
+            view.position(from);
+            view.get(bytes, length, count);
+        }
+        length += count;
+    }
+
+    public void append(byte b) {
+        ensureCapacity(length + 1);
+        bytes[length++] = b;
+    }
+
+    /**
+     * Removes the last byte if it is the given one.
+     *
+     * @param b byte to remove
+     */
+    public void trimTrailing(byte b) {
+        if (length > 0 && bytes[length - 1] == b) {
+            length--;
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public String toString(Charset charset) {
+        return new String(bytes, 0, length, charset);
+    }
+
+    public void reset() {
+        length = 0;
+        if (bytes.length > MAX_RETAINED_CAPACITY) {
+            bytes = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length << 1));
+        }
+    }
+}
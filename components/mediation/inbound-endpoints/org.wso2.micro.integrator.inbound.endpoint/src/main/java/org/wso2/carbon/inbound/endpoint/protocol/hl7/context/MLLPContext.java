@@ -27,14 +27,18 @@ import org.apache.http.nio.reactor.IOSession;
 import org.apache.synapse.transport.passthru.util.BufferFactory;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLPConstants;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.codec.HL7Codec;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.codec.HL7FrameBuffer;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.HL7SerialExecutor;
 
 import java.nio.charset.CharsetDecoder;
+import java.util.concurrent.Executor;
 
 public class MLLPContext {
     private static final Log log = LogFactory.getLog(MLLPContext.class);
 
     private IOSession session;
-    private StringBuffer requestBuffer;
+    private HL7FrameBuffer requestBuffer;
+    private String rawMessage;
     private StringBuffer responseBuffer;
     private Message hl7Message;
     private volatile HL7Codec codec;
@@ -47,22 +51,31 @@ public class MLLPContext {
     private volatile boolean markForClose = false;
     private boolean preProcess = true;
     private boolean applicationAck = false;
+    private boolean fastAck = false;
+    private String fastAckMessage;
 
     private volatile String messageId;
 
     private Parser preProcessorParser = null;
     private BufferFactory bufferFactory;
+    private HL7SerialExecutor deferredExecutor;
 
     public MLLPContext(IOSession session, CharsetDecoder decoder, boolean autoAck, boolean validateMessage,
                        Parser preProcessorParser, BufferFactory bufferFactory) {
+        this(session, decoder, autoAck, false, validateMessage, preProcessorParser, bufferFactory);
+    }
+
+    public MLLPContext(IOSession session, CharsetDecoder decoder, boolean autoAck, boolean fastAck,
+                       boolean validateMessage, Parser preProcessorParser, BufferFactory bufferFactory) {
         this.session = session;
         this.codec = new HL7Codec(decoder);
         this.autoAck = autoAck;
+        this.fastAck = autoAck && fastAck;
         this.validateMessage = validateMessage;
         this.preProcessorParser = preProcessorParser;
         this.bufferFactory = bufferFactory;
         this.expiry = MLLPConstants.DEFAULT_HL7_TIMEOUT;
-        this.requestBuffer = new StringBuffer();
+        this.requestBuffer = new HL7FrameBuffer();
         this.responseBuffer = new StringBuffer();
 
         if (preProcessorParser == null) {
@@ -75,10 +88,37 @@ public class MLLPContext {
         return codec;
     }
 
-    public StringBuffer getRequestBuffer() {
+    public HL7FrameBuffer getRequestBuffer() {
         return this.requestBuffer;
     }
 
+    /**
+     * Returns the content of the frame read into the request buffer, decoded with the charset of the codec. The
+     * string is built once per frame and kept until the context is reset.
+     *
+     * @return the raw HL7 message
+     */
+    public String getRawMessage() {
+        if (rawMessage == null) {
+            rawMessage = requestBuffer.toString(codec.getCharsetDecoder().charset());
+        }
+        return rawMessage;
+    }
+
+    /**
+     * Returns the executor which runs the deferred tasks of this connection on the given worker pool one at a time,
+     * in the order they are submitted.
+     *
+     * @param workerPool the worker pool of the endpoint
+     * @return the deferred task executor of the connection
+     */
+    public synchronized Executor getDeferredExecutor(Executor workerPool) {
+        if (deferredExecutor == null) {
+            deferredExecutor = new HL7SerialExecutor(workerPool);
+        }
+        return deferredExecutor;
+    }
+
     public StringBuffer getResponseBuffer() {
         return responseBuffer;
     }
@@ -141,6 +181,18 @@ public class MLLPContext {
         this.applicationAck = applicationAck;
     }
 
+    public boolean isFastAck() {
+        return fastAck;
+    }
+
+    public String getFastAckMessage() {
+        return fastAckMessage;
+    }
+
+    public void setFastAckMessage(String fastAckMessage) {
+        this.fastAckMessage = fastAckMessage;
+    }
+
     public boolean isPreProcess() {
         return preProcess;
     }
@@ -188,7 +240,9 @@ public class MLLPContext {
     public void reset() {
         // Resets MLLP Context and HL7Codec to default states.
         this.responseBuffer.setLength(0);
-        this.requestBuffer.setLength(0);
+        this.requestBuffer.reset();
+        this.rawMessage = null;
+        this.fastAckMessage = null;
         this.getCodec().setState(HL7Codec.READ_HEADER);
         this.setNackMode(false);
     }
@@ -41,7 +41,7 @@ public class MLLPContextFactory {
         BufferFactory bufferFactory = (BufferFactory) processor.getInboundParameterMap()
                 .get(MLLPConstants.INBOUND_HL7_BUFFER_FACTORY);
 
-        return new MLLPContext(session, decoder, autoAck, validate, preParser, bufferFactory);
+        return new MLLPContext(session, decoder, autoAck, processor.isFastAck(), validate, preParser, bufferFactory);
     }
 
 }
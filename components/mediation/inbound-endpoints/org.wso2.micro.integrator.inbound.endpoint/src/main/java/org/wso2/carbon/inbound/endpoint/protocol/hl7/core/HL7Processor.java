@@ -19,6 +19,7 @@
 package org.wso2.carbon.inbound.endpoint.protocol.hl7.core;
 
 import ca.uhn.hl7v2.HL7Exception;
+import ca.uhn.hl7v2.model.Message;
 import org.apache.axis2.AxisFault;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,6 +31,7 @@ import org.apache.synapse.inbound.InboundProcessorParams;
 import org.apache.synapse.inbound.InboundResponseSender;
 import org.apache.synapse.mediators.base.SequenceMediator;
 import org.apache.synapse.transport.customlogsetter.CustomLogSetter;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.codec.HL7Codec;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.context.MLLPContext;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.Axis2HL7Constants;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.HL7ExecutorServiceFactory;
@@ -38,13 +40,28 @@ import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.HL7MessageUtils;
 import java.nio.charset.CharsetDecoder;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class HL7Processor implements InboundResponseSender {
     private static final Log log = LogFactory.getLog(HL7Processor.class);
 
-    private ScheduledExecutorService executorService = HL7ExecutorServiceFactory.getExecutorService();
+    /**
+     * Maximum time to wait on shutdown for the messages acknowledged on receipt to be mediated
+     */
+    private static final long DEFERRED_TASKS_SHUTDOWN_TIMEOUT = 30000;
+
+    private ScheduledExecutorService executorService;
+    private boolean dedicatedExecutor = false;
+
+    private final Object deferredTasksLock = new Object();
+
+    /**
+     * Number of the messages acknowledged on receipt which are not mediated yet, guarded by deferredTasksLock
+     */
+    private int pendingDeferredTasks;
 
     private Map<String, Object> parameters;
     private InboundProcessorParams params;
@@ -52,6 +69,7 @@ public class HL7Processor implements InboundResponseSender {
     private String onErrorSequence;
 
     private boolean autoAck = true;
+    private boolean fastAck = false;
     private int timeOut;
 
     public HL7Processor(Map<String, Object> parameters) {
@@ -67,6 +85,16 @@ public class HL7Processor implements InboundResponseSender {
 
         timeOut = HL7MessageUtils.getInt(MLLPConstants.PARAM_HL7_TIMEOUT, params);
 
+        fastAck = autoAck && HL7MessageUtils.getBoolean(MLLPConstants.PARAM_HL7_FAST_ACK, params);
+
+        String workerThreads = params.getProperties().getProperty(MLLPConstants.PARAM_HL7_WORKER_THREADS);
+        if (workerThreads != null && Integer.parseInt(workerThreads) > 0) {
+            executorService = HL7ExecutorServiceFactory
+                    .createExecutorService(params.getName(), Integer.parseInt(workerThreads));
+            dedicatedExecutor = true;
+        } else {
+            executorService = HL7ExecutorServiceFactory.getExecutorService();
+        }
     }
 
     /**
@@ -78,6 +106,26 @@ public class HL7Processor implements InboundResponseSender {
     public void processRequest(final MLLPContext mllpContext) throws Exception {
         mllpContext.setRequestTime(System.currentTimeMillis());
 
+        if (mllpContext.isFastAck()) {
+            // the ACK has been built from the MSH segment, parse and mediate the message off the I/O thread, in the
+            // order the messages of the connection were received
+            DeferredParseTask task = new DeferredParseTask(mllpContext, mllpContext.getRawMessage());
+            updatePendingDeferredTasks(1);
+            try {
+                mllpContext.getDeferredExecutor(executorService).execute(() -> {
+                    try {
+                        task.call();
+                    } finally {
+                        updatePendingDeferredTasks(-1);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                updatePendingDeferredTasks(-1);
+                throw e;
+            }
+            return;
+        }
+
         // Prepare Synapse Context for message injection
         MessageContext synCtx;
         try {
@@ -103,7 +151,7 @@ public class HL7Processor implements InboundResponseSender {
             synCtx.setProperty(MLLPConstants.MLLP_CONTEXT, mllpContext);
         }
 
-        addProperties(synCtx, mllpContext);
+        addProperties(synCtx, mllpContext.getHl7Message());
 
         SequenceMediator injectSeq = (SequenceMediator) synCtx.getEnvironment().getSynapseConfiguration()
                 .getSequence(inSequence);
@@ -135,7 +183,7 @@ public class HL7Processor implements InboundResponseSender {
         try {
             if (mllpContext.getRequestBuffer() != null) {
                 synCtx = HL7MessageUtils.
-                        createErrorMessageContext(mllpContext.getRequestBuffer().toString(), ex, params);
+                        createErrorMessageContext(mllpContext.getRawMessage(), ex, params);
             } else {
                 synCtx = HL7MessageUtils.
                         createErrorMessageContext("The message received is not parseable", ex, params);
@@ -161,7 +209,7 @@ public class HL7Processor implements InboundResponseSender {
             synCtx.setProperty(MLLPConstants.MLLP_CONTEXT, mllpContext);
         }
 
-        addProperties(synCtx, mllpContext);
+        addProperties(synCtx, mllpContext.getHl7Message());
 
         SequenceMediator injectSeq = (SequenceMediator) synCtx.getEnvironment().getSynapseConfiguration()
                 .getSequence(onErrorSequence);
@@ -189,11 +237,11 @@ public class HL7Processor implements InboundResponseSender {
      *
      * @param synCtx
      */
-    private void addProperties(MessageContext synCtx, MLLPContext context) {
+    private void addProperties(MessageContext synCtx, Message hl7Message) {
         org.apache.axis2.context.MessageContext axis2MsgCtx = ((org.apache.synapse.core.axis2.Axis2MessageContext) synCtx)
                 .getAxis2MessageContext();
 
-        axis2MsgCtx.setProperty(Axis2HL7Constants.HL7_MESSAGE_OBJECT, context.getHl7Message());
+        axis2MsgCtx.setProperty(Axis2HL7Constants.HL7_MESSAGE_OBJECT, hl7Message);
 
         if (params.getProperties().getProperty(MLLPConstants.PARAM_HL7_BUILD_RAW_MESSAGE) != null) {
             axis2MsgCtx.setProperty(Axis2HL7Constants.HL7_BUILD_RAW_MESSAGE, Boolean.valueOf(
@@ -268,6 +316,58 @@ public class HL7Processor implements InboundResponseSender {
         return autoAck;
     }
 
+    public boolean isFastAck() {
+        return fastAck;
+    }
+
+    /**
+     * Shuts down the worker pool of the endpoint, if it has a dedicated one. The messages which have been acknowledged
+     * on receipt are mediated before the worker pool is shut down, waiting up to
+     * {@link #DEFERRED_TASKS_SHUTDOWN_TIMEOUT} milliseconds for them.
+     */
+    public void shutdown() {
+        if (dedicatedExecutor) {
+            int pending = awaitDeferredTasks(DEFERRED_TASKS_SHUTDOWN_TIMEOUT);
+            if (pending > 0) {
+                log.warn("Shutting down the worker pool of inbound endpoint " + params.getName() + " while " + pending
+                                 + " message(s) acknowledged on receipt are not mediated yet.");
+            }
+            executorService.shutdown();
+        }
+    }
+
+    private void updatePendingDeferredTasks(int delta) {
+        synchronized (deferredTasksLock) {
+            pendingDeferredTasks += delta;
+            if (pendingDeferredTasks == 0) {
+                deferredTasksLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits for the messages acknowledged on receipt to be mediated.
+     *
+     * @param timeout maximum time to wait in milliseconds
+     * @return the number of the messages which are still not mediated
+     */
+    private int awaitDeferredTasks(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (deferredTasksLock) {
+            long remaining = timeout;
+            while (pendingDeferredTasks > 0 && remaining > 0) {
+                try {
+                    deferredTasksLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return pendingDeferredTasks;
+        }
+    }
+
     private void handleException(MLLPContext mllpContext, String msg) {
         if (mllpContext.isAutoAck()) {
             try {
@@ -282,6 +382,59 @@ public class HL7Processor implements InboundResponseSender {
         }
     }
 
+    /**
+     * Parses and mediates a message which has already been acknowledged on receipt. Since the sender has received the
+     * ACK, errors are logged instead of being sent back as a NACK. The tasks of a connection run one at a time, see
+     * {@link MLLPContext#getDeferredExecutor}.
+     */
+    private class DeferredParseTask implements Callable<Boolean> {
+        private MLLPContext context;
+        private String rawMessage;
+
+        public DeferredParseTask(MLLPContext context, String rawMessage) {
+            this.context = context;
+            this.rawMessage = rawMessage;
+        }
+
+        @Override
+        public Boolean call() {
+            try {
+                Message message = HL7Codec.parse(rawMessage, context);
+                MessageContext synCtx = HL7MessageUtils.createSynapseMessageContext(message, params);
+
+                synCtx.setProperty(SynapseConstants.INBOUND_ENDPOINT_NAME, params.getName());
+                synCtx.setProperty(SynapseConstants.IS_INBOUND, true);
+                InboundEndpoint inboundEndpoint = synCtx.getConfiguration().getInboundEndpoint(params.getName());
+                CustomLogSetter.getInstance().setLogAppender(inboundEndpoint.getArtifactContainerName());
+                synCtx.setProperty(MLLPConstants.HL7_INBOUND_MSG_ID, synCtx.getMessageID());
+
+                addProperties(synCtx, message);
+
+                SequenceMediator injectSeq = (SequenceMediator) synCtx.getEnvironment().getSynapseConfiguration()
+                        .getSequence(inSequence);
+                if (injectSeq == null) {
+                    log.error("Could not find inbound sequence '" + inSequence + "'.");
+                    return false;
+                } else if (!injectSeq.isInitialized()) {
+                    injectSeq.init(synCtx.getEnvironment());
+                }
+                injectSeq.setErrorHandler(onErrorSequence);
+
+                return synCtx.getEnvironment().injectInbound(synCtx, injectSeq, true);
+            } catch (HL7Exception e) {
+                log.error("Error while processing HL7 message acknowledged on receipt by inbound endpoint "
+                                  + params.getName() + ".", e);
+            } catch (AxisFault e) {
+                log.error("Error while processing HL7 message acknowledged on receipt by inbound endpoint "
+                                  + params.getName() + ".", e);
+            } catch (Exception e) {
+                log.error("Error while mediating HL7 message acknowledged on receipt by inbound endpoint "
+                                  + params.getName() + ".", e);
+            }
+            return false;
+        }
+    }
+
     private class TimeoutHandler implements Runnable {
         private MLLPContext context;
         private String messageId;
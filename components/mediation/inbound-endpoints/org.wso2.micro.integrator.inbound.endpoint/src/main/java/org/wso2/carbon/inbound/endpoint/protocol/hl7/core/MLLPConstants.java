@@ -26,6 +26,8 @@ public class MLLPConstants {
     public static final byte[] HL7_TRAILER = { 0x1C, CR[0] };
     public static final byte[] HL7_HEADER = { 0x0B };
 
+    public static final char SEGMENT_SEPARATOR = '\r';
+
     // default charset
     public final static Charset UTF8_CHARSET = Charset.forName("UTF-8");
 
@@ -39,6 +41,18 @@ public class MLLPConstants {
 
     public final static int DEFAULT_HL7_TIMEOUT = 10000;
 
+    /**
+     * Whether the auto ACK is built from the MSH segment of the request, in which case the request is parsed and
+     * mediated on the worker threads after the ACK is sent. Errors in parsing or mediation are only logged.
+     */
+    public final static String PARAM_HL7_FAST_ACK = "inbound.hl7.FastAck";
+
+    /**
+     * Number of worker threads of the endpoint. If not set, the endpoint uses the worker pool shared by all HL7 inbound
+     * endpoints.
+     */
+    public final static String PARAM_HL7_WORKER_THREADS = "inbound.hl7.WorkerThreads";
+
     public final static String PARAM_HL7_PRE_PROC = "inbound.hl7.MessagePreProcessor";
 
     public final static String HL7_PRE_PROC_PARSER_CLASS = "HL7_PRE_PROC_PARSER_CLASS";
@@ -127,6 +127,16 @@ public class HL7EndpointManager extends AbstractInboundEndpointManager {
                     .setProperty(MLLPConstants.PARAM_HL7_TIMEOUT, String.valueOf(MLLPConstants.DEFAULT_HL7_TIMEOUT));
         }
 
+        if (params.getProperties().getProperty(MLLPConstants.PARAM_HL7_WORKER_THREADS) != null) {
+            try {
+                Integer.valueOf(params.getProperties().getProperty(MLLPConstants.PARAM_HL7_WORKER_THREADS));
+            } catch (NumberFormatException e) {
+                log.warn("Parameter inbound.hl7.WorkerThreads in HL7 inbound " + params.getName()
+                                 + " is not valid. The shared worker pool will be used.");
+                params.getProperties().remove(MLLPConstants.PARAM_HL7_WORKER_THREADS);
+            }
+        }
+
         try {
             if (params.getProperties().getProperty(MLLPConstants.PARAM_HL7_PRE_PROC) != null) {
                 final HL7MessagePreprocessor preProcessor = (HL7MessagePreprocessor) Class
@@ -36,6 +36,19 @@ public class HL7ExecutorServiceFactory {
         return executorService;
     }
 
+    /**
+     * Creates a worker pool dedicated to a single HL7 inbound endpoint. The caller is responsible for shutting it down
+     * when the endpoint is closed.
+     *
+     * @param endpointName name of the inbound endpoint
+     * @param threads      number of worker threads
+     * @return the worker pool of the endpoint
+     */
+    public static ScheduledExecutorService createExecutorService(String endpointName, int threads) {
+        return Executors.newScheduledThreadPool(threads, new HL7WorkerThreadFactory(
+                "HL7-inbound-" + endpointName + "-worker-"));
+    }
+
     private static class HL7WorkerThreadFactory implements ThreadFactory {
         final ThreadGroup group;
         final AtomicInteger threadNumber = new AtomicInteger(1);
@@ -44,8 +57,12 @@ public class HL7ExecutorServiceFactory {
         private static HL7WorkerThreadFactory instance = new HL7WorkerThreadFactory();
 
         private HL7WorkerThreadFactory() {
+            this("HL7-inbound-worker-");
+        }
+
+        private HL7WorkerThreadFactory(String namePrefix) {
             group = new ThreadGroup("HL7-inbound-thread-group");
-            namePrefix = "HL7-inbound-worker-";
+            this.namePrefix = namePrefix;
         }
 
         public static HL7WorkerThreadFactory getInstance() {
@@ -59,6 +59,8 @@ import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLPConstants;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLProtocolException;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.NoSuchElementException;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamConstants;
@@ -73,6 +75,8 @@ public class HL7MessageUtils {
 
     private static ConfigurationContext context;
 
+    private static final DateTimeFormatter HL7_TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss.SSSZ");
+
     static {
         noValidationContext.setValidationContext(new NoValidation());
         validationContext.setValidationContext(new DefaultValidation());
@@ -265,6 +269,83 @@ public class HL7MessageUtils {
         }
     }
 
+    /**
+     * Builds an AA acknowledgement for the given ER7 encoded message by reading only its MSH segment, without parsing
+     * the rest of the message. The sending and receiving application and facility are swapped as done by
+     * {@link Message#generateACK()}.
+     *
+     * @param rawMessage the ER7 encoded message to acknowledge
+     * @return the ER7 encoded ACK message
+     * @throws HL7Exception if the MSH segment or its message control ID could not be found
+     */
+    public static String createFastAck(String rawMessage) throws HL7Exception {
+        if (rawMessage == null || rawMessage.length() < 8 || !rawMessage.startsWith("MSH")) {
+            throw new HL7Exception("Could not find the MSH segment of the message.");
+        }
+
+        char fieldSeparator = rawMessage.charAt(3);
+        int segmentEnd = rawMessage.indexOf(MLLPConstants.SEGMENT_SEPARATOR);
+        if (segmentEnd < 0) {
+            segmentEnd = rawMessage.length();
+        }
+
+        // fields[n] holds MSH-(n + 1), since MSH-1 is the field separator itself
+        String[] fields = new String[12];
+        int fieldStart = 4;
+        for (int i = 1; i < fields.length && fieldStart <= segmentEnd; i++) {
+            int fieldEnd = rawMessage.indexOf(fieldSeparator, fieldStart);
+            if (fieldEnd < 0 || fieldEnd > segmentEnd) {
+                fieldEnd = segmentEnd;
+            }
+            fields[i] = rawMessage.substring(fieldStart, fieldEnd);
+            fieldStart = fieldEnd + 1;
+        }
+
+        String encodingChars = fields[1];
+        String controlId = fields[9];
+        if (encodingChars == null || encodingChars.isEmpty() || controlId == null || controlId.isEmpty()) {
+            throw new HL7Exception("Could not find the message control ID (MSH-10) of the message.");
+        }
+
+        String messageType = "ACK";
+        if (fields[8] != null) {
+            int triggerStart = fields[8].indexOf(encodingChars.charAt(0));
+            if (triggerStart > -1) {
+                int triggerEnd = fields[8].indexOf(encodingChars.charAt(0), triggerStart + 1);
+                messageType += fields[8].substring(triggerStart, triggerEnd < 0 ? fields[8].length() : triggerEnd);
+            }
+        }
+
+        String ackControlId;
+        try {
+            ackControlId = noValidationContext.getParserConfiguration().getIdGenerator().getID();
+        } catch (IOException e) {
+            throw new HL7Exception("Could not generate the message control ID of the ACK.", e);
+        }
+
+        StringBuilder ack = new StringBuilder(128 + segmentEnd);
+        ack.append("MSH").append(fieldSeparator).append(encodingChars)
+                .append(fieldSeparator).append(nullToEmpty(fields[4]))
+                .append(fieldSeparator).append(nullToEmpty(fields[5]))
+                .append(fieldSeparator).append(nullToEmpty(fields[2]))
+                .append(fieldSeparator).append(nullToEmpty(fields[3]))
+                .append(fieldSeparator).append(ZonedDateTime.now().format(HL7_TIMESTAMP_FORMAT))
+                .append(fieldSeparator)
+                .append(fieldSeparator).append(messageType)
+                .append(fieldSeparator).append(ackControlId)
+                .append(fieldSeparator).append(nullToEmpty(fields[10]))
+                .append(fieldSeparator).append(nullToEmpty(fields[11]))
+                .append(MLLPConstants.SEGMENT_SEPARATOR)
+                .append("MSA").append(fieldSeparator).append("AA")
+                .append(fieldSeparator).append(controlId)
+                .append(MLLPConstants.SEGMENT_SEPARATOR);
+        return ack.toString();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
     public static Message createDefaultNack(String errorMsg) {
         try {
             return createDefaultNackMessage(errorMsg);
@@ -39,6 +39,12 @@ public class JMSConstants {
     public static final int DEFAULT_JMS_CLIENT_POLLING_SUSPENSION_PERIOD = 60000;
     // This property need to be enabled if the connection need to be reset after polling suspension.
     public static final String JMS_CLIENT_CONNECTION_RESET_AFTER_POLLING_SUSPENSION = "transport.jms.ResetConnectionOnPollingSuspension";
+    // No. of messages received by the JMS client polling that are acknowledged or committed together.
+    public static final String JMS_CLIENT_ACK_BATCH_SIZE = "transport.jms.AckBatchSize";
+    // Maximum time in milliseconds for which a batch of received messages is left unacknowledged or uncommitted.
+    public static final String JMS_CLIENT_ACK_BATCH_TIMEOUT = "transport.jms.AckBatchTimeout";
+    // Default time in milliseconds for which a batch of received messages is left unacknowledged or uncommitted.
+    public static final int DEFAULT_JMS_CLIENT_ACK_BATCH_TIMEOUT = 1000;
 
     public static final String TOPIC_PREFIX = "topic.";
     public static final String QUEUE_PREFIX = "queue.";
@@ -73,7 +73,38 @@ public class JMSPollingConsumer {
     // This will create a new subscription
     private boolean resetConnectionAfterPollingSuspension = false;
 
+    // messages are acknowledged or committed in batches of this size or after the batch timeout
+    private int ackBatchSize = 1;
+    private long ackBatchTimeout = JMSConstants.DEFAULT_JMS_CLIENT_ACK_BATCH_TIMEOUT;
+    private int pendingAckCount = 0;
+    private long pendingAckStartTime;
+    private Message lastPendingAckMessage = null;
+
     public JMSPollingConsumer(Properties jmsProperties, long scanInterval, String name) {
+        String ackBatchSizeValue = jmsProperties.getProperty(JMSConstants.JMS_CLIENT_ACK_BATCH_SIZE);
+        if (ackBatchSizeValue != null) {
+            try {
+                this.ackBatchSize = Integer.parseInt(ackBatchSizeValue.trim());
+            } catch (NumberFormatException e) {
+                throw new SynapseException(
+                        "Invalid numeric value for " + JMSConstants.JMS_CLIENT_ACK_BATCH_SIZE + ". Inbound Endpoint "
+                                + name + " deployment failed.");
+            }
+            if (ackBatchSize < 1) {
+                throw new SynapseException(JMSConstants.JMS_CLIENT_ACK_BATCH_SIZE + " should be greater than 0. "
+                                                   + "Inbound Endpoint " + name + " deployment failed.");
+            }
+        }
+        String ackBatchTimeoutValue = jmsProperties.getProperty(JMSConstants.JMS_CLIENT_ACK_BATCH_TIMEOUT);
+        if (ackBatchTimeoutValue != null) {
+            try {
+                this.ackBatchTimeout = Long.parseLong(ackBatchTimeoutValue.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid numeric value for " + JMSConstants.JMS_CLIENT_ACK_BATCH_TIMEOUT
+                                    + " . Default value of " + JMSConstants.DEFAULT_JMS_CLIENT_ACK_BATCH_TIMEOUT
+                                    + " milliseconds will be accounted.");
+            }
+        }
         this.jmsConnectionFactory = new CachedJMSConnectionFactory(jmsProperties);
         strUserName = jmsProperties.getProperty(JMSConstants.PARAM_JMS_USERNAME);
         strPassword = jmsProperties.getProperty(JMSConstants.PARAM_JMS_PASSWORD);
@@ -229,6 +260,7 @@ public class JMSPollingConsumer {
     public Message poll() {
         logger.debug("Polling JMS messages.");
 
+        Message msg = null;
         try {
             connection = jmsConnectionFactory.getConnection(strUserName, strPassword);
             if (connection == null) {
@@ -271,7 +303,7 @@ public class JMSPollingConsumer {
                 }
                 return null;
             }
-            Message msg = receiveMessage(messageConsumer);
+            msg = receiveMessage(messageConsumer);
             if (msg == null) {
                 logger.debug("Inbound JMS Endpoint. No JMS message received.");
                 return null;
@@ -279,6 +311,7 @@ public class JMSPollingConsumer {
             while (msg != null) {
                 if (JMSUtils.inferJMSMessageType(msg) == null) {
                     logger.error("Invalid JMS Message type.");
+                    rollbackAckBatch(msg);
                     return null;
                 }
 
@@ -292,51 +325,10 @@ public class JMSPollingConsumer {
                     injectHandler.setConnection(connection);
                     commitOrAck = injectHandler.invoke(msg, name);
 
-                    // if client acknowledgement is selected, and processing
-                    // requested ACK
-                    if (jmsConnectionFactory.getSessionAckMode() == Session.CLIENT_ACKNOWLEDGE) {
-                        if (commitOrAck) {
-                            try {
-                                msg.acknowledge();
-                                if (logger.isDebugEnabled()) {
-                                    logger.debug("Message : " + msg.getJMSMessageID() + " acknowledged");
-                                }
-                            } catch (JMSException e) {
-                                logger.error("Error acknowledging message : " + msg.getJMSMessageID(), e);
-                            }
-                        } else {
-                            // Need to create a new consumer and session since
-                            // we need to rollback the message
-                            if (messageConsumer != null) {
-                                jmsConnectionFactory.closeConsumer(messageConsumer);
-                            }
-                            if (session != null) {
-                                jmsConnectionFactory.closeSession(session);
-                            }
-                            session = jmsConnectionFactory.getSession(connection);
-                            messageConsumer = jmsConnectionFactory.getMessageConsumer(session, destination);
-                        }
-                    }
-                    // if session was transacted, commit it or rollback
-                    if (jmsConnectionFactory.isTransactedSession()) {
-                        try {
-                            if (session.getTransacted()) {
-                                if (commitOrAck) {
-                                    session.commit();
-                                    if (logger.isDebugEnabled()) {
-                                        logger.debug("Session for message : " + msg.getJMSMessageID() + " committed");
-                                    }
-                                } else {
-                                    session.rollback();
-                                    if (logger.isDebugEnabled()) {
-                                        logger.debug("Session for message : " + msg.getJMSMessageID() + " rolled back");
-                                    }
-                                }
-                            }
-                        } catch (JMSException e) {
-                            logger.error("Error " + (commitOrAck ? "committing" : "rolling back")
-                                                 + " local session txn for message : " + msg.getJMSMessageID(), e);
-                        }
+                    if (commitOrAck) {
+                        addToAckBatch(msg);
+                    } else {
+                        rollbackAckBatch(msg);
                     }
 
                     if (pollingSuspensionEnabled) {
@@ -360,16 +352,30 @@ public class JMSPollingConsumer {
                     }
 
                 } else {
+                    // the message is handed over to the caller, settle the messages processed before it
+                    commitOrAcknowledgeBatch();
                     return msg;
                 }
                 msg = receiveMessage(messageConsumer);
             }
+            commitOrAcknowledgeBatch();
 
         } catch (JMSException e) {
             logger.error("Error while receiving JMS message for " + name, e);
+            // the messages of the pending batch are redelivered once the session is closed
+            discardAckBatch();
             releaseResources(true);
         } catch (Exception e) {
             logger.error("Error while receiving JMS message for " + name, e);
+            if (msg != null) {
+                // the failed message is redelivered along with the pending batch
+                try {
+                    rollbackAckBatch(msg);
+                } catch (JMSException jmsException) {
+                    logger.error("Error while rolling back the pending messages for " + name, jmsException);
+                }
+            }
+            discardAckBatch();
         } finally {
             if (!isConnected) {
                 if (reconnectDuration != null) {
@@ -419,6 +425,116 @@ public class JMSPollingConsumer {
         }
     }
 
+    /**
+     * Adds a successfully processed message to the batch of messages to be acknowledged or committed, and completes
+     * the batch if it is full or timed out.
+     *
+     * @param msg the processed message
+     * @throws JMSException if the batch could not be completed
+     */
+    private void addToAckBatch(Message msg) throws JMSException {
+        if (pendingAckCount == 0) {
+            pendingAckStartTime = System.currentTimeMillis();
+        }
+        pendingAckCount++;
+        lastPendingAckMessage = msg;
+        if (pendingAckCount >= ackBatchSize || System.currentTimeMillis() - pendingAckStartTime >= ackBatchTimeout) {
+            commitOrAcknowledgeBatch();
+        }
+    }
+
+    /**
+     * Acknowledges or commits the messages of the pending batch. In client acknowledgement mode, acknowledging the
+     * last message of the batch acknowledges all the messages received by the session.
+     *
+     * @throws JMSException if the message ids could not be read
+     */
+    private void commitOrAcknowledgeBatch() throws JMSException {
+        if (pendingAckCount == 0) {
+            return;
+        }
+        Message msg = lastPendingAckMessage;
+        int count = pendingAckCount;
+        discardAckBatch();
+        // if client acknowledgement is selected, and processing requested ACK
+        if (jmsConnectionFactory.getSessionAckMode() == Session.CLIENT_ACKNOWLEDGE) {
+            try {
+                msg.acknowledge();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Message : " + msg.getJMSMessageID() + " acknowledged along with " + (count - 1)
+                                         + " previous messages");
+                }
+            } catch (JMSException e) {
+                logger.error("Error acknowledging message : " + msg.getJMSMessageID(), e);
+            }
+        }
+        // if session was transacted, commit it
+        if (jmsConnectionFactory.isTransactedSession()) {
+            try {
+                if (session.getTransacted()) {
+                    session.commit();
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Session for message : " + msg.getJMSMessageID() + " committed along with "
+                                             + (count - 1) + " previous messages");
+                    }
+                }
+            } catch (JMSException e) {
+                logger.error("Error committing local session txn for message : " + msg.getJMSMessageID(), e);
+            }
+        }
+    }
+
+    /**
+     * Rolls back the pending batch along with a message whose processing failed. All the messages of the batch are
+     * redelivered.
+     *
+     * @param msg the message whose processing failed
+     * @throws JMSException if the message id could not be read
+     */
+    private void rollbackAckBatch(Message msg) throws JMSException {
+        discardAckBatch();
+        if (jmsConnectionFactory.getSessionAckMode() == Session.CLIENT_ACKNOWLEDGE) {
+            try {
+                // redeliver the unacknowledged messages without giving up the cached session and consumer
+                session.recover();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Session for message : " + msg.getJMSMessageID() + " recovered");
+                }
+            } catch (JMSException e) {
+                logger.warn("Error recovering the session for message : " + msg.getJMSMessageID()
+                                    + ". Creating a new session.", e);
+                // Need to create a new consumer and session since
+                // we need to rollback the message
+                if (messageConsumer != null) {
+                    jmsConnectionFactory.closeConsumer(messageConsumer, true);
+                }
+                if (session != null) {
+                    jmsConnectionFactory.closeSession(session, true);
+                }
+                session = jmsConnectionFactory.getSession(connection);
+                messageConsumer = jmsConnectionFactory.getMessageConsumer(session, destination);
+            }
+        }
+        // if session was transacted, rollback it
+        if (jmsConnectionFactory.isTransactedSession()) {
+            try {
+                if (session.getTransacted()) {
+                    session.rollback();
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Session for message : " + msg.getJMSMessageID() + " rolled back");
+                    }
+                }
+            } catch (JMSException e) {
+                logger.error("Error rolling back local session txn for message : " + msg.getJMSMessageID(), e);
+            }
+        }
+    }
+
+    private void discardAckBatch() {
+        pendingAckCount = 0;
+        lastPendingAckMessage = null;
+    }
+
     public void destroy() {
         if (messageConsumer != null) {
             jmsConnectionFactory.closeConsumer(messageConsumer, true);
@@ -433,6 +549,25 @@ public class JMSPollingConsumer {
 
     private Message receiveMessage(MessageConsumer messageConsumer) throws JMSException {
         Message msg = null;
+        if (pendingAckCount > 0) {
+            // do not wait for the next message beyond the timeout of the pending batch, and complete the batch once
+            // no more messages are received
+            long remainingTime = pendingAckStartTime + ackBatchTimeout - System.currentTimeMillis();
+            if (remainingTime > 0) {
+                long timeout = remainingTime;
+                if (iReceiveTimeout == null) {
+                    timeout = 1;
+                } else if (iReceiveTimeout > 0) {
+                    timeout = Math.min(iReceiveTimeout, remainingTime);
+                }
+                msg = messageConsumer.receive(timeout);
+                if (msg == null) {
+                    commitOrAcknowledgeBatch();
+                }
+                return msg;
+            }
+            commitOrAcknowledgeBatch();
+        }
         if (iReceiveTimeout == null) {
             msg = messageConsumer.receive(1);
         } else if (iReceiveTimeout > 0) {
@@ -56,6 +56,24 @@ public class KAFKAConstants {
 
     public static final String CONSUMER_TIMEOUT = "consumer.timeout.ms";
 
+    public static final String POLL_TIMEOUT = "poll.timeout.ms";
+
+    public static final String MEDIATION_THREAD_COUNT = "mediation.thread.count";
+
+    public static final String MAX_INFLIGHT_BATCHES = "max.inflight.batches";
+
+    public static final String FAILURE_RETRY_INTERVAL = "failure.retry.interval.ms";
+
+    public static final String FAILURE_MAX_RETRIES = "failure.max.retries";
+
+    public static final long DEFAULT_POLL_TIMEOUT = 1000;
+
+    public static final int DEFAULT_MEDIATION_THREAD_COUNT = 10;
+
+    public static final long DEFAULT_FAILURE_RETRY_INTERVAL = 1000;
+
+    public static final int DEFAULT_FAILURE_MAX_RETRIES = -1;
+
     public static final int SO_TIMEOUT = 100000;
 
     public static final int BUFFER_SIZE = 64 * 1024;
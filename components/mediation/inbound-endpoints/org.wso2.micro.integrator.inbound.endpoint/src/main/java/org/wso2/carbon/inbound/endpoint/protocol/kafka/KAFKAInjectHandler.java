@@ -61,6 +61,10 @@ public class KAFKAInjectHandler implements InjectHandler {
     /**
      * Determine the message builder to use, set the message payload to the message context and
      * inject the message to the sequence
+     *
+     * @return false if the message could not be built or injected, or its mediation ended in a fault. When the
+     * message is not injected sequentially, the outcome of its mediation is not known and true is returned once it
+     * has been handed over
      */
     public boolean invoke(Object object, String name) {
         byte[] msg = (byte[]) object;
@@ -101,6 +105,7 @@ public class KAFKAInjectHandler implements InjectHandler {
             documentElement = builder.processDocument(in, contentType, axis2MsgCtx);
         } catch (AxisFault axisFault) {
             log.error("Error while processing message :: " + axisFault.getMessage(), axisFault);
+            return false;
         }
 
         try {
@@ -108,6 +113,7 @@ public class KAFKAInjectHandler implements InjectHandler {
         } catch (AxisFault axisFault) {
             log.error("Error while setting message payload to the message context :: " + axisFault.getMessage(),
                       axisFault);
+            return false;
         }
         // Inject the message to the sequence.
 
@@ -125,12 +131,20 @@ public class KAFKAInjectHandler implements InjectHandler {
                 seq.init(synapseEnvironment);
             }
             seq.setErrorHandler(onErrorSeq);
-            synapseEnvironment.injectInbound(msgCtx, seq, sequential);
+            try {
+                if (!synapseEnvironment.injectInbound(msgCtx, seq, sequential) && !sequential) {
+                    return false;
+                }
+            } catch (Exception e) {
+                log.error("Error while mediating the Kafka message", e);
+                return false;
+            }
         } else {
             log.error("Sequence: " + injectingSeq + " not found");
+            return false;
         }
-
-        return true;
+        // a sequence ending with a drop mediator returns false as well, so only a fault fails the message
+        return !sequential || msgCtx.getProperty(SynapseConstants.ERROR_CODE) == null;
     }
 
     /**
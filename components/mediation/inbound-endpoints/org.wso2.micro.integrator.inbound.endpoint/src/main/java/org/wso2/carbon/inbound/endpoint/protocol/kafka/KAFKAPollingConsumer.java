@@ -81,10 +81,15 @@ public class KAFKAPollingConsumer {
                 } else if (kafkaProperties.getProperty(KAFKAConstants.CONSUMER_TYPE)
                         .equalsIgnoreCase(AbstractKafkaMessageListener.CONSUMER_TYPE.SIMPLE.getName())) {
                     messageListener = new SimpleKafkaMessageListener(kafkaProperties, injectHandler);
+                    //Start a poll loop listener
+                } else if (kafkaProperties.getProperty(KAFKAConstants.CONSUMER_TYPE)
+                        .equalsIgnoreCase(AbstractKafkaMessageListener.CONSUMER_TYPE.POLL.getName())) {
+                    messageListener = new PollingKafkaMessageListener(threadCount, topics, kafkaProperties,
+                                                                      injectHandler, name);
                 }
             } catch (Exception e) {
-                log.error("The consumer type should be high level or simple." + e.getMessage(), e);
-                throw new SynapseException("The consumer type should be high level or simple", e);
+                log.error("The consumer type should be high level, simple or poll." + e.getMessage(), e);
+                throw new SynapseException("The consumer type should be high level, simple or poll", e);
             }
         }
     }
@@ -90,8 +90,15 @@ public class KAFKAProcessor extends InboundRequestProcessorImpl implements TaskS
             log.error(e.getMessage(), e);
             return;
         }
-        pollingConsumer.registerHandler(new KAFKAInjectHandler(injectingSeq, onErrorSeq, sequential, synapseEnvironment,
-                                                               kafkaProperties
+        // the poll consumer mediates on its own threads and commits a record only once its mediation has succeeded
+        boolean pollConsumer = AbstractKafkaMessageListener.CONSUMER_TYPE.POLL.getName()
+                .equalsIgnoreCase(kafkaProperties.getProperty(KAFKAConstants.CONSUMER_TYPE));
+        if (pollConsumer && !sequential) {
+            log.warn("The poll consumer of inbound endpoint " + name + " injects the records sequentially on its "
+                             + "mediation threads. The sequential parameter is ignored.");
+        }
+        pollingConsumer.registerHandler(new KAFKAInjectHandler(injectingSeq, onErrorSeq, sequential || pollConsumer,
+                                                               synapseEnvironment, kafkaProperties
                                                                        .getProperty(KAFKAConstants.CONTENT_TYPE)));
         try {
             pollingConsumer.startsMessageListener();
@@ -125,6 +132,9 @@ public class KAFKAProcessor extends InboundRequestProcessorImpl implements TaskS
     @Override
     public void destroy() {
         try {
+            if (pollingConsumer != null && pollingConsumer.messageListener != null) {
+                pollingConsumer.messageListener.destroy();
+            }
             if (pollingConsumer != null && pollingConsumer.messageListener != null
                     && pollingConsumer.messageListener.consumerConnector != null) {
                 pollingConsumer.messageListener.consumerConnector.shutdown();
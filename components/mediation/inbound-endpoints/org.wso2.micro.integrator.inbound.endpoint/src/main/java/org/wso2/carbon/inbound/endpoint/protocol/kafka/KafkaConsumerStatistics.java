@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.kafka;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a polling kafka inbound endpoint, shared by all its consumers.
+ */
+public class KafkaConsumerStatistics implements KafkaConsumerStatisticsMXBean {
+
+    public static final String MBEAN_CATEGORY = "KafkaInboundEndpoint";
+
+    /**
+     * Minimum time in milliseconds between two measurements of the consume rate
+     */
+    private static final long RATE_INTERVAL = 1000;
+
+    private final LongAdder consumedCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final LongAdder skippedCount = new LongAdder();
+
+    private final LongAdder backpressureCount = new LongAdder();
+
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+
+    /**
+     * Lag of each consumer against its client id
+     */
+    private final ConcurrentMap<String, Long> consumerLags = new ConcurrentHashMap<>();
+
+    private long rateMeasuredTime = System.currentTimeMillis();
+
+    private long rateMeasuredCount;
+
+    private volatile double recordsPerSecond;
+
+    void recordConsumed(int count) {
+        consumedCount.add(count);
+    }
+
+    void recordFailed() {
+        failedCount.increment();
+    }
+
+    void recordSkipped() {
+        skippedCount.increment();
+    }
+
+    void recordBackpressure() {
+        backpressureCount.increment();
+    }
+
+    void recordLag(String clientId, long lag) {
+        consumerLags.put(clientId, lag);
+    }
+
+    void removeConsumer(String clientId) {
+        consumerLags.remove(clientId);
+    }
+
+    AtomicInteger getInFlightBatchCounter() {
+        return inFlightBatches;
+    }
+
+    @Override
+    public long getConsumedCount() {
+        return consumedCount.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    @Override
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    @Override
+    public synchronized double getRecordsPerSecond() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - rateMeasuredTime;
+        if (elapsed >= RATE_INTERVAL) {
+            long count = consumedCount.sum();
+            recordsPerSecond = (count - rateMeasuredCount) * 1000.0 / elapsed;
+            rateMeasuredCount = count;
+            rateMeasuredTime = now;
+        }
+        return recordsPerSecond;
+    }
+
+    @Override
+    public long getConsumerLag() {
+        long lag = 0;
+        for (Long consumerLag : consumerLags.values()) {
+            lag = Math.max(lag, consumerLag);
+        }
+        return lag;
+    }
+
+    @Override
+    public int getInFlightBatches() {
+        return inFlightBatches.get();
+    }
+
+    @Override
+    public long getBackpressureCount() {
+        return backpressureCount.sum();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.kafka;
+
+/**
+ * MBean interface to expose the state of a polling kafka inbound endpoint using JMX.
+ */
+public interface KafkaConsumerStatisticsMXBean {
+
+    /**
+     * @return number of records mediated successfully
+     */
+    long getConsumedCount();
+
+    /**
+     * @return number of records whose mediation failed, which are consumed again
+     */
+    long getFailedCount();
+
+    /**
+     * @return number of records skipped after their mediation failed the maximum number of times
+     */
+    long getSkippedCount();
+
+    /**
+     * @return number of records mediated per second, over the last measurement interval
+     */
+    double getRecordsPerSecond();
+
+    /**
+     * @return maximum number of records the consumers are behind the end of their partitions
+     */
+    long getConsumerLag();
+
+    /**
+     * @return number of partition batches being mediated
+     */
+    int getInFlightBatches();
+
+    /**
+     * @return number of times the consumers were paused since the mediation threads were saturated
+     */
+    long getBackpressureCount();
+}
@@ -0,0 +1,670 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import org.wso2.carbon.inbound.endpoint.protocol.PollingConstants;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Kafka message listener built on the {@link KafkaConsumer} poll loop. Each of the thread count consumers joins the
+ * consumer group, so that the partitions of the topics are shared among them. The records polled for a partition are
+ * mediated as a batch on a shared pool of mediation threads, while the partition is paused, and the offset of the
+ * last successfully mediated record is committed asynchronously once the batch completes. A record whose mediation
+ * fails is consumed again after the failure retry interval, and is skipped once it has been retried the maximum
+ * number of times, if there is such a maximum. While the number of batches being mediated is at the
+ * maximum, all the partitions are paused, so that the consumers keep their group membership without fetching more
+ * records.
+ * <p>
+ * The consumers run on their own threads. The polling task of the inbound endpoint only restarts the consumers which
+ * have stopped.
+ */
+public class PollingKafkaMessageListener extends AbstractKafkaMessageListener {
+
+    /**
+     * Inbound endpoint parameters which are not passed to the kafka consumer
+     */
+    private static final Set<String> INBOUND_PARAMETERS = new HashSet<>(Arrays.asList(
+            PollingConstants.INBOUND_ENDPOINT_INTERVAL, PollingConstants.INBOUND_ENDPOINT_SEQUENTIAL,
+            PollingConstants.INBOUND_COORDINATION, PollingConstants.INBOUND_PINNED_SERVER,
+            PollingConstants.INBOUND_CONCURRENT_CONSUMERS,
+            KAFKAConstants.THREAD_COUNT, KAFKAConstants.TOPICS, KAFKAConstants.CONTENT_TYPE,
+            KAFKAConstants.TOPIC_FILTER, KAFKAConstants.FILTER_FROM_WHITE_LIST, KAFKAConstants.CONSUMER_TYPE,
+            KAFKAConstants.POLL_TIMEOUT, KAFKAConstants.MEDIATION_THREAD_COUNT, KAFKAConstants.MAX_INFLIGHT_BATCHES,
+            KAFKAConstants.FAILURE_RETRY_INTERVAL, KAFKAConstants.FAILURE_MAX_RETRIES));
+
+    private static final String LAG_METRIC_NAME = "records-lag-max";
+
+    private static final String LAG_METRIC_GROUP = "consumer-fetch-manager-metrics";
+
+    /**
+     * Minimum time in milliseconds between two updates of the consumer lag
+     */
+    private static final long LAG_UPDATE_INTERVAL = 1000;
+
+    /**
+     * Maximum time in milliseconds to wait for the batches of revoked partitions or of a stopping consumer
+     */
+    private static final long IN_FLIGHT_WAIT_TIMEOUT = 30000;
+
+    private static final long DEFAULT_MAX_POLL_INTERVAL = 300000;
+
+    private final String name;
+
+    private long pollTimeout = KAFKAConstants.DEFAULT_POLL_TIMEOUT;
+
+    private int mediationThreadCount = KAFKAConstants.DEFAULT_MEDIATION_THREAD_COUNT;
+
+    private int maxInFlightBatches;
+
+    private long failureRetryInterval = KAFKAConstants.DEFAULT_FAILURE_RETRY_INTERVAL;
+
+    private int failureMaxRetries = KAFKAConstants.DEFAULT_FAILURE_MAX_RETRIES;
+
+    private Pattern topicPattern;
+
+    private final KafkaConsumerStatistics statistics = new KafkaConsumerStatistics();
+
+    private final AtomicInteger inFlightBatches = statistics.getInFlightBatchCounter();
+
+    private ExecutorService mediationExecutor;
+
+    private final List<ConsumerWorker> workers = new ArrayList<>();
+
+    private boolean started;
+
+    private volatile boolean destroyed;
+
+    public PollingKafkaMessageListener(int threadCount, List<String> topics, Properties kafkaProperties,
+                                       InjectHandler injectHandler, String name) {
+        this.threadCount = threadCount;
+        this.topics = topics;
+        this.kafkaProperties = kafkaProperties;
+        this.injectHandler = injectHandler;
+        this.name = name;
+        try {
+            if (kafkaProperties.getProperty(KAFKAConstants.POLL_TIMEOUT) != null) {
+                pollTimeout = Long.parseLong(kafkaProperties.getProperty(KAFKAConstants.POLL_TIMEOUT));
+            }
+            if (kafkaProperties.getProperty(KAFKAConstants.MEDIATION_THREAD_COUNT) != null) {
+                mediationThreadCount = Integer.parseInt(
+                        kafkaProperties.getProperty(KAFKAConstants.MEDIATION_THREAD_COUNT));
+            }
+            maxInFlightBatches = mediationThreadCount;
+            if (kafkaProperties.getProperty(KAFKAConstants.MAX_INFLIGHT_BATCHES) != null) {
+                maxInFlightBatches = Integer.parseInt(kafkaProperties.getProperty(KAFKAConstants.MAX_INFLIGHT_BATCHES));
+            }
+            if (kafkaProperties.getProperty(KAFKAConstants.FAILURE_RETRY_INTERVAL) != null) {
+                failureRetryInterval = Long.parseLong(
+                        kafkaProperties.getProperty(KAFKAConstants.FAILURE_RETRY_INTERVAL));
+            }
+            if (kafkaProperties.getProperty(KAFKAConstants.FAILURE_MAX_RETRIES) != null) {
+                failureMaxRetries = Integer.parseInt(kafkaProperties.getProperty(KAFKAConstants.FAILURE_MAX_RETRIES));
+            }
+        } catch (NumberFormatException nfe) {
+            log.error("Invalid numeric value for the kafka consumer configuration." + nfe.getMessage(), nfe);
+            throw new SynapseException("Invalid numeric value for the kafka consumer configuration.", nfe);
+        }
+        if (mediationThreadCount <= 0 || maxInFlightBatches <= 0) {
+            throw new SynapseException("The mediation thread count and the maximum in-flight batches of the kafka "
+                                               + "consumer should be greater than 0");
+        }
+        if (topics == null || topics.isEmpty()) {
+            String topicFilter = kafkaProperties.getProperty(KAFKAConstants.TOPIC_FILTER);
+            if (topicFilter == null || topicFilter.isEmpty()) {
+                throw new SynapseException("Either the topics or the topic filter of the kafka consumer is required");
+            }
+            String filter = topicFilter.replace(',', '|');
+            String whiteList = kafkaProperties.getProperty(KAFKAConstants.FILTER_FROM_WHITE_LIST);
+            if (whiteList == null || whiteList.isEmpty() || Boolean.parseBoolean(whiteList)) {
+                topicPattern = Pattern.compile(filter);
+            } else {
+                topicPattern = Pattern.compile("^(?!(" + filter + ")$).*");
+            }
+        }
+    }
+
+    /**
+     * Start the consumers on the first call and restart the consumers which have stopped on the subsequent calls.
+     */
+    @Override
+    public synchronized boolean createKafkaConsumerConnector() throws Exception {
+        if (destroyed) {
+            return false;
+        }
+        if (!started) {
+            start();
+            return true;
+        }
+        for (int i = 0; i < workers.size(); i++) {
+            if (!workers.get(i).isAlive()) {
+                log.warn("Kafka consumer " + workers.get(i).clientId + " of inbound endpoint " + name
+                                 + " has stopped. Restarting it.");
+                ConsumerWorker worker = new ConsumerWorker(i);
+                workers.set(i, worker);
+                worker.start();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void start() throws Exception {
+        log.info("Starting " + threadCount + " KAFKA consumers with " + mediationThreadCount
+                         + " mediation threads for inbound endpoint " + name);
+        AtomicInteger threadNumber = new AtomicInteger();
+        mediationExecutor = Executors.newFixedThreadPool(mediationThreadCount, runnable -> {
+            Thread thread = new Thread(runnable, "kafka-mediation-" + name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        MBeanRegistrar.getInstance().registerMBean(statistics, KafkaConsumerStatistics.MBEAN_CATEGORY, name);
+        for (int i = 0; i < threadCount; i++) {
+            ConsumerWorker worker = new ConsumerWorker(i);
+            workers.add(worker);
+            worker.start();
+        }
+        started = true;
+    }
+
+    @Override
+    public void destroy() {
+        List<ConsumerWorker> stoppingWorkers;
+        synchronized (this) {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+            stoppingWorkers = new ArrayList<>(workers);
+        }
+        for (ConsumerWorker worker : stoppingWorkers) {
+            worker.shutdown();
+        }
+        for (ConsumerWorker worker : stoppingWorkers) {
+            try {
+                worker.thread.join(IN_FLIGHT_WAIT_TIMEOUT + pollTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (mediationExecutor != null) {
+            mediationExecutor.shutdown();
+        }
+        if (started) {
+            MBeanRegistrar.getInstance().unRegisterMBean(KafkaConsumerStatistics.MBEAN_CATEGORY, name);
+        }
+        log.info("Stopped the KAFKA consumers of inbound endpoint " + name);
+    }
+
+    /**
+     * Create the kafka consumer of a consumer thread.
+     *
+     * @param consumerProperties configuration of the consumer
+     * @return the consumer, which is only accessed from its consumer thread
+     */
+    protected Consumer<byte[], byte[]> createConsumer(Properties consumerProperties) {
+        return new KafkaConsumer<>(consumerProperties, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    }
+
+    /**
+     * The records are injected by the consumer threads.
+     */
+    @Override
+    public void injectMessageToESB(String name) {
+    }
+
+    /**
+     * The records are injected by the consumer threads.
+     */
+    @Override
+    public boolean hasNext() {
+        return false;
+    }
+
+    /**
+     * Records of a partition mediated together, along with the outcome of their mediation.
+     */
+    private static class PartitionBatch {
+
+        private final TopicPartition partition;
+
+        private final List<ConsumerRecord<byte[], byte[]>> records;
+
+        /**
+         * Offset to be committed, i.e. the offset after the last record mediated successfully, or -1 if there is none
+         */
+        private volatile long nextOffset = -1;
+
+        /**
+         * Offset of the record whose mediation failed, or -1 if all the records were mediated
+         */
+        private volatile long failedOffset = -1;
+
+        PartitionBatch(TopicPartition partition, List<ConsumerRecord<byte[], byte[]>> records) {
+            this.partition = partition;
+            this.records = records;
+        }
+    }
+
+    /**
+     * Consumer which polls the partitions assigned to it and hands their records over to the mediation threads. The
+     * kafka consumer is only accessed from the thread of the worker.
+     */
+    private class ConsumerWorker implements Runnable, ConsumerRebalanceListener {
+
+        private final String clientId;
+
+        private final Thread thread;
+
+        private volatile boolean running = true;
+
+        private Consumer<byte[], byte[]> consumer;
+
+        /**
+         * Batches being mediated against their partitions
+         */
+        private final Map<TopicPartition, PartitionBatch> inFlight = new HashMap<>();
+
+        /**
+         * Batches whose mediation has completed, to be committed by the consumer thread
+         */
+        private final ConcurrentLinkedQueue<PartitionBatch> completed = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Partitions paused after a failure against the time they are resumed
+         */
+        private final Map<TopicPartition, Long> retryTimes = new HashMap<>();
+
+        /**
+         * Offset of the last failed record of each partition, and the number of times it has failed
+         */
+        private final Map<TopicPartition, long[]> failures = new HashMap<>();
+
+        private boolean backpressured;
+
+        private long lagUpdatedTime;
+
+        /**
+         * Maximum time to wait for the batches of revoked partitions, which is kept below the maximum poll interval so
+         * that the consumer does not leave the group while it waits
+         */
+        private long inFlightWaitTimeout = IN_FLIGHT_WAIT_TIMEOUT;
+
+        ConsumerWorker(int index) {
+            this.clientId = name + "-" + index;
+            this.thread = new Thread(this, "kafka-consumer-" + clientId);
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        boolean isAlive() {
+            return thread.isAlive();
+        }
+
+        void shutdown() {
+            running = false;
+            Consumer<byte[], byte[]> kafkaConsumer = consumer;
+            if (kafkaConsumer != null) {
+                kafkaConsumer.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Properties consumerProperties = getConsumerProperties();
+                inFlightWaitTimeout = getInFlightWaitTimeout(consumerProperties);
+                consumer = createConsumer(consumerProperties);
+                if (topicPattern != null) {
+                    consumer.subscribe(topicPattern, this);
+                } else {
+                    consumer.subscribe(topics, this);
+                }
+                while (running) {
+                    processCompletedBatches(false);
+                    applyBackpressure();
+                    ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(pollTimeout));
+                    for (TopicPartition partition : records.partitions()) {
+                        dispatch(new PartitionBatch(partition, records.records(partition)));
+                    }
+                    updateLag();
+                }
+            } catch (WakeupException e) {
+                if (running) {
+                    log.error("Kafka consumer " + clientId + " was woken up unexpectedly", e);
+                }
+            } catch (Exception e) {
+                log.error("Error in kafka consumer " + clientId + " of inbound endpoint " + name, e);
+            } finally {
+                close();
+            }
+        }
+
+        private Properties getConsumerProperties() {
+            Properties consumerProperties = new Properties();
+            for (String key : kafkaProperties.stringPropertyNames()) {
+                if (!INBOUND_PARAMETERS.contains(key)) {
+                    consumerProperties.put(key, kafkaProperties.getProperty(key));
+                }
+            }
+            consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+            consumerProperties.put(ConsumerConfig.CLIENT_ID_CONFIG, clientId);
+            return consumerProperties;
+        }
+
+        private long getInFlightWaitTimeout(Properties consumerProperties) {
+            long maxPollInterval = DEFAULT_MAX_POLL_INTERVAL;
+            String maxPollIntervalValue = consumerProperties.getProperty(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG);
+            if (maxPollIntervalValue != null) {
+                try {
+                    maxPollInterval = Long.parseLong(maxPollIntervalValue.trim());
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid " + ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG + " '" + maxPollIntervalValue
+                                     + "' for kafka consumer " + clientId);
+                }
+            }
+            return Math.max(0, Math.min(IN_FLIGHT_WAIT_TIMEOUT, maxPollInterval / 2));
+        }
+
+        private void dispatch(PartitionBatch batch) {
+            consumer.pause(Collections.singleton(batch.partition));
+            inFlight.put(batch.partition, batch);
+            inFlightBatches.incrementAndGet();
+            try {
+                mediationExecutor.execute(() -> mediate(batch));
+            } catch (RejectedExecutionException e) {
+                // the listener is being destroyed, commit what has been mediated before the batch is consumed again
+                inFlightBatches.decrementAndGet();
+                inFlight.remove(batch.partition);
+                try {
+                    processCompletedBatches(true);
+                } catch (Exception commitException) {
+                    log.warn("Error while committing the offsets of kafka consumer " + clientId, commitException);
+                }
+                consumer.seek(batch.partition, batch.records.get(0).offset());
+                resumeIfIdle(batch.partition);
+            }
+        }
+
+        /**
+         * Mediates the records of a batch in order, stopping at the first failure. Runs on a mediation thread.
+         */
+        private void mediate(PartitionBatch batch) {
+            int mediatedCount = 0;
+            try {
+                for (ConsumerRecord<byte[], byte[]> record : batch.records) {
+                    if (record.value() != null && !inject(record)) {
+                        batch.failedOffset = record.offset();
+                        statistics.recordFailed();
+                        break;
+                    }
+                    batch.nextOffset = record.offset() + 1;
+                    mediatedCount++;
+                }
+            } finally {
+                statistics.recordConsumed(mediatedCount);
+                inFlightBatches.decrementAndGet();
+                completed.add(batch);
+            }
+        }
+
+        private boolean inject(ConsumerRecord<byte[], byte[]> record) {
+            try {
+                return injectHandler.invoke(record.value(), name);
+            } catch (Exception e) {
+                log.error("Error while mediating the record at offset " + record.offset() + " of partition "
+                                  + record.partition() + " of topic " + record.topic(), e);
+                return false;
+            }
+        }
+
+        /**
+         * Commits the offsets of the completed batches, rewinds the partitions whose mediation failed and resumes the
+         * partitions which are no longer being mediated.
+         *
+         * @param sync whether to wait for the offsets to be committed
+         */
+        private void processCompletedBatches(boolean sync) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            Set<TopicPartition> assignment = consumer.assignment();
+            PartitionBatch batch;
+            while ((batch = completed.poll()) != null) {
+                if (inFlight.get(batch.partition) == batch) {
+                    inFlight.remove(batch.partition);
+                }
+                if (!assignment.contains(batch.partition)) {
+                    continue;
+                }
+                if (batch.nextOffset > -1) {
+                    offsets.put(batch.partition, new OffsetAndMetadata(batch.nextOffset));
+                }
+                if (batch.failedOffset > -1) {
+                    if (isRetryable(batch)) {
+                        consumer.seek(batch.partition, batch.failedOffset);
+                        retryTimes.put(batch.partition, System.currentTimeMillis() + failureRetryInterval);
+                    } else {
+                        // the record is skipped, so that it does not block its partition
+                        offsets.put(batch.partition, new OffsetAndMetadata(batch.failedOffset + 1));
+                        consumer.seek(batch.partition, batch.failedOffset + 1);
+                        resumeIfIdle(batch.partition);
+                    }
+                } else {
+                    failures.remove(batch.partition);
+                    resumeIfIdle(batch.partition);
+                }
+            }
+            if (!retryTimes.isEmpty()) {
+                long now = System.currentTimeMillis();
+                Iterator<Map.Entry<TopicPartition, Long>> iterator = retryTimes.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<TopicPartition, Long> retryTime = iterator.next();
+                    if (retryTime.getValue() <= now) {
+                        iterator.remove();
+                        resumeIfIdle(retryTime.getKey());
+                    }
+                }
+            }
+            if (offsets.isEmpty()) {
+                return;
+            }
+            if (sync) {
+                consumer.commitSync(offsets);
+            } else {
+                consumer.commitAsync(offsets, (committedOffsets, exception) -> {
+                    if (exception != null) {
+                        log.warn("Error while committing the offsets " + committedOffsets + " of kafka consumer "
+                                         + clientId + ". The records will be consumed again.", exception);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Counts the failure of the failed record of a batch, and decides whether the record is retried.
+         */
+        private boolean isRetryable(PartitionBatch batch) {
+            long[] failure = failures.get(batch.partition);
+            if (failure == null || failure[0] != batch.failedOffset) {
+                failure = new long[] { batch.failedOffset, 0 };
+                failures.put(batch.partition, failure);
+            }
+            failure[1]++;
+            if (failureMaxRetries < 0 || failure[1] <= failureMaxRetries) {
+                return true;
+            }
+            failures.remove(batch.partition);
+            statistics.recordSkipped();
+            log.error("Skipping the record at offset " + batch.failedOffset + " of partition "
+                              + batch.partition.partition() + " of topic " + batch.partition.topic()
+                              + " since its mediation failed " + failure[1] + " times");
+            return false;
+        }
+
+        private void resumeIfIdle(TopicPartition partition) {
+            if (!backpressured && !inFlight.containsKey(partition) && !retryTimes.containsKey(partition)
+                    && consumer.assignment().contains(partition)) {
+                consumer.resume(Collections.singleton(partition));
+            }
+        }
+
+        /**
+         * Pauses all the partitions while the mediation threads are saturated and resumes them afterwards.
+         */
+        private void applyBackpressure() {
+            if (inFlightBatches.get() >= maxInFlightBatches) {
+                if (!backpressured) {
+                    backpressured = true;
+                    consumer.pause(consumer.assignment());
+                    statistics.recordBackpressure();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Mediation threads of inbound endpoint " + name + " are saturated. Pausing kafka "
+                                          + "consumer " + clientId);
+                    }
+                }
+            } else if (backpressured) {
+                backpressured = false;
+                for (TopicPartition partition : consumer.assignment()) {
+                    resumeIfIdle(partition);
+                }
+            }
+        }
+
+        private void updateLag() {
+            long now = System.currentTimeMillis();
+            if (now - lagUpdatedTime < LAG_UPDATE_INTERVAL) {
+                return;
+            }
+            lagUpdatedTime = now;
+            for (Map.Entry<MetricName, ? extends Metric> metric : consumer.metrics().entrySet()) {
+                MetricName metricName = metric.getKey();
+                if (LAG_METRIC_NAME.equals(metricName.name()) && LAG_METRIC_GROUP.equals(metricName.group())
+                        && !metricName.tags().containsKey("topic")) {
+                    Object value = metric.getValue().metricValue();
+                    if (value instanceof Double && !((Double) value).isNaN() && !((Double) value).isInfinite()) {
+                        statistics.recordLag(clientId, ((Double) value).longValue());
+                    }
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Waits for the batches of the given partitions to complete, up to the in flight wait timeout. The batches
+         * which do not complete in time are not committed, so their records are consumed again.
+         */
+        private void awaitInFlight(Collection<TopicPartition> partitions) {
+            long deadline = System.currentTimeMillis() + inFlightWaitTimeout;
+            while (true) {
+                // completed batches stay in the queue to be committed, but are no longer waited for
+                for (PartitionBatch batch : completed) {
+                    if (inFlight.get(batch.partition) == batch) {
+                        inFlight.remove(batch.partition);
+                    }
+                }
+                if (Collections.disjoint(inFlight.keySet(), partitions)) {
+                    return;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    log.warn("Batches of kafka consumer " + clientId + " did not complete within " + inFlightWaitTimeout
+                                     + " ms. Their records will be consumed again.");
+                    return;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            awaitInFlight(partitions);
+            try {
+                processCompletedBatches(true);
+            } catch (Exception e) {
+                log.warn("Error while committing the offsets of the revoked partitions of kafka consumer " + clientId,
+                         e);
+            }
+            inFlight.keySet().removeAll(partitions);
+            retryTimes.keySet().removeAll(partitions);
+            failures.keySet().removeAll(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (backpressured) {
+                consumer.pause(partitions);
+            }
+        }
+
+        private void close() {
+            if (consumer == null) {
+                return;
+            }
+            try {
+                awaitInFlight(new ArrayList<>(inFlight.keySet()));
+                processCompletedBatches(true);
+            } catch (Exception e) {
+                log.warn("Error while committing the offsets of kafka consumer " + clientId, e);
+            }
+            try {
+                consumer.close(Duration.ofMillis(pollTimeout));
+            } catch (Exception e) {
+                log.warn("Error while closing kafka consumer " + clientId, e);
+            }
+            statistics.removeConsumer(clientId);
+        }
+    }
+}
@@ -48,6 +48,7 @@ public class MqttAsyncCallback extends OneTimeTriggerAbstractCallback implements
     private MqttConnectOptions connectOptions;
     private MqttConnectionConsumer connectionConsumer;
     private MqttConnectionListener connectionListener;
+    private MqttMessageDispatcher messageDispatcher;
 
     public MqttAsyncCallback(MqttAsyncClient mqttAsyncClient, MqttInjectHandler injectHandler,
                              MqttConnectionFactory confac, MqttConnectOptions connectOptions,
@@ -89,7 +90,7 @@ public class MqttAsyncCallback extends OneTimeTriggerAbstractCallback implements
                 if (mqttAsyncClient.isConnected()) {
                     int qosLevel = Integer.parseInt(mqttProperties.getProperty(MqttConstants.MQTT_QOS));
                     if (confac.getTopic() != null) {
-                        mqttAsyncClient.subscribe(confac.getTopic(), qosLevel);
+                        mqttAsyncClient.subscribe(confac.getSubscriptionTopic(), qosLevel);
                     }
                     log.info("MQTT inbound endpoint " + name + " re-connected to the broker");
                 }
@@ -114,8 +115,9 @@ public class MqttAsyncCallback extends OneTimeTriggerAbstractCallback implements
             super.startInboundTenantLoading(inboundIdentifier);
             //un-register tenant loading flag for inbound identifier
             clientManager.unRegisterInboundTenantLoadingFlag(inboundIdentifier);
-
-            injectHandler.invoke(mqttMessage, name, topic);
+        }
+        if (messageDispatcher != null) {
+            messageDispatcher.dispatch(topic, mqttMessage, () -> injectHandler.invoke(mqttMessage, name, topic));
         } else {
             injectHandler.invoke(mqttMessage, name, topic);
         }
@@ -141,11 +143,22 @@ public class MqttAsyncCallback extends OneTimeTriggerAbstractCallback implements
         this.injectHandler = injectHandler;
     }
 
+    public void setMessageDispatcher(MqttMessageDispatcher messageDispatcher) {
+        this.messageDispatcher = messageDispatcher;
+    }
+
+    public MqttMessageDispatcher getMessageDispatcher() {
+        return this.messageDispatcher;
+    }
+
     public void shutdown() {
         super.shutdown();
         if (connectionListener != null) {
             this.connectionListener.shutdown();
         }
+        if (messageDispatcher != null) {
+            messageDispatcher.shutdown();
+        }
     }
 
     /**
@@ -161,6 +161,16 @@ public class MqttConnectionFactory {
                 log.warn("Default value is used for the parameter : " + MqttConstants.MQTT_CLIENT_ID);
             }
 
+            if (passedInParameter.getProperty(MqttConstants.MQTT_SHARED_SUBSCRIPTION_GROUP) != null) {
+                parameters.put(MqttConstants.MQTT_SHARED_SUBSCRIPTION_GROUP,
+                               passedInParameter.getProperty(MqttConstants.MQTT_SHARED_SUBSCRIPTION_GROUP));
+                if (parameters.get(MqttConstants.MQTT_CLIENT_ID) != null) {
+                    log.warn("The client id of a shared subscription should be unique in each node, otherwise the "
+                                     + "nodes disconnect each other from the broker. Client id : "
+                                     + parameters.get(MqttConstants.MQTT_CLIENT_ID));
+                }
+            }
+
             if (passedInParameter.getProperty(MqttConstants.MQTT_RECONNECTION_INTERVAL) != null) {
                 parameters.put(MqttConstants.MQTT_RECONNECTION_INTERVAL,
                                passedInParameter.getProperty(MqttConstants.MQTT_RECONNECTION_INTERVAL));
@@ -190,6 +200,21 @@ public class MqttConnectionFactory {
         return parameters.get(MqttConstants.MQTT_TOPIC_NAME);
     }
 
+    /**
+     * Returns the topic filter to subscribe to, which is the topic of a shared subscription when a shared
+     * subscription group is configured. The messages of a shared subscription are distributed among the
+     * subscribers of the group, e.g. the nodes of a cluster, instead of delivering them to each subscriber.
+     *
+     * @return the topic filter to subscribe to
+     */
+    public String getSubscriptionTopic() {
+        String sharedGroup = parameters.get(MqttConstants.MQTT_SHARED_SUBSCRIPTION_GROUP);
+        if (sharedGroup != null) {
+            return MqttConstants.SHARED_SUBSCRIPTION_PREFIX + sharedGroup + "/" + getTopic();
+        }
+        return getTopic();
+    }
+
     public String getContent() {
         return parameters.get(MqttConstants.CONTENT_TYPE);
     }
@@ -36,6 +36,13 @@ public class MqttConstants {
     public static final String MQTT_TEMP_STORE = "mqtt.temporary.store.directory";
     public static final String MQTT_CLIENT_ID = "mqtt.client.id";
     public static final String MQTT_RECONNECTION_INTERVAL = "mqtt.reconnection.interval";
+    public static final String MQTT_SHARED_SUBSCRIPTION_GROUP = "mqtt.subscription.shared.group";
+    public static final String MQTT_WORKER_POOL_SIZE = "mqtt.worker.pool.size";
+    public static final String MQTT_MAX_INFLIGHT_MESSAGES = "mqtt.max.inflight.messages";
+
+    public static final String SHARED_SUBSCRIPTION_PREFIX = "$share/";
+    public static final int DEFAULT_WORKER_POOL_SIZE = 0;
+    public static final int DEFAULT_MAX_INFLIGHT_MESSAGES = 100;
 
     //SSL related parameters
     public static final String MQTT_SSL_ENABLE = "mqtt.ssl.enable";
@@ -85,8 +85,9 @@ public class MqttListener extends InboundOneTimeTriggerRequestProcessor {
                     .parseBoolean(mqttProperties.getProperty(PollingConstants.INBOUND_ENDPOINT_SEQUENTIAL));
         }
 
-        //assign default value if coordination mode parameter is not present
-        this.coordination = true;
+        //assign default value if coordination mode parameter is not present, the messages of a shared
+        //subscription are distributed among the nodes, so it is consumed by all of them by default
+        this.coordination = mqttProperties.getProperty(MqttConstants.MQTT_SHARED_SUBSCRIPTION_GROUP) == null;
         if (mqttProperties.getProperty(PollingConstants.INBOUND_COORDINATION) != null) {
             this.coordination = Boolean.parseBoolean(mqttProperties.getProperty(PollingConstants.INBOUND_COORDINATION));
         }
@@ -129,7 +130,7 @@ public class MqttListener extends InboundOneTimeTriggerRequestProcessor {
             confac.shutdown(mqttAsyncClient.isConnected());
             try {
                 if (mqttAsyncClient.isConnected()) {
-                    mqttAsyncClient.unsubscribe(confac.getTopic());
+                    mqttAsyncClient.unsubscribe(confac.getSubscriptionTopic());
                     mqttAsyncClient.disconnect();
                 }
                 mqttAsyncClient.close();
@@ -175,6 +176,8 @@ public class MqttListener extends InboundOneTimeTriggerRequestProcessor {
             mqttAsyncCallback = new MqttAsyncCallback(mqttAsyncClient, injectHandler, confac, connectOptions,
                                                       mqttProperties);
             mqttAsyncCallback.setName(params.getName());
+            mqttAsyncCallback.setMessageDispatcher(new MqttMessageDispatcher(name, mqttAsyncClient, confac,
+                                                                             mqttProperties));
             connectionConsumer = new MqttConnectionConsumer(connectOptions, mqttAsyncClient, confac, mqttProperties,
                                                             name);
             mqttAsyncCallback.setMqttConnectionConsumer(connectionConsumer);
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.mqtt;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Dispatches the messages received by a MQTT inbound endpoint for mediation. By default the messages are mediated on
+ * the callback thread of the client, which holds back the whole client while a message is being mediated.
+ * <p>
+ * When a worker pool is configured, the messages are handed off to the workers instead. The messages of a topic are
+ * always mediated by the same worker, which keeps them in order, while the messages of different topics are mediated
+ * in parallel. The number of messages handed off but not yet mediated is bounded, and the callback thread waits when
+ * it is reached. The QoS 1 and 2 messages are acknowledged to the broker only after their mediation completes, so
+ * that the broker redelivers the messages which were not mediated if the client disconnects.
+ */
+public class MqttMessageDispatcher {
+
+    private static final Log log = LogFactory.getLog(MqttMessageDispatcher.class);
+
+    /**
+     * Maximum time in milliseconds to wait for the messages being mediated when the dispatcher is shut down
+     */
+    private static final long IN_FLIGHT_WAIT_TIMEOUT = 10000;
+
+    private final String name;
+    private final MqttAsyncClient mqttAsyncClient;
+    private final MqttSubscriptionStatistics statistics;
+    private final ExecutorService[] workers;
+    private final Semaphore inFlightPermits;
+    private final boolean manualAcks;
+
+    public MqttMessageDispatcher(String name, MqttAsyncClient mqttAsyncClient, MqttConnectionFactory confac,
+                                 Properties mqttProperties) {
+        this.name = name;
+        this.mqttAsyncClient = mqttAsyncClient;
+        this.statistics = new MqttSubscriptionStatistics(confac.getSubscriptionTopic());
+
+        int workerPoolSize = NumberUtils.toInt(mqttProperties.getProperty(MqttConstants.MQTT_WORKER_POOL_SIZE),
+                                               MqttConstants.DEFAULT_WORKER_POOL_SIZE);
+        if (workerPoolSize > 0) {
+            int maxInFlight = Math.max(1, NumberUtils.toInt(
+                    mqttProperties.getProperty(MqttConstants.MQTT_MAX_INFLIGHT_MESSAGES),
+                    MqttConstants.DEFAULT_MAX_INFLIGHT_MESSAGES));
+            workers = new ExecutorService[workerPoolSize];
+            for (int i = 0; i < workerPoolSize; i++) {
+                String threadName = "mqtt-worker-" + name + "-" + (i + 1);
+                workers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            inFlightPermits = new Semaphore(maxInFlight);
+            manualAcks = NumberUtils.toInt(mqttProperties.getProperty(MqttConstants.MQTT_QOS), 1) > 0;
+            if (manualAcks) {
+                mqttAsyncClient.setManualAcks(true);
+            }
+            log.info("MQTT inbound endpoint " + name + " mediates messages on " + workerPoolSize
+                             + " workers with at most " + maxInFlight + " messages in flight");
+        } else {
+            workers = null;
+            inFlightPermits = null;
+            manualAcks = false;
+        }
+        MBeanRegistrar.getInstance().registerMBean(statistics, MqttSubscriptionStatistics.MBEAN_CATEGORY, name);
+    }
+
+    /**
+     * Mediates the message on the worker of its topic, or on the calling thread if there is no worker pool.
+     *
+     * @param topic     the topic the message was published to
+     * @param message   the received message
+     * @param mediation mediates the message and returns whether it was successful
+     */
+    public void dispatch(String topic, MqttMessage message, BooleanSupplier mediation) {
+        long arrivalTime = System.currentTimeMillis();
+        statistics.recordReceived();
+        if (workers == null) {
+            statistics.recordCompleted(mediate(mediation), System.currentTimeMillis() - arrivalTime);
+            return;
+        }
+        inFlightPermits.acquireUninterruptibly();
+        ExecutorService worker = workers[(topic.hashCode() & Integer.MAX_VALUE) % workers.length];
+        try {
+            worker.execute(() -> {
+                boolean successful = false;
+                try {
+                    successful = mediate(mediation);
+                    acknowledge(message);
+                } finally {
+                    statistics.recordCompleted(successful, System.currentTimeMillis() - arrivalTime);
+                    inFlightPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the endpoint is being destroyed, the message is redelivered since it is not acknowledged
+            statistics.recordCompleted(false, 0);
+            inFlightPermits.release();
+            log.warn("MQTT inbound endpoint " + name + " is shutting down, the message on topic " + topic
+                             + " is not mediated");
+        }
+    }
+
+    private boolean mediate(BooleanSupplier mediation) {
+        try {
+            return mediation.getAsBoolean();
+        } catch (RuntimeException e) {
+            log.error("Error while mediating the MQTT message of inbound endpoint " + name, e);
+            return false;
+        }
+    }
+
+    /**
+     * Acknowledges the message to the broker. There is no negative acknowledgement in MQTT, so the message is
+     * acknowledged even if its mediation failed, like when the message is mediated on the callback thread.
+     */
+    private void acknowledge(MqttMessage message) {
+        if (!manualAcks) {
+            return;
+        }
+        try {
+            mqttAsyncClient.messageArrivedComplete(message.getId(), message.getQos());
+        } catch (MqttException e) {
+            log.error("Error while acknowledging the MQTT message with id " + message.getId()
+                              + " of inbound endpoint " + name, e);
+        }
+    }
+
+    /**
+     * Waits for the messages being mediated, so that they are acknowledged before the client disconnects.
+     */
+    public void shutdown() {
+        if (workers != null) {
+            for (ExecutorService worker : workers) {
+                worker.shutdown();
+            }
+            long deadline = System.currentTimeMillis() + IN_FLIGHT_WAIT_TIMEOUT;
+            try {
+                for (ExecutorService worker : workers) {
+                    worker.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+                                            TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        MBeanRegistrar.getInstance().unRegisterMBean(MqttSubscriptionStatistics.MBEAN_CATEGORY, name);
+    }
+
+    public MqttSubscriptionStatistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.mqtt;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the subscription of a MQTT inbound endpoint.
+ */
+public class MqttSubscriptionStatistics implements MqttSubscriptionStatisticsMXBean {
+
+    public static final String MBEAN_CATEGORY = "MqttInboundEndpoint";
+
+    /**
+     * Minimum time in milliseconds between two measurements of the message rate
+     */
+    private static final long RATE_INTERVAL = 1000;
+
+    private final String subscriptionTopic;
+
+    private final LongAdder receivedCount = new LongAdder();
+
+    private final LongAdder mediatedCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final LongAdder totalLatency = new LongAdder();
+
+    private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+
+    private long rateMeasuredTime = System.currentTimeMillis();
+
+    private long rateMeasuredCount;
+
+    private volatile double messagesPerSecond;
+
+    public MqttSubscriptionStatistics(String subscriptionTopic) {
+        this.subscriptionTopic = subscriptionTopic;
+    }
+
+    void recordReceived() {
+        receivedCount.increment();
+        inFlightCount.incrementAndGet();
+    }
+
+    void recordCompleted(boolean successful, long latency) {
+        if (successful) {
+            mediatedCount.increment();
+        } else {
+            failedCount.increment();
+        }
+        totalLatency.add(latency);
+        maxLatency.accumulate(latency);
+        inFlightCount.decrementAndGet();
+    }
+
+    @Override
+    public String getSubscriptionTopic() {
+        return subscriptionTopic;
+    }
+
+    @Override
+    public long getReceivedCount() {
+        return receivedCount.sum();
+    }
+
+    @Override
+    public long getMediatedCount() {
+        return mediatedCount.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    @Override
+    public synchronized double getMessagesPerSecond() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - rateMeasuredTime;
+        if (elapsed >= RATE_INTERVAL) {
+            long count = mediatedCount.sum() + failedCount.sum();
+            messagesPerSecond = (count - rateMeasuredCount) * 1000.0 / elapsed;
+            rateMeasuredCount = count;
+            rateMeasuredTime = now;
+        }
+        return messagesPerSecond;
+    }
+
+    @Override
+    public double getAverageLatency() {
+        long count = mediatedCount.sum() + failedCount.sum();
+        return count == 0 ? 0 : (double) totalLatency.sum() / count;
+    }
+
+    @Override
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+
+    @Override
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.mqtt;
+
+/**
+ * MBean interface to expose the state of the subscription of a MQTT inbound endpoint using JMX.
+ */
+public interface MqttSubscriptionStatisticsMXBean {
+
+    /**
+     * @return the topic filter of the subscription
+     */
+    String getSubscriptionTopic();
+
+    /**
+     * @return number of messages received from the broker
+     */
+    long getReceivedCount();
+
+    /**
+     * @return number of messages mediated successfully
+     */
+    long getMediatedCount();
+
+    /**
+     * @return number of messages whose mediation failed
+     */
+    long getFailedCount();
+
+    /**
+     * @return number of messages mediated per second, over the last measurement interval
+     */
+    double getMessagesPerSecond();
+
+    /**
+     * @return average time in milliseconds from the arrival of a message until its mediation completes
+     */
+    double getAverageLatency();
+
+    /**
+     * @return maximum time in milliseconds from the arrival of a message until its mediation completes
+     */
+    long getMaxLatency();
+
+    /**
+     * @return number of messages received but not yet mediated
+     */
+    int getInFlightCount();
+}
@@ -0,0 +1,378 @@
+/**
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.inbound.endpoint.protocol.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * Consumes the messages of the queue on a single channel of a {@link RabbitMQConsumer}. The messages are mediated
+ * on the dispatch thread of the channel, or on the worker pool of the endpoint if one is configured.
+ * <p>
+ * When the acknowledgements are batched, the successfully mediated messages are acknowledged with a single
+ * multiple-ack once the batch size is reached or when the endpoint flushes them periodically. Since the messages may
+ * complete out of order on the worker pool, the multiple-ack only covers the messages delivered before the oldest
+ * message which is still being mediated.
+ */
+public class RabbitMQChannelConsumer implements Consumer {
+
+    private static final Log log = LogFactory.getLog(RabbitMQChannelConsumer.class);
+    private final Channel channel;
+    private final Map<String, String> rabbitMQProperties;
+    private final RabbitMQInjectHandler injectHandler;
+    private final RabbitMQConsumerStatistics statistics;
+    private final Executor workerPool;
+    private final String queueName;
+    private final String inboundName;
+    private final long maxDeadLetteredCount;
+    private final boolean autoAck;
+    private final int ackBatchSize;
+    private volatile String consumerTag;
+
+    /**
+     * Delivery tags of the messages being mediated. Guarded by this instance.
+     */
+    private final TreeSet<Long> unsettledTags = new TreeSet<>();
+
+    /**
+     * Delivery tags of the messages mediated successfully whose acknowledgement has not been sent yet. Guarded by
+     * this instance.
+     */
+    private final TreeSet<Long> pendingAckTags = new TreeSet<>();
+
+    RabbitMQChannelConsumer(Channel channel, Map<String, String> rabbitMQProperties,
+                            RabbitMQInjectHandler injectHandler, RabbitMQConsumerStatistics statistics,
+                            Executor workerPool, String queueName, String inboundName, long maxDeadLetteredCount,
+                            boolean autoAck, int ackBatchSize) {
+        this.channel = channel;
+        this.rabbitMQProperties = rabbitMQProperties;
+        this.injectHandler = injectHandler;
+        this.statistics = statistics;
+        this.workerPool = workerPool;
+        this.queueName = queueName;
+        this.inboundName = inboundName;
+        this.maxDeadLetteredCount = maxDeadLetteredCount;
+        this.autoAck = autoAck;
+        this.ackBatchSize = ackBatchSize;
+    }
+
+    /**
+     * Called when the consumer is registered by a call to any of the {@link Channel#basicConsume} methods.
+     *
+     * @param consumerTag the consumer tag associated with the consumer
+     */
+    @Override
+    public void handleConsumeOk(String consumerTag) {
+        this.consumerTag = consumerTag;
+        log.info("Start consuming queue: " + queueName + " with consumer tag: " + consumerTag +
+                " for inbound endpoint: " + inboundName);
+    }
+
+    /**
+     * Called when the consumer is cancelled by a call to {@link Channel#basicCancel}.
+     *
+     * @param consumerTag the consumer tag associated with the consumer
+     */
+    @Override
+    public void handleCancelOk(String consumerTag) {
+        log.info("The consumer with consumer tag: " + consumerTag + " stops listening to new messages.");
+    }
+
+    /**
+     * Called when the consumer is cancelled for reasons other than by a call to {@link Channel#basicCancel}.
+     * For example, the queue has been deleted.
+     * See {@link #handleCancelOk} for notification of consumer cancellation due to {@link Channel#basicCancel}.
+     *
+     * @param consumerTag the consumer tag associated with the consumer
+     * @throws IOException
+     */
+    @Override
+    public void handleCancel(String consumerTag) throws IOException {
+        log.info("The consumer with consumer tag: " + consumerTag + " unexpectedly stops listening to new messages.");
+    }
+
+    /**
+     * Called when either the channel or the underlying connection has been shut down.
+     *
+     * @param consumerTag the consumer tag associated with the consumer
+     * @param signal      a {@link ShutdownSignalException} indicating the reason for the shut down
+     */
+    @Override
+    public void handleShutdownSignal(String consumerTag, ShutdownSignalException signal) {
+        if (signal.isInitiatedByApplication()) {
+            log.info("The connection to the messaging server was shut down. Consumer tag: " + consumerTag);
+
+        } else if (signal.getReference() instanceof Channel) {
+            int channelNumber = ((Channel) signal.getReference()).getChannelNumber();
+            log.info("The consumer on channel number: " + channelNumber + " with consumer tag: " + consumerTag
+                    + " was shut down.");
+
+        } else {
+            log.info("The consumer with consumer tag: " + consumerTag + " was shut down.");
+        }
+    }
+
+    /**
+     * Called when a basic.recover-ok is received in reply to a basic.recover. All messages received before this is
+     * invoked that haven't been ack'ed will be re-delivered. All messages received afterwards won't be.
+     *
+     * @param consumerTag the consumer tag associated with the consumer
+     */
+    @Override
+    public void handleRecoverOk(String consumerTag) {
+        //do nothing since this mean recovery-ok is received.
+    }
+
+    /**
+     * Called when a basic.deliver is received for this consumer. The message is handed over to the worker pool if
+     * one is configured, which runs it on the dispatch thread when all the workers are busy.
+     *
+     * @param consumerTag the consumer tag associated with the consumer
+     * @param envelope    packaging data for the message
+     * @param properties  content header data for the message
+     * @param body        the message body (opaque, client-specific byte array)
+     * @throws IOException if the consumer encounters an I/O error while processing the message
+     * @see Envelope
+     */
+    @Override
+    public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body)
+            throws IOException {
+        statistics.recordDelivered(envelope.isRedeliver());
+        if (!autoAck && ackBatchSize > 1) {
+            synchronized (this) {
+                unsettledTags.add(envelope.getDeliveryTag());
+            }
+        }
+        if (workerPool != null) {
+            workerPool.execute(() -> {
+                try {
+                    onDelivery(envelope, properties, body);
+                } catch (IOException e) {
+                    log.error("Error occurred while settling the message with delivery tag: "
+                            + envelope.getDeliveryTag() + " on the queue: " + queueName, e);
+                }
+            });
+        } else {
+            onDelivery(envelope, properties, body);
+        }
+    }
+
+    /**
+     * Mediates the message and settles it. A message which could not be settled, for example because the mediation
+     * threw an error, is rejected so that it does not hold back the acknowledgements of the later messages.
+     *
+     * @param envelope   packaging data for the message
+     * @param properties content header data for the message
+     * @param body       the message body
+     * @throws IOException
+     */
+    private void onDelivery(Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+        try {
+            mediate(envelope, properties, body);
+        } finally {
+            releaseUnsettled(envelope.getDeliveryTag());
+        }
+    }
+
+    /**
+     * Mediates the message and acknowledges or rejects it according to the result.
+     *
+     * @param envelope   packaging data for the message
+     * @param properties content header data for the message
+     * @param body       the message body
+     * @throws IOException
+     */
+    private void mediate(Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+        boolean successful = false;
+        try {
+            successful = injectHandler.onMessage(properties, body, inboundName);
+        } catch (RuntimeException e) {
+            log.error("Error occurred while mediating the message with delivery tag: " + envelope.getDeliveryTag()
+                    + " on the queue: " + queueName, e);
+        } finally {
+            statistics.recordMediated();
+        }
+        if (autoAck) {
+            return;
+        }
+        if (successful) {
+            acknowledge(envelope.getDeliveryTag());
+        } else {
+            Map<String, Object> headers = properties.getHeaders();
+            List<HashMap<String, Object>> xDeathHeader = headers == null ? null :
+                    (ArrayList<HashMap<String, Object>>) headers.get("x-death");
+            // check if message has been already dead-lettered
+            if (xDeathHeader != null && xDeathHeader.size() > 0 && maxDeadLetteredCount != -1) {
+                Long count = (Long) xDeathHeader.get(0).get("count");
+                if (count <= maxDeadLetteredCount) {
+                    reject(envelope.getDeliveryTag());
+                    log.info("The rejected message with message id: " + properties.getMessageId() + " and " +
+                            "delivery tag: " + envelope.getDeliveryTag() + " on the queue: " + queueName + " is " +
+                            "dead-lettered " + count + " time(s).");
+                } else {
+                    // handle the message after exceeding the max dead-lettered count
+                    proceedAfterMaxDeadLetteredCount(envelope, properties, body);
+                }
+            } else {
+                // the message might be dead-lettered or discard if an error occurred in the mediation flow
+                reject(envelope.getDeliveryTag());
+                log.info("The rejected message with message id: " + properties.getMessageId() + " and " +
+                        "delivery tag: " + envelope.getDeliveryTag() + " on the queue: " + queueName + " will " +
+                        "discard or dead-lettered.");
+            }
+        }
+    }
+
+    /**
+     * The message will publish to the exchange with routing key or discard
+     *
+     * @param envelope   packaging data for the message
+     * @param properties content header data for the message
+     * @param body       the message body
+     * @throws IOException
+     */
+    private void proceedAfterMaxDeadLetteredCount(Envelope envelope, AMQP.BasicProperties properties, byte[] body)
+            throws IOException {
+        String routingKey =
+                rabbitMQProperties.get(RabbitMQConstants.MESSAGE_ERROR_QUEUE_ROUTING_KEY);
+        String exchangeName =
+                rabbitMQProperties.get(RabbitMQConstants.MESSAGE_ERROR_EXCHANGE_NAME);
+        if (StringUtils.isNotEmpty(routingKey) && StringUtils.isNotEmpty(exchangeName)) {
+            // publish message to the given exchange with the routing key
+            synchronized (this) {
+                channel.basicPublish(exchangeName, routingKey, properties, body);
+            }
+            acknowledge(envelope.getDeliveryTag());
+            log.info("The max dead lettered count exceeded. Hence message with message id: " +
+                    properties.getMessageId() + " and delivery tag: " + envelope.getDeliveryTag() +
+                    " publish to the exchange: " + exchangeName + " with the routing key: " + routingKey + ".");
+        } else if (StringUtils.isNotEmpty(routingKey) && StringUtils.isEmpty(exchangeName)) {
+            // publish message to the default exchange with the routing key
+            synchronized (this) {
+                channel.basicPublish("", routingKey, properties, body);
+            }
+            acknowledge(envelope.getDeliveryTag());
+            log.info("The max dead lettered count exceeded. Hence message with message id: " +
+                    properties.getMessageId() + " and delivery tag: " + envelope.getDeliveryTag() + " publish to the " +
+                    "default exchange with the routing key: " + routingKey + ".");
+        } else {
+            // discard the message
+            acknowledge(envelope.getDeliveryTag());
+            log.info("The max dead lettered count exceeded. " +
+                    "No 'rabbitmq.message.error.queue.routing.key' specified for publishing the message. " +
+                    "Hence the message with message id: " + properties.getMessageId() + " and delivery tag: " +
+                    envelope.getDeliveryTag() + " on the queue: " + queueName + " will discard.");
+        }
+    }
+
+    /**
+     * Acknowledges the message, or adds it to the current batch of acknowledgements.
+     *
+     * @param deliveryTag the delivery tag of the message
+     * @throws IOException
+     */
+    private synchronized void acknowledge(long deliveryTag) throws IOException {
+        unsettledTags.remove(deliveryTag);
+        if (ackBatchSize <= 1) {
+            channel.basicAck(deliveryTag, false);
+            statistics.recordAcknowledged();
+            return;
+        }
+        pendingAckTags.add(deliveryTag);
+        statistics.recordAckPending();
+        if (pendingAckTags.size() >= ackBatchSize) {
+            flushAcks();
+        }
+    }
+
+    /**
+     * Rejects the message right away. It is not covered by the later multiple-acks, which only acknowledge the
+     * messages which are still outstanding.
+     *
+     * @param deliveryTag the delivery tag of the message
+     * @throws IOException
+     */
+    private synchronized void reject(long deliveryTag) throws IOException {
+        unsettledTags.remove(deliveryTag);
+        channel.basicReject(deliveryTag, false);
+        statistics.recordRejected();
+    }
+
+    /**
+     * Rejects the message if it is still unsettled, since a later multiple-ack would otherwise acknowledge it, and
+     * the pending acknowledgements would be held back by it until then.
+     *
+     * @param deliveryTag the delivery tag of the message
+     */
+    private synchronized void releaseUnsettled(long deliveryTag) {
+        if (!unsettledTags.remove(deliveryTag)) {
+            return;
+        }
+        try {
+            channel.basicReject(deliveryTag, false);
+            statistics.recordRejected();
+        } catch (IOException | RuntimeException e) {
+            log.error("Error occurred while rejecting the unsettled message with delivery tag: " + deliveryTag
+                    + " on the queue: " + queueName, e);
+        }
+    }
+
+    /**
+     * Sends a multiple-ack for the pending acknowledgements of the messages delivered before the oldest message which
+     * is still being mediated.
+     *
+     * @throws IOException
+     */
+    synchronized void flushAcks() throws IOException {
+        if (pendingAckTags.isEmpty()) {
+            return;
+        }
+        Long deliveryTag = unsettledTags.isEmpty() ? pendingAckTags.last() :
+                pendingAckTags.lower(unsettledTags.first());
+        if (deliveryTag == null) {
+            return;
+        }
+        channel.basicAck(deliveryTag, true);
+        int count = pendingAckTags.headSet(deliveryTag, true).size();
+        pendingAckTags.headSet(deliveryTag, true).clear();
+        statistics.recordBatchAcknowledged(count);
+    }
+
+    Channel getChannel() {
+        return channel;
+    }
+
+    String getConsumerTag() {
+        return consumerTag;
+    }
+}
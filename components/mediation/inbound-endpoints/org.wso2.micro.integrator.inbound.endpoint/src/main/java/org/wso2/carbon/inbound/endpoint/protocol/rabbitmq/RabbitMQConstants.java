@@ -70,6 +70,10 @@ public class RabbitMQConstants {
 
     public static final String CONSUMER_QOS = "rabbitmq.channel.consumer.qos";
     public static final String CONSUMER_TAG = "rabbitmq.consumer.tag";
+    public static final String CONSUMER_COUNT = "rabbitmq.concurrent.consumer.count";
+    public static final String CONSUMER_WORKER_POOL_SIZE = "rabbitmq.consumer.worker.pool.size";
+    public static final String ACK_BATCH_SIZE = "rabbitmq.ack.batch.size";
+    public static final String ACK_BATCH_INTERVAL = "rabbitmq.ack.batch.interval";
 
     public static final String MESSAGE_MAX_DEAD_LETTERED_COUNT = "rabbitmq.message.max.dead.lettered.count";
     public static final String MESSAGE_ERROR_EXCHANGE_NAME = "rabbitmq.message.error.exchange.name";
@@ -79,6 +83,10 @@ public class RabbitMQConstants {
     public static final int DEFAULT_RETRY_INTERVAL = 30000;
     public static final int DEFAULT_RETRY_COUNT = 3;
     public static final int DEFAULT_CONSUMER_QOS = 0;
+    public static final int DEFAULT_CONSUMER_COUNT = 1;
+    public static final int DEFAULT_CONSUMER_WORKER_POOL_SIZE = 0;
+    public static final int DEFAULT_ACK_BATCH_SIZE = 1;
+    public static final int DEFAULT_ACK_BATCH_INTERVAL = 1000;
 }
 
 
@@ -18,18 +18,15 @@
 
 package org.wso2.carbon.inbound.endpoint.protocol.rabbitmq;
 
-import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
-import com.rabbitmq.client.Consumer;
-import com.rabbitmq.client.Envelope;
 import com.rabbitmq.client.Recoverable;
-import com.rabbitmq.client.ShutdownSignalException;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -37,21 +34,35 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * The actual tasks that perform message consuming
+ * The actual tasks that perform message consuming. A consumer is registered on each of the configured number of
+ * channels of the connection, see {@link RabbitMQChannelConsumer}.
  */
-public class RabbitMQConsumer implements Consumer {
+public class RabbitMQConsumer {
 
     private static final Log log = LogFactory.getLog(RabbitMQConsumer.class);
+
+    /**
+     * Maximum time in milliseconds to wait for the messages being mediated when the consumer is closed
+     */
+    private static final long IN_FLIGHT_WAIT_TIMEOUT = 10000;
+
     private RabbitMQConnectionFactory rabbitMQConnectionFactory;
     private volatile Map<String, String> rabbitMQProperties = new HashMap<>();
     private RabbitMQInjectHandler injectHandler;
     private Connection connection = null;
-    private Channel channel = null;
+    private List<RabbitMQChannelConsumer> channelConsumers = new ArrayList<>();
+    private ThreadPoolExecutor workerPool;
+    private ScheduledExecutorService ackScheduler;
+    private RabbitMQConsumerStatistics statistics;
     private String queueName;
-    private long maxDeadLetteredCount;
-    private boolean autoAck;
     private String inboundName;
 
     public RabbitMQConsumer(RabbitMQConnectionFactory rabbitMQConnectionFactory, Properties properties,
@@ -73,201 +84,161 @@ public class RabbitMQConsumer implements Consumer {
     }
 
     /**
-     * Register a consumer to the queue
+     * Register the consumers to the queue
      *
      * @throws IOException
      */
-    private void initConsumer() throws IOException, RabbitMQException {
+    private synchronized void initConsumer() throws IOException, RabbitMQException {
         if (connection == null) {
             connection = rabbitMQConnectionFactory.createConnection();
         }
 
-        channel = connection.createChannel();
-        ((Recoverable) this.channel).addRecoveryListener(new RabbitMQRecoveryListener());
+        int consumerCount = Math.max(1, NumberUtils.toInt(rabbitMQProperties.get(RabbitMQConstants.CONSUMER_COUNT),
+                RabbitMQConstants.DEFAULT_CONSUMER_COUNT));
+        int workerPoolSize = NumberUtils.toInt(rabbitMQProperties.get(RabbitMQConstants.CONSUMER_WORKER_POOL_SIZE),
+                RabbitMQConstants.DEFAULT_CONSUMER_WORKER_POOL_SIZE);
+
+        boolean autoAck = BooleanUtils.toBooleanDefaultIfNull(BooleanUtils.toBooleanObject(rabbitMQProperties
+                .get(RabbitMQConstants.QUEUE_AUTO_ACK)), true);
+        int ackBatchSize = autoAck ? 1 : NumberUtils.toInt(rabbitMQProperties.get(RabbitMQConstants.ACK_BATCH_SIZE),
+                RabbitMQConstants.DEFAULT_ACK_BATCH_SIZE);
+        long ackBatchInterval = NumberUtils.toLong(rabbitMQProperties.get(RabbitMQConstants.ACK_BATCH_INTERVAL),
+                RabbitMQConstants.DEFAULT_ACK_BATCH_INTERVAL);
+        if (ackBatchSize > 1 && ackBatchInterval <= 0) {
+            // without the timer a partial batch would stay unacknowledged until the next messages fill it
+            log.warn("The acknowledgement batch interval: " + ackBatchInterval + " of inbound endpoint: "
+                    + inboundName + " is not positive, hence it is set to: "
+                    + RabbitMQConstants.DEFAULT_ACK_BATCH_INTERVAL);
+            ackBatchInterval = RabbitMQConstants.DEFAULT_ACK_BATCH_INTERVAL;
+        }
 
-        // set the qos value
+        // set the qos value, the prefetch has to leave room for a full batch of acknowledgements on top of the
+        // messages being mediated, otherwise the broker stops delivering until the batch is flushed by the timer
         int qos = NumberUtils.toInt(rabbitMQProperties.get(RabbitMQConstants.CONSUMER_QOS),
                 RabbitMQConstants.DEFAULT_CONSUMER_QOS);
-        channel.basicQos(qos);
-
-        // declaring queue
-        queueName = rabbitMQProperties.get(RabbitMQConstants.QUEUE_NAME);
-        RabbitMQUtils.declareQueue(channel, queueName, rabbitMQProperties);
-
-        // declaring user defined exchange if given
-        String exchangeName = rabbitMQProperties.get(RabbitMQConstants.EXCHANGE_NAME);
-        RabbitMQUtils.declareExchange(channel, exchangeName, rabbitMQProperties);
+        if (qos > 0 && ackBatchSize > 1) {
+            int minQos = ackBatchSize + Math.max(workerPoolSize / consumerCount, 1);
+            if (qos < minQos) {
+                log.info("The consumer qos: " + qos + " of inbound endpoint: " + inboundName + " is increased to: "
+                        + minQos + " to match the acknowledgement batch size: " + ackBatchSize);
+                qos = minQos;
+            }
+        }
 
         // get max dead-lettered count
-        maxDeadLetteredCount =
+        long maxDeadLetteredCount =
                 NumberUtils.toLong(rabbitMQProperties.get(RabbitMQConstants.MESSAGE_MAX_DEAD_LETTERED_COUNT));
 
         // get consumer tag if given
         String consumerTag = rabbitMQProperties.get(RabbitMQConstants.CONSUMER_TAG);
 
-        autoAck = BooleanUtils.toBooleanDefaultIfNull(BooleanUtils.toBooleanObject(rabbitMQProperties
-                .get(RabbitMQConstants.QUEUE_AUTO_ACK)), true);
-
-        if (StringUtils.isNotEmpty(consumerTag)) {
-            channel.basicConsume(queueName, autoAck, consumerTag, this);
-        } else {
-            channel.basicConsume(queueName, autoAck, this);
+        if (workerPoolSize > 0) {
+            // the dispatch threads mediate the messages themselves once the queue is full, which holds back the
+            // channels until the workers catch up
+            AtomicInteger threadNumber = new AtomicInteger();
+            workerPool = new ThreadPoolExecutor(workerPoolSize, workerPoolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(workerPoolSize), runnable -> {
+                Thread thread = new Thread(runnable, "rabbitmq-worker-" + inboundName + "-"
+                        + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
         }
-    }
+        statistics = new RabbitMQConsumerStatistics();
 
-    /**
-     * Called when the consumer is registered by a call to any of the {@link Channel#basicConsume} methods.
-     *
-     * @param consumerTag the consumer tag associated with the consumer
-     */
-    @Override
-    public void handleConsumeOk(String consumerTag) {
-        log.info("Start consuming queue: " + queueName + " with consumer tag: " + consumerTag +
-                " for inbound endpoint: " + inboundName);
-    }
-
-    /**
-     * Called when the consumer is cancelled by a call to {@link Channel#basicCancel}.
-     *
-     * @param consumerTag the consumer tag associated with the consumer
-     */
-    @Override
-    public void handleCancelOk(String consumerTag) {
-        log.info("The consumer with consumer tag: " + consumerTag + " stops listening to new messages.");
-    }
+        queueName = rabbitMQProperties.get(RabbitMQConstants.QUEUE_NAME);
+        for (int i = 0; i < consumerCount; i++) {
+            Channel channel = connection.createChannel();
+            ((Recoverable) channel).addRecoveryListener(new RabbitMQRecoveryListener());
+            channel.basicQos(qos);
 
-    /**
-     * Called when the consumer is cancelled for reasons other than by a call to {@link Channel#basicCancel}.
-     * For example, the queue has been deleted.
-     * See {@link #handleCancelOk} for notification of consumer cancellation due to {@link Channel#basicCancel}.
-     *
-     * @param consumerTag the consumer tag associated with the consumer
-     * @throws IOException
-     */
-    @Override
-    public void handleCancel(String consumerTag) throws IOException {
-        log.info("The consumer with consumer tag: " + consumerTag + " unexpectedly stops listening to new messages.");
-    }
+            if (i == 0) {
+                // declaring queue
+                RabbitMQUtils.declareQueue(channel, queueName, rabbitMQProperties);
 
-    /**
-     * Called when either the channel or the underlying connection has been shut down.
-     *
-     * @param consumerTag the consumer tag associated with the consumer
-     * @param signal      a {@link ShutdownSignalException} indicating the reason for the shut down
-     */
-    @Override
-    public void handleShutdownSignal(String consumerTag, ShutdownSignalException signal) {
-        if (signal.isInitiatedByApplication()) {
-            log.info("The connection to the messaging server was shut down. Consumer tag: " + consumerTag);
+                // declaring user defined exchange if given
+                String exchangeName = rabbitMQProperties.get(RabbitMQConstants.EXCHANGE_NAME);
+                RabbitMQUtils.declareExchange(channel, exchangeName, rabbitMQProperties);
+            }
 
-        } else if (signal.getReference() instanceof Channel) {
-            int channelNumber = ((Channel) signal.getReference()).getChannelNumber();
-            log.info("The consumer on channel number: " + channelNumber + " with consumer tag: " + consumerTag
-                    + " was shut down.");
+            RabbitMQChannelConsumer channelConsumer = new RabbitMQChannelConsumer(channel, rabbitMQProperties,
+                    injectHandler, statistics, workerPool, queueName, inboundName, maxDeadLetteredCount, autoAck,
+                    ackBatchSize);
+            channelConsumers.add(channelConsumer);
+            if (StringUtils.isNotEmpty(consumerTag)) {
+                channel.basicConsume(queueName, autoAck, consumerCount > 1 ? consumerTag + "-" + i : consumerTag,
+                        channelConsumer);
+            } else {
+                channel.basicConsume(queueName, autoAck, channelConsumer);
+            }
+        }
 
-        } else {
-            log.info("The consumer with consumer tag: " + consumerTag + " was shut down.");
+        if (ackBatchSize > 1) {
+            ackScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rabbitmq-ack-" + inboundName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            ackScheduler.scheduleWithFixedDelay(this::flushAcks, ackBatchInterval, ackBatchInterval,
+                    TimeUnit.MILLISECONDS);
         }
+        MBeanRegistrar.getInstance().registerMBean(statistics, RabbitMQConsumerStatistics.MBEAN_CATEGORY,
+                inboundName);
     }
 
     /**
-     * Called when a basic.recover-ok is received in reply to a basic.recover. All messages received before this is
-     * invoked that haven't been ack'ed will be re-delivered. All messages received afterwards won't be.
-     *
-     * @param consumerTag the consumer tag associated with the consumer
+     * Sends the pending acknowledgements of all the channels.
      */
-    @Override
-    public void handleRecoverOk(String consumerTag) {
-        //do nothing since this mean recovery-ok is received.
+    private void flushAcks() {
+        for (RabbitMQChannelConsumer channelConsumer : channelConsumers) {
+            try {
+                channelConsumer.flushAcks();
+            } catch (IOException | RuntimeException e) {
+                log.error("Error occurred while acknowledging the messages of the queue: " + queueName, e);
+            }
+        }
     }
 
     /**
-     * Called when a basic.deliver is received for this consumer.
-     *
-     * @param consumerTag the consumer tag associated with the consumer
-     * @param envelope    packaging data for the message
-     * @param properties  content header data for the message
-     * @param body        the message body (opaque, client-specific byte array)
-     * @throws IOException if the consumer encounters an I/O error while processing the message
-     * @see Envelope
+     * Return connection back to the pool when undeploying the listener proxy. The messages being mediated are given
+     * some time to complete, so that their acknowledgements are sent before the connection is closed.
      */
-    @Override
-    public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body)
-            throws IOException {
-        boolean successful = injectHandler.onMessage(properties, body, inboundName);
-        if (successful) {
-            if (!autoAck) {
-                channel.basicAck(envelope.getDeliveryTag(), false);
+    public synchronized void close() {
+        if (ackScheduler != null) {
+            ackScheduler.shutdownNow();
+            ackScheduler = null;
+        }
+        for (RabbitMQChannelConsumer channelConsumer : channelConsumers) {
+            try {
+                Channel channel = channelConsumer.getChannel();
+                if (channel.isOpen() && channelConsumer.getConsumerTag() != null) {
+                    channel.basicCancel(channelConsumer.getConsumerTag());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Error occurred while cancelling the consumer of the queue: " + queueName, e);
             }
-        } else {
-            List<HashMap<String, Object>> xDeathHeader =
-                    (ArrayList<HashMap<String, Object>>) properties.getHeaders().get("x-death");
-            // check if message has been already dead-lettered
-            if (xDeathHeader != null && xDeathHeader.size() > 0 && maxDeadLetteredCount != -1) {
-                Long count = (Long) xDeathHeader.get(0).get("count");
-                if (count <= maxDeadLetteredCount) {
-                    channel.basicReject(envelope.getDeliveryTag(), false);
-                    log.info("The rejected message with message id: " + properties.getMessageId() + " and " +
-                            "delivery tag: " + envelope.getDeliveryTag() + " on the queue: " + queueName + " is " +
-                            "dead-lettered " + count + " time(s).");
-                } else {
-                    // handle the message after exceeding the max dead-lettered count
-                    proceedAfterMaxDeadLetteredCount(envelope, properties, body);
+        }
+        if (workerPool != null) {
+            workerPool.shutdown();
+            try {
+                if (!workerPool.awaitTermination(IN_FLIGHT_WAIT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    log.warn("Messages of inbound endpoint: " + inboundName + " are still being mediated, they "
+                            + "will be redelivered.");
                 }
-            } else {
-                // the message might be dead-lettered or discard if an error occurred in the mediation flow
-                channel.basicReject(envelope.getDeliveryTag(), false);
-                log.info("The rejected message with message id: " + properties.getMessageId() + " and " +
-                        "delivery tag: " + envelope.getDeliveryTag() + " on the queue: " + queueName + " will " +
-                        "discard or dead-lettered.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+            workerPool = null;
         }
-    }
-
-    /**
-     * The message will publish to the exchange with routing key or discard
-     *
-     * @param envelope   packaging data for the message
-     * @param properties content header data for the message
-     * @param body       the message body
-     * @throws IOException
-     */
-    private void proceedAfterMaxDeadLetteredCount(Envelope envelope, AMQP.BasicProperties properties, byte[] body)
-            throws IOException {
-        String routingKey =
-                rabbitMQProperties.get(RabbitMQConstants.MESSAGE_ERROR_QUEUE_ROUTING_KEY);
-        String exchangeName =
-                rabbitMQProperties.get(RabbitMQConstants.MESSAGE_ERROR_EXCHANGE_NAME);
-        if (StringUtils.isNotEmpty(routingKey) && StringUtils.isNotEmpty(exchangeName)) {
-            // publish message to the given exchange with the routing key
-            channel.basicPublish(exchangeName, routingKey, properties, body);
-            channel.basicAck(envelope.getDeliveryTag(), false);
-            log.info("The max dead lettered count exceeded. Hence message with message id: " +
-                    properties.getMessageId() + " and delivery tag: " + envelope.getDeliveryTag() +
-                    " publish to the exchange: " + exchangeName + " with the routing key: " + routingKey + ".");
-        } else if (StringUtils.isNotEmpty(routingKey) && StringUtils.isEmpty(exchangeName)) {
-            // publish message to the default exchange with the routing key
-            channel.basicPublish("", routingKey, properties, body);
-            channel.basicAck(envelope.getDeliveryTag(), false);
-            log.info("The max dead lettered count exceeded. Hence message with message id: " +
-                    properties.getMessageId() + " and delivery tag: " + envelope.getDeliveryTag() + " publish to the " +
-                    "default exchange with the routing key: " + routingKey + ".");
-        } else {
-            // discard the message
-            channel.basicAck(envelope.getDeliveryTag(), false);
-            log.info("The max dead lettered count exceeded. " +
-                    "No 'rabbitmq.message.error.queue.routing.key' specified for publishing the message. " +
-                    "Hence the message with message id: " + properties.getMessageId() + " and delivery tag: " +
-                    envelope.getDeliveryTag() + " on the queue: " + queueName + " will discard.");
+        flushAcks();
+        if (statistics != null) {
+            MBeanRegistrar.getInstance().unRegisterMBean(RabbitMQConsumerStatistics.MBEAN_CATEGORY, inboundName);
+            statistics = null;
+        }
+        channelConsumers = new ArrayList<>();
+        if (connection != null) {
+            connection.abort();
         }
-    }
-
-    /**
-     * Return connection back to the pool when undeploying the listener proxy
-     */
-    public void close() {
-        connection.abort();
-        channel = null;
         connection = null;
     }
 
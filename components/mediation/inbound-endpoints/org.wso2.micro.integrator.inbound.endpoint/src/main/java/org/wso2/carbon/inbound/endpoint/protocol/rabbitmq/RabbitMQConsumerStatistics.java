@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.inbound.endpoint.protocol.rabbitmq;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a RabbitMQ inbound endpoint, shared by the consumers of all its channels.
+ */
+public class RabbitMQConsumerStatistics implements RabbitMQConsumerStatisticsMXBean {
+
+    public static final String MBEAN_CATEGORY = "RabbitMQInboundEndpoint";
+
+    /**
+     * Minimum time in milliseconds between two measurements of the delivery rate
+     */
+    private static final long RATE_INTERVAL = 1000;
+
+    private final LongAdder deliveredCount = new LongAdder();
+
+    private final LongAdder redeliveredCount = new LongAdder();
+
+    private final LongAdder acknowledgedCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder inFlightCount = new LongAdder();
+
+    private final LongAdder pendingAckCount = new LongAdder();
+
+    private long rateMeasuredTime = System.currentTimeMillis();
+
+    private long rateMeasuredCount;
+
+    private volatile double deliveriesPerSecond;
+
+    void recordDelivered(boolean redelivered) {
+        deliveredCount.increment();
+        inFlightCount.increment();
+        if (redelivered) {
+            redeliveredCount.increment();
+        }
+    }
+
+    void recordMediated() {
+        inFlightCount.decrement();
+    }
+
+    void recordAckPending() {
+        pendingAckCount.increment();
+    }
+
+    void recordAcknowledged() {
+        acknowledgedCount.increment();
+    }
+
+    void recordBatchAcknowledged(int count) {
+        acknowledgedCount.add(count);
+        pendingAckCount.add(-count);
+    }
+
+    void recordRejected() {
+        rejectedCount.increment();
+    }
+
+    @Override
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    @Override
+    public long getRedeliveredCount() {
+        return redeliveredCount.sum();
+    }
+
+    @Override
+    public long getAcknowledgedCount() {
+        return acknowledgedCount.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public synchronized double getDeliveriesPerSecond() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - rateMeasuredTime;
+        if (elapsed >= RATE_INTERVAL) {
+            long count = deliveredCount.sum();
+            deliveriesPerSecond = (count - rateMeasuredCount) * 1000.0 / elapsed;
+            rateMeasuredCount = count;
+            rateMeasuredTime = now;
+        }
+        return deliveriesPerSecond;
+    }
+
+    @Override
+    public long getInFlightCount() {
+        return inFlightCount.sum();
+    }
+
+    @Override
+    public long getAckLag() {
+        return pendingAckCount.sum();
+    }
+}
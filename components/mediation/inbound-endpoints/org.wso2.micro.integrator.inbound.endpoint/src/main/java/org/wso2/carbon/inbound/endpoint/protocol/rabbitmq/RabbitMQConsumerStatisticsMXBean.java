@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.inbound.endpoint.protocol.rabbitmq;
+
+/**
+ * MBean interface to expose the state of a RabbitMQ inbound endpoint using JMX.
+ */
+public interface RabbitMQConsumerStatisticsMXBean {
+
+    /**
+     * @return number of messages delivered to the consumers of the endpoint
+     */
+    long getDeliveredCount();
+
+    /**
+     * @return number of messages delivered with the redelivered flag set by the broker
+     */
+    long getRedeliveredCount();
+
+    /**
+     * @return number of messages acknowledged to the broker
+     */
+    long getAcknowledgedCount();
+
+    /**
+     * @return number of messages rejected to the broker, which are dead-lettered or discarded
+     */
+    long getRejectedCount();
+
+    /**
+     * @return number of messages delivered per second, over the last measurement interval
+     */
+    double getDeliveriesPerSecond();
+
+    /**
+     * @return number of messages delivered but not yet mediated
+     */
+    long getInFlightCount();
+
+    /**
+     * @return number of messages mediated successfully whose acknowledgement has not been sent yet
+     */
+    long getAckLag();
+}
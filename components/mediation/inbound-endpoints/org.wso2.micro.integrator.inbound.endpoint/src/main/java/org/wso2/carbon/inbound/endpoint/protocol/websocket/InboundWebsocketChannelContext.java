@@ -18,14 +18,19 @@
 
 package org.wso2.carbon.inbound.endpoint.protocol.websocket;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.AttributeKey;
 
 public class InboundWebsocketChannelContext {
 
+    private static final AttributeKey<Boolean> PRE_ENCODED_FRAMES_SUPPORTED = AttributeKey
+            .valueOf("ws.pre.encoded.frames.supported");
+
     private ChannelHandlerContext ctx;
     private String channelIdentifier;
 
@@ -48,6 +53,24 @@ public class InboundWebsocketChannelContext {
         return channelIdentifier;
     }
 
+    /**
+     * Marks whether frames encoded beforehand as RFC 6455 server frames can be written to the channel as they are,
+     * bypassing the frame encoder of the channel.
+     *
+     * @param supported whether pre-encoded frames can be written to the channel
+     */
+    public void setPreEncodedFramesSupported(boolean supported) {
+        ctx.channel().attr(PRE_ENCODED_FRAMES_SUPPORTED).set(supported);
+    }
+
+    public boolean isPreEncodedFramesSupported() {
+        return isPreEncodedFramesSupported(ctx.channel());
+    }
+
+    public static boolean isPreEncodedFramesSupported(Channel channel) {
+        return Boolean.TRUE.equals(channel.attr(PRE_ENCODED_FRAMES_SUPPORTED).get());
+    }
+
     public void addCloseListener(final ChannelHandlerContext targetCtx) {
         ChannelFuture closeFuture = ctx.channel().closeFuture();
         closeFuture.addListener(new ChannelFutureListener() {
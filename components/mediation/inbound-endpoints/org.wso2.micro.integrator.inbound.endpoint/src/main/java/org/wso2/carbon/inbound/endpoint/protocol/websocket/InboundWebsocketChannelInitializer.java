@@ -38,6 +38,7 @@ public class InboundWebsocketChannelInitializer extends ChannelInitializer<Socke
 
     private InboundWebsocketSSLConfiguration sslConfiguration;
     private int clientBroadcastLevel;
+    private boolean dropUnwritableBroadcastFrames;
     private String outflowDispatchSequence;
     private String outflowErrorSequence;
     private ChannelHandler pipelineHandler;
@@ -64,6 +65,10 @@ public class InboundWebsocketChannelInitializer extends ChannelInitializer<Socke
         this.clientBroadcastLevel = clientBroadcastLevel;
     }
 
+    public void setDropUnwritableBroadcastFrames(boolean dropUnwritableBroadcastFrames) {
+        this.dropUnwritableBroadcastFrames = dropUnwritableBroadcastFrames;
+    }
+
     public void setOutflowDispatchSequence(String outflowDispatchSequence) {
         this.outflowDispatchSequence = outflowDispatchSequence;
     }
@@ -90,6 +95,7 @@ public class InboundWebsocketChannelInitializer extends ChannelInitializer<Socke
         p.addLast("frameAggregator", new WebSocketFrameAggregator(Integer.MAX_VALUE));
         InboundWebsocketSourceHandler sourceHandler = new InboundWebsocketSourceHandler();
         sourceHandler.setClientBroadcastLevel(clientBroadcastLevel);
+        sourceHandler.setDropUnwritableBroadcastFrames(dropUnwritableBroadcastFrames);
         sourceHandler.setDispatchToCustomSequence(dispatchToCustomSequence);
         sourceHandler.setPortOffset(portOffset);
         if (outflowDispatchSequence != null)
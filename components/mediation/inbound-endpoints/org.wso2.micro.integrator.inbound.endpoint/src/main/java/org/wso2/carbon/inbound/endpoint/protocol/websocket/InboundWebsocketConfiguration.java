@@ -25,6 +25,7 @@ public class InboundWebsocketConfiguration {
     private String bossThreadPoolSize;
     private String workerThreadPoolSize;
     private int broadcastLevel;
+    private boolean dropUnwritableBroadcastFrames;
     private String outFlowDispatchSequence;
     private String outFlowErrorSequence;
     private String subprotocolHandler;
@@ -39,6 +40,7 @@ public class InboundWebsocketConfiguration {
         this.bossThreadPoolSize = builder.bossThreadPoolSize;
         this.workerThreadPoolSize = builder.workerThreadPoolSize;
         this.broadcastLevel = builder.broadcastLevel;
+        this.dropUnwritableBroadcastFrames = builder.dropUnwritableBroadcastFrames;
         this.outFlowDispatchSequence = builder.outFlowDispatchSequence;
         this.outFlowErrorSequence = builder.outFlowErrorSequence;
         this.subprotocolHandler = builder.subprotocolHandler;
@@ -68,6 +70,10 @@ public class InboundWebsocketConfiguration {
         return broadcastLevel;
     }
 
+    public boolean isDropUnwritableBroadcastFrames() {
+        return dropUnwritableBroadcastFrames;
+    }
+
     public String getOutFlowDispatchSequence() {
         return outFlowDispatchSequence;
     }
@@ -102,6 +108,7 @@ public class InboundWebsocketConfiguration {
         private String bossThreadPoolSize;
         private String workerThreadPoolSize;
         private int broadcastLevel;
+        private boolean dropUnwritableBroadcastFrames;
         private String outFlowDispatchSequence;
         private String outFlowErrorSequence;
         private String subprotocolHandler;
@@ -134,6 +141,12 @@ public class InboundWebsocketConfiguration {
             return this;
         }
 
+        public InboundWebsocketConfigurationBuilder dropUnwritableBroadcastFrames(
+                boolean dropUnwritableBroadcastFrames) {
+            this.dropUnwritableBroadcastFrames = dropUnwritableBroadcastFrames;
+            return this;
+        }
+
         public InboundWebsocketConfigurationBuilder outFlowDispatchSequence(String outFlowDispatchSequence) {
             this.outFlowDispatchSequence = outFlowDispatchSequence;
             return this;
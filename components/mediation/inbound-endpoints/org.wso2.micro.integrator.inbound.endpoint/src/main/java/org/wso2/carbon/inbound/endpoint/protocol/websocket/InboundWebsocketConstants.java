@@ -50,6 +50,7 @@ public class InboundWebsocketConstants {
     public static final String WEBSOCKET_TEXT_FRAME = "websocket.text.frame";
 
     public static final String WEBSOCKET_CLIENT_SIDE_BROADCAST_LEVEL = "ws.client.side.broadcast.level";
+    public static final String WEBSOCKET_BROADCAST_DROP_UNWRITABLE_FRAMES = "ws.broadcast.drop.unwritable.frames";
     public static final String WEBSOCKET_USE_PORT_OFFSET = "ws.use.port.offset";
 
     public static final String WEBSOCKET_OUTFLOW_DISPATCH_SEQUENCE = "ws.outflow.dispatch.sequence";
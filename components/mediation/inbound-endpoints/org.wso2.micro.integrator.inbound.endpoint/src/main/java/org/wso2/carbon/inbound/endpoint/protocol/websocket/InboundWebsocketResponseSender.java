@@ -93,7 +93,7 @@ public class InboundWebsocketResponseSender implements InboundResponseSender {
                 return;
             } else if (msgContext.getProperty(InboundWebsocketConstants.WEBSOCKET_BINARY_FRAME_PRESENT) != null
                     && msgContext.getProperty(InboundWebsocketConstants.WEBSOCKET_BINARY_FRAME_PRESENT).equals(true)) {
-                BinaryWebSocketFrame frame = (BinaryWebSocketFrame) msgContext
+                WebSocketFrame frame = (WebSocketFrame) msgContext
                         .getProperty(InboundWebsocketConstants.WEBSOCKET_BINARY_FRAME);
                 if (isTCPTransport != null && (boolean) isTCPTransport) {
                     try {
@@ -126,7 +126,7 @@ public class InboundWebsocketResponseSender implements InboundResponseSender {
                 handleSendBack(frame, ctx, clientBroadcastLevel, subscriberPath, pathManager);
             } else if (msgContext.getProperty(InboundWebsocketConstants.WEBSOCKET_TEXT_FRAME_PRESENT) != null
                     && msgContext.getProperty(InboundWebsocketConstants.WEBSOCKET_TEXT_FRAME_PRESENT).equals(true)) {
-                TextWebSocketFrame frame = (TextWebSocketFrame) msgContext
+                WebSocketFrame frame = (WebSocketFrame) msgContext
                         .getProperty(InboundWebsocketConstants.WEBSOCKET_TEXT_FRAME);
                 if (isTCPTransport != null && (boolean) isTCPTransport) {
                     try {
@@ -201,11 +201,13 @@ public class InboundWebsocketResponseSender implements InboundResponseSender {
         } else if (clientBroadcastLevel == 1) {
             String endpointName = WebsocketEndpointManager.getInstance()
                     .getEndpointName(sourceHandler.getPort(), sourceHandler.getTenantDomain());
-            pathManager.broadcastOnSubscriberPath(frame, endpointName, subscriberPath);
+            pathManager.broadcastOnSubscriberPath(frame, endpointName, subscriberPath,
+                                                  sourceHandler.isDropUnwritableBroadcastFrames());
         } else if (clientBroadcastLevel == 2) {
             String endpointName = WebsocketEndpointManager.getInstance()
                     .getEndpointName(sourceHandler.getPort(), sourceHandler.getTenantDomain());
-            pathManager.exclusiveBroadcastOnSubscriberPath(frame, endpointName, subscriberPath, ctx);
+            pathManager.exclusiveBroadcastOnSubscriberPath(frame, endpointName, subscriberPath, ctx,
+                                                           sourceHandler.isDropUnwritableBroadcastFrames());
         }
     }
 
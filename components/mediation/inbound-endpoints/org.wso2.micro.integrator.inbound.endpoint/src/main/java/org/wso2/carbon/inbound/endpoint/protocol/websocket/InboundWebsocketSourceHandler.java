@@ -33,6 +33,7 @@ import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
 import org.apache.axiom.om.OMAbstractFactory;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.soap.SOAPEnvelope;
@@ -91,6 +92,7 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
     private static ArrayList<String> contentTypes = new ArrayList<>();
     private static ArrayList<String> otherSubprotocols = new ArrayList<>();
     private int clientBroadcastLevel;
+    private boolean dropUnwritableBroadcastFrames;
     private String outflowDispatchSequence;
     private String outflowErrorSequence;
     private ChannelPromise handshakeFuture;
@@ -145,7 +147,7 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
             handleException("Endpoint not found for port : " + port + "" + " tenant domain : " + tenantDomain);
         }
         WebsocketSubscriberPathManager.getInstance()
-                .addChannelContext(endpointName, subscriberPath.getPath(), wrappedContext);
+                .removeChannelContext(endpointName, subscriberPath.getPath(), wrappedContext);
         MessageContext synCtx = getSynapseMessageContext(tenantDomain);
         InboundEndpoint endpoint = synCtx.getConfiguration().getInboundEndpoint(endpointName);
         synCtx.setProperty(InboundWebsocketConstants.CONNECTION_TERMINATE, new Boolean(true));
@@ -172,6 +174,10 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
             future.addListener(new ChannelFutureListener() {
                 public void operationComplete(ChannelFuture future) throws Exception {
                     if (future.isSuccess()) {
+                        // the http codec has been replaced by the frame encoder by now, so broadcasts may write
+                        // pre-encoded frames unless the old protocol version or a custom handler needs the frames
+                        wrappedContext.setPreEncodedFramesSupported(handshaker.version() != WebSocketVersion.V00
+                                && future.channel().pipeline().get("pipelineHandler") == null);
                         handshakeFuture.setSuccess();
                     }
                 }
@@ -428,6 +434,10 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
         return clientBroadcastLevel;
     }
 
+    public boolean isDropUnwritableBroadcastFrames() {
+        return dropUnwritableBroadcastFrames;
+    }
+
     public String getDefaultContentType() {
         return defaultContentType;
     }
@@ -444,6 +454,10 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
         this.clientBroadcastLevel = clientBroadcastLevel;
     }
 
+    public void setDropUnwritableBroadcastFrames(boolean dropUnwritableBroadcastFrames) {
+        this.dropUnwritableBroadcastFrames = dropUnwritableBroadcastFrames;
+    }
+
     protected void handleException(String msg) {
         log.error(msg);
         throw new SynapseException(msg);
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.websocket.management;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the broadcasts of a WebSocket inbound endpoint to its subscribers.
+ */
+public class WebsocketBroadcastStatistics implements WebsocketBroadcastStatisticsMXBean {
+
+    public static final String MBEAN_CATEGORY = "WebsocketInboundEndpoint";
+
+    /**
+     * Minimum time in milliseconds between two measurements of the broadcast rate
+     */
+    private static final long RATE_INTERVAL = 1000;
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String inboundEndpointName;
+
+    private final LongAdder broadcastCount = new LongAdder();
+
+    private final LongAdder completedBroadcastCount = new LongAdder();
+
+    private final LongAdder deliveredFrameCount = new LongAdder();
+
+    private final LongAdder droppedFrameCount = new LongAdder();
+
+    private final LongAdder failedFrameCount = new LongAdder();
+
+    private final LongAdder totalLatency = new LongAdder();
+
+    private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private long rateMeasuredTime = System.currentTimeMillis();
+
+    private long rateMeasuredCount;
+
+    private volatile double broadcastsPerSecond;
+
+    public WebsocketBroadcastStatistics(String inboundEndpointName) {
+        this.inboundEndpointName = inboundEndpointName;
+    }
+
+    void recordBroadcast(int droppedFrames) {
+        broadcastCount.increment();
+        droppedFrameCount.add(droppedFrames);
+    }
+
+    void recordBroadcastCompleted(int deliveredFrames, int failedFrames, long latencyNanos) {
+        completedBroadcastCount.increment();
+        deliveredFrameCount.add(deliveredFrames);
+        failedFrameCount.add(failedFrames);
+        totalLatency.add(latencyNanos);
+        maxLatency.accumulate(latencyNanos);
+    }
+
+    void recordSubscriberAdded() {
+        subscriberCount.incrementAndGet();
+    }
+
+    void recordSubscriberRemoved() {
+        subscriberCount.decrementAndGet();
+    }
+
+    @Override
+    public String getInboundEndpointName() {
+        return inboundEndpointName;
+    }
+
+    @Override
+    public long getBroadcastCount() {
+        return broadcastCount.sum();
+    }
+
+    @Override
+    public synchronized double getBroadcastsPerSecond() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - rateMeasuredTime;
+        if (elapsed >= RATE_INTERVAL) {
+            long count = broadcastCount.sum();
+            broadcastsPerSecond = (count - rateMeasuredCount) * 1000.0 / elapsed;
+            rateMeasuredCount = count;
+            rateMeasuredTime = now;
+        }
+        return broadcastsPerSecond;
+    }
+
+    @Override
+    public long getDeliveredFrameCount() {
+        return deliveredFrameCount.sum();
+    }
+
+    @Override
+    public long getDroppedFrameCount() {
+        return droppedFrameCount.sum();
+    }
+
+    @Override
+    public long getFailedFrameCount() {
+        return failedFrameCount.sum();
+    }
+
+    @Override
+    public double getAverageBroadcastLatency() {
+        long count = completedBroadcastCount.sum();
+        return count == 0 ? 0 : totalLatency.sum() / NANOS_PER_MILLI / count;
+    }
+
+    @Override
+    public double getMaxBroadcastLatency() {
+        return maxLatency.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+}
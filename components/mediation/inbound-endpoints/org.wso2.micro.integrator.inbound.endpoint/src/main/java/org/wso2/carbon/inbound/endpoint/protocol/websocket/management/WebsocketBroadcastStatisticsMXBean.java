@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.websocket.management;
+
+/**
+ * MBean interface to expose the broadcasts of a WebSocket inbound endpoint to its subscribers using JMX.
+ */
+public interface WebsocketBroadcastStatisticsMXBean {
+
+    /**
+     * @return the name of the inbound endpoint
+     */
+    String getInboundEndpointName();
+
+    /**
+     * @return number of frames broadcast on the subscriber paths of the endpoint
+     */
+    long getBroadcastCount();
+
+    /**
+     * @return number of frames broadcast per second, over the last measurement interval
+     */
+    double getBroadcastsPerSecond();
+
+    /**
+     * @return number of frames written to subscribers successfully
+     */
+    long getDeliveredFrameCount();
+
+    /**
+     * @return number of frames not written to subscribers since their channels were not writable
+     */
+    long getDroppedFrameCount();
+
+    /**
+     * @return number of frames whose write to a subscriber failed
+     */
+    long getFailedFrameCount();
+
+    /**
+     * @return average time in milliseconds from the start of a broadcast until it is written to all subscribers
+     */
+    double getAverageBroadcastLatency();
+
+    /**
+     * @return maximum time in milliseconds from the start of a broadcast until it is written to all subscribers
+     */
+    double getMaxBroadcastLatency();
+
+    /**
+     * @return number of subscribers connected to the endpoint
+     */
+    int getSubscriberCount();
+}
@@ -136,6 +136,7 @@ public class WebsocketEndpointManager extends AbstractInboundEndpointManager {
                 .channel(NioServerSocketChannel.class);
         InboundWebsocketChannelInitializer handler = new InboundWebsocketChannelInitializer();
         handler.setClientBroadcastLevel(config.getBroadcastLevel());
+        handler.setDropUnwritableBroadcastFrames(config.isDropUnwritableBroadcastFrames());
         handler.setOutflowDispatchSequence(config.getOutFlowDispatchSequence());
         handler.setOutflowErrorSequence(config.getOutFlowErrorSequence());
         handler.setSubprotocolHandlers(
@@ -171,6 +172,7 @@ public class WebsocketEndpointManager extends AbstractInboundEndpointManager {
         InboundWebsocketChannelInitializer handler = new InboundWebsocketChannelInitializer();
         handler.setSslConfiguration(sslConfiguration);
         handler.setClientBroadcastLevel(config.getBroadcastLevel());
+        handler.setDropUnwritableBroadcastFrames(config.isDropUnwritableBroadcastFrames());
         handler.setOutflowDispatchSequence(config.getOutFlowDispatchSequence());
         handler.setOutflowErrorSequence(config.getOutFlowErrorSequence());
         handler.setSubprotocolHandlers(
@@ -241,7 +243,10 @@ public class WebsocketEndpointManager extends AbstractInboundEndpointManager {
                 .workerThreadPoolSize(
                         params.getProperties().getProperty(InboundWebsocketConstants.INBOUND_WORKER_THREAD_POOL_SIZE))
                 .broadcastLevel(validateBroadcastLevelParam(params.getProperties().getProperty(
-                        InboundWebsocketConstants.WEBSOCKET_CLIENT_SIDE_BROADCAST_LEVEL))).outFlowDispatchSequence(
+                        InboundWebsocketConstants.WEBSOCKET_CLIENT_SIDE_BROADCAST_LEVEL)))
+                .dropUnwritableBroadcastFrames(Boolean.parseBoolean(params.getProperties().getProperty(
+                        InboundWebsocketConstants.WEBSOCKET_BROADCAST_DROP_UNWRITABLE_FRAMES)))
+                .outFlowDispatchSequence(
                         params.getProperties()
                                 .getProperty(InboundWebsocketConstants.WEBSOCKET_OUTFLOW_DISPATCH_SEQUENCE))
                 .outFlowErrorSequence(params.getProperties().getProperty(
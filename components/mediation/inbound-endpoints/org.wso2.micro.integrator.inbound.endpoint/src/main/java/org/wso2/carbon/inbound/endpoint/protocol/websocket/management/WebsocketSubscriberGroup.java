@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.websocket.management;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelGroupFuture;
+import io.netty.channel.group.ChannelGroupFutureListener;
+import io.netty.channel.group.ChannelMatcher;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.InboundWebsocketChannelContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The subscribers of a subscriber path of a WebSocket inbound endpoint.
+ * <p>
+ * A broadcast encodes the frame once into a reference counted buffer and writes that buffer to all the subscriber
+ * channels through a {@link ChannelGroup}, instead of encoding the frame again for each subscriber. Subscribers whose
+ * channels do not accept pre-encoded frames, see {@link InboundWebsocketChannelContext#isPreEncodedFramesSupported},
+ * are written the frame itself.
+ * <p>
+ * When the frames of unwritable subscribers are dropped, only whole messages are dropped, so that a subscriber never
+ * receives a partial fragmented message.
+ */
+public class WebsocketSubscriberGroup {
+
+    private static final byte OPCODE_CONT = 0x0;
+    private static final byte OPCODE_TEXT = 0x1;
+    private static final byte OPCODE_BINARY = 0x2;
+    private static final byte OPCODE_CLOSE = 0x8;
+    private static final byte OPCODE_PING = 0x9;
+    private static final byte OPCODE_PONG = 0xA;
+
+    /**
+     * Payloads smaller than this are copied next to the frame header, larger ones are written with a gathering write.
+     */
+    private static final int GATHERING_WRITE_THRESHOLD = 1024;
+
+    /**
+     * Marks the channels for which the first fragment of the message being broadcast was dropped.
+     */
+    private static final AttributeKey<Boolean> DROPPING_MESSAGE = AttributeKey.valueOf("ws.broadcast.dropping.message");
+
+    private final List<InboundWebsocketChannelContext> channelContexts = new CopyOnWriteArrayList<>();
+
+    private final ChannelGroup channelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    void add(InboundWebsocketChannelContext ctx) {
+        channelContexts.add(ctx);
+        channelGroup.add(ctx.getChannelHandlerContext().channel());
+    }
+
+    boolean remove(InboundWebsocketChannelContext ctx) {
+        for (InboundWebsocketChannelContext context : channelContexts) {
+            if (context.getChannelIdentifier().equals(ctx.getChannelIdentifier())) {
+                channelGroup.remove(context.getChannelHandlerContext().channel());
+                return channelContexts.remove(context);
+            }
+        }
+        return false;
+    }
+
+    boolean isEmpty() {
+        return channelContexts.isEmpty();
+    }
+
+    List<InboundWebsocketChannelContext> getChannelContexts() {
+        return channelContexts;
+    }
+
+    /**
+     * Writes the given frame to the subscribers.
+     *
+     * @param frame                the frame to be written. Its reference count is not changed
+     * @param excluded             the subscriber which should not receive the frame, or null
+     * @param dropUnwritableFrames whether messages are dropped for the subscribers whose channels are not writable
+     * @param statistics           the statistics of the inbound endpoint, or null
+     */
+    void broadcast(WebSocketFrame frame, InboundWebsocketChannelContext excluded, boolean dropUnwritableFrames,
+                   WebsocketBroadcastStatistics statistics) {
+        long startTime = System.nanoTime();
+        // control frames such as the close frame sent on shutdown are never dropped
+        boolean drop = dropUnwritableFrames && (frame instanceof TextWebSocketFrame
+                || frame instanceof BinaryWebSocketFrame || frame instanceof ContinuationWebSocketFrame);
+        ByteBuf encoded = encode(frame);
+        int dropped = 0;
+        for (InboundWebsocketChannelContext context : channelContexts) {
+            if ((encoded != null && context.isPreEncodedFramesSupported()) || (excluded != null && context
+                    .getChannelIdentifier().equals(excluded.getChannelIdentifier()))) {
+                continue;
+            }
+            if (drop && isDropped(context.getChannelHandlerContext().channel(), frame)) {
+                dropped++;
+            } else {
+                context.writeToChannel(frame.duplicate());
+            }
+        }
+        if (encoded == null) {
+            if (statistics != null) {
+                statistics.recordBroadcast(dropped);
+            }
+            return;
+        }
+
+        final BroadcastMatcher matcher = new BroadcastMatcher(
+                excluded == null ? null : excluded.getChannelHandlerContext().channel(), drop ? frame : null);
+        // the channel group writes a duplicate of the buffer to each matching channel and releases the buffer
+        ChannelGroupFuture future = channelGroup.writeAndFlush(encoded, matcher);
+        if (statistics == null) {
+            return;
+        }
+        statistics.recordBroadcast(dropped + matcher.dropped);
+        future.addListener((ChannelGroupFutureListener) f -> {
+            int failed = 0;
+            for (ChannelFuture channelFuture : f) {
+                if (!channelFuture.isSuccess()) {
+                    failed++;
+                }
+            }
+            statistics.recordBroadcastCompleted(matcher.matched - failed, failed, System.nanoTime() - startTime);
+        });
+    }
+
+    /**
+     * Decides whether the given data frame is dropped for the given channel. The first fragment of a message is dropped
+     * if the channel is not writable, and the rest of the message follows that decision, so that the continuation
+     * frames of a message whose first fragment was written are never dropped.
+     *
+     * @param channel the subscriber channel
+     * @param frame   the data frame to be written
+     * @return whether the frame should not be written to the channel
+     */
+    private static boolean isDropped(Channel channel, WebSocketFrame frame) {
+        Attribute<Boolean> droppingMessage = channel.attr(DROPPING_MESSAGE);
+        boolean drop;
+        if (frame instanceof ContinuationWebSocketFrame) {
+            drop = Boolean.TRUE.equals(droppingMessage.get());
+        } else {
+            drop = !channel.isWritable();
+        }
+        droppingMessage.set(drop && !frame.isFinalFragment() ? Boolean.TRUE : null);
+        return drop;
+    }
+
+    /**
+     * Encodes the given frame as an unmasked server to client frame, as defined in RFC 6455.
+     *
+     * @param frame the frame to be encoded
+     * @return the encoded frame, or null if the type of the frame is not known
+     */
+    private static ByteBuf encode(WebSocketFrame frame) {
+        byte opcode;
+        if (frame instanceof TextWebSocketFrame) {
+            opcode = OPCODE_TEXT;
+        } else if (frame instanceof BinaryWebSocketFrame) {
+            opcode = OPCODE_BINARY;
+        } else if (frame instanceof ContinuationWebSocketFrame) {
+            opcode = OPCODE_CONT;
+        } else if (frame instanceof CloseWebSocketFrame) {
+            opcode = OPCODE_CLOSE;
+        } else if (frame instanceof PingWebSocketFrame) {
+            opcode = OPCODE_PING;
+        } else if (frame instanceof PongWebSocketFrame) {
+            opcode = OPCODE_PONG;
+        } else {
+            return null;
+        }
+
+        ByteBuf data = frame.content();
+        int length = data.readableBytes();
+        int headerLength = length <= 125 ? 2 : (length <= 0xFFFF ? 4 : 10);
+        boolean copyPayload = length < GATHERING_WRITE_THRESHOLD;
+        ByteBuf buf = ByteBufAllocator.DEFAULT.buffer(headerLength + (copyPayload ? length : 0));
+        int b0 = (frame.isFinalFragment() ? 0x80 : 0) | (frame.rsv() % 8) << 4 | opcode % 0x80;
+        buf.writeByte(b0);
+        if (length <= 125) {
+            buf.writeByte(length);
+        } else if (length <= 0xFFFF) {
+            buf.writeByte(126);
+            buf.writeShort(length);
+        } else {
+            buf.writeByte(127);
+            buf.writeLong(length);
+        }
+        if (copyPayload) {
+            buf.writeBytes(data, data.readerIndex(), length);
+            return buf;
+        }
+        return Unpooled.wrappedBuffer(buf, data.duplicate().retain());
+    }
+
+    /**
+     * Selects the subscriber channels a pre-encoded frame is written to. The channel group evaluates it on the thread
+     * which starts the broadcast, so the counts are final once the write has been started.
+     */
+    private static class BroadcastMatcher implements ChannelMatcher {
+
+        private final Channel excluded;
+        private final WebSocketFrame droppableFrame;
+        private int matched;
+        private int dropped;
+
+        /**
+         * @param excluded       the channel which should not receive the frame, or null
+         * @param droppableFrame the frame being broadcast if it may be dropped for unwritable channels, or null
+         */
+        BroadcastMatcher(Channel excluded, WebSocketFrame droppableFrame) {
+            this.excluded = excluded;
+            this.droppableFrame = droppableFrame;
+        }
+
+        @Override
+        public boolean matches(Channel channel) {
+            if (channel == excluded || !InboundWebsocketChannelContext.isPreEncodedFramesSupported(channel)) {
+                return false;
+            }
+            if (droppableFrame != null && isDropped(channel, droppableFrame)) {
+                dropped++;
+                return false;
+            }
+            matched++;
+            return true;
+        }
+    }
+}
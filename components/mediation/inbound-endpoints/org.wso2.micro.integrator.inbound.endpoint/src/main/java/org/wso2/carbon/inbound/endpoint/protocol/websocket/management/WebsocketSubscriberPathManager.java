@@ -19,9 +19,10 @@
 package org.wso2.carbon.inbound.endpoint.protocol.websocket.management;
 
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
 import org.wso2.carbon.inbound.endpoint.protocol.websocket.InboundWebsocketChannelContext;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -29,7 +30,9 @@ public class WebsocketSubscriberPathManager {
 
     private static WebsocketSubscriberPathManager instance = null;
 
-    private ConcurrentHashMap<String, ConcurrentHashMap<String, List<InboundWebsocketChannelContext>>> inboundSubscriberPathMap = new ConcurrentHashMap<String, ConcurrentHashMap<String, List<InboundWebsocketChannelContext>>>();
+    private ConcurrentHashMap<String, ConcurrentHashMap<String, WebsocketSubscriberGroup>> inboundSubscriberPathMap = new ConcurrentHashMap<String, ConcurrentHashMap<String, WebsocketSubscriberGroup>>();
+
+    private ConcurrentHashMap<String, WebsocketBroadcastStatistics> inboundStatisticsMap = new ConcurrentHashMap<String, WebsocketBroadcastStatistics>();
 
     public static WebsocketSubscriberPathManager getInstance() {
         if (instance == null) {
@@ -39,70 +42,102 @@ public class WebsocketSubscriberPathManager {
     }
 
     public void addChannelContext(String inboundName, String subscriberPath, InboundWebsocketChannelContext ctx) {
-        ConcurrentHashMap<String, List<InboundWebsocketChannelContext>> subscriberPathMap = inboundSubscriberPathMap
-                .get(inboundName);
-        if (subscriberPathMap == null) {
-            subscriberPathMap = new ConcurrentHashMap<String, List<InboundWebsocketChannelContext>>();
-            ArrayList<InboundWebsocketChannelContext> listContext = new ArrayList<InboundWebsocketChannelContext>();
-            listContext.add(ctx);
-            subscriberPathMap.put(subscriberPath, listContext);
-            inboundSubscriberPathMap.put(inboundName, subscriberPathMap);
-        } else {
-            List<InboundWebsocketChannelContext> listContext = subscriberPathMap.get(subscriberPath);
-            if (listContext == null) {
-                listContext = new ArrayList<InboundWebsocketChannelContext>();
-                listContext.add(ctx);
-                subscriberPathMap.put(subscriberPath, listContext);
-            } else {
-                listContext.add(ctx);
+        inboundSubscriberPathMap.compute(inboundName, (name, subscriberPathMap) -> {
+            if (subscriberPathMap == null) {
+                subscriberPathMap = new ConcurrentHashMap<String, WebsocketSubscriberGroup>();
+                WebsocketBroadcastStatistics statistics = new WebsocketBroadcastStatistics(name);
+                inboundStatisticsMap.put(name, statistics);
+                MBeanRegistrar.getInstance()
+                        .registerMBean(statistics, WebsocketBroadcastStatistics.MBEAN_CATEGORY, name);
             }
-        }
+            subscriberPathMap.computeIfAbsent(subscriberPath, path -> new WebsocketSubscriberGroup()).add(ctx);
+            inboundStatisticsMap.get(name).recordSubscriberAdded();
+            return subscriberPathMap;
+        });
     }
 
     public void removeChannelContext(String inboundName, String subscriberPath, InboundWebsocketChannelContext ctx) {
-        ConcurrentHashMap<String, List<InboundWebsocketChannelContext>> subscriberPathMap = inboundSubscriberPathMap
-                .get(inboundName);
-        List<InboundWebsocketChannelContext> listContext = subscriberPathMap.get(subscriberPath);
-        for (Object context : listContext.toArray()) {
-            if (((InboundWebsocketChannelContext) context).getChannelIdentifier().equals(ctx.getChannelIdentifier())) {
-                listContext.remove(context);
-                break;
+        inboundSubscriberPathMap.computeIfPresent(inboundName, (name, subscriberPathMap) -> {
+            subscriberPathMap.computeIfPresent(subscriberPath, (path, group) -> {
+                if (group.remove(ctx)) {
+                    inboundStatisticsMap.get(name).recordSubscriberRemoved();
+                }
+                return group.isEmpty() ? null : group;
+            });
+            if (subscriberPathMap.isEmpty()) {
+                inboundStatisticsMap.remove(name);
+                MBeanRegistrar.getInstance().unRegisterMBean(WebsocketBroadcastStatistics.MBEAN_CATEGORY, name);
+                return null;
             }
-        }
-        if (listContext.isEmpty()) {
-            listContext.clear();
-            subscriberPathMap.remove(subscriberPath);
-        }
-        if (subscriberPathMap.isEmpty()) {
-            subscriberPathMap.clear();
-            inboundSubscriberPathMap.remove(inboundName);
-        }
+            return subscriberPathMap;
+        });
     }
 
     public List<InboundWebsocketChannelContext> getSubscriberPathChannelContextList(String inboundName,
                                                                                     String subscriberPath) {
-        return inboundSubscriberPathMap.get(inboundName).get(subscriberPath);
+        WebsocketSubscriberGroup group = getSubscriberGroup(inboundName, subscriberPath);
+        if (group == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(group.getChannelContexts());
     }
 
     public void broadcastOnSubscriberPath(WebSocketFrame frame, String inboundName, String subscriberPath) {
-        List<InboundWebsocketChannelContext> contextList = getSubscriberPathChannelContextList(inboundName,
-                                                                                               subscriberPath);
-        for (InboundWebsocketChannelContext context : contextList) {
-            WebSocketFrame duplicatedFrame = frame.duplicate();
-            context.writeToChannel(duplicatedFrame);
-        }
+        broadcastOnSubscriberPath(frame, inboundName, subscriberPath, false);
+    }
+
+    /**
+     * Writes the given frame to all the subscribers of the subscriber path.
+     *
+     * @param frame                the frame to be written
+     * @param inboundName          the name of the inbound endpoint
+     * @param subscriberPath       the subscriber path
+     * @param dropUnwritableFrames whether data frames are dropped for the subscribers which are not able to keep up
+     */
+    public void broadcastOnSubscriberPath(WebSocketFrame frame, String inboundName, String subscriberPath,
+                                          boolean dropUnwritableFrames) {
+        broadcast(frame, inboundName, subscriberPath, null, dropUnwritableFrames);
     }
 
     public void exclusiveBroadcastOnSubscriberPath(WebSocketFrame frame, String inboundName, String subscriberPath,
                                                    InboundWebsocketChannelContext ctx) {
-        List<InboundWebsocketChannelContext> contextList = getSubscriberPathChannelContextList(inboundName,
-                                                                                               subscriberPath);
-        for (InboundWebsocketChannelContext context : contextList) {
-            if (!context.getChannelIdentifier().equals(ctx.getChannelIdentifier())) {
-                WebSocketFrame duplicatedFrame = frame.duplicate();
-                context.writeToChannel(duplicatedFrame);
-            }
+        exclusiveBroadcastOnSubscriberPath(frame, inboundName, subscriberPath, ctx, false);
+    }
+
+    /**
+     * Writes the given frame to all the subscribers of the subscriber path, except the given one.
+     *
+     * @param frame                the frame to be written
+     * @param inboundName          the name of the inbound endpoint
+     * @param subscriberPath       the subscriber path
+     * @param ctx                  the subscriber which should not receive the frame
+     * @param dropUnwritableFrames whether data frames are dropped for the subscribers which are not able to keep up
+     */
+    public void exclusiveBroadcastOnSubscriberPath(WebSocketFrame frame, String inboundName, String subscriberPath,
+                                                   InboundWebsocketChannelContext ctx, boolean dropUnwritableFrames) {
+        broadcast(frame, inboundName, subscriberPath, ctx, dropUnwritableFrames);
+    }
+
+    /**
+     * @param inboundName the name of the inbound endpoint
+     * @return the broadcast statistics of the inbound endpoint, or null if it has no subscribers
+     */
+    public WebsocketBroadcastStatistics getBroadcastStatistics(String inboundName) {
+        return inboundStatisticsMap.get(inboundName);
+    }
+
+    private void broadcast(WebSocketFrame frame, String inboundName, String subscriberPath,
+                           InboundWebsocketChannelContext excluded, boolean dropUnwritableFrames) {
+        WebsocketSubscriberGroup group = getSubscriberGroup(inboundName, subscriberPath);
+        if (group != null) {
+            group.broadcast(frame, excluded, dropUnwritableFrames, inboundStatisticsMap.get(inboundName));
         }
     }
 
+    private WebsocketSubscriberGroup getSubscriberGroup(String inboundName, String subscriberPath) {
+        ConcurrentHashMap<String, WebsocketSubscriberGroup> subscriberPathMap = inboundSubscriberPathMap
+                .get(inboundName);
+        return subscriberPathMap == null ? null : subscriberPathMap.get(subscriberPath);
+    }
+
 }
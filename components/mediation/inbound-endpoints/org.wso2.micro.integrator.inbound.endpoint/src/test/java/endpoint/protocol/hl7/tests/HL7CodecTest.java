@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package endpoint.protocol.hl7.tests;
+
+import ca.uhn.hl7v2.HL7Exception;
+import ca.uhn.hl7v2.model.Message;
+import ca.uhn.hl7v2.util.Terser;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.codec.HL7Codec;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.context.MLLPContext;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLPConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.HL7MessageUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+public class HL7CodecTest extends TestCase {
+
+    private static final String CONTROL_ID = "MSG00001";
+    private static final int BATCH_SIZE = 5;
+    private static final int OBSERVATIONS_PER_MESSAGE = 500;
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Test decoding a message read in small chunks, including a read which ends between the two bytes of the block end
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeFrameSplitAcrossReads() throws Exception {
+        String oru = createOru(CONTROL_ID, 5);
+        byte[] frame = frame(oru);
+        // make a read end right after the end block character
+        int chunkSize = frame.length - 1;
+        while ((frame.length - 1) % chunkSize != 0 || chunkSize > 16) {
+            chunkSize--;
+        }
+
+        MLLPContext context = createContext(false);
+        decode(context, frame, chunkSize);
+
+        Assert.assertTrue("Frame is not read completely", context.getCodec().isReadComplete());
+        Assert.assertEquals("Frame content is not read as sent", oru.substring(0, oru.length() - 1),
+                            context.getRawMessage());
+        Message message = context.getHl7Message();
+        Assert.assertNotNull("Message is not parsed", message);
+        Assert.assertEquals("ORU_R01", message.getName());
+    }
+
+    /**
+     * Test that the fast ACK is built from the MSH segment without parsing the message
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFastAck() throws Exception {
+        MLLPContext context = createContext(true);
+        decode(context, frame(createOru(CONTROL_ID, 5)), READ_BUFFER_SIZE);
+
+        Assert.assertTrue("Frame is not read completely", context.getCodec().isReadComplete());
+        Assert.assertNull("Message is parsed on the I/O path", context.getHl7Message());
+
+        String ack = context.getFastAckMessage();
+        Assert.assertNotNull("Fast ACK is not generated", ack);
+        String[] segments = ack.split("\r");
+        String[] msh = segments[0].split("\\|", -1);
+        Assert.assertEquals("RECEIVER", msh[2]);
+        Assert.assertEquals("RECEIVER_FAC", msh[3]);
+        Assert.assertEquals("LAB", msh[4]);
+        Assert.assertEquals("LAB_FAC", msh[5]);
+        Assert.assertEquals("ACK^R01", msh[8]);
+        Assert.assertEquals("2.5", msh[11]);
+        Assert.assertEquals("MSA|AA|" + CONTROL_ID, segments[1]);
+
+        // the generated ACK must be a valid HL7 message
+        Message parsedAck = HL7MessageUtils.parse(ack, false);
+        Assert.assertEquals("ACK", parsedAck.getName());
+    }
+
+    /**
+     * Test that a message without an MSH segment is rejected when building the fast ACK
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFastAckWithoutMsh() throws Exception {
+        try {
+            HL7MessageUtils.createFastAck("PID|1||12345\r");
+            Assert.fail("ACK is generated for a message without an MSH segment");
+        } catch (HL7Exception expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Test decoding a batch of large ORU messages on the same connection through read buffers of the size used by the
+     * listener, with the fast ACK and with parsing on the I/O path
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeLargeOruBatch() throws Exception {
+        byte[][] frames = new byte[BATCH_SIZE][];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            frames[i] = frame(createOru("MSG" + i, OBSERVATIONS_PER_MESSAGE));
+        }
+
+        for (boolean fastAck : new boolean[] { true, false }) {
+            MLLPContext context = createContext(fastAck);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                decode(context, frames[i], READ_BUFFER_SIZE);
+                Assert.assertTrue("Frame " + i + " is not read completely", context.getCodec().isReadComplete());
+                int contentLength = frames[i].length - MLLPConstants.HL7_HEADER.length
+                        - MLLPConstants.HL7_TRAILER.length - 1;
+                Assert.assertEquals(contentLength, context.getRequestBuffer().length());
+                if (fastAck) {
+                    Assert.assertTrue("Fast ACK is not generated for frame " + i,
+                                      context.getFastAckMessage().contains("MSA|AA|MSG" + i));
+                } else {
+                    Assert.assertEquals("Frame " + i + " is not parsed", "MSG" + i,
+                                        new Terser(context.getHl7Message()).get("/MSH-10"));
+                }
+                context.reset();
+            }
+        }
+    }
+
+    private MLLPContext createContext(boolean fastAck) {
+        return new MLLPContext(null, MLLPConstants.UTF8_CHARSET.newDecoder(), true, fastAck, false, null, null);
+    }
+
+    private void decode(MLLPContext context, byte[] frame, int chunkSize) throws Exception {
+        HL7Codec codec = context.getCodec();
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+        for (int offset = 0; offset < frame.length; offset += chunkSize) {
+            buffer.clear();
+            buffer.put(frame, offset, Math.min(chunkSize, frame.length - offset));
+            buffer.flip();
+            codec.decode(buffer, context);
+        }
+    }
+
+    private byte[] frame(String message) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(MLLPConstants.HL7_HEADER);
+        out.write(message.getBytes(MLLPConstants.UTF8_CHARSET));
+        out.write(MLLPConstants.HL7_TRAILER);
+        return out.toByteArray();
+    }
+
+    private String createOru(String controlId, int observations) {
+        StringBuilder oru = new StringBuilder();
+        oru.append("MSH|^~\\&|LAB|LAB_FAC|RECEIVER|RECEIVER_FAC|20190801120000||ORU^R01^ORU_R01|").append(controlId)
+                .append("|P|2.5\r");
+        oru.append("PID|1||12345^^^HOSP^MR||DOE^JOHN||19700101|M\r");
+        oru.append("OBR|1|ORD001|FIL001|CBC^COMPLETE BLOOD COUNT|||20190801110000\r");
+        for (int i = 1; i <= observations; i++) {
+            oru.append("OBX|").append(i).append("|NM|TEST").append(i).append("^TEST ").append(i)
+                    .append("||").append(i % 100).append(".5|mg/dL|0-100|N|||F\r");
+        }
+        return oru.toString();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package endpoint.protocol.hl7.tests;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.HL7SerialExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HL7SerialExecutorTest extends TestCase {
+
+    private static final int TASK_COUNT = 100;
+    private static final long TIMEOUT = 10000;
+
+    /**
+     * Test that the tasks of a connection run one at a time in the order they are submitted, on a worker pool with
+     * several threads, and that a failing task does not stop the ones after it
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTasksRunInOrder() throws Exception {
+        ExecutorService workerPool = Executors.newFixedThreadPool(4);
+        try {
+            HL7SerialExecutor executor = new HL7SerialExecutor(workerPool);
+            List<Integer> completed = new ArrayList<>();
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(TASK_COUNT);
+            for (int i = 0; i < TASK_COUNT; i++) {
+                final int index = i;
+                executor.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        synchronized (completed) {
+                            completed.add(index);
+                        }
+                        if (index % 10 == 0) {
+                            throw new IllegalStateException("Task failed");
+                        }
+                    } finally {
+                        running.decrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+
+            Assert.assertTrue("All the tasks are not run", done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            Assert.assertEquals("The tasks run concurrently", 1, maxRunning.get());
+            synchronized (completed) {
+                for (int i = 0; i < TASK_COUNT; i++) {
+                    Assert.assertEquals("The tasks are not run in the order they are submitted", i,
+                                        completed.get(i).intValue());
+                }
+            }
+        } finally {
+            workerPool.shutdownNow();
+        }
+    }
+}
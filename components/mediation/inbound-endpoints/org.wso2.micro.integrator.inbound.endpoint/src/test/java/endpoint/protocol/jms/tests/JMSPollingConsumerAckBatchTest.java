@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package endpoint.protocol.jms.tests;
+
+import endpoint.protocol.jms.JMSBrokerController;
+import endpoint.protocol.jms.JMSTestsUtils;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.jms.JMSConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.jms.JMSInjectHandler;
+import org.wso2.carbon.inbound.endpoint.protocol.jms.JMSPollingConsumer;
+
+import java.util.Properties;
+import javax.jms.Queue;
+
+public class JMSPollingConsumerAckBatchTest extends TestCase {
+
+    private static final String PROVIDER_URL = "tcp://127.0.0.1:61616";
+    private static final String INBOUND_EP_NAME = "testPolling";
+    private static final long INTERVAL = 1000;
+    private static final int MESSAGE_COUNT = 5;
+
+    /**
+     * Test that all the polled messages are acknowledged when they are acknowledged in batches
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchAcknowledgement() throws Exception {
+        String queueName = "testAckBatchQueue";
+        Properties jmsProperties = getAckBatchProperties(queueName);
+        JMSBrokerController brokerController = new JMSBrokerController(PROVIDER_URL, jmsProperties);
+        try {
+            brokerController.startProcess();
+            Queue queue = brokerController.connect(queueName, true);
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                brokerController.pushMessage("message " + i);
+            }
+            JMSPollingConsumer jmsPollingConsumer = new JMSPollingConsumer(jmsProperties, INTERVAL, INBOUND_EP_NAME);
+            CountingInjectHandler injectHandler = new CountingInjectHandler(jmsProperties, -1);
+            jmsPollingConsumer.registerHandler(injectHandler);
+            jmsPollingConsumer.poll();
+            jmsPollingConsumer.destroy();
+            Assert.assertEquals("All the messages are not mediated", MESSAGE_COUNT, injectHandler.getInvocationCount());
+            Assert.assertNull("Messages are left unacknowledged", brokerController.receiveMessage(queue));
+        } finally {
+            brokerController.disconnect();
+            brokerController.stopProcess();
+        }
+    }
+
+    /**
+     * Test that the pending batch is redelivered when the mediation of a message fails
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchRedeliveryOnFailure() throws Exception {
+        String queueName = "testAckBatchFailureQueue";
+        Properties jmsProperties = getAckBatchProperties(queueName);
+        JMSBrokerController brokerController = new JMSBrokerController(PROVIDER_URL, jmsProperties);
+        try {
+            brokerController.startProcess();
+            Queue queue = brokerController.connect(queueName, true);
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                brokerController.pushMessage("message " + i);
+            }
+            JMSPollingConsumer jmsPollingConsumer = new JMSPollingConsumer(jmsProperties, INTERVAL, INBOUND_EP_NAME);
+            // fail the second message once, which redelivers the first one along with it
+            CountingInjectHandler injectHandler = new CountingInjectHandler(jmsProperties, 2);
+            jmsPollingConsumer.registerHandler(injectHandler);
+            // the broker may delay the redelivery beyond a single polling cycle
+            for (int i = 0; i < 50 && injectHandler.getInvocationCount() < MESSAGE_COUNT + 2; i++) {
+                jmsPollingConsumer.poll();
+            }
+            jmsPollingConsumer.destroy();
+            Assert.assertEquals("The failed batch is not redelivered", MESSAGE_COUNT + 2,
+                                injectHandler.getInvocationCount());
+            Assert.assertNull("Messages are left unacknowledged", brokerController.receiveMessage(queue));
+        } finally {
+            brokerController.disconnect();
+            brokerController.stopProcess();
+        }
+    }
+
+    /**
+     * Test that the pending batch is redelivered, not acknowledged, when the mediation of a message throws
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchRedeliveryOnException() throws Exception {
+        String queueName = "testAckBatchExceptionQueue";
+        Properties jmsProperties = getAckBatchProperties(queueName);
+        JMSBrokerController brokerController = new JMSBrokerController(PROVIDER_URL, jmsProperties);
+        try {
+            brokerController.startProcess();
+            Queue queue = brokerController.connect(queueName, true);
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                brokerController.pushMessage("message " + i);
+            }
+            JMSPollingConsumer jmsPollingConsumer = new JMSPollingConsumer(jmsProperties, INTERVAL, INBOUND_EP_NAME);
+            // the second message throws once, which redelivers the first one along with it
+            CountingInjectHandler injectHandler = new CountingInjectHandler(jmsProperties, 2, true);
+            jmsPollingConsumer.registerHandler(injectHandler);
+            for (int i = 0; i < 50 && injectHandler.getInvocationCount() < MESSAGE_COUNT + 2; i++) {
+                jmsPollingConsumer.poll();
+            }
+            jmsPollingConsumer.destroy();
+            Assert.assertEquals("The failed batch is not redelivered", MESSAGE_COUNT + 2,
+                                injectHandler.getInvocationCount());
+            Assert.assertNull("Messages are left unacknowledged", brokerController.receiveMessage(queue));
+        } finally {
+            brokerController.disconnect();
+            brokerController.stopProcess();
+        }
+    }
+
+    /**
+     * Test that the messages received within the receive timeout are acknowledged in a single batch when the receive
+     * timeout is shorter than the batch timeout, so that a failure redelivers all of them
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchWithReceiveTimeout() throws Exception {
+        String queueName = "testAckBatchReceiveTimeoutQueue";
+        Properties jmsProperties = getAckBatchProperties(queueName);
+        jmsProperties.put(JMSConstants.JMS_CLIENT_ACK_BATCH_SIZE, "10");
+        jmsProperties.put(JMSConstants.JMS_CLIENT_ACK_BATCH_TIMEOUT, "60000");
+        JMSBrokerController brokerController = new JMSBrokerController(PROVIDER_URL, jmsProperties);
+        try {
+            brokerController.startProcess();
+            Queue queue = brokerController.connect(queueName, true);
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                brokerController.pushMessage("message " + i);
+            }
+            JMSPollingConsumer jmsPollingConsumer = new JMSPollingConsumer(jmsProperties, INTERVAL, INBOUND_EP_NAME);
+            // fail the last message once, which redelivers all the messages of the batch along with it
+            CountingInjectHandler injectHandler = new CountingInjectHandler(jmsProperties, MESSAGE_COUNT);
+            jmsPollingConsumer.registerHandler(injectHandler);
+            for (int i = 0; i < 50 && injectHandler.getInvocationCount() < 2 * MESSAGE_COUNT; i++) {
+                jmsPollingConsumer.poll();
+            }
+            jmsPollingConsumer.destroy();
+            Assert.assertEquals("The messages are not acknowledged in a single batch", 2 * MESSAGE_COUNT,
+                                injectHandler.getInvocationCount());
+            Assert.assertNull("Messages are left unacknowledged", brokerController.receiveMessage(queue));
+        } finally {
+            brokerController.disconnect();
+            brokerController.stopProcess();
+        }
+    }
+
+    private static Properties getAckBatchProperties(String queueName) {
+        Properties jmsProperties = JMSTestsUtils.getJMSPropertiesForDestination(queueName, PROVIDER_URL, true);
+        jmsProperties.put(JMSConstants.SESSION_ACK, "CLIENT_ACKNOWLEDGE");
+        jmsProperties.put(JMSConstants.JMS_CLIENT_ACK_BATCH_SIZE, "3");
+        jmsProperties.put(JMSConstants.RECEIVER_TIMEOUT, "100");
+        return jmsProperties;
+    }
+
+    /**
+     * Inject handler which counts the messages instead of mediating them.
+     */
+    private static class CountingInjectHandler extends JMSInjectHandler {
+
+        private final int failingInvocation;
+        private final boolean throwing;
+        private int invocationCount;
+
+        /**
+         * @param failingInvocation the invocation which fails, or -1 if none
+         */
+        CountingInjectHandler(Properties jmsProperties, int failingInvocation) {
+            this(jmsProperties, failingInvocation, false);
+        }
+
+        /**
+         * @param failingInvocation the invocation which fails, or -1 if none
+         * @param throwing          whether the failing invocation throws instead of returning false
+         */
+        CountingInjectHandler(Properties jmsProperties, int failingInvocation, boolean throwing) {
+            super(null, null, true, null, jmsProperties);
+            this.failingInvocation = failingInvocation;
+            this.throwing = throwing;
+        }
+
+        @Override
+        public boolean invoke(Object object, String name) {
+            invocationCount++;
+            if (throwing && invocationCount == failingInvocation) {
+                throw new IllegalStateException("Mediation failed");
+            }
+            return invocationCount != failingInvocation;
+        }
+
+        int getInvocationCount() {
+            return invocationCount;
+        }
+    }
+}
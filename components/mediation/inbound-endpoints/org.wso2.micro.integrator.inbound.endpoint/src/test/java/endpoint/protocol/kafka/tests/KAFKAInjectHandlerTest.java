@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package endpoint.protocol.kafka.tests;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+import org.apache.synapse.inbound.InboundEndpoint;
+import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.mediators.base.SequenceMediator;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.kafka.KAFKAInjectHandler;
+
+public class KAFKAInjectHandlerTest extends TestCase {
+
+    private static final String INBOUND_EP_NAME = "testKafkaInjectHandler";
+    private static final String SEQUENCE = "kafkaSequence";
+    private static final String FAULT_SEQUENCE = "kafkaFaultSequence";
+    private static final String MESSAGE = "<soapenv:Envelope "
+            + "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<soapenv:Body><test>kafka</test></soapenv:Body></soapenv:Envelope>";
+
+    /**
+     * Test that a message mediated successfully is reported as mediated
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMediated() throws Exception {
+        KAFKAInjectHandler injectHandler = createInjectHandler(new ResultMediator(true), SEQUENCE);
+        Assert.assertTrue("The mediated message is reported as failed", injectHandler.invoke(MESSAGE.getBytes(),
+                                                                                              INBOUND_EP_NAME));
+    }
+
+    /**
+     * Test that a message dropped by the sequence is not reported as failed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDropped() throws Exception {
+        KAFKAInjectHandler injectHandler = createInjectHandler(new ResultMediator(false), SEQUENCE);
+        Assert.assertTrue("The dropped message is reported as failed", injectHandler.invoke(MESSAGE.getBytes(),
+                                                                                             INBOUND_EP_NAME));
+    }
+
+    /**
+     * Test that a message whose mediation ends in the fault sequence is reported as failed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFaulted() throws Exception {
+        KAFKAInjectHandler injectHandler = createInjectHandler(new FaultMediator(), SEQUENCE);
+        Assert.assertFalse("The faulted message is reported as mediated", injectHandler.invoke(MESSAGE.getBytes(),
+                                                                                                INBOUND_EP_NAME));
+    }
+
+    /**
+     * Test that a message injected to a sequence which does not exist is reported as failed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMissingSequence() throws Exception {
+        KAFKAInjectHandler injectHandler = createInjectHandler(new ResultMediator(true), "missingSequence");
+        Assert.assertFalse("The message without a sequence is reported as mediated",
+                           injectHandler.invoke(MESSAGE.getBytes(), INBOUND_EP_NAME));
+    }
+
+    private KAFKAInjectHandler createInjectHandler(AbstractMediator mediator, String injectingSeq) {
+        SynapseConfiguration synapseConfiguration = new SynapseConfiguration();
+        Axis2SynapseEnvironment synapseEnvironment = new Axis2SynapseEnvironment(
+                new ConfigurationContext(new AxisConfiguration()), synapseConfiguration);
+        InboundEndpoint inboundEndpoint = new InboundEndpoint();
+        inboundEndpoint.setName(INBOUND_EP_NAME);
+        synapseConfiguration.addInboundEndpoint(INBOUND_EP_NAME, inboundEndpoint);
+        SequenceMediator sequence = new SequenceMediator();
+        sequence.setName(SEQUENCE);
+        sequence.addChild(mediator);
+        synapseConfiguration.addSequence(SEQUENCE, sequence);
+        SequenceMediator faultSequence = new SequenceMediator();
+        faultSequence.setName(FAULT_SEQUENCE);
+        faultSequence.addChild(new ResultMediator(true));
+        synapseConfiguration.addSequence(FAULT_SEQUENCE, faultSequence);
+        return new KAFKAInjectHandler(injectingSeq, FAULT_SEQUENCE, true, synapseEnvironment, null);
+    }
+
+    /**
+     * Mediator which returns the given result.
+     */
+    private static class ResultMediator extends AbstractMediator {
+
+        private final boolean result;
+
+        ResultMediator(boolean result) {
+            this.result = result;
+        }
+
+        @Override
+        public boolean mediate(MessageContext synCtx) {
+            return result;
+        }
+    }
+
+    /**
+     * Mediator which fails the mediation.
+     */
+    private static class FaultMediator extends AbstractMediator {
+
+        @Override
+        public boolean mediate(MessageContext synCtx) {
+            throw new SynapseException("Mediation failed");
+        }
+    }
+}
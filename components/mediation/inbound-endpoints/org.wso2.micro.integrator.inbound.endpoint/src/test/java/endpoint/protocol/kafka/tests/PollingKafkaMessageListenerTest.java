@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package endpoint.protocol.kafka.tests;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.kafka.InjectHandler;
+import org.wso2.carbon.inbound.endpoint.protocol.kafka.KAFKAConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.kafka.PollingKafkaMessageListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PollingKafkaMessageListenerTest extends TestCase {
+
+    private static final String TOPIC = "pollingTopic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+    private static final int RECORD_COUNT = 5;
+    private static final long POISON_OFFSET = 2;
+    private static final long TIMEOUT = 30000;
+
+    /**
+     * Test that the offset after the last record is committed once all the records are mediated
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCommitAfterMediation() throws Exception {
+        CountingInjectHandler injectHandler = new CountingInjectHandler(-1);
+        TestListener listener = new TestListener(getKafkaProperties(null), injectHandler, "testKafkaCommit");
+        try {
+            listener.createKafkaConsumerConnector();
+            Assert.assertTrue("The offsets are not committed", listener.awaitCommitted(RECORD_COUNT));
+            for (long offset = 0; offset < RECORD_COUNT; offset++) {
+                Assert.assertEquals("The record at offset " + offset + " is not mediated once", 1,
+                                    injectHandler.getCount(offset));
+            }
+        } finally {
+            listener.destroy();
+        }
+    }
+
+    /**
+     * Test that a record whose mediation fails is retried without committing past it when there is no maximum
+     * number of retries
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedRecordRetried() throws Exception {
+        CountingInjectHandler injectHandler = new CountingInjectHandler(POISON_OFFSET);
+        TestListener listener = new TestListener(getKafkaProperties(null), injectHandler, "testKafkaRetry");
+        try {
+            listener.createKafkaConsumerConnector();
+            Assert.assertTrue("The failed record is not retried", injectHandler.awaitCount(POISON_OFFSET, 5));
+            Assert.assertEquals("The offsets are not committed up to the failed record", POISON_OFFSET,
+                                listener.getCommitted());
+            Assert.assertEquals("The records after the failed record are mediated", 0,
+                                injectHandler.getCount(POISON_OFFSET + 1));
+        } finally {
+            listener.destroy();
+        }
+    }
+
+    /**
+     * Test that a record whose mediation keeps failing is skipped once it has been retried the maximum number of
+     * times, and that the records after it are mediated and committed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPoisonRecordSkipped() throws Exception {
+        CountingInjectHandler injectHandler = new CountingInjectHandler(POISON_OFFSET);
+        TestListener listener = new TestListener(getKafkaProperties("2"), injectHandler, "testKafkaSkip");
+        try {
+            listener.createKafkaConsumerConnector();
+            Assert.assertTrue("The records after the poison record are not committed",
+                              listener.awaitCommitted(RECORD_COUNT));
+            Assert.assertEquals("The poison record is not retried the maximum number of times", 3,
+                                injectHandler.getCount(POISON_OFFSET));
+            for (long offset = POISON_OFFSET + 1; offset < RECORD_COUNT; offset++) {
+                Assert.assertEquals("The record at offset " + offset + " is not mediated once", 1,
+                                    injectHandler.getCount(offset));
+            }
+        } finally {
+            listener.destroy();
+        }
+    }
+
+    private Properties getKafkaProperties(String maxRetries) {
+        Properties kafkaProperties = new Properties();
+        kafkaProperties.put(KAFKAConstants.POLL_TIMEOUT, "10");
+        kafkaProperties.put(KAFKAConstants.FAILURE_RETRY_INTERVAL, "0");
+        if (maxRetries != null) {
+            kafkaProperties.put(KAFKAConstants.FAILURE_MAX_RETRIES, maxRetries);
+        }
+        return kafkaProperties;
+    }
+
+    /**
+     * Listener consuming the records of a mock consumer, which delivers the records again after a seek as a broker
+     * would.
+     */
+    private static class TestListener extends PollingKafkaMessageListener {
+
+        private volatile MockConsumer<byte[], byte[]> mockConsumer;
+
+        TestListener(Properties kafkaProperties, InjectHandler injectHandler, String name) {
+            super(1, Collections.singletonList(TOPIC), kafkaProperties, injectHandler, name);
+        }
+
+        @Override
+        protected Consumer<byte[], byte[]> createConsumer(Properties consumerProperties) {
+            List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>();
+            for (int i = 0; i < RECORD_COUNT; i++) {
+                records.add(new ConsumerRecord<>(TOPIC, 0, i, null, String.valueOf(i).getBytes()));
+            }
+            MockConsumer<byte[], byte[]> consumer = new MockConsumer<byte[], byte[]>(OffsetResetStrategy.EARLIEST) {
+                @Override
+                public synchronized void seek(TopicPartition partition, long offset) {
+                    super.seek(partition, offset);
+                    for (ConsumerRecord<byte[], byte[]> record : records) {
+                        if (record.offset() >= offset) {
+                            addRecord(record);
+                        }
+                    }
+                }
+            };
+            consumer.schedulePollTask(() -> {
+                consumer.rebalance(Collections.singletonList(PARTITION));
+                consumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    consumer.addRecord(record);
+                }
+            });
+            mockConsumer = consumer;
+            return consumer;
+        }
+
+        long getCommitted() {
+            MockConsumer<byte[], byte[]> consumer = mockConsumer;
+            if (consumer == null) {
+                return -1;
+            }
+            OffsetAndMetadata committed = consumer.committed(PARTITION);
+            return committed == null ? -1 : committed.offset();
+        }
+
+        boolean awaitCommitted(long offset) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (System.currentTimeMillis() < deadline) {
+                if (getCommitted() == offset) {
+                    return true;
+                }
+                Thread.sleep(10);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Inject handler counting the records mediated at each offset, which fails the record at the poison offset.
+     */
+    private static class CountingInjectHandler implements InjectHandler {
+
+        private final long poisonOffset;
+
+        private final Map<Long, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        CountingInjectHandler(long poisonOffset) {
+            this.poisonOffset = poisonOffset;
+        }
+
+        @Override
+        public boolean invoke(Object object, String name) {
+            long offset = Long.parseLong(new String((byte[]) object));
+            counts.computeIfAbsent(offset, key -> new AtomicInteger()).incrementAndGet();
+            return offset != poisonOffset;
+        }
+
+        int getCount(long offset) {
+            AtomicInteger count = counts.get(offset);
+            return count == null ? 0 : count.get();
+        }
+
+        boolean awaitCount(long offset, int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (System.currentTimeMillis() < deadline) {
+                if (getCount(offset) >= count) {
+                    return true;
+                }
+                Thread.sleep(10);
+            }
+            return false;
+        }
+    }
+}
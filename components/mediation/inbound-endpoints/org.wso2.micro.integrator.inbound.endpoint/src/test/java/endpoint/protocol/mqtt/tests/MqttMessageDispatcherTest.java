@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package endpoint.protocol.mqtt.tests;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.activemq.broker.BrokerService;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.mqtt.MqttAsyncCallback;
+import org.wso2.carbon.inbound.endpoint.protocol.mqtt.MqttConnectionFactory;
+import org.wso2.carbon.inbound.endpoint.protocol.mqtt.MqttConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.mqtt.MqttInjectHandler;
+import org.wso2.carbon.inbound.endpoint.protocol.mqtt.MqttMessageDispatcher;
+import org.wso2.carbon.inbound.endpoint.protocol.mqtt.MqttSubscriptionStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MqttMessageDispatcherTest extends TestCase {
+
+    private static final String HOST = "127.0.0.1";
+    private static final String PORT = "1884";
+    private static final String SERVER_URL = "tcp://" + HOST + ":" + PORT;
+    private static final String INBOUND_EP_NAME = "testMqttDispatcher";
+    private static final String[] TOPICS = { "dispatcher/a", "dispatcher/b", "dispatcher/c" };
+    private static final int MESSAGE_COUNT = 20;
+    private static final int WORKER_COUNT = 4;
+    // fewer than the workers, so that the in-flight window bounds the concurrency of the mediation
+    private static final int MAX_IN_FLIGHT = 2;
+    private static final long TIMEOUT = 30000;
+
+    private BrokerService broker;
+
+    private RecordingMqttAsyncClient consumer;
+
+    @Override
+    protected void setUp() throws Exception {
+        //using embedded broker with the mqtt transport
+        broker = new BrokerService();
+        broker.setBrokerName("mqttInboundBroker");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.addConnector("mqtt://" + HOST + ":" + PORT);
+        broker.start();
+        broker.waitUntilStarted();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    /**
+     * Test that the messages are mediated on the workers in the order they were published to each topic, without
+     * exceeding the in-flight window, and that all of them are acknowledged
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParallelDispatchKeepsTopicOrder() throws Exception {
+        Properties mqttProperties = getMqttProperties(String.valueOf(WORKER_COUNT));
+        RecordingInjectHandler injectHandler = new RecordingInjectHandler(20);
+        MqttMessageDispatcher dispatcher = consumeAndPublish(mqttProperties, injectHandler);
+        MqttSubscriptionStatistics statistics = dispatcher.getStatistics();
+
+        Assert.assertEquals("All the messages are not mediated", TOPICS.length * MESSAGE_COUNT,
+                            statistics.getMediatedCount());
+        for (String topic : TOPICS) {
+            Assert.assertEquals("The messages of topic " + topic + " are not mediated in order",
+                                getExpectedSequence(), injectHandler.getReceived(topic));
+        }
+        Assert.assertTrue("The in-flight window is exceeded", injectHandler.getMaxConcurrency() <= MAX_IN_FLIGHT);
+        Assert.assertEquals("Messages are left in flight", 0, statistics.getInFlightCount());
+        Assert.assertEquals("Messages are failed", 0, statistics.getFailedCount());
+        Assert.assertEquals("The QoS 1 messages are not acknowledged after their mediation",
+                            TOPICS.length * MESSAGE_COUNT, consumer.getAcknowledgedCount());
+    }
+
+    /**
+     * Test that the callback thread waits while the in-flight window is full, and that the QoS 1 messages are
+     * acknowledged once they are mediated
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCallbackWaitsForInFlightWindow() throws Exception {
+        Properties mqttProperties = getMqttProperties(String.valueOf(WORKER_COUNT));
+        RecordingMqttAsyncClient client = new RecordingMqttAsyncClient(INBOUND_EP_NAME + "Blocking");
+        MqttMessageDispatcher dispatcher = new MqttMessageDispatcher(INBOUND_EP_NAME + "Blocking", client,
+                                                                     new MqttConnectionFactory(mqttProperties),
+                                                                     mqttProperties);
+        CountDownLatch mediationBlocked = new CountDownLatch(1);
+        AtomicInteger dispatching = new AtomicInteger();
+        AtomicInteger mediating = new AtomicInteger();
+        Thread callbackThread = new Thread(() -> {
+            for (int i = 0; i < MAX_IN_FLIGHT + 1; i++) {
+                dispatching.incrementAndGet();
+                MqttMessage message = new MqttMessage(String.valueOf(i).getBytes());
+                message.setId(i + 1);
+                message.setQos(1);
+                // each message on its own topic, so that they could all be mediated in parallel
+                dispatcher.dispatch(TOPICS[i % TOPICS.length] + "/" + i, message, () -> {
+                    mediating.incrementAndGet();
+                    try {
+                        return mediationBlocked.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                });
+            }
+        });
+        try {
+            callbackThread.start();
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (callbackThread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals("The callback thread does not wait for the in-flight window",
+                                Thread.State.WAITING, callbackThread.getState());
+            Assert.assertEquals("The callback thread waits before the in-flight window is full", MAX_IN_FLIGHT + 1,
+                                dispatching.get());
+            Assert.assertTrue("The in-flight window is exceeded", mediating.get() <= MAX_IN_FLIGHT);
+            Assert.assertEquals("Messages are acknowledged before their mediation", 0,
+                                client.getAcknowledgedCount());
+
+            mediationBlocked.countDown();
+            callbackThread.join(TIMEOUT);
+            dispatcher.shutdown();
+            Assert.assertEquals("All the messages are not mediated", MAX_IN_FLIGHT + 1, mediating.get());
+            Assert.assertEquals("The QoS 1 messages are not acknowledged after their mediation", MAX_IN_FLIGHT + 1,
+                                client.getAcknowledgedCount());
+        } finally {
+            mediationBlocked.countDown();
+            client.close();
+        }
+    }
+
+    /**
+     * Test that the messages are mediated on the callback thread when there is no worker pool
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInlineDispatch() throws Exception {
+        Properties mqttProperties = getMqttProperties("0");
+        RecordingInjectHandler injectHandler = new RecordingInjectHandler(0);
+        MqttMessageDispatcher dispatcher = consumeAndPublish(mqttProperties, injectHandler);
+
+        Assert.assertEquals("All the messages are not mediated", TOPICS.length * MESSAGE_COUNT,
+                            dispatcher.getStatistics().getMediatedCount());
+        Assert.assertEquals("Messages are mediated in parallel", 1, injectHandler.getMaxConcurrency());
+        for (String topic : TOPICS) {
+            Assert.assertEquals("The messages of topic " + topic + " are not mediated in order",
+                                getExpectedSequence(), injectHandler.getReceived(topic));
+        }
+    }
+
+    private MqttMessageDispatcher consumeAndPublish(Properties mqttProperties, RecordingInjectHandler injectHandler)
+            throws Exception {
+        MqttConnectionFactory confac = new MqttConnectionFactory(mqttProperties);
+        consumer = new RecordingMqttAsyncClient(INBOUND_EP_NAME);
+        MqttAsyncClient publisher = new MqttAsyncClient(SERVER_URL, INBOUND_EP_NAME + "Publisher",
+                                                        new MemoryPersistence());
+        MqttConnectOptions connectOptions = new MqttConnectOptions();
+        connectOptions.setCleanSession(true);
+        MqttAsyncCallback callback = new MqttAsyncCallback(consumer, injectHandler, confac, connectOptions,
+                                                           mqttProperties);
+        callback.setName(INBOUND_EP_NAME);
+        MqttMessageDispatcher dispatcher = new MqttMessageDispatcher(INBOUND_EP_NAME, consumer, confac,
+                                                                     mqttProperties);
+        callback.setMessageDispatcher(dispatcher);
+        consumer.setCallback(callback);
+        try {
+            consumer.connect(connectOptions).waitForCompletion();
+            consumer.subscribe(confac.getSubscriptionTopic(), 1).waitForCompletion();
+            publisher.connect(connectOptions).waitForCompletion();
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                for (String topic : TOPICS) {
+                    publisher.publish(topic, String.valueOf(i).getBytes(), 1, false).waitForCompletion();
+                }
+            }
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (dispatcher.getStatistics().getMediatedCount() < TOPICS.length * MESSAGE_COUNT
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+        } finally {
+            callback.shutdown();
+            if (publisher.isConnected()) {
+                publisher.disconnect().waitForCompletion();
+            }
+            if (consumer.isConnected()) {
+                consumer.disconnect().waitForCompletion();
+            }
+            publisher.close();
+            consumer.close();
+        }
+        return dispatcher;
+    }
+
+    private static Properties getMqttProperties(String workerPoolSize) {
+        Properties mqttProperties = new Properties();
+        mqttProperties.put(MqttConstants.MQTT_SERVER_HOST_NAME, HOST);
+        mqttProperties.put(MqttConstants.MQTT_SERVER_PORT, PORT);
+        mqttProperties.put(MqttConstants.MQTT_TOPIC_NAME, "dispatcher/#");
+        mqttProperties.put(MqttConstants.MQTT_QOS, "1");
+        mqttProperties.put(MqttConstants.MQTT_WORKER_POOL_SIZE, workerPoolSize);
+        mqttProperties.put(MqttConstants.MQTT_MAX_INFLIGHT_MESSAGES, String.valueOf(MAX_IN_FLIGHT));
+        return mqttProperties;
+    }
+
+    private static List<String> getExpectedSequence() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            expected.add(String.valueOf(i));
+        }
+        return expected;
+    }
+
+    /**
+     * Client which counts the messages acknowledged to the broker.
+     */
+    private static class RecordingMqttAsyncClient extends MqttAsyncClient {
+
+        private final AtomicInteger acknowledgedCount = new AtomicInteger();
+
+        RecordingMqttAsyncClient(String clientId) throws MqttException {
+            super(SERVER_URL, clientId, new MemoryPersistence());
+        }
+
+        @Override
+        public void messageArrivedComplete(int messageId, int qos) throws MqttException {
+            if (qos > 0) {
+                acknowledgedCount.incrementAndGet();
+            }
+            if (isConnected()) {
+                super.messageArrivedComplete(messageId, qos);
+            }
+        }
+
+        int getAcknowledgedCount() {
+            return acknowledgedCount.get();
+        }
+    }
+
+    /**
+     * Inject handler which records the messages of each topic instead of mediating them.
+     */
+    private static class RecordingInjectHandler extends MqttInjectHandler {
+
+        private final long mediationTime;
+        private final Map<String, List<String>> received = new ConcurrentHashMap<>();
+        private final AtomicInteger concurrency = new AtomicInteger();
+        private final AtomicInteger maxConcurrency = new AtomicInteger();
+
+        /**
+         * @param mediationTime the time in milliseconds each message takes to mediate
+         */
+        RecordingInjectHandler(long mediationTime) {
+            super(null, null, true, null, null);
+            this.mediationTime = mediationTime;
+        }
+
+        @Override
+        public boolean invoke(MqttMessage mqttMessage, String name, String topicName) {
+            int current = concurrency.incrementAndGet();
+            maxConcurrency.accumulateAndGet(current, Math::max);
+            try {
+                received.computeIfAbsent(topicName, topic -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(mqttMessage.toString());
+                if (mediationTime > 0) {
+                    Thread.sleep(mediationTime);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrency.decrementAndGet();
+            }
+            return true;
+        }
+
+        List<String> getReceived(String topic) {
+            return received.get(topic);
+        }
+
+        int getMaxConcurrency() {
+            return maxConcurrency.get();
+        }
+    }
+}
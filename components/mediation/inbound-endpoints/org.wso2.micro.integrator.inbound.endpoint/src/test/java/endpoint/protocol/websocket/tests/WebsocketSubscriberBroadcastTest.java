@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package endpoint.protocol.websocket.tests;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket13FrameEncoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.InboundWebsocketChannelContext;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.management.WebsocketBroadcastStatistics;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.management.WebsocketSubscriberPathManager;
+
+import java.util.Arrays;
+
+public class WebsocketSubscriberBroadcastTest extends TestCase {
+
+    private static final String SUBSCRIBER_PATH = "/broadcast";
+
+    private final WebsocketSubscriberPathManager pathManager = WebsocketSubscriberPathManager.getInstance();
+
+    /**
+     * Test that a broadcast frame is written to each subscriber exactly as the frame encoder of the channel writes it
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBroadcastMatchesFrameEncoder() throws Exception {
+        String inboundName = "testBroadcastMatchesFrameEncoder";
+        EmbeddedChannel first = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel second = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        InboundWebsocketChannelContext firstContext = subscribe(inboundName, first, true);
+        InboundWebsocketChannelContext secondContext = subscribe(inboundName, second, true);
+        try {
+            for (int size : new int[] { 10, 200, 70000 }) {
+                WebSocketFrame frame = new BinaryWebSocketFrame(Unpooled.wrappedBuffer(payload(size)));
+                pathManager.broadcastOnSubscriberPath(frame, inboundName, SUBSCRIBER_PATH);
+                byte[] expected = encode(frame);
+                Assert.assertTrue("Frame of " + size + " bytes is not encoded as a WebSocket frame",
+                                  Arrays.equals(expected, readOutbound(first)));
+                Assert.assertTrue("Frame of " + size + " bytes is not encoded as a WebSocket frame",
+                                  Arrays.equals(expected, readOutbound(second)));
+                frame.release();
+            }
+        } finally {
+            pathManager.removeChannelContext(inboundName, SUBSCRIBER_PATH, firstContext);
+            pathManager.removeChannelContext(inboundName, SUBSCRIBER_PATH, secondContext);
+        }
+        Assert.assertNull("Statistics are not removed with the last subscriber",
+                          pathManager.getBroadcastStatistics(inboundName));
+    }
+
+    /**
+     * Test that an exclusive broadcast skips the sender and that subscribers which do not accept pre-encoded frames
+     * are written the frame itself
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExclusiveBroadcastAndFrameFallback() throws Exception {
+        String inboundName = "testExclusiveBroadcastAndFrameFallback";
+        EmbeddedChannel sender = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel encoded = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel plain = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        InboundWebsocketChannelContext senderContext = subscribe(inboundName, sender, true);
+        InboundWebsocketChannelContext encodedContext = subscribe(inboundName, encoded, true);
+        InboundWebsocketChannelContext plainContext = subscribe(inboundName, plain, false);
+        try {
+            TextWebSocketFrame frame = new TextWebSocketFrame("hello subscribers");
+            pathManager.exclusiveBroadcastOnSubscriberPath(frame, inboundName, SUBSCRIBER_PATH, senderContext);
+
+            Assert.assertNull("Frame is written to the sender", sender.readOutbound());
+            Assert.assertTrue("Frame is not written pre-encoded",
+                              Arrays.equals(encode(frame), readOutbound(encoded)));
+            Object written = plain.readOutbound();
+            Assert.assertTrue("Frame is not written as a frame", written instanceof TextWebSocketFrame);
+            Assert.assertEquals("Frame is not written as sent", "hello subscribers",
+                                ((TextWebSocketFrame) written).text());
+            ((TextWebSocketFrame) written).release();
+            frame.release();
+        } finally {
+            pathManager.removeChannelContext(inboundName, SUBSCRIBER_PATH, senderContext);
+            pathManager.removeChannelContext(inboundName, SUBSCRIBER_PATH, encodedContext);
+            pathManager.removeChannelContext(inboundName, SUBSCRIBER_PATH, plainContext);
+        }
+    }
+
+    /**
+     * Test that data frames are dropped for subscribers which are not writable, while control frames are not
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDropFramesForUnwritableSubscribers() throws Exception {
+        String inboundName = "testDropFramesForUnwritableSubscribers";
+        EmbeddedChannel fast = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel slow = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        InboundWebsocketChannelContext fastContext = subscribe(inboundName, fast, true);
+        InboundWebsocketChannelContext slowContext = subscribe(inboundName, slow, true);
+        try {
+            slow.config().setWriteBufferLowWaterMark(0);
+            slow.config().setWriteBufferHighWaterMark(1);
+            // leave data in the outbound buffer of the slow subscriber so that it becomes unwritable
+            slow.write(Unpooled.wrappedBuffer(payload(16)));
+            Assert.assertFalse("Channel is writable", slow.isWritable());
+
+            TextWebSocketFrame frame = new TextWebSocketFrame("tick");
+            pathManager.broadcastOnSubscriberPath(frame, inboundName, SUBSCRIBER_PATH, true);
+            CloseWebSocketFrame closeFrame = new CloseWebSocketFrame(1001, "shutdown");
+            pathManager.broadcastOnSubscriberPath(closeFrame, inboundName, SUBSCRIBER_PATH, true);
+
+            WebsocketBroadcastStatistics statistics = pathManager.getBroadcastStatistics(inboundName);
+            Assert.assertEquals("Unexpected broadcast count", 2, statistics.getBroadcastCount());
+            Assert.assertEquals("Unexpected dropped frame count", 1, statistics.getDroppedFrameCount());
+            Assert.assertEquals("Unexpected subscriber count", 2, statistics.getSubscriberCount());
+            long deadline = System.currentTimeMillis() + 5000;
+            while (statistics.getDeliveredFrameCount() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals("Unexpected delivered frame count", 3, statistics.getDeliveredFrameCount());
+
+            Assert.assertTrue("Data frame is not written to the fast subscriber",
+                              Arrays.equals(encode(frame), readOutbound(fast)));
+            Assert.assertTrue("Close frame is not written to the fast subscriber",
+                              Arrays.equals(encode(closeFrame), readOutbound(fast)));
+            slow.flush();
+            Assert.assertEquals("Pending data is not written", 16, readOutbound(slow).length);
+            Assert.assertTrue("Close frame is not written to the slow subscriber",
+                              Arrays.equals(encode(closeFrame), readOutbound(slow)));
+            Assert.assertNull("Data frame is written to the slow subscriber", slow.readOutbound());
+            frame.release();
+            closeFrame.release();
+        } finally {
+            pathManager.removeChannelContext(inboundName, SUBSCRIBER_PATH, fastContext);
+            pathManager.removeChannelContext(inboundName, SUBSCRIBER_PATH, slowContext);
+        }
+    }
+
+    /**
+     * Test that only whole fragmented messages are dropped for subscribers which are not writable, i.e. the rest of a
+     * message is written once its first fragment is written and dropped once its first fragment is dropped
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDropWholeFragmentedMessages() throws Exception {
+        String inboundName = "testDropWholeFragmentedMessages";
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        InboundWebsocketChannelContext context = subscribe(inboundName, channel, true);
+        try {
+            channel.config().setWriteBufferLowWaterMark(0);
+            channel.config().setWriteBufferHighWaterMark(1);
+
+            // the first fragment is written, so the rest of the message is written even when the channel is full
+            WebSocketFrame[] written = {
+                    new TextWebSocketFrame(false, 0, "first "), new ContinuationWebSocketFrame(false, 0, "second "),
+                    new ContinuationWebSocketFrame(true, 0, "last")
+            };
+            pathManager.broadcastOnSubscriberPath(written[0], inboundName, SUBSCRIBER_PATH, true);
+            for (int i = 1; i < written.length; i++) {
+                channel.write(Unpooled.wrappedBuffer(payload(16)));
+                Assert.assertFalse("Channel is writable", channel.isWritable());
+                pathManager.broadcastOnSubscriberPath(written[i], inboundName, SUBSCRIBER_PATH, true);
+            }
+            Assert.assertTrue("First fragment is not written", Arrays.equals(encode(written[0]),
+                                                                             readOutbound(channel)));
+            for (int i = 1; i < written.length; i++) {
+                Assert.assertEquals("Pending data is not written", 16, readOutbound(channel).length);
+                Assert.assertTrue("Continuation frame is dropped", Arrays.equals(encode(written[i]),
+                                                                                 readOutbound(channel)));
+            }
+
+            // the first fragment is dropped, so the rest of the message is dropped even when the channel is writable
+            channel.write(Unpooled.wrappedBuffer(payload(16)));
+            Assert.assertFalse("Channel is writable", channel.isWritable());
+            WebSocketFrame[] dropped = {
+                    new BinaryWebSocketFrame(false, 0, Unpooled.wrappedBuffer(payload(8))),
+                    new ContinuationWebSocketFrame(false, 0, Unpooled.wrappedBuffer(payload(8))),
+                    new ContinuationWebSocketFrame(true, 0, Unpooled.wrappedBuffer(payload(8)))
+            };
+            pathManager.broadcastOnSubscriberPath(dropped[0], inboundName, SUBSCRIBER_PATH, true);
+            channel.flush();
+            Assert.assertTrue("Channel is not writable", channel.isWritable());
+            Assert.assertEquals("Pending data is not written", 16, readOutbound(channel).length);
+            for (int i = 1; i < dropped.length; i++) {
+                pathManager.broadcastOnSubscriberPath(dropped[i], inboundName, SUBSCRIBER_PATH, true);
+            }
+            Assert.assertNull("Part of a dropped message is written", channel.readOutbound());
+
+            TextWebSocketFrame next = new TextWebSocketFrame("next");
+            pathManager.broadcastOnSubscriberPath(next, inboundName, SUBSCRIBER_PATH, true);
+            Assert.assertTrue("Message after a dropped message is not written",
+                              Arrays.equals(encode(next), readOutbound(channel)));
+            Assert.assertEquals("Unexpected dropped frame count", dropped.length,
+                                pathManager.getBroadcastStatistics(inboundName).getDroppedFrameCount());
+
+            for (WebSocketFrame frame : written) {
+                frame.release();
+            }
+            for (WebSocketFrame frame : dropped) {
+                frame.release();
+            }
+            next.release();
+        } finally {
+            pathManager.removeChannelContext(inboundName, SUBSCRIBER_PATH, context);
+        }
+    }
+
+    private InboundWebsocketChannelContext subscribe(String inboundName, EmbeddedChannel channel,
+                                                     boolean preEncodedFramesSupported) {
+        InboundWebsocketChannelContext context = new InboundWebsocketChannelContext(
+                channel.pipeline().firstContext());
+        context.setPreEncodedFramesSupported(preEncodedFramesSupported);
+        pathManager.addChannelContext(inboundName, SUBSCRIBER_PATH, context);
+        return context;
+    }
+
+    private static byte[] encode(WebSocketFrame frame) {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocket13FrameEncoder(false));
+        channel.writeOutbound(frame.duplicate().retain());
+        byte[] encoded = new byte[0];
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            encoded = concat(encoded, toBytes((ByteBuf) msg));
+        }
+        return encoded;
+    }
+
+    private static byte[] readOutbound(EmbeddedChannel channel) {
+        Object msg = channel.readOutbound();
+        Assert.assertNotNull("Nothing is written to the channel", msg);
+        return toBytes((ByteBuf) msg);
+    }
+
+    private static byte[] toBytes(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        buf.release();
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static byte[] payload(int size) {
+        byte[] payload = new byte[size];
+        for (int i = 0; i < size; i++) {
+            payload[i] = (byte) i;
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.file;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.commons.vfs.VFSConstants;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FilePollingConsumerTest extends TestCase {
+
+    private static final String INBOUND_EP_NAME = "testFileInbound";
+    private static final int FILE_COUNT = 20;
+    private static final int PROCESSING_THREADS = 4;
+    private static final long TIMEOUT = 10000;
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("file-inbound").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Test that the files of a directory are processed on the processing threads, each of them once, and that they
+     * are deleted and unlocked afterwards
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParallelProcessing() throws Exception {
+        for (int i = 0; i < FILE_COUNT; i++) {
+            createFile("file" + i + ".txt", 1);
+        }
+        Properties properties = getProperties();
+        properties.put(InboundFileConstants.PROCESSING_THREADS, String.valueOf(PROCESSING_THREADS));
+        RecordingInjectHandler injectHandler = new RecordingInjectHandler(properties, null, 20);
+        FilePollingConsumer consumer = createConsumer(properties, injectHandler);
+        try {
+            consumer.poll();
+        } finally {
+            consumer.destroy();
+        }
+
+        Assert.assertEquals("All the files are not processed once", FILE_COUNT, injectHandler.getProcessed().size());
+        Assert.assertEquals("The same file is processed more than once", FILE_COUNT,
+                            injectHandler.getProcessed().stream().distinct().count());
+        Assert.assertTrue("The files are not processed in parallel", injectHandler.getMaxConcurrency() > 1);
+        Assert.assertEquals("The processed files or their locks are left in the directory", 0,
+                            directory.listFiles().length);
+    }
+
+    /**
+     * Test that a file whose processing fails on a processing thread does not stop the other files, and that its lock
+     * is released
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParallelProcessingFailure() throws Exception {
+        for (int i = 0; i < FILE_COUNT; i++) {
+            createFile("file" + i + ".txt", 1);
+        }
+        Properties properties = getProperties();
+        properties.put(InboundFileConstants.PROCESSING_THREADS, String.valueOf(PROCESSING_THREADS));
+        RecordingInjectHandler injectHandler = new RecordingInjectHandler(properties, "file3.txt", 0);
+        FilePollingConsumer consumer = createConsumer(properties, injectHandler);
+        try {
+            consumer.poll();
+        } finally {
+            consumer.destroy();
+        }
+
+        Assert.assertEquals("All the files are not processed", FILE_COUNT, injectHandler.getProcessed().size());
+        Assert.assertFalse("The lock of the failed file is not released",
+                           new File(directory, "file3.txt" + InboundFileConstants.LOCK_FILE_SUFFIX).exists());
+    }
+
+    /**
+     * Test that the files are processed in the order of their size
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSortBySize() throws Exception {
+        createFile("b.txt", 30);
+        createFile("c.txt", 10);
+        createFile("a.txt", 20);
+        Properties properties = getProperties();
+        properties.put(VFSConstants.FILE_SORT_PARAM, VFSConstants.FILE_SORT_VALUE_SIZE);
+        properties.put(VFSConstants.FILE_SORT_ORDER, "false");
+        RecordingInjectHandler injectHandler = new RecordingInjectHandler(properties, null, 0);
+        FilePollingConsumer consumer = createConsumer(properties, injectHandler);
+        try {
+            consumer.poll();
+        } finally {
+            consumer.destroy();
+        }
+
+        Assert.assertEquals("The files are not processed in the descending order of their size",
+                            Arrays.asList("b.txt", "a.txt", "c.txt"), injectHandler.getProcessed());
+    }
+
+    /**
+     * Test that a watched directory picks up the files created after the first poll
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDirectoryWatch() throws Exception {
+        createFile("first.txt", 1);
+        Properties properties = getProperties();
+        properties.put(InboundFileConstants.DIRECTORY_WATCH, "true");
+        RecordingInjectHandler injectHandler = new RecordingInjectHandler(properties, null, 0);
+        FilePollingConsumer consumer = createConsumer(properties, injectHandler);
+        try {
+            consumer.poll();
+            Assert.assertEquals("The existing file is not processed", Collections.singletonList("first.txt"),
+                                injectHandler.getProcessed());
+
+            createFile("second.txt", 1);
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (injectHandler.getProcessed().size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+                consumer.poll();
+            }
+        } finally {
+            consumer.destroy();
+        }
+
+        Assert.assertEquals("The file created after the first poll is not processed once",
+                            Arrays.asList("first.txt", "second.txt"), injectHandler.getProcessed());
+    }
+
+    private Properties getProperties() {
+        Properties properties = new Properties();
+        properties.put(VFSConstants.TRANSPORT_FILE_FILE_URI, "file://" + directory.getAbsolutePath());
+        properties.put(VFSConstants.TRANSPORT_FILE_FILE_NAME_PATTERN, ".*\\.txt");
+        return properties;
+    }
+
+    private FilePollingConsumer createConsumer(Properties properties, RecordingInjectHandler injectHandler) {
+        FilePollingConsumer consumer = new FilePollingConsumer(properties, INBOUND_EP_NAME, null, 1000);
+        consumer.registerHandler(injectHandler);
+        return consumer;
+    }
+
+    private void createFile(String name, int size) throws Exception {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) 'a');
+        Files.write(new File(directory, name).toPath(), content);
+    }
+
+    /**
+     * Inject handler recording the processed files, which fails the given file.
+     */
+    private static class RecordingInjectHandler extends FileInjectHandler {
+
+        private final String failingFile;
+
+        private final long processingTime;
+
+        private final List<String> processed = new ArrayList<>();
+
+        private final AtomicInteger concurrency = new AtomicInteger();
+
+        private int maxConcurrency;
+
+        RecordingInjectHandler(Properties properties, String failingFile, long processingTime) {
+            super(null, null, true, null, properties);
+            this.failingFile = failingFile;
+            this.processingTime = processingTime;
+        }
+
+        @Override
+        public boolean invoke(Object object, String name, Map<String, Object> transportHeaders) {
+            String fileName = ((FileObject) object).getName().getBaseName();
+            int current = concurrency.incrementAndGet();
+            try {
+                synchronized (this) {
+                    processed.add(fileName);
+                    maxConcurrency = Math.max(maxConcurrency, current);
+                }
+                if (processingTime > 0) {
+                    Thread.sleep(processingTime);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrency.decrementAndGet();
+            }
+            if (fileName.equals(failingFile)) {
+                throw new SynapseException("Processing failed");
+            }
+            return true;
+        }
+
+        synchronized List<String> getProcessed() {
+            return new ArrayList<>(processed);
+        }
+
+        synchronized int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.grpc;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class GRPCResponseSenderTest extends TestCase {
+
+    /**
+     * Test that a JSON array is split into its elements, including nested values and strings with delimiters
+     */
+    @Test
+    public void testSplitJsonArray() {
+        Assert.assertEquals("The JSON array is not split into its elements",
+                            Arrays.asList("{\"id\":1,\"tags\":[\"a\",\"b\"]}", "\"x,]\\\"y\"", "2", "null"),
+                            GRPCResponseSender.splitJsonArray(
+                                    "[{\"id\": 1, \"tags\": [\"a\", \"b\"]}, \"x,]\\\"y\", 2, null]"));
+        Assert.assertEquals("An empty JSON array is not split into no elements", Collections.emptyList(),
+                            GRPCResponseSender.splitJsonArray(" [ ] "));
+    }
+
+    /**
+     * Test that a JSON string other than an array is a single item
+     */
+    @Test
+    public void testSplitJsonObject() {
+        String json = "{\"items\": [1, 2]}";
+        Assert.assertEquals("The JSON object is split", Collections.singletonList(json),
+                            GRPCResponseSender.splitJsonArray(json));
+        String invalid = "[1, {2";
+        Assert.assertEquals("The invalid JSON string is split", Collections.singletonList(invalid),
+                            GRPCResponseSender.splitJsonArray(invalid));
+    }
+}
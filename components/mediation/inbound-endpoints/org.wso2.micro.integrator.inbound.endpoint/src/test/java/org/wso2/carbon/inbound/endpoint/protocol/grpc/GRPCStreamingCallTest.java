@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.grpc;
+
+import com.google.protobuf.Empty;
+import io.grpc.stub.ServerCallStreamObserver;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+public class GRPCStreamingCallTest extends TestCase {
+
+    private static final long RESPONSE_TIMEOUT = 50;
+    private static final long TIMEOUT = 5000;
+
+    private ScheduledExecutorService timeoutScheduler;
+
+    @Override
+    protected void setUp() throws Exception {
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        timeoutScheduler.shutdownNow();
+    }
+
+    /**
+     * Test that the next event is only requested once the event in flight is responded to
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResponseReleasesSlot() throws Exception {
+        TestObserver<Event> observer = new TestObserver<>();
+        RecordingCall call = new RecordingCall(observer, 0);
+        call.start();
+        Assert.assertEquals("The first event is not requested", 1, observer.requested);
+
+        call.onNext(createEvent("1"));
+        Assert.assertEquals("An event is requested beyond the window", 1, observer.requested);
+        call.sendResponse(call.pendingEvents.get(0), createEvent("response"));
+        Assert.assertEquals("The response is not sent", 1, observer.responses.size());
+        Assert.assertEquals("The next event is not requested after the response", 2, observer.requested);
+    }
+
+    /**
+     * Test that an event which is not responded to within the response timeout no longer holds back the stream, and
+     * that its late response does not release another slot
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResponseTimeoutReleasesSlot() throws Exception {
+        TestObserver<Event> observer = new TestObserver<>();
+        RecordingCall call = new RecordingCall(observer, RESPONSE_TIMEOUT);
+        call.start();
+
+        call.onNext(createEvent("1"));
+        Assert.assertTrue("The next event is not requested after the response timeout",
+                          waitFor(() -> observer.getRequested() == 2));
+        call.sendResponse(call.pendingEvents.get(0), createEvent("response"));
+        Assert.assertEquals("The late response is not sent", 1, observer.responses.size());
+        Assert.assertEquals("The late response released another slot", 2, observer.getRequested());
+    }
+
+    /**
+     * Test that an event released after a fault is only released once
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReleaseOnce() throws Exception {
+        TestObserver<Event> observer = new TestObserver<>();
+        RecordingCall call = new RecordingCall(observer, 0);
+        call.start();
+
+        call.onNext(createEvent("1"));
+        Assert.assertTrue("The event is not released", call.release(call.pendingEvents.get(0)));
+        Assert.assertFalse("The event is released twice", call.release(call.pendingEvents.get(0)));
+        Assert.assertEquals("The next event is not requested after the release", 2, observer.requested);
+    }
+
+    /**
+     * Test that a half closed call completes once its unanswered event times out
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCompletionAfterResponseTimeout() throws Exception {
+        TestObserver<Event> observer = new TestObserver<>();
+        RecordingCall call = new RecordingCall(observer, RESPONSE_TIMEOUT);
+        call.start();
+
+        call.onNext(createEvent("1"));
+        call.onCompleted();
+        Assert.assertFalse("The call is completed while an event is in flight", observer.isCompleted());
+        Assert.assertTrue("The call is not completed after the response timeout", waitFor(observer::isCompleted));
+    }
+
+    /**
+     * Test that the events of a client streaming call are released once mediated, and that the call is completed with
+     * the completion response
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testClientStreamingCall() throws Exception {
+        TestObserver<Empty> observer = new TestObserver<>();
+        GRPCStreamingCall<Empty> call = new GRPCStreamingCall<Empty>(observer, 1, Empty.getDefaultInstance()) {
+            @Override
+            protected void mediate(Event event, PendingEvent pendingEvent) {
+            }
+        }.start();
+
+        call.onNext(createEvent("1"));
+        Assert.assertEquals("The next event is not requested after the mediation", 2, observer.requested);
+        call.onCompleted();
+        Assert.assertTrue("The call is not completed", observer.isCompleted());
+        Assert.assertEquals("The completion response is not sent", 1, observer.responses.size());
+    }
+
+    private static Event createEvent(String payload) {
+        return Event.newBuilder().setPayload(payload).build();
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    /**
+     * Bidirectional call which records the slots of the mediated events, without responding to them.
+     */
+    private class RecordingCall extends GRPCStreamingCall<Event> {
+
+        private final List<PendingEvent> pendingEvents = new ArrayList<>();
+
+        RecordingCall(TestObserver<Event> observer, long responseTimeout) {
+            super(observer, 1, null, timeoutScheduler, responseTimeout);
+        }
+
+        @Override
+        protected void mediate(Event event, PendingEvent pendingEvent) {
+            pendingEvents.add(pendingEvent);
+        }
+    }
+
+    /**
+     * Response observer of a call which records the requested events and the responses.
+     */
+    private static class TestObserver<R> extends ServerCallStreamObserver<R> {
+
+        private final List<R> responses = new ArrayList<>();
+
+        private int requested;
+
+        private boolean completed;
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public synchronized void request(int count) {
+            requested += count;
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public synchronized void onNext(R response) {
+            responses.add(response);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            completed = true;
+        }
+
+        synchronized int getRequested() {
+            return requested;
+        }
+
+        synchronized boolean isCompleted() {
+            return completed;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.Recoverable;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+import org.apache.synapse.mediators.base.SequenceMediator;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+public class RabbitMQChannelConsumerTest extends TestCase {
+
+    private static final String INBOUND_EP_NAME = "testRabbitMQInbound";
+    private static final String QUEUE_NAME = "testQueue";
+    private static final String SEQUENCE = "rabbitmqSequence";
+    private static final String FAIL = "fail";
+    private static final String ERROR = "error";
+
+    /**
+     * Test that the mediated messages are acknowledged with a single multiple-ack once the batch is full, and that
+     * the rest of them are acknowledged when the batch is flushed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchedAck() throws Exception {
+        RecordingChannel channel = new RecordingChannel();
+        RabbitMQConsumerStatistics statistics = new RabbitMQConsumerStatistics();
+        RabbitMQChannelConsumer consumer = createConsumer(channel, statistics, null, 3);
+
+        deliver(consumer, 1, "a");
+        deliver(consumer, 2, "b");
+        Assert.assertTrue("The messages are acknowledged before the batch is full", channel.getCalls().isEmpty());
+        deliver(consumer, 3, "c");
+        deliver(consumer, 4, "d");
+        Assert.assertEquals("The full batch is not acknowledged with a multiple-ack",
+                            Collections.singletonList("ack:3:true"), channel.getCalls());
+
+        consumer.flushAcks();
+        Assert.assertEquals("The rest of the batch is not acknowledged when flushed",
+                            Arrays.asList("ack:3:true", "ack:4:true"), channel.getCalls());
+        Assert.assertEquals(4, statistics.getAcknowledgedCount());
+        Assert.assertEquals(0, statistics.getAckLag());
+    }
+
+    /**
+     * Test that the multiple-ack does not cover the messages which are still being mediated on the worker pool
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testOutOfOrderCompletion() throws Exception {
+        RecordingChannel channel = new RecordingChannel();
+        QueuedExecutor workerPool = new QueuedExecutor();
+        RabbitMQChannelConsumer consumer = createConsumer(channel, new RabbitMQConsumerStatistics(), workerPool, 3);
+
+        deliver(consumer, 1, "a");
+        deliver(consumer, 2, "b");
+        deliver(consumer, 3, "c");
+        workerPool.run(1);
+        workerPool.run(2);
+        consumer.flushAcks();
+        Assert.assertTrue("The message being mediated is acknowledged", channel.getCalls().isEmpty());
+
+        workerPool.run(0);
+        Assert.assertEquals("The messages are not acknowledged once the oldest message is mediated",
+                            Collections.singletonList("ack:3:true"), channel.getCalls());
+    }
+
+    /**
+     * Test that a failed message is rejected right away, without holding back the acknowledgements of the others
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedMessageRejected() throws Exception {
+        RecordingChannel channel = new RecordingChannel();
+        RabbitMQConsumerStatistics statistics = new RabbitMQConsumerStatistics();
+        RabbitMQChannelConsumer consumer = createConsumer(channel, statistics, null, 3);
+
+        deliver(consumer, 1, "a");
+        deliver(consumer, 2, FAIL);
+        deliver(consumer, 3, "c");
+        consumer.flushAcks();
+        Assert.assertEquals("The failed message is not rejected before the batch is acknowledged",
+                            Arrays.asList("reject:2", "ack:3:true"), channel.getCalls());
+        Assert.assertEquals(1, statistics.getRejectedCount());
+    }
+
+    /**
+     * Test that a message whose mediation throws an error is rejected, so that it does not stall the
+     * acknowledgements of the later messages
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testErrorReleasesMessage() throws Exception {
+        RecordingChannel channel = new RecordingChannel();
+        RabbitMQChannelConsumer consumer = createConsumer(channel, new RabbitMQConsumerStatistics(), null, 3);
+
+        try {
+            deliver(consumer, 1, ERROR);
+            Assert.fail("The mediation error is not propagated");
+        } catch (Error e) {
+            // expected
+        }
+        deliver(consumer, 2, "b");
+        consumer.flushAcks();
+        Assert.assertEquals("The message whose mediation failed holds back the acknowledgements",
+                            Arrays.asList("reject:1", "ack:2:true"), channel.getCalls());
+    }
+
+    /**
+     * Test that each message is acknowledged right away when the acknowledgements are not batched
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnbatchedAck() throws Exception {
+        RecordingChannel channel = new RecordingChannel();
+        RabbitMQChannelConsumer consumer = createConsumer(channel, new RabbitMQConsumerStatistics(), null, 1);
+
+        deliver(consumer, 1, "a");
+        deliver(consumer, 2, "b");
+        Assert.assertEquals(Arrays.asList("ack:1:false", "ack:2:false"), channel.getCalls());
+    }
+
+    /**
+     * Test that a consumer is registered on each of the configured number of channels, which acknowledge their own
+     * messages, and that all of them are cancelled when the consumer is closed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMultipleChannels() throws Exception {
+        Properties properties = new Properties();
+        properties.put(RabbitMQConstants.QUEUE_NAME, QUEUE_NAME);
+        properties.put(RabbitMQConstants.CONSUMER_TAG, "tag");
+        properties.put(RabbitMQConstants.CONSUMER_COUNT, "3");
+        properties.put(RabbitMQConstants.CONSUMER_QOS, "1");
+        properties.put(RabbitMQConstants.QUEUE_AUTO_ACK, "false");
+        properties.put(RabbitMQConstants.ACK_BATCH_SIZE, "2");
+        properties.put(RabbitMQConstants.ACK_BATCH_INTERVAL, "60000");
+        RecordingConnectionFactory connectionFactory = new RecordingConnectionFactory();
+        RabbitMQConsumer rabbitMQConsumer = new RabbitMQConsumer(connectionFactory, properties,
+                                                                 new TestInjectHandler());
+        rabbitMQConsumer.setInboundName(INBOUND_EP_NAME);
+        rabbitMQConsumer.execute();
+
+        List<RecordingChannel> channels = connectionFactory.getChannels();
+        Assert.assertEquals("A channel is not created for each consumer", 3, channels.size());
+        for (int i = 0; i < channels.size(); i++) {
+            RecordingChannel channel = channels.get(i);
+            Assert.assertEquals("The qos does not leave room for the acknowledgement batch", 3, channel.getQos());
+            Assert.assertEquals("The consumer tag of the channel is not unique", "tag-" + i,
+                                channel.getConsumerTag());
+            Assert.assertEquals("The queue is not declared once", i == 0, channel.isQueueDeclared());
+        }
+
+        Consumer consumer = channels.get(1).getConsumer();
+        deliver(consumer, 1, "a");
+        deliver(consumer, 2, "b");
+        Assert.assertEquals("The messages are not acknowledged on their channel",
+                            Collections.singletonList("ack:2:true"), channels.get(1).getCalls());
+        Assert.assertTrue(channels.get(0).getCalls().isEmpty());
+        Assert.assertTrue(channels.get(2).getCalls().isEmpty());
+
+        rabbitMQConsumer.close();
+        for (int i = 0; i < channels.size(); i++) {
+            Assert.assertTrue("The consumer of the channel is not cancelled",
+                              channels.get(i).getCalls().contains("cancel:tag-" + i));
+        }
+    }
+
+    /**
+     * Test that a partial batch of acknowledgements is flushed by the timer even if the configured batch interval is
+     * not positive
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNonPositiveAckBatchInterval() throws Exception {
+        Properties properties = new Properties();
+        properties.put(RabbitMQConstants.QUEUE_NAME, QUEUE_NAME);
+        properties.put(RabbitMQConstants.CONSUMER_TAG, "tag");
+        properties.put(RabbitMQConstants.QUEUE_AUTO_ACK, "false");
+        properties.put(RabbitMQConstants.ACK_BATCH_SIZE, "10");
+        properties.put(RabbitMQConstants.ACK_BATCH_INTERVAL, "0");
+        RecordingConnectionFactory connectionFactory = new RecordingConnectionFactory();
+        RabbitMQConsumer rabbitMQConsumer = new RabbitMQConsumer(connectionFactory, properties,
+                                                                 new TestInjectHandler());
+        rabbitMQConsumer.setInboundName(INBOUND_EP_NAME);
+        rabbitMQConsumer.execute();
+        try {
+            RecordingChannel channel = connectionFactory.getChannels().get(0);
+            deliver(channel.getConsumer(), 1, "a");
+            long deadline = System.currentTimeMillis() + 5 * RabbitMQConstants.DEFAULT_ACK_BATCH_INTERVAL;
+            while (!channel.getCalls().contains("ack:1:true") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertTrue("The partial batch is not acknowledged by the timer",
+                              channel.getCalls().contains("ack:1:true"));
+        } finally {
+            rabbitMQConsumer.close();
+        }
+    }
+
+    private RabbitMQChannelConsumer createConsumer(Channel channel, RabbitMQConsumerStatistics statistics,
+                                                   Executor workerPool, int ackBatchSize) {
+        return new RabbitMQChannelConsumer(channel, Collections.emptyMap(), new TestInjectHandler(), statistics,
+                                           workerPool, QUEUE_NAME, INBOUND_EP_NAME, -1, false, ackBatchSize);
+    }
+
+    private static void deliver(Consumer consumer, long deliveryTag, String body) throws Exception {
+        consumer.handleDelivery("tag", new Envelope(deliveryTag, false, "", QUEUE_NAME),
+                                new AMQP.BasicProperties.Builder().messageId(String.valueOf(deliveryTag)).build(),
+                                body.getBytes());
+    }
+
+    /**
+     * Inject handler which fails the messages with the body {@value #FAIL} and throws an error for the messages with
+     * the body {@value #ERROR}.
+     */
+    private static class TestInjectHandler extends RabbitMQInjectHandler {
+
+        TestInjectHandler() {
+            super(SEQUENCE, null, true, createSynapseEnvironment());
+        }
+
+        @Override
+        public boolean onMessage(AMQP.BasicProperties properties, byte[] body, String inboundName) {
+            String message = new String(body);
+            if (ERROR.equals(message)) {
+                throw new Error("Mediation error");
+            }
+            return !FAIL.equals(message);
+        }
+
+        private static Axis2SynapseEnvironment createSynapseEnvironment() {
+            SynapseConfiguration synapseConfiguration = new SynapseConfiguration();
+            SequenceMediator sequence = new SequenceMediator();
+            sequence.setName(SEQUENCE);
+            synapseConfiguration.addSequence(SEQUENCE, sequence);
+            return new Axis2SynapseEnvironment(new ConfigurationContext(new AxisConfiguration()),
+                                               synapseConfiguration);
+        }
+    }
+
+    /**
+     * Executor which holds the tasks until they are run by the test.
+     */
+    private static class QueuedExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void run(int index) {
+            tasks.get(index).run();
+        }
+    }
+
+    /**
+     * Connection factory which creates connections whose channels record the calls made to them.
+     */
+    private static class RecordingConnectionFactory extends RabbitMQConnectionFactory {
+
+        private final List<RecordingChannel> channels = new ArrayList<>();
+
+        RecordingConnectionFactory() throws RabbitMQException {
+            super(new Properties());
+        }
+
+        @Override
+        public Connection createConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("createChannel".equals(method.getName())) {
+                            RecordingChannel channel = new RecordingChannel();
+                            channels.add(channel);
+                            return channel.getChannel();
+                        }
+                        return null;
+                    });
+        }
+
+        List<RecordingChannel> getChannels() {
+            return channels;
+        }
+    }
+
+    /**
+     * Channel which records the acknowledgements, rejections and cancellations made on it.
+     */
+    private static class RecordingChannel {
+
+        private final List<String> calls = new ArrayList<>();
+
+        private final Channel channel;
+
+        private int qos;
+
+        private boolean queueDeclared;
+
+        private String consumerTag;
+
+        private Consumer consumer;
+
+        RecordingChannel() {
+            channel = (Channel) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{Channel.class, Recoverable.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "basicAck":
+                                record("ack:" + args[0] + ":" + args[1]);
+                                return null;
+                            case "basicReject":
+                                record("reject:" + args[0]);
+                                return null;
+                            case "basicCancel":
+                                record("cancel:" + args[0]);
+                                return null;
+                            case "basicQos":
+                                qos = (Integer) args[0];
+                                return null;
+                            case "queueDeclare":
+                                queueDeclared = true;
+                                return null;
+                            case "basicConsume":
+                                consumerTag = (String) args[2];
+                                consumer = (Consumer) args[3];
+                                consumer.handleConsumeOk(consumerTag);
+                                return consumerTag;
+                            case "isOpen":
+                                return true;
+                            case "getChannelNumber":
+                                return 0;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private synchronized void record(String call) {
+            calls.add(call);
+        }
+
+        synchronized List<String> getCalls() {
+            return new ArrayList<>(calls);
+        }
+
+        Channel getChannel() {
+            return channel;
+        }
+
+        int getQos() {
+            return qos;
+        }
+
+        boolean isQueueDeclared() {
+            return queueDeclared;
+        }
+
+        String getConsumerTag() {
+            return consumerTag;
+        }
+
+        Consumer getConsumer() {
+            return consumer;
+        }
+    }
+}
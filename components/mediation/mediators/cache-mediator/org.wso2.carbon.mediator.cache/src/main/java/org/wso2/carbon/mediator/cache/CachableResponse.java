@@ -20,6 +20,7 @@ package org.wso2.carbon.mediator.cache;
 import org.apache.axiom.soap.SOAPEnvelope;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
@@ -38,6 +39,16 @@ public class CachableResponse implements Serializable {
      */
     private byte[] responsePayload = null;
 
+    /**
+     * This holds the reference to the response for json when it is kept in the {@link OffHeapResponseStore}
+     */
+    private transient volatile ByteBuffer offHeapPayload = null;
+
+    /**
+     * The off-heap store in which the response payload for json should be kept, if any
+     */
+    private transient OffHeapResponseStore offHeapStore = null;
+
     /**
      * The response is stored as a SOAPEnvelope (This cannot be used if supporting a cluster because SOAPEnvelope is not
      * serializable)
@@ -50,6 +61,11 @@ public class CachableResponse implements Serializable {
      */
     private String requestHash;
 
+    /**
+     * This holds the id of the cache mediator which holds this response
+     */
+    private String cacheId;
+
     /**
      * This holds the timeout period of the cached response which will be used at the next refresh time in order to
      * generate the expireTimeMillis
@@ -106,6 +122,11 @@ public class CachableResponse implements Serializable {
      */
     private long responseFetchedTime;
 
+    /**
+     * This is used to store the time in milliseconds at which the response was stored in the cache.
+     */
+    private volatile long storedTime;
+
     /**
      * This specifies whether the mediator should honor cache-control header.
      */
@@ -121,18 +142,82 @@ public class CachableResponse implements Serializable {
      */
     public void clean() {
         responsePayload = null;
+        offHeapPayload = null;
         headerProperties = null;
     }
 
     /**
-     * This method gives the cached response payload for json as a byte array
+     * This method gives the cached response payload for json as a byte array. If the payload is kept off-heap, it is
+     * copied to a new byte array, so {@link #getResponsePayloadView()} should be preferred to serve a cache hit.
      *
      * @return byte[] representing the cached response payload for json
      */
     public byte[] getResponsePayload() {
+        if (responsePayload == null) {
+            ByteBuffer payload = offHeapPayload;
+            if (payload != null) {
+                byte[] bytes = new byte[payload.capacity()];
+                payload.duplicate().get(bytes);
+                return bytes;
+            }
+        }
         return responsePayload;
     }
 
+    /**
+     * This method gives a read-only view of the cached response payload for json. Unlike {@link #getResponsePayload()}
+     * the payload is not copied when it is kept off-heap, so this should be used to serve the cached response.
+     *
+     * @return read-only buffer positioned at the start of the payload, or null if no payload is available
+     */
+    public ByteBuffer getResponsePayloadView() {
+        byte[] payload = responsePayload;
+        if (payload != null) {
+            return ByteBuffer.wrap(payload).asReadOnlyBuffer();
+        }
+        ByteBuffer offHeap = offHeapPayload;
+        return offHeap == null ? null : offHeap.asReadOnlyBuffer();
+    }
+
+    /**
+     * This method gives the direct buffer holding the response payload when it is kept off-heap
+     *
+     * @return the direct buffer holding the response payload, or null if the payload is not kept off-heap
+     */
+    public ByteBuffer getOffHeapPayload() {
+        return offHeapPayload;
+    }
+
+    /**
+     * This method sets the direct buffer holding the response payload. This is set by the {@link OffHeapResponseStore}
+     *
+     * @param offHeapPayload the direct buffer holding the response payload
+     */
+    void setOffHeapPayload(ByteBuffer offHeapPayload) {
+        this.offHeapPayload = offHeapPayload;
+    }
+
+    /**
+     * @return the off-heap store in which the response payload for json should be kept, or null if it is kept on-heap
+     */
+    public OffHeapResponseStore getOffHeapStore() {
+        return offHeapStore;
+    }
+
+    /**
+     * @param offHeapStore the off-heap store in which the response payload for json should be kept
+     */
+    public void setOffHeapStore(OffHeapResponseStore offHeapStore) {
+        this.offHeapStore = offHeapStore;
+    }
+
+    /**
+     * @return whether a response payload or envelope is available in this response
+     */
+    public boolean hasResponse() {
+        return responsePayload != null || offHeapPayload != null || responseEnvelope != null;
+    }
+
     /**
      * This method sets the response payload to the cache as a byte array
      *
@@ -174,6 +259,24 @@ public class CachableResponse implements Serializable {
         this.requestHash = requestHash;
     }
 
+    /**
+     * This method gives the id of the cache mediator which holds this response
+     *
+     * @return id of the cache mediator
+     */
+    public String getCacheId() {
+        return cacheId;
+    }
+
+    /**
+     * This method sets the id of the cache mediator which holds this response
+     *
+     * @param cacheId - id of the cache mediator
+     */
+    public void setCacheId(String cacheId) {
+        this.cacheId = cacheId;
+    }
+
     /**
      * This method gives the timeout period in milliseconds
      *
@@ -358,6 +461,24 @@ public class CachableResponse implements Serializable {
         this.responseFetchedTime = responseFetchedTime;
     }
 
+    /**
+     * This method returns the time at which the response was stored in the cache.
+     *
+     * @return the time in milliseconds at which the response was stored in the cache.
+     */
+    public long getStoredTime() {
+        return storedTime;
+    }
+
+    /**
+     * This method sets the time at which the response was stored in the cache.
+     *
+     * @param storedTime the time in milliseconds at which the response was stored in the cache.
+     */
+    public void setStoredTime(long storedTime) {
+        this.storedTime = storedTime;
+    }
+
     /**
      * This method returns whether cache-control is enabled or not.
      *
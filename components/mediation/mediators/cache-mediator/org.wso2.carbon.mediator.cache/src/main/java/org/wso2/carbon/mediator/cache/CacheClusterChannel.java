@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.mediator.cache;
+
+/**
+ * The channel through which the mediator caches of the nodes in a cluster are kept coherent. Implementations publish
+ * the local cache changes to the other nodes and apply the changes received from them to the given
+ * {@link CacheManager}. The implementation to be used is specified with the
+ * {@link CachingConstants#CLUSTER_CHANNEL_PROPERTY} synapse property.
+ */
+public interface CacheClusterChannel {
+
+    /**
+     * Initializes the channel. This is called again later if the channel is not ready yet, e.g. since the cluster
+     * coordination has not been started.
+     *
+     * @param cacheManager the cache manager to which the changes received from the other nodes are applied
+     * @return whether the channel is ready to be used
+     */
+    boolean init(CacheManager cacheManager);
+
+    /**
+     * Publishes the invalidation of a cache entry to the other nodes.
+     *
+     * @param cacheId     the id of the invalidated cache, or null if all the caches are invalidated
+     * @param requestHash the request hash of the invalidated entry, or null if the whole cache is invalidated
+     */
+    void publishInvalidation(String cacheId, String requestHash);
+}
@@ -18,9 +18,15 @@
 package org.wso2.carbon.mediator.cache;
 
 import com.google.common.cache.LoadingCache;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.config.SynapsePropertiesLoader;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * There would be two instances of the cache mediator in a single mediation flow. Hence it must be possible for the
@@ -28,11 +34,113 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class CacheManager {
 
+    private static final Log log = LogFactory.getLog(CacheManager.class);
+
     /**
      * Maps the id with the relevant LoadingCache
      */
     private Map<String, LoadingCache<String, CachableResponse>> cacheMap = new ConcurrentHashMap<>();
 
+    /**
+     * Maps the id with the relevant OffHeapResponseStore
+     */
+    private Map<String, OffHeapResponseStore> offHeapStoreMap = new ConcurrentHashMap<>();
+
+    /**
+     * Maps the id with the relevant CacheStatistics
+     */
+    private Map<String, CacheStatistics> statisticsMap = new ConcurrentHashMap<>();
+
+    /**
+     * The class of the channel through which the caches of the cluster are kept coherent, or null if the caches are
+     * local
+     */
+    private final String clusterChannelClass;
+
+    /**
+     * The channel through which the caches of the cluster are kept coherent, or null if it has not been joined
+     */
+    private volatile CacheClusterChannel clusterChannel;
+
+    /**
+     * The earliest time at which joining the cluster channel is attempted again. Guarded by this instance.
+     */
+    private long nextClusterChannelAttempt;
+
+    /**
+     * Whether the failure to join the cluster channel has been logged. Guarded by this instance.
+     */
+    private boolean clusterChannelWarned;
+
+    /**
+     * The scheduler, shared by the cache mediators, which releases the coalesced requests of backend calls not
+     * completed in time. Guarded by this instance.
+     */
+    private ScheduledExecutorService coalesceTimer;
+
+    /**
+     * The number of cache mediators using the coalesce timer. Guarded by this instance.
+     */
+    private int coalesceTimerUsers;
+
+    /**
+     * Creates the CacheManager. The cluster channel, if the cluster consistency is configured, is joined later by
+     * {@link #initClusterChannel()}, since the cluster coordination may not have been started yet.
+     */
+    public CacheManager() {
+        String consistency = SynapsePropertiesLoader.getPropertyValue(CachingConstants.CLUSTER_CONSISTENCY_PROPERTY,
+                CachingConstants.CLUSTER_CONSISTENCY_NONE).trim();
+        if (CachingConstants.CLUSTER_CONSISTENCY_NONE.equals(consistency)) {
+            clusterChannelClass = null;
+            return;
+        }
+        if (!CachingConstants.CLUSTER_CONSISTENCY_INVALIDATE.equals(consistency)) {
+            log.warn("Unknown mediator cache cluster consistency : " + consistency + ". Only the invalidations will " +
+                             "be broadcast.");
+        }
+        clusterChannelClass = SynapsePropertiesLoader.getPropertyValue(CachingConstants.CLUSTER_CHANNEL_PROPERTY,
+                RDBMSCacheClusterChannel.class.getName()).trim();
+    }
+
+    /**
+     * Joins the cluster channel if the cluster consistency is configured and the channel has not been joined yet. If
+     * the channel is not ready, e.g. since the cluster coordination has not been started, joining is attempted again
+     * on a later call.
+     *
+     * @throws CachingException if the configured cluster channel cannot be created
+     */
+    void initClusterChannel() {
+        if (clusterChannelClass == null || clusterChannel != null) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (clusterChannel != null || now < nextClusterChannelAttempt) {
+                return;
+            }
+            CacheClusterChannel channel;
+            try {
+                channel = (CacheClusterChannel) Class.forName(clusterChannelClass).newInstance();
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException |
+                    ClassCastException e) {
+                throw new CachingException("Unable to create the mediator cache cluster channel : " +
+                                                   clusterChannelClass + ". Check the " +
+                                                   CachingConstants.CLUSTER_CHANNEL_PROPERTY + " property.", e);
+            }
+            if (channel.init(this)) {
+                clusterChannel = channel;
+                log.info("Mediator cache invalidations are broadcast through " + clusterChannelClass);
+            } else {
+                nextClusterChannelAttempt = now + CachingConstants.CLUSTER_CHANNEL_RETRY_INTERVAL;
+                if (!clusterChannelWarned) {
+                    clusterChannelWarned = true;
+                    log.warn("Mediator cache cluster channel " + clusterChannelClass + " is not ready. Mediator " +
+                                     "cache invalidations will not be broadcast until it is.");
+                }
+            }
+        }
+    }
+
     /**
      * @param id the id of the mediator
      * @return the relevant cache of the mediator
@@ -58,6 +166,133 @@ public class CacheManager {
      */
     void remove(String id) {
         cacheMap.remove(id);
+        OffHeapResponseStore offHeapStore = offHeapStoreMap.remove(id);
+        if (offHeapStore != null) {
+            offHeapStore.clear();
+        }
+    }
+
+    /**
+     * Gives the off-heap response store of the mediator, creating it atomically if it does not exist yet.
+     *
+     * @param id        the id of the cache mediator
+     * @param maxSize   the maximum number of payload bytes the store may hold
+     * @param threshold the minimum size in bytes of a payload to be kept in the store
+     * @return the relevant off-heap response store of the mediator
+     */
+    OffHeapResponseStore getOffHeapStore(String id, long maxSize, int threshold) {
+        return offHeapStoreMap.computeIfAbsent(id, key -> new OffHeapResponseStore(maxSize, threshold));
+    }
+
+    /**
+     * @param id the id of the mediator
+     * @return the statistics of the relevant cache of the mediator
+     */
+    CacheStatistics getStatistics(String id) {
+        return statisticsMap.computeIfAbsent(id, key -> new CacheStatistics());
+    }
+
+    /**
+     * @return the statistics of all the caches against their ids
+     */
+    Map<String, CacheStatistics> getAllStatistics() {
+        return statisticsMap;
+    }
+
+    /**
+     * Gives the scheduler which releases the coalesced requests of backend calls not completed in time. Each call
+     * must be matched by a call to {@link #releaseCoalesceTimer()} once the mediator is destroyed.
+     *
+     * @return the shared scheduler
+     */
+    synchronized ScheduledExecutorService acquireCoalesceTimer() {
+        if (coalesceTimer == null) {
+            coalesceTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "cache-coalesce-timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        coalesceTimerUsers++;
+        return coalesceTimer;
+    }
+
+    /**
+     * Releases the scheduler given by {@link #acquireCoalesceTimer()}. It is shut down once no mediator uses it.
+     */
+    synchronized void releaseCoalesceTimer() {
+        if (coalesceTimerUsers > 0 && --coalesceTimerUsers == 0) {
+            coalesceTimer.shutdownNow();
+            coalesceTimer = null;
+        }
+    }
+
+    /**
+     * Clears all the caches of this node and of the other nodes of the cluster
+     */
+    void invalidateAll() {
+        clean();
+        CacheClusterChannel channel = clusterChannel;
+        if (channel != null) {
+            channel.publishInvalidation(null, null);
+        }
+    }
+
+    /**
+     * Invalidates a cache, or a single entry of it, in this node and in the other nodes of the cluster
+     *
+     * @param id          the id of the cache to be invalidated
+     * @param requestHash the request hash of the entry to be invalidated, or null to invalidate the whole cache
+     */
+    void invalidate(String id, String requestHash) {
+        invalidateLocally(id, requestHash);
+        publishInvalidation(id, requestHash);
+    }
+
+    /**
+     * Invalidates a cache entry in the other nodes of the cluster, e.g. since it has been replaced in this node
+     *
+     * @param id          the id of the cache
+     * @param requestHash the request hash of the entry to be invalidated
+     */
+    void publishInvalidation(String id, String requestHash) {
+        CacheClusterChannel channel = clusterChannel;
+        if (channel != null) {
+            channel.publishInvalidation(id, requestHash);
+        }
+    }
+
+    /**
+     * Applies an invalidation received from another node of the cluster
+     *
+     * @param id          the id of the invalidated cache, or null if all the caches are invalidated
+     * @param requestHash the request hash of the invalidated entry, or null if the whole cache is invalidated
+     */
+    public void onRemoteInvalidation(String id, String requestHash) {
+        if (id == null) {
+            for (CacheStatistics statistics : statisticsMap.values()) {
+                statistics.recordRemoteInvalidation();
+            }
+            clean();
+            return;
+        }
+        getStatistics(id).recordRemoteInvalidation();
+        invalidateLocally(id, requestHash);
+    }
+
+    private void invalidateLocally(String id, String requestHash) {
+        LoadingCache<String, CachableResponse> cache = cacheMap.get(id);
+        if (cache == null) {
+            return;
+        }
+        if (requestHash == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(requestHash);
+        }
     }
 
     /**
@@ -65,6 +300,43 @@ public class CacheManager {
      */
     void clean() {
         cacheMap.clear();
+        for (OffHeapResponseStore offHeapStore : offHeapStoreMap.values()) {
+            offHeapStore.clear();
+        }
+        offHeapStoreMap.clear();
+    }
+
+    /**
+     * @return the number of payload bytes held off-heap by all the caches
+     */
+    long getOffHeapUsedSize() {
+        long usedSize = 0;
+        for (OffHeapResponseStore offHeapStore : offHeapStoreMap.values()) {
+            usedSize += offHeapStore.getUsedSize();
+        }
+        return usedSize;
+    }
+
+    /**
+     * @return the number of payloads evicted from the off-heap stores of all the caches
+     */
+    long getOffHeapEvictionCount() {
+        long evictionCount = 0;
+        for (OffHeapResponseStore offHeapStore : offHeapStoreMap.values()) {
+            evictionCount += offHeapStore.getEvictionCount();
+        }
+        return evictionCount;
+    }
+
+    /**
+     * @return the number of payloads held off-heap by all the caches
+     */
+    int getOffHeapEntryCount() {
+        int entryCount = 0;
+        for (OffHeapResponseStore offHeapStore : offHeapStoreMap.values()) {
+            entryCount += offHeapStore.getEntryCount();
+        }
+        return entryCount;
     }
 
 }
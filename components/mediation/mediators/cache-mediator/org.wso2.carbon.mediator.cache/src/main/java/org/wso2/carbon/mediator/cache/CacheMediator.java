@@ -20,11 +20,14 @@ package org.wso2.carbon.mediator.cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.Constants;
 import org.apache.axis2.context.ConfigurationContext;
+import org.apache.synapse.FaultHandler;
 import org.apache.synapse.ManagedLifecycle;
 import org.apache.synapse.Mediator;
 import org.apache.synapse.MessageContext;
@@ -33,6 +36,7 @@ import org.apache.synapse.SynapseLog;
 import org.apache.synapse.commons.json.JsonUtil;
 import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.continuation.ContinuationStackManager;
+import org.apache.synapse.continuation.SeqContinuationState;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.core.axis2.Axis2Sender;
@@ -44,15 +48,19 @@ import org.apache.synapse.transport.passthru.PassThroughConstants;
 import org.apache.synapse.util.FixedByteArrayOutputStream;
 import org.apache.synapse.util.MessageHelper;
 import org.wso2.carbon.mediator.cache.digest.DigestGenerator;
+import org.wso2.carbon.mediator.cache.util.ByteBufferInputStream;
 import org.wso2.carbon.mediator.cache.util.HttpCachingFilter;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -78,7 +86,8 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
     private final String jsonContentType = "application/json";
 
     /**
-     * Cache configuration ID.
+     * Cache configuration ID. The factory derives it from the enclosing artifact if it is not configured, hence it is
+     * random only for a mediator which is not defined within a named artifact.
      */
     private String id;
 
@@ -120,6 +129,43 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
      */
     private int inMemoryCacheSize = CachingConstants.DEFAULT_SIZE;
 
+    /**
+     * The total number of json payload bytes to be kept off-heap. If this is -1 then all the payloads are kept on-heap.
+     */
+    private long offHeapMaxSize = CachingConstants.DEFAULT_OFF_HEAP_MAX_SIZE;
+
+    /**
+     * The minimum size in bytes of a json payload to be kept off-heap.
+     */
+    private int offHeapThreshold = CachingConstants.DEFAULT_OFF_HEAP_THRESHOLD;
+
+    /**
+     * This specifies whether concurrent requests with the same hash should wait for a single backend call.
+     */
+    private boolean coalescingEnabled = false;
+
+    /**
+     * The time in milliseconds a coalesced request waits for the in-flight backend call before it is sent to the
+     * backend itself.
+     */
+    private long coalesceWaitTimeout = CachingConstants.DEFAULT_COALESCE_WAIT_TIMEOUT;
+
+    /**
+     * The time in seconds an expired response may be served while a single request revalidates it.
+     */
+    private long staleWhileRevalidate = CachingConstants.DEFAULT_STALE_WHILE_REVALIDATE;
+
+    /**
+     * The backend calls in progress against their request hashes when coalescing is enabled.
+     */
+    private final ConcurrentHashMap<String, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+
+    /**
+     * The scheduler, shared by the mediators of the cache manager, which releases the coalesced requests of backend
+     * calls not completed in time. This is null until a backend call is coalesced.
+     */
+    private ScheduledExecutorService coalesceTimer;
+
     /**
      * The compiled pattern for the regex of the responseCodes.
      */
@@ -199,6 +245,7 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
             onCacheHitSequence.init(se);
         }
         exposeInvalidator(se.createMessageContext());
+        cacheManager.initClusterChannel();
     }
 
     /**
@@ -208,6 +255,15 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         if (onCacheHitSequence != null) {
             onCacheHitSequence.destroy();
         }
+        for (InFlightRequest inFlight : inFlightRequests.values()) {
+            releaseInFlightRequest(inFlight, null, false);
+        }
+        synchronized (this) {
+            if (coalesceTimer != null) {
+                coalesceTimer = null;
+                cacheManager.releaseCoalesceTimer();
+            }
+        }
         cacheManager.remove(id);
     }
 
@@ -235,10 +291,15 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
             handleException("Unable to perform caching,  ConfigurationContext cannot be found", synCtx);
             return false; // never executes.. but keeps IDE happy
         }
+        cacheManager.initClusterChannel();
         boolean result = true;
         try {
             if (synCtx.isResponse()) {
-                processResponseMessage(synCtx, cfgCtx, synLog);
+                try {
+                    processResponseMessage(synCtx, cfgCtx, synLog);
+                } finally {
+                    completeInFlightRequest(synCtx);
+                }
             } else {
                 result = processRequestMessage(synCtx, synLog);
             }
@@ -259,6 +320,8 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         CachableResponse response = new CachableResponse();
         response.setRequestHash(requestHash);
         response.setTimeout(timeout);
+        response.setOffHeapStore(getOffHeapStore());
+        response.setCacheId(id);
         return response;
     }
 
@@ -299,12 +362,33 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         cachedResponse.setMaxMessageSize(maxMessageSize);
         cachedResponse.setCacheControlEnabled(cacheControlEnabled);
         cachedResponse.setAddAgeHeaderEnabled(addAgeHeaderEnabled);
-        if (cachedResponse.getResponsePayload() != null || cachedResponse.getResponseEnvelope() != null) {
+        ByteBuffer payload = cachedResponse.isJson() ? cachedResponse.getResponsePayloadView() : null;
+        CacheStatistics statistics = cacheManager.getStatistics(id);
+        if (payload != null || cachedResponse.getResponseEnvelope() != null) {
+            if (isStale(cachedResponse)) {
+                if (joinInFlightRequest(synCtx, requestHash) == null) {
+                    // this request revalidates the expired response while the others are served from it. Hence the
+                    // new response is collected into a new entry which replaces the expired one once it is cached
+                    synCtx.setProperty(CachingConstants.CACHED_OBJECT,
+                            newRevalidatingResponse(requestHash, httpMethod));
+                    synCtx.setProperty(CachingConstants.EXPIRED_CACHED_OBJECT, cachedResponse);
+                    if (synLog.isTraceOrDebugEnabled()) {
+                        synLog.traceOrDebug("Revalidating the expired response for request hash : " + requestHash);
+                    }
+                    statistics.recordMiss();
+                    return true;
+                }
+                statistics.recordStaleHit();
+            }
+            statistics.recordHit();
             // get the response from the cache and attach to the context and change the
             // direction of the message
             if (synLog.isTraceOrDebugEnabled()) {
                 synLog.traceOrDebug("Cache-hit for message ID : " + synCtx.getMessageID());
             }
+            if (cachedResponse.getOffHeapStore() != null) {
+                cachedResponse.getOffHeapStore().touch(requestHash);
+            }
             //Validate the response based on max-age and no-cache headers.
             if (CachingConstants.HTTP_PROTOCOL_TYPE.equals(getProtocolType())
                     && cachedResponse.isCacheControlEnabled() &&
@@ -313,27 +397,249 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
             }
             // mark as a response and replace envelope from cache
             synCtx.setResponse(true);
-            replaceEnvelopeWithCachedResponse(synCtx, synLog, msgCtx, cachedResponse);
+            replaceEnvelopeWithCachedResponse(synCtx, synLog, msgCtx, cachedResponse, payload);
             return false;
         }
+        if (coalescingEnabled) {
+            InFlightRequest inFlight = joinInFlightRequest(synCtx, requestHash);
+            if (inFlight != null && isResumable(synCtx) && inFlight.addWaiter(synCtx)) {
+                if (synLog.isTraceOrDebugEnabled()) {
+                    synLog.traceOrDebug("Message ID : " + synCtx.getMessageID() + " waits for the in-flight "
+                            + "backend call of request hash : " + requestHash);
+                }
+                statistics.recordCoalesced();
+                return false;
+            }
+        }
+        statistics.recordMiss();
         return true;
     }
 
+    /**
+     * Creates the response into which the backend call revalidating an expired response is collected. The expired
+     * response is kept intact, since it is served to the other requests until this one replaces it in the cache.
+     *
+     * @param requestHash the request hash of the expired response
+     * @param httpMethod  the http method of the revalidating request
+     * @return the new response
+     */
+    CachableResponse newRevalidatingResponse(String requestHash, String httpMethod) {
+        CachableResponse response = cacheNewResponse(requestHash);
+        response.setHttpMethod(httpMethod);
+        response.setProtocolType(protocolType);
+        response.setResponseCodePattern(responseCodePattern);
+        response.setHTTPMethodsToCache(hTTPMethodsToCache);
+        response.setMaxMessageSize(maxMessageSize);
+        response.setCacheControlEnabled(cacheControlEnabled);
+        response.setAddAgeHeaderEnabled(addAgeHeaderEnabled);
+        return response;
+    }
+
+    /**
+     * Fills the response collected by a revalidating backend call with the expired response, which the backend has
+     * confirmed to be still valid.
+     *
+     * @param expired  the expired response
+     * @param response the response of the revalidating backend call
+     * @param headers  the transport headers of the not modified response
+     * @param synLog   the Synapse log to use
+     */
+    private void refreshExpiredResponse(CachableResponse expired, CachableResponse response,
+                                        Map<String, String> headers, SynapseLog synLog) {
+        response.setJson(expired.isJson());
+        response.setStatusCode(expired.getStatusCode());
+        response.setStatusReason((String) expired.getStatusReason());
+        response.setResponseFetchedTime(expired.getResponseFetchedTime());
+        Map<String, Object> headerProperties = expired.getHeaderProperties();
+        if (headerProperties != null) {
+            response.setHeaderProperties(new ConcurrentHashMap<>(headerProperties));
+        }
+        if (expired.isJson()) {
+            byte[] payload = expired.getResponsePayload();
+            OffHeapResponseStore offHeapStore = response.getOffHeapStore();
+            if (payload != null && (offHeapStore == null || !offHeapStore.store(response, payload))) {
+                response.setResponsePayload(payload);
+            }
+        } else {
+            response.setResponseEnvelope(expired.getResponseEnvelope());
+        }
+        if (response.isCacheControlEnabled() || response.isAddAgeHeaderEnabled()) {
+            try {
+                HttpCachingFilter.setResponseCachedTime(headers, response);
+            } catch (ParseException e) {
+                synLog.auditWarn("Error occurred while parsing the date." + e.getMessage());
+            }
+        }
+        response.setStoredTime(System.currentTimeMillis());
+    }
+
+    /**
+     * Checks whether the cached response has expired and is only kept to be served while it is revalidated.
+     *
+     * @param cachedResponse the cached response
+     * @return whether the response has expired
+     */
+    private boolean isStale(CachableResponse cachedResponse) {
+        return coalescingEnabled && staleWhileRevalidate > 0 && cachedResponse.getStoredTime() > 0 &&
+                System.currentTimeMillis() - cachedResponse.getStoredTime() > TimeUnit.SECONDS.toMillis(timeout);
+    }
+
+    /**
+     * Registers the request as the in-flight backend call for its request hash, unless there is one already.
+     *
+     * @param synCtx      the request message
+     * @param requestHash the request hash of the message
+     * @return the in-flight backend call of another request, or null if this request has been registered
+     */
+    private InFlightRequest joinInFlightRequest(MessageContext synCtx, String requestHash) {
+        final InFlightRequest inFlight = new InFlightRequest(this, requestHash);
+        InFlightRequest existing = inFlightRequests.putIfAbsent(requestHash, inFlight);
+        if (existing != null) {
+            return existing;
+        }
+        synCtx.setProperty(CachingConstants.IN_FLIGHT_REQUEST, inFlight);
+        inFlight.setTimeoutTask(getCoalesceTimer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                releaseInFlightRequest(inFlight, null, true);
+            }
+        }, coalesceWaitTimeout, TimeUnit.MILLISECONDS));
+        return null;
+    }
+
+    /**
+     * Checks whether the mediation of the request can be resumed after this mediator once it has been parked.
+     *
+     * @param synCtx the request message
+     * @return whether the mediation can be resumed
+     */
+    private boolean isResumable(MessageContext synCtx) {
+        return synCtx.isContinuationEnabled() && !synCtx.getContinuationStateStack().isEmpty();
+    }
+
+    /**
+     * Completes the in-flight backend call started by the request of this response message, if any.
+     *
+     * @param synCtx the response message
+     */
+    private void completeInFlightRequest(MessageContext synCtx) {
+        InFlightRequest inFlight = (InFlightRequest) synCtx.getProperty(CachingConstants.IN_FLIGHT_REQUEST);
+        if (inFlight == null) {
+            return;
+        }
+        synCtx.setProperty(CachingConstants.IN_FLIGHT_REQUEST, null);
+        CachableResponse response = (CachableResponse) synCtx.getProperty(CachingConstants.CACHED_OBJECT);
+        inFlight.getOwner().onInFlightRequestComplete(inFlight,
+                response != null && response.hasResponse() ? response : null);
+    }
+
+    /**
+     * Stores the response of an in-flight backend call started by this mediator and serves the requests waiting for
+     * it.
+     *
+     * @param inFlight the completed backend call
+     * @param response the cached response, or null if the response was not cached
+     */
+    void onInFlightRequestComplete(InFlightRequest inFlight, CachableResponse response) {
+        if (response != null) {
+            // either replaces the expired response being revalidated, or restarts the expiry of the response which
+            // is updated in place
+            getMediatorCache().put(inFlight.getRequestHash(), response);
+        }
+        releaseInFlightRequest(inFlight, response, false);
+    }
+
+    /**
+     * Removes the in-flight backend call and resumes the requests waiting for it. They are served from the given
+     * response if available, or else sent to the backend.
+     *
+     * @param inFlight the in-flight backend call
+     * @param response the response to serve the waiting requests, or null
+     * @param timedOut whether the backend call did not complete in time
+     */
+    private void releaseInFlightRequest(InFlightRequest inFlight, CachableResponse response, boolean timedOut) {
+        inFlightRequests.remove(inFlight.getRequestHash(), inFlight);
+        List<MessageContext> waiters = inFlight.complete();
+        CacheStatistics statistics = cacheManager.getStatistics(id);
+        for (MessageContext waiter : waiters) {
+            if (timedOut) {
+                statistics.recordCoalesceTimeout();
+            }
+            resumeWaiter(waiter, response);
+        }
+    }
+
+    /**
+     * Resumes a parked request in the synapse worker pool.
+     *
+     * @param synCtx   the parked request
+     * @param response the response to serve the request, or null to send the request to the backend
+     */
+    private void resumeWaiter(final MessageContext synCtx, final CachableResponse response) {
+        synCtx.getEnvironment().getExecutorService().execute(new Runnable() {
+            @Override
+            public void run() {
+                SynapseLog synLog = getLog(synCtx);
+                try {
+                    ByteBuffer payload = response != null && response.isJson() ? response.getResponsePayloadView() : null;
+                    if (payload != null || (response != null && response.getResponseEnvelope() != null)) {
+                        synCtx.setResponse(true);
+                        replaceEnvelopeWithCachedResponse(synCtx, synLog,
+                                ((Axis2MessageContext) synCtx).getAxis2MessageContext(), response, payload);
+                    } else {
+                        if (synLog.isTraceOrDebugEnabled()) {
+                            synLog.traceOrDebug("Sending the waiting message ID : " + synCtx.getMessageID()
+                                    + " to the backend");
+                        }
+                        ContinuationStackManager.updateSeqContinuationState(synCtx, getMediatorPosition());
+                        SeqContinuationState seqState =
+                                (SeqContinuationState) ContinuationStackManager.peakContinuationStateStack(synCtx);
+                        SequenceMediator sequence = ContinuationStackManager.retrieveSequence(synCtx, seqState);
+                        sequence.mediate(synCtx, seqState);
+                    }
+                } catch (SynapseException e) {
+                    if (!synCtx.getFaultStack().isEmpty()) {
+                        ((FaultHandler) synCtx.getFaultStack().pop()).handleFault(synCtx, e);
+                    } else {
+                        synLog.error("Error while resuming the waiting message ID : " + synCtx.getMessageID()
+                                + " : " + e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Gives the scheduler which releases the coalesced requests of backend calls not completed in time.
+     *
+     * @return the scheduler
+     */
+    private synchronized ScheduledExecutorService getCoalesceTimer() {
+        if (coalesceTimer == null) {
+            coalesceTimer = cacheManager.acquireCoalesceTimer();
+        }
+        return coalesceTimer;
+    }
+
     /**
      * This method returns the existing cached response.
      * @param synCtx Message context.
      * @param synLog Synapse log.
      * @param msgCtx Axis2 contex.
      * @param cachedResponse Cached response.
+     * @param payload Cached response payload for json.
      */
     private void replaceEnvelopeWithCachedResponse(MessageContext synCtx, SynapseLog synLog,
-                                                   org.apache.axis2.context.MessageContext msgCtx, CachableResponse cachedResponse) {
+                                                   org.apache.axis2.context.MessageContext msgCtx,
+                                                   CachableResponse cachedResponse, ByteBuffer payload) {
         Map<String, Object> headerProperties;
         try {
             if (cachedResponse.isJson()) {
-                byte[] payload = cachedResponse.getResponsePayload();
-                OMElement response = JsonUtil.getNewJsonPayload(msgCtx, payload, 0,
-                        payload.length, false, false);
+                if (payload == null) {
+                    handleException("Cached response payload is no longer available in cache : " + id, synCtx);
+                }
+                OMElement response = JsonUtil.getNewJsonPayload(msgCtx, new ByteBufferInputStream(payload), false,
+                        false);
                 if (msgCtx.getEnvelope().getBody().getFirstElement() != null) {
                     msgCtx.getEnvelope().getBody().getFirstElement().detach();
                 }
@@ -428,6 +734,8 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                 // If "no-store" header presents in the response, returned response can not be cached.
                 if (response.isCacheControlEnabled() && HttpCachingFilter.isNoStore(msgCtx)) {
                     response.clean();
+                    // the entries kept for the request, in this node or the others, must not be served anymore
+                    cacheManager.invalidate(response.getCacheId(), response.getRequestHash());
                     return;
                 }
                 //Need to check the data type of HTTP_SC to avoid classcast exceptions.
@@ -440,7 +748,14 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                 if (statusCode != null) {
                     //If status code is SC_NOT_MODIFIED then return the cached response.
                     if (statusCode.equals(SC_NOT_MODIFIED)) {
-                        replaceEnvelopeWithCachedResponse(synCtx, synLog, msgCtx, response);
+                        CachableResponse expired =
+                                (CachableResponse) synCtx.getProperty(CachingConstants.EXPIRED_CACHED_OBJECT);
+                        if (expired != null && expired.hasResponse()) {
+                            refreshExpiredResponse(expired, response, (Map<String, String>) msgCtx.getProperty(
+                                    org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS), synLog);
+                        }
+                        replaceEnvelopeWithCachedResponse(synCtx, synLog, msgCtx, response,
+                                response.getResponsePayloadView());
                         return;
                     }
                     // Now create matcher object.
@@ -479,9 +794,17 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                                 "Message size exceeds the upper bound for caching, request will not be cached");
                         return;
                     }
-                    response.setResponsePayload(responsePayload);
                     response.setResponseEnvelope(null);
                     response.setJson(true);
+                    OffHeapResponseStore offHeapStore = response.getOffHeapStore();
+                    if (offHeapStore != null && offHeapStore.store(response, responsePayload)) {
+                        response.setResponsePayload(null);
+                    } else {
+                        if (offHeapStore != null) {
+                            offHeapStore.remove(response.getRequestHash(), response);
+                        }
+                        response.setResponsePayload(responsePayload);
+                    }
                 } else {
                     SOAPEnvelope clonedEnvelope = MessageHelper.cloneSOAPEnvelope(synCtx.getEnvelope());
                     if (response.getMaxMessageSize() > -1) {
@@ -505,6 +828,9 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                         }
                     }
 
+                    if (response.getOffHeapStore() != null) {
+                        response.getOffHeapStore().remove(response.getRequestHash(), response);
+                    }
                     response.setResponsePayload(null);
                     response.setResponseEnvelope(clonedEnvelope);
                     response.setJson(false);
@@ -543,7 +869,12 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                 headerProperties.put(Constants.Configuration.MESSAGE_TYPE, messageType);
                 headerProperties.put(CachingConstants.CACHE_KEY, response.getRequestHash());
                 response.setHeaderProperties(headerProperties);
+                response.setStoredTime(System.currentTimeMillis());
                 msgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headerProperties);
+                if (synCtx.getProperty(CachingConstants.EXPIRED_CACHED_OBJECT) != null) {
+                    // the other nodes may still serve the expired response this one replaces
+                    cacheManager.publishInvalidation(response.getCacheId(), response.getRequestHash());
+                }
 
             } else {
                 response.clean();
@@ -563,30 +894,46 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
     public LoadingCache<String, CachableResponse> getMediatorCache() {
         LoadingCache<String, CachableResponse> cache = cacheManager.get(id);
         if (cache == null) {
+            // expired responses are kept for staleWhileRevalidate seconds more to be served while revalidated
+            long expiry = coalescingEnabled && staleWhileRevalidate > 0 ? timeout + staleWhileRevalidate : timeout;
+            CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().expireAfterWrite(expiry,
+                    TimeUnit.SECONDS);
             if (inMemoryCacheSize > -1) {
-                cache = CacheBuilder.newBuilder().expireAfterWrite(timeout,
-                        TimeUnit.SECONDS).maximumSize(inMemoryCacheSize)
-                        .build(new CacheLoader<String, CachableResponse>() {
-                            @Override
-                            public CachableResponse load(String requestHash) throws Exception {
-                                return cacheNewResponse(requestHash);
-                            }
-                        });
-            } else {
-                cache = CacheBuilder.newBuilder().expireAfterWrite(timeout,
-                        TimeUnit.SECONDS).build(
-                        new CacheLoader<String, CachableResponse>() {
-                            @Override
-                            public CachableResponse load(String requestHash) throws Exception {
-                                return cacheNewResponse(requestHash);
-                            }
-                        });
+                cacheBuilder.maximumSize(inMemoryCacheSize);
+            }
+            final OffHeapResponseStore offHeapStore = getOffHeapStore();
+            if (offHeapStore != null) {
+                // release the off-heap payload as soon as the response is expired or evicted from the cache
+                cacheBuilder.removalListener(new RemovalListener<String, CachableResponse>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<String, CachableResponse> notification) {
+                        offHeapStore.remove(notification.getKey(), notification.getValue());
+                    }
+                });
             }
+            cache = cacheBuilder.build(new CacheLoader<String, CachableResponse>() {
+                @Override
+                public CachableResponse load(String requestHash) throws Exception {
+                    return cacheNewResponse(requestHash);
+                }
+            });
             cacheManager.put(id, cache);
         }
         return cache;
     }
 
+    /**
+     * Creates the off-heap store to keep the json payloads of the mediator cache, if it is enabled.
+     *
+     * @return off-heap response store or null if the payloads should be kept on-heap
+     */
+    private OffHeapResponseStore getOffHeapStore() {
+        if (offHeapMaxSize < 0) {
+            return null;
+        }
+        return cacheManager.getOffHeapStore(id, offHeapMaxSize, offHeapThreshold);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -769,6 +1116,96 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         this.inMemoryCacheSize = inMemoryCacheSize;
     }
 
+    /**
+     * This method gives the total number of json payload bytes to be kept off-heap.
+     *
+     * @return off-heap cache size in bytes.
+     */
+    public long getOffHeapMaxSize() {
+        return offHeapMaxSize;
+    }
+
+    /**
+     * This method sets the total number of json payload bytes to be kept off-heap.
+     *
+     * @param offHeapMaxSize value(number of bytes) to be set as off-heap cache size.
+     */
+    public void setOffHeapMaxSize(long offHeapMaxSize) {
+        this.offHeapMaxSize = offHeapMaxSize;
+    }
+
+    /**
+     * This method gives the minimum size of a json payload to be kept off-heap.
+     *
+     * @return minimum size of an off-heap payload in bytes.
+     */
+    public int getOffHeapThreshold() {
+        return offHeapThreshold;
+    }
+
+    /**
+     * This method sets the minimum size of a json payload to be kept off-heap.
+     *
+     * @param offHeapThreshold minimum size of an off-heap payload in bytes.
+     */
+    public void setOffHeapThreshold(int offHeapThreshold) {
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    /**
+     * This method returns whether concurrent requests with the same hash wait for a single backend call.
+     *
+     * @return whether request coalescing is enabled or not.
+     */
+    public boolean isCoalescingEnabled() {
+        return coalescingEnabled;
+    }
+
+    /**
+     * This method sets whether concurrent requests with the same hash wait for a single backend call.
+     *
+     * @param coalescingEnabled whether request coalescing is enabled or not.
+     */
+    public void setCoalescingEnabled(boolean coalescingEnabled) {
+        this.coalescingEnabled = coalescingEnabled;
+    }
+
+    /**
+     * This method gives the time a coalesced request waits for the in-flight backend call.
+     *
+     * @return wait timeout in milliseconds.
+     */
+    public long getCoalesceWaitTimeout() {
+        return coalesceWaitTimeout;
+    }
+
+    /**
+     * This method sets the time a coalesced request waits for the in-flight backend call.
+     *
+     * @param coalesceWaitTimeout wait timeout in milliseconds.
+     */
+    public void setCoalesceWaitTimeout(long coalesceWaitTimeout) {
+        this.coalesceWaitTimeout = coalesceWaitTimeout;
+    }
+
+    /**
+     * This method gives the time an expired response may be served while it is being revalidated.
+     *
+     * @return stale-while-revalidate time in seconds.
+     */
+    public long getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * This method sets the time an expired response may be served while it is being revalidated.
+     *
+     * @param staleWhileRevalidate stale-while-revalidate time in seconds.
+     */
+    public void setStaleWhileRevalidate(long staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
     /**
      * This method gives the HTTP method that needs to be cached.
      *
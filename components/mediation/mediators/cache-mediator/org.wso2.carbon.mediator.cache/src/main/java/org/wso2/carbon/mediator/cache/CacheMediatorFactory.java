@@ -19,6 +19,7 @@ package org.wso2.carbon.mediator.cache;
 
 import org.apache.axiom.om.OMAttribute;
 import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMNode;
 import org.apache.commons.lang.StringUtils;
 import org.apache.synapse.Mediator;
 import org.apache.synapse.config.xml.AbstractMediatorFactory;
@@ -112,6 +113,32 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
      */
     private static final QName ATT_SIZE = new QName(CachingConstants.MAX_SIZE_STRING);
 
+    /**
+     * QName of the maximum off-heap cache size.
+     */
+    private static final QName ATT_OFF_HEAP_SIZE = new QName(CachingConstants.OFF_HEAP_MAX_SIZE_STRING);
+
+    /**
+     * QName of the minimum size of an off-heap payload.
+     */
+    private static final QName ATT_OFF_HEAP_THRESHOLD = new QName(CachingConstants.OFF_HEAP_THRESHOLD_STRING);
+
+    /**
+     * QName of the request coalescing configuration.
+     */
+    private static final QName COALESCE_Q = new QName(XMLConfigConstants.SYNAPSE_NAMESPACE,
+                                                      CachingConstants.COALESCE_STRING);
+
+    /**
+     * QName of the time a coalesced request waits for the in-flight backend call.
+     */
+    private static final QName ATT_WAIT_TIMEOUT = new QName(CachingConstants.WAIT_TIMEOUT_STRING);
+
+    /**
+     * QName of the time an expired response may be served while it is being revalidated.
+     */
+    private static final QName ATT_STALE_WHILE_REVALIDATE = new QName(CachingConstants.STALE_WHILE_REVALIDATE_STRING);
+
     /**
      * QName of the enableCacheControl.
      */
@@ -128,6 +155,11 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
      */
     private static final QName ATT_ID = new QName(CachingConstants.ID_STRING);
 
+    /**
+     * QName of the name of the artifact in which the cache mediator is defined.
+     */
+    private static final QName ATT_ARTIFACT_NAME = new QName("name");
+
     /**
      * QName of the cache scope.
      */
@@ -178,6 +210,11 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
                 OMAttribute idAttribute = elem.getAttribute(ATT_ID);
                 if (idAttribute != null && idAttribute.getAttributeValue() != null) {
                     cache.setId(idAttribute.getAttributeValue().trim());
+                } else {
+                    String defaultId = createDefaultId(elem);
+                    if (defaultId != null) {
+                        cache.setId(defaultId);
+                    }
                 }
 
                 OMAttribute hashGeneratorAttribute = elem.getAttribute(ATT_HASH_GENERATOR);
@@ -337,11 +374,45 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
                         cache.setInMemoryCacheSize(-1);
                     }
 
+                    OMAttribute offHeapSizeAttr = implElem.getAttribute(ATT_OFF_HEAP_SIZE);
+                    if (offHeapSizeAttr != null && offHeapSizeAttr.getAttributeValue() != null) {
+                        cache.setOffHeapMaxSize(Long.parseLong(offHeapSizeAttr.getAttributeValue().trim()));
+                    } else {
+                        cache.setOffHeapMaxSize(CachingConstants.DEFAULT_OFF_HEAP_MAX_SIZE);
+                    }
+
+                    OMAttribute offHeapThresholdAttr = implElem.getAttribute(ATT_OFF_HEAP_THRESHOLD);
+                    if (offHeapThresholdAttr != null && offHeapThresholdAttr.getAttributeValue() != null) {
+                        cache.setOffHeapThreshold(Integer.parseInt(offHeapThresholdAttr.getAttributeValue().trim()));
+                    } else {
+                        cache.setOffHeapThreshold(CachingConstants.DEFAULT_OFF_HEAP_THRESHOLD);
+                    }
+
                     OMAttribute typeAttribute = implElem.getAttribute(ATT_TYPE);
                     if (typeAttribute != null && typeAttribute.getAttributeValue() != null) {
                         cache.setImplementationType(typeAttribute.getAttributeValue().trim());
                     }
                 }
+
+                OMElement coalesceElem = elem.getFirstChildWithName(COALESCE_Q);
+                if (coalesceElem != null) {
+                    cache.setCoalescingEnabled(true);
+                    OMAttribute waitTimeoutAttr = coalesceElem.getAttribute(ATT_WAIT_TIMEOUT);
+                    if (waitTimeoutAttr != null && waitTimeoutAttr.getAttributeValue() != null) {
+                        cache.setCoalesceWaitTimeout(Long.parseLong(waitTimeoutAttr.getAttributeValue().trim()));
+                    } else {
+                        cache.setCoalesceWaitTimeout(CachingConstants.DEFAULT_COALESCE_WAIT_TIMEOUT);
+                    }
+
+                    OMAttribute staleAttr = coalesceElem.getAttribute(ATT_STALE_WHILE_REVALIDATE);
+                    if (staleAttr != null && staleAttr.getAttributeValue() != null) {
+                        cache.setStaleWhileRevalidate(Long.parseLong(staleAttr.getAttributeValue().trim()));
+                    } else {
+                        cache.setStaleWhileRevalidate(CachingConstants.DEFAULT_STALE_WHILE_REVALIDATE);
+                    }
+                } else {
+                    cache.setCoalescingEnabled(false);
+                }
             } else {
                 handleException("The value for collector has to be either true or false");
             }
@@ -354,6 +425,37 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
         return cache;
     }
 
+    /**
+     * Creates the id of a cache mediator without an id attribute from the name of the artifact it is defined in and
+     * its position within the artifact. Hence the mediator gets the same id in all the nodes of a cluster, which
+     * identifies its cache in the invalidations broadcast between them.
+     *
+     * @param elem the cache mediator configuration
+     * @return the id, or null if the mediator is not defined within a named artifact
+     */
+    static String createDefaultId(OMElement elem) {
+        StringBuilder path = new StringBuilder();
+        OMElement element = elem;
+        while (element.getAttributeValue(ATT_ARTIFACT_NAME) == null) {
+            if (!(element.getParent() instanceof OMElement)) {
+                return null;
+            }
+            int position = 0;
+            for (OMNode sibling = element.getPreviousOMSibling(); sibling != null;
+                 sibling = sibling.getPreviousOMSibling()) {
+                if (sibling instanceof OMElement) {
+                    position++;
+                }
+            }
+            path.insert(0, "/" + element.getLocalName() + "[" + position + "]");
+            element = (OMElement) element.getParent();
+        }
+        if (element == elem) {
+            return null;
+        }
+        return element.getLocalName() + ":" + element.getAttributeValue(ATT_ARTIFACT_NAME) + path;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -155,16 +155,33 @@ public class CacheMediatorSerializer extends AbstractMediatorSerializer {
                 cacheElem.addChild(protocolElem);
             }
 
-            if (cacheMediator.getInMemoryCacheSize() > -1) {
+            if (cacheMediator.getInMemoryCacheSize() > -1 || cacheMediator.getOffHeapMaxSize() > -1) {
                 OMElement implElem = fac.createOMElement(CachingConstants.IMPLEMENTATION_STRING, synNS);
-                implElem.addAttribute(fac.createOMAttribute(CachingConstants.MAX_SIZE_STRING, nullNS,
-                                                            Integer.toString(cacheMediator.getInMemoryCacheSize())));
+                if (cacheMediator.getInMemoryCacheSize() > -1) {
+                    implElem.addAttribute(fac.createOMAttribute(CachingConstants.MAX_SIZE_STRING, nullNS,
+                            Integer.toString(cacheMediator.getInMemoryCacheSize())));
+                }
+                if (cacheMediator.getOffHeapMaxSize() > -1) {
+                    implElem.addAttribute(fac.createOMAttribute(CachingConstants.OFF_HEAP_MAX_SIZE_STRING, nullNS,
+                            Long.toString(cacheMediator.getOffHeapMaxSize())));
+                    implElem.addAttribute(fac.createOMAttribute(CachingConstants.OFF_HEAP_THRESHOLD_STRING, nullNS,
+                            Integer.toString(cacheMediator.getOffHeapThreshold())));
+                }
                 if (isPreviousCacheImplementation) {
                     implElem.addAttribute(fac.createOMAttribute(CachingConstants.TYPE_STRING, nullNS,
                             cacheMediator.getImplementationType()));
                 }
                 cacheElem.addChild(implElem);
             }
+
+            if (cacheMediator.isCoalescingEnabled()) {
+                OMElement coalesceElem = fac.createOMElement(CachingConstants.COALESCE_STRING, synNS);
+                coalesceElem.addAttribute(fac.createOMAttribute(CachingConstants.WAIT_TIMEOUT_STRING, nullNS,
+                        Long.toString(cacheMediator.getCoalesceWaitTimeout())));
+                coalesceElem.addAttribute(fac.createOMAttribute(CachingConstants.STALE_WHILE_REVALIDATE_STRING,
+                        nullNS, Long.toString(cacheMediator.getStaleWhileRevalidate())));
+                cacheElem.addChild(coalesceElem);
+            }
         }
 
         serializeComments(cacheElem, cacheMediator.getCommentsList());
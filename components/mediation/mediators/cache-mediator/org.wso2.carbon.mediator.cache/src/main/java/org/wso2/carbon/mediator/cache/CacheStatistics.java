@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.mediator.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the hit and miss counts of a single mediator cache.
+ */
+public class CacheStatistics {
+
+    /**
+     * Number of requests served from the cache.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * Number of requests which were not found in the cache.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Number of invalidations received from the other nodes of the cluster.
+     */
+    private final AtomicLong remoteInvalidationCount = new AtomicLong();
+
+    /**
+     * Number of requests which waited for the backend call of an identical request instead of calling the backend.
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Number of coalesced requests which were sent to the backend since the identical request did not complete in time.
+     */
+    private final AtomicLong coalesceTimeoutCount = new AtomicLong();
+
+    /**
+     * Number of requests served from an expired response while it was being revalidated.
+     */
+    private final AtomicLong staleHitCount = new AtomicLong();
+
+    /**
+     * Records a request served from the cache.
+     */
+    void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    /**
+     * Records a request which was not found in the cache.
+     */
+    void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    /**
+     * Records an invalidation received from another node of the cluster.
+     */
+    void recordRemoteInvalidation() {
+        remoteInvalidationCount.incrementAndGet();
+    }
+
+    /**
+     * Records a request which waited for the backend call of an identical request.
+     */
+    void recordCoalesced() {
+        coalescedCount.incrementAndGet();
+    }
+
+    /**
+     * Records a coalesced request which was sent to the backend after the wait timeout.
+     */
+    void recordCoalesceTimeout() {
+        coalesceTimeoutCount.incrementAndGet();
+    }
+
+    /**
+     * Records a request served from an expired response while it was being revalidated.
+     */
+    void recordStaleHit() {
+        staleHitCount.incrementAndGet();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getRemoteInvalidationCount() {
+        return remoteInvalidationCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getCoalesceTimeoutCount() {
+        return coalesceTimeoutCount.get();
+    }
+
+    public long getStaleHitCount() {
+        return staleHitCount.get();
+    }
+
+    /**
+     * @return the statistics as a map of names to values
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("hitCount", getHitCount());
+        statistics.put("missCount", getMissCount());
+        statistics.put("remoteInvalidationCount", getRemoteInvalidationCount());
+        statistics.put("coalescedCount", getCoalescedCount());
+        statistics.put("coalesceTimeoutCount", getCoalesceTimeoutCount());
+        statistics.put("staleHitCount", getStaleHitCount());
+        return statistics;
+    }
+}
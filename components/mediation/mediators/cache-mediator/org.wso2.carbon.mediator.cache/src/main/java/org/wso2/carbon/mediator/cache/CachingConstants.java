@@ -84,6 +84,36 @@ public class CachingConstants {
      */
     public static final int DEFAULT_SIZE = -1;
 
+    /**
+     * The default maximum number of payload bytes kept off-heap. A negative value keeps all the payloads on-heap.
+     */
+    public static final long DEFAULT_OFF_HEAP_MAX_SIZE = -1;
+
+    /**
+     * The default minimum size in bytes of a json payload to be kept off-heap.
+     */
+    public static final int DEFAULT_OFF_HEAP_THRESHOLD = 1024;
+
+    /**
+     * String key to store the in-flight backend call started by a request in the message context.
+     */
+    public static final String IN_FLIGHT_REQUEST = "CacheInFlightRequest";
+
+    /**
+     * String key to store the expired response which is being revalidated by a request in the message context.
+     */
+    public static final String EXPIRED_CACHED_OBJECT = "ExpiredCachableResponse";
+
+    /**
+     * The default time in milliseconds a coalesced request waits for the in-flight backend call.
+     */
+    public static final long DEFAULT_COALESCE_WAIT_TIMEOUT = 5000;
+
+    /**
+     * The default time in seconds an expired response may be served while it is being revalidated.
+     */
+    public static final long DEFAULT_STALE_WHILE_REVALIDATE = 0;
+
     /**
      * The default value for enableCacheControl.
      */
@@ -94,6 +124,32 @@ public class CachingConstants {
      */
     public static final boolean DEFAULT_ADD_AGE_HEADER = false;
 
+    /**
+     * Synapse property specifying how the mediator caches of the cluster are kept coherent. One of
+     * {@link #CLUSTER_CONSISTENCY_NONE} or {@link #CLUSTER_CONSISTENCY_INVALIDATE}.
+     */
+    public static final String CLUSTER_CONSISTENCY_PROPERTY = "synapse.cache.cluster.consistency";
+
+    /**
+     * The caches of the nodes are independent.
+     */
+    public static final String CLUSTER_CONSISTENCY_NONE = "none";
+
+    /**
+     * Cache invalidations are broadcast to the other nodes.
+     */
+    public static final String CLUSTER_CONSISTENCY_INVALIDATE = "invalidate";
+
+    /**
+     * Synapse property specifying the {@link CacheClusterChannel} implementation class.
+     */
+    public static final String CLUSTER_CHANNEL_PROPERTY = "synapse.cache.cluster.channel";
+
+    /**
+     * Minimum time in milliseconds between two attempts to join the cluster channel while it is not ready.
+     */
+    public static final long CLUSTER_CHANNEL_RETRY_INTERVAL = 10000;
+
     /**
      * Headers which need to be permanently excluded in hashing due to its dynamic nature.
      */
@@ -117,6 +173,11 @@ public class CachingConstants {
     public static final String HASH_GENERATOR_STRING = "hashGenerator";
     public static final String IMPLEMENTATION_STRING = "implementation";
     public static final String MAX_SIZE_STRING = "maxSize";
+    public static final String OFF_HEAP_MAX_SIZE_STRING = "offHeapMaxSize";
+    public static final String OFF_HEAP_THRESHOLD_STRING = "offHeapThreshold";
+    public static final String COALESCE_STRING = "coalesce";
+    public static final String WAIT_TIMEOUT_STRING = "waitTimeout";
+    public static final String STALE_WHILE_REVALIDATE_STRING = "staleWhileRevalidate";
     public static final String ENABLE_CACHE_CONTROL_STRING = "enableCacheControl";
     public static final String INCLUDE_AGE_HEADER_STRING = "includeAgeHeader";
     public static final String IF_NONE_MATCH = "IF-None-Match";
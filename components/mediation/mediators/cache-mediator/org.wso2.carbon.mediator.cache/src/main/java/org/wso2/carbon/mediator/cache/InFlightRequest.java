@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.mediator.cache;
+
+import org.apache.synapse.MessageContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Represents the single backend call which is in progress for a request hash when request coalescing is enabled. The
+ * other requests with the same hash are parked here, without holding a thread, until the response of that call is
+ * cached or the wait timeout is reached.
+ */
+public class InFlightRequest {
+
+    /**
+     * The cache mediator which started the backend call and which serves the parked requests.
+     */
+    private final CacheMediator owner;
+
+    /**
+     * The request hash of the backend call.
+     */
+    private final String requestHash;
+
+    /**
+     * The requests parked until the backend call completes. Guarded by this instance.
+     */
+    private List<MessageContext> waiters = new ArrayList<>();
+
+    /**
+     * Whether the backend call has completed. Guarded by this instance.
+     */
+    private boolean completed;
+
+    /**
+     * The task which releases the parked requests if the backend call does not complete in time.
+     */
+    private volatile ScheduledFuture<?> timeoutTask;
+
+    /**
+     * @param owner       the cache mediator which started the backend call
+     * @param requestHash the request hash of the backend call
+     */
+    InFlightRequest(CacheMediator owner, String requestHash) {
+        this.owner = owner;
+        this.requestHash = requestHash;
+    }
+
+    /**
+     * Parks the given request until the backend call completes.
+     *
+     * @param synCtx the request to be parked
+     * @return whether the request was parked. This is false if the backend call has already completed
+     */
+    synchronized boolean addWaiter(MessageContext synCtx) {
+        if (completed) {
+            return false;
+        }
+        waiters.add(synCtx);
+        return true;
+    }
+
+    /**
+     * Marks the backend call as completed.
+     *
+     * @return the parked requests, or an empty list if the call has already been completed
+     */
+    synchronized List<MessageContext> complete() {
+        if (completed) {
+            return Collections.emptyList();
+        }
+        completed = true;
+        if (timeoutTask != null) {
+            timeoutTask.cancel(false);
+        }
+        List<MessageContext> parked = waiters;
+        waiters = null;
+        return parked;
+    }
+
+    /**
+     * @param timeoutTask the task which releases the parked requests if the backend call does not complete in time
+     */
+    void setTimeoutTask(ScheduledFuture<?> timeoutTask) {
+        this.timeoutTask = timeoutTask;
+    }
+
+    /**
+     * @return the cache mediator which started the backend call
+     */
+    CacheMediator getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the request hash of the backend call
+     */
+    String getRequestHash() {
+        return requestHash;
+    }
+}
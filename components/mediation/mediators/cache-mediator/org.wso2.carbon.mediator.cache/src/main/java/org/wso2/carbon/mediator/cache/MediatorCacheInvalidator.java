@@ -21,6 +21,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.MessageContext;
 
+import java.util.Map;
+
 /**
  * This class is used for global cache invalidation.
  */
@@ -65,10 +67,90 @@ public class MediatorCacheInvalidator implements MediatorCacheInvalidatorMBean {
 
     @Override
     public void invalidateTheWholeCache() {
-        cacheManager.clean();
+        cacheManager.invalidateAll();
         log.info("Total mediator cache has been invalidated.");
     }
 
+    @Override
+    public void invalidateCache(String cacheId) {
+        cacheManager.invalidate(cacheId, null);
+        log.info("Mediator cache " + cacheId + " has been invalidated.");
+    }
+
+    @Override
+    public void invalidateCacheEntry(String cacheId, String requestHash) {
+        cacheManager.invalidate(cacheId, requestHash);
+        if (log.isDebugEnabled()) {
+            log.debug("Entry " + requestHash + " of the mediator cache " + cacheId + " has been invalidated.");
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        long hitCount = 0;
+        for (CacheStatistics statistics : cacheManager.getAllStatistics().values()) {
+            hitCount += statistics.getHitCount();
+        }
+        return hitCount;
+    }
+
+    @Override
+    public long getMissCount() {
+        long missCount = 0;
+        for (CacheStatistics statistics : cacheManager.getAllStatistics().values()) {
+            missCount += statistics.getMissCount();
+        }
+        return missCount;
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        long coalescedCount = 0;
+        for (CacheStatistics statistics : cacheManager.getAllStatistics().values()) {
+            coalescedCount += statistics.getCoalescedCount();
+        }
+        return coalescedCount;
+    }
+
+    @Override
+    public long getCoalesceTimeoutCount() {
+        long coalesceTimeoutCount = 0;
+        for (CacheStatistics statistics : cacheManager.getAllStatistics().values()) {
+            coalesceTimeoutCount += statistics.getCoalesceTimeoutCount();
+        }
+        return coalesceTimeoutCount;
+    }
+
+    @Override
+    public long getStaleHitCount() {
+        long staleHitCount = 0;
+        for (CacheStatistics statistics : cacheManager.getAllStatistics().values()) {
+            staleHitCount += statistics.getStaleHitCount();
+        }
+        return staleHitCount;
+    }
+
+    @Override
+    public Map<String, Long> getCacheStatistics(String cacheId) {
+        CacheStatistics statistics = cacheManager.getAllStatistics().get(cacheId);
+        return statistics != null ? statistics.toMap() : null;
+    }
+
+    @Override
+    public long getOffHeapUsedSize() {
+        return cacheManager.getOffHeapUsedSize();
+    }
+
+    @Override
+    public long getOffHeapEvictionCount() {
+        return cacheManager.getOffHeapEvictionCount();
+    }
+
+    @Override
+    public int getOffHeapEntryCount() {
+        return cacheManager.getOffHeapEntryCount();
+    }
+
     /**
      * This method gives the tenant domain.
      *
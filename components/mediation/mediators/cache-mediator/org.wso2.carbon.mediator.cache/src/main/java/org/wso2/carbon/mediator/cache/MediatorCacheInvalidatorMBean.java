@@ -17,6 +17,8 @@
  */
 package org.wso2.carbon.mediator.cache;
 
+import java.util.Map;
+
 /**
  * The interface for MBean used to invalidate the cache mediator.
  */
@@ -25,4 +27,90 @@ public interface MediatorCacheInvalidatorMBean {
      * This abstract method should be implemented to invalidate the whole mediator Cache.
      */
     void invalidateTheWholeCache();
+
+    /**
+     * This abstract method should be implemented to invalidate a single mediator cache in all the nodes of the
+     * cluster.
+     *
+     * @param cacheId id of the cache mediator
+     */
+    void invalidateCache(String cacheId);
+
+    /**
+     * This abstract method should be implemented to invalidate a single entry of a mediator cache in all the nodes of
+     * the cluster.
+     *
+     * @param cacheId     id of the cache mediator
+     * @param requestHash request hash of the entry, as returned in the cacheKey header of the cached response
+     */
+    void invalidateCacheEntry(String cacheId, String requestHash);
+
+    /**
+     * This abstract method should be implemented to give the number of payload bytes held off-heap by the mediator
+     * cache.
+     *
+     * @return number of payload bytes held off-heap
+     */
+    long getOffHeapUsedSize();
+
+    /**
+     * This abstract method should be implemented to give the number of payloads evicted from the off-heap store of the
+     * mediator cache.
+     *
+     * @return number of payloads evicted from the off-heap store
+     */
+    long getOffHeapEvictionCount();
+
+    /**
+     * This abstract method should be implemented to give the number of payloads held off-heap by the mediator cache.
+     *
+     * @return number of payloads held off-heap
+     */
+    int getOffHeapEntryCount();
+
+    /**
+     * This abstract method should be implemented to give the number of requests served from the mediator cache.
+     *
+     * @return number of requests served from the mediator cache
+     */
+    long getHitCount();
+
+    /**
+     * This abstract method should be implemented to give the number of requests not found in the mediator cache.
+     *
+     * @return number of requests not found in the mediator cache
+     */
+    long getMissCount();
+
+    /**
+     * This abstract method should be implemented to give the number of requests which waited for the backend call of
+     * an identical request instead of calling the backend.
+     *
+     * @return number of coalesced requests
+     */
+    long getCoalescedCount();
+
+    /**
+     * This abstract method should be implemented to give the number of coalesced requests which were sent to the
+     * backend since the identical request did not complete in time.
+     *
+     * @return number of coalesced requests which timed out
+     */
+    long getCoalesceTimeoutCount();
+
+    /**
+     * This abstract method should be implemented to give the number of requests served from expired responses while
+     * they were being revalidated.
+     *
+     * @return number of requests served from expired responses
+     */
+    long getStaleHitCount();
+
+    /**
+     * This abstract method should be implemented to give the statistics of a single mediator cache.
+     *
+     * @param cacheId id of the cache mediator
+     * @return the statistics of the cache against their names, or null if there is no such cache
+     */
+    Map<String, Long> getCacheStatistics(String cacheId);
 }
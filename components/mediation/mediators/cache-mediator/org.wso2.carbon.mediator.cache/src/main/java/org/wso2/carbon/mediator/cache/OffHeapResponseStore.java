@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.mediator.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Second storage tier of the cache mediator which keeps the response payloads in direct (off-heap) buffers. Unlike the
+ * LoadingCache, which is bounded by the number of entries, this store is bounded by the total number of payload bytes.
+ * When a new payload does not fit in the store, the least recently used payloads are evicted until it fits. An evicted
+ * response is treated as a cache miss by the mediator. Payloads smaller than the threshold are kept on-heap, since they
+ * are cheap to hold and are served without copying.
+ */
+public class OffHeapResponseStore {
+
+    /**
+     * The maximum number of payload bytes this store may hold.
+     */
+    private final long maxSize;
+
+    /**
+     * The minimum size in bytes of a payload to be kept in this store.
+     */
+    private final int threshold;
+
+    /**
+     * The payloads held by this store in least recently used order. Guarded by the store instance.
+     */
+    private final LinkedHashMap<String, StoredPayload> payloads = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The number of payload bytes currently held by this store.
+     */
+    private final AtomicLong usedSize = new AtomicLong();
+
+    /**
+     * The number of payloads evicted from this store to make room for new ones.
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxSize   the maximum number of payload bytes this store may hold
+     * @param threshold the minimum size in bytes of a payload to be kept in this store
+     */
+    public OffHeapResponseStore(long maxSize, int threshold) {
+        this.maxSize = maxSize;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Copies the given payload to a direct buffer and attaches it to the response, evicting the least recently used
+     * payloads if required.
+     *
+     * @param response the response to which the payload belongs
+     * @param payload  the response payload
+     * @return whether the payload was stored. This is false if the payload is smaller than the threshold or larger
+     * than the whole store
+     */
+    public boolean store(CachableResponse response, byte[] payload) {
+        if (payload.length < threshold || payload.length > maxSize) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(payload.length);
+        buffer.put(payload);
+        buffer.flip();
+        synchronized (this) {
+            release(payloads.remove(response.getRequestHash()));
+            Iterator<Map.Entry<String, StoredPayload>> iterator = payloads.entrySet().iterator();
+            while (usedSize.get() + payload.length > maxSize && iterator.hasNext()) {
+                StoredPayload eldest = iterator.next().getValue();
+                iterator.remove();
+                release(eldest);
+                evictionCount.incrementAndGet();
+            }
+            response.setOffHeapPayload(buffer);
+            payloads.put(response.getRequestHash(), new StoredPayload(response, payload.length));
+            usedSize.addAndGet(payload.length);
+        }
+        return true;
+    }
+
+    /**
+     * Marks the payload of the given request hash as recently used.
+     *
+     * @param requestHash the request hash of the response
+     */
+    public synchronized void touch(String requestHash) {
+        payloads.get(requestHash);
+    }
+
+    /**
+     * Removes the payload of the given response from the store, if the store still holds it.
+     *
+     * @param requestHash the request hash of the response
+     * @param response    the response which is being removed from the cache
+     */
+    public synchronized void remove(String requestHash, CachableResponse response) {
+        StoredPayload stored = payloads.get(requestHash);
+        if (stored != null && stored.response == response) {
+            release(payloads.remove(requestHash));
+        }
+    }
+
+    /**
+     * Removes all the payloads from the store.
+     */
+    public synchronized void clear() {
+        for (StoredPayload stored : payloads.values()) {
+            release(stored);
+        }
+        payloads.clear();
+    }
+
+    /**
+     * @return the number of payload bytes currently held by this store
+     */
+    public long getUsedSize() {
+        return usedSize.get();
+    }
+
+    /**
+     * @return the number of payloads evicted from this store to make room for new ones
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return the number of payloads currently held by this store
+     */
+    public synchronized int getEntryCount() {
+        return payloads.size();
+    }
+
+    /**
+     * Detaches the direct buffer from the response so that it can be reclaimed.
+     *
+     * @param stored the stored payload to be released
+     */
+    private void release(StoredPayload stored) {
+        if (stored != null) {
+            usedSize.addAndGet(-stored.size);
+            stored.response.setOffHeapPayload(null);
+        }
+    }
+
+    /**
+     * Holds a response together with the size of the payload it keeps in this store.
+     */
+    private static class StoredPayload {
+
+        private final CachableResponse response;
+
+        private final int size;
+
+        StoredPayload(CachableResponse response, int size) {
+            this.response = response;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.mediator.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+import org.wso2.micro.integrator.coordination.ClusterCoordinator;
+import org.wso2.micro.integrator.coordination.MemberEventListener;
+import org.wso2.micro.integrator.coordination.exception.ClusterCoordinationException;
+import org.wso2.micro.integrator.coordination.node.NodeDetail;
+
+/**
+ * The {@link CacheClusterChannel} which broadcasts the cache invalidations through the membership event table of the
+ * RDBMS based cluster coordination. The {@link ClusterCoordinator} is looked up as an OSGi service, which is
+ * registered once the cluster coordination has been initialized.
+ */
+public class RDBMSCacheClusterChannel extends MemberEventListener implements CacheClusterChannel {
+
+    private static final Log log = LogFactory.getLog(RDBMSCacheClusterChannel.class);
+
+    /**
+     * Separates the cache id and the request hash in the broadcast cache key.
+     */
+    private static final char KEY_SEPARATOR = '|';
+
+    private ClusterCoordinator clusterCoordinator;
+
+    private CacheManager cacheManager;
+
+    public RDBMSCacheClusterChannel() {
+    }
+
+    /**
+     * Creates a channel which applies the received invalidations to the given cache manager, without joining the
+     * cluster coordination.
+     *
+     * @param cacheManager the cache manager to which the received invalidations are applied
+     */
+    RDBMSCacheClusterChannel(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public boolean init(CacheManager cacheManager) {
+        ClusterCoordinator coordinator = lookupClusterCoordinator();
+        if (coordinator == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cluster coordination is not available yet.");
+            }
+            return false;
+        }
+        this.cacheManager = cacheManager;
+        this.clusterCoordinator = coordinator;
+        coordinator.registerListener(this);
+        return true;
+    }
+
+    /**
+     * @return the cluster coordinator registered as an OSGi service, or null if it has not been registered
+     */
+    private ClusterCoordinator lookupClusterCoordinator() {
+        Bundle bundle = FrameworkUtil.getBundle(RDBMSCacheClusterChannel.class);
+        BundleContext bundleContext = bundle != null ? bundle.getBundleContext() : null;
+        if (bundleContext == null) {
+            return null;
+        }
+        ServiceReference<ClusterCoordinator> reference = bundleContext.getServiceReference(ClusterCoordinator.class);
+        return reference != null ? bundleContext.getService(reference) : null;
+    }
+
+    @Override
+    public void publishInvalidation(String cacheId, String requestHash) {
+        String cacheKey = toCacheKey(cacheId, requestHash);
+        try {
+            clusterCoordinator.broadcastCacheInvalidation(cacheKey);
+        } catch (ClusterCoordinationException e) {
+            log.error("Error while broadcasting the invalidation of the mediator cache key : " + cacheKey, e);
+        }
+    }
+
+    /**
+     * Creates the cache key broadcast for an invalidation, which is parsed back by {@link #cacheInvalidated(String)}.
+     *
+     * @param cacheId     the id of the invalidated cache, or null if all the caches are invalidated
+     * @param requestHash the request hash of the invalidated entry, or null if the whole cache is invalidated
+     * @return the cache key
+     */
+    static String toCacheKey(String cacheId, String requestHash) {
+        if (cacheId == null) {
+            return CachingConstants.ALL;
+        }
+        return cacheId + KEY_SEPARATOR + (requestHash == null ? CachingConstants.ALL : requestHash);
+    }
+
+    @Override
+    public void cacheInvalidated(String cacheKey) {
+        if (log.isDebugEnabled()) {
+            log.debug("Received the invalidation of the mediator cache key : " + cacheKey);
+        }
+        int separatorIndex = cacheKey.lastIndexOf(KEY_SEPARATOR);
+        if (separatorIndex < 0) {
+            cacheManager.onRemoteInvalidation(null, null);
+        } else {
+            String requestHash = cacheKey.substring(separatorIndex + 1);
+            cacheManager.onRemoteInvalidation(cacheKey.substring(0, separatorIndex),
+                                              CachingConstants.ALL.equals(requestHash) ? null : requestHash);
+        }
+    }
+
+    @Override
+    public void memberAdded(NodeDetail nodeDetail) {
+        // nothing to do
+    }
+
+    @Override
+    public void memberRemoved(NodeDetail nodeDetail) {
+        // nothing to do
+    }
+
+    @Override
+    public void coordinatorChanged(NodeDetail nodeDetail) {
+        // nothing to do
+    }
+
+    @Override
+    public void becameUnresponsive(String nodeId) {
+        // invalidations may be missed while unresponsive, hence the local caches cannot be trusted anymore
+        cacheManager.onRemoteInvalidation(null, null);
+    }
+
+    @Override
+    public void reJoined(String nodeId) {
+        // nothing to do
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.mediator.cache.digest;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * A {@link StreamingHashGenerator} which uses the non-cryptographic 128-bit Murmur3 hash instead of SHA-256. It is
+ * faster, but a client which can choose its requests is able to craft keys which collide with the cached response of
+ * another request, so it should only be used where the requests are trusted.
+ */
+public class Murmur3StreamingHashGenerator extends StreamingHashGenerator {
+
+    static final long serialVersionUID = 42L;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected HashFunction getHashFunction() {
+        return Hashing.murmur3_128();
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.mediator.cache.digest;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMProcessingInstruction;
+import org.apache.axiom.om.OMText;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.synapse.transport.passthru.PassThroughConstants;
+import org.wso2.carbon.mediator.cache.CachingConstants;
+import org.wso2.carbon.mediator.cache.CachingException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DigestGenerator} for the HTTP protocol type which considers the same parts of the request as the
+ * {@link HttpRequestHashGenerator}, but streams the To address, the headers and the payload once into a single
+ * {@link Hasher} instead of creating a separate digest and intermediate byte arrays for every node, attribute and
+ * header. Every string is written with its length before it, so that different requests never produce the same
+ * stream. SHA-256 is used by default, since a weaker hash would let a client craft requests whose keys collide with
+ * the cached response of another request. Use {@link Murmur3StreamingHashGenerator}, or extend this class and override
+ * {@link #getHashFunction()}, to use a faster hash function where the requests are trusted.
+ */
+public class StreamingHashGenerator implements DigestGenerator {
+
+    static final long serialVersionUID = 42L;
+
+    /**
+     * This value can be specified for the headersToExcludeInHash property to avoid all the headers when caching.
+     */
+    private static final String EXCLUDE_ALL_VAL = "*";
+
+    /**
+     * Markers written before each part of the request so that different structures do not produce the same stream.
+     */
+    private static final byte ELEMENT_MARKER = 1;
+    private static final byte ATTRIBUTE_MARKER = 2;
+    private static final byte TEXT_MARKER = 3;
+    private static final byte PI_MARKER = 7;
+    private static final byte HEADER_MARKER = 9;
+    private static final byte END_MARKER = 0;
+
+    /**
+     * Orders the attributes of an element by their expanded names.
+     */
+    private static final Comparator<OMAttribute> ATTRIBUTE_COMPARATOR = new Comparator<OMAttribute>() {
+        @Override
+        public int compare(OMAttribute a1, OMAttribute a2) {
+            int result = compareNullable(namespaceURI(a1), namespaceURI(a2));
+            return result != 0 ? result : a1.getLocalName().compareTo(a2.getLocalName());
+        }
+    };
+
+    String[] headers = {""};
+
+    String[] permanentlyExcludedHeaders = {};
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getDigest(MessageContext msgContext) throws CachingException {
+        String method = (String) msgContext.getProperty(Constants.Configuration.HTTP_METHOD);
+        boolean isGet = msgContext.isDoingREST() && (PassThroughConstants.HTTP_GET.equals(method) ||
+                PassThroughConstants.HTTP_DELETE.equals(method) ||
+                PassThroughConstants.HTTP_HEAD.equals(method));
+        String toAddress = msgContext.getTo() != null ? msgContext.getTo().getAddress() : null;
+        OMNode body = msgContext.getEnvelope().getBody();
+        //If the HTTP method is GET do not hash the payload. Hash only url and headers.
+        if ((isGet && toAddress == null) || (!isGet && body == null)) {
+            return null;
+        }
+
+        Hasher hasher = getHashFunction().newHasher();
+        if (toAddress != null) {
+            putString(hasher, toAddress);
+            if (!EXCLUDE_ALL_VAL.equals(headers[0])) {
+                putHeaders(hasher, (Map<String, String>) msgContext.getProperty(MessageContext.TRANSPORT_HEADERS));
+            }
+        }
+        if (!isGet) {
+            putNode(hasher, body);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Gives the hash function used to calculate the digest.
+     *
+     * @return the hash function used to calculate the digest
+     */
+    protected HashFunction getHashFunction() {
+        return Hashing.sha256();
+    }
+
+    /**
+     * Streams the transport headers, which are not excluded, in case insensitive order of their names.
+     *
+     * @param hasher           the hasher to stream the headers to
+     * @param transportHeaders the transport headers of the request
+     */
+    private void putHeaders(Hasher hasher, Map<String, String> transportHeaders) {
+        if (transportHeaders == null || transportHeaders.isEmpty()) {
+            return;
+        }
+        String[] names = new String[transportHeaders.size()];
+        int count = 0;
+        for (String name : transportHeaders.keySet()) {
+            if (!isExcluded(name)) {
+                names[count++] = name;
+            }
+        }
+        Arrays.sort(names, 0, count, String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < count; i++) {
+            String value = transportHeaders.get(names[i]);
+            hasher.putByte(HEADER_MARKER);
+            putLowerCase(hasher, names[i]);
+            putString(hasher, value);
+        }
+    }
+
+    /**
+     * Streams the given node and all its descendants.
+     *
+     * @param hasher the hasher to stream the node to
+     * @param node   the node to be streamed
+     */
+    private void putNode(Hasher hasher, OMNode node) {
+        if (node.getType() == OMNode.ELEMENT_NODE) {
+            OMElement element = (OMElement) node;
+            hasher.putByte(ELEMENT_MARKER);
+            putExpandedName(hasher, element.getNamespace() != null ?
+                    element.getNamespace().getNamespaceURI() : null, element.getLocalName());
+            putAttributes(hasher, element);
+            for (OMNode child = element.getFirstOMChild(); child != null; child = child.getNextOMSibling()) {
+                putNode(hasher, child);
+            }
+            hasher.putByte(END_MARKER);
+        } else if (node.getType() == OMNode.TEXT_NODE || node.getType() == OMNode.CDATA_SECTION_NODE) {
+            hasher.putByte(TEXT_MARKER);
+            putString(hasher, ((OMText) node).getText());
+        } else if (node.getType() == OMNode.PI_NODE) {
+            OMProcessingInstruction pi = (OMProcessingInstruction) node;
+            hasher.putByte(PI_MARKER);
+            putString(hasher, pi.getTarget());
+            putString(hasher, pi.getValue());
+        }
+    }
+
+    /**
+     * Streams the attributes of the element, which are not namespace declarations, sorted by their expanded names.
+     *
+     * @param hasher  the hasher to stream the attributes to
+     * @param element the element of which the attributes are streamed
+     */
+    private void putAttributes(Hasher hasher, OMElement element) {
+        Iterator itr = element.getAllAttributes();
+        if (!itr.hasNext()) {
+            return;
+        }
+        OMAttribute first = (OMAttribute) itr.next();
+        if (!itr.hasNext()) {
+            putAttribute(hasher, first);
+            return;
+        }
+        List<OMAttribute> attributes = new ArrayList<>();
+        attributes.add(first);
+        while (itr.hasNext()) {
+            attributes.add((OMAttribute) itr.next());
+        }
+        Collections.sort(attributes, ATTRIBUTE_COMPARATOR);
+        for (OMAttribute attribute : attributes) {
+            putAttribute(hasher, attribute);
+        }
+    }
+
+    private void putAttribute(Hasher hasher, OMAttribute attribute) {
+        if (attribute.getLocalName().equals("xmlns") || attribute.getLocalName().startsWith("xmlns:")) {
+            return;
+        }
+        hasher.putByte(ATTRIBUTE_MARKER);
+        putExpandedName(hasher, namespaceURI(attribute), attribute.getLocalName());
+        putString(hasher, attribute.getAttributeValue());
+    }
+
+    private void putExpandedName(Hasher hasher, String namespaceURI, String localName) {
+        putString(hasher, namespaceURI);
+        putString(hasher, localName);
+    }
+
+    /**
+     * Streams the length of the given string followed by its characters, or -1 if the string is null.
+     */
+    private void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(value.length());
+        hasher.putUnencodedChars(value);
+    }
+
+    /**
+     * Streams the length of the given string followed by its characters in lower case without creating a new string,
+     * so that header names are case insensitive.
+     */
+    private void putLowerCase(Hasher hasher, String value) {
+        hasher.putInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            hasher.putChar(Character.toLowerCase(value.charAt(i)));
+        }
+    }
+
+    private boolean isExcluded(String header) {
+        if (header.equalsIgnoreCase("Date") || header.equalsIgnoreCase("User-Agent")) {
+            return true;
+        }
+        for (String excluded : headers) {
+            if (header.equalsIgnoreCase(excluded)) {
+                return true;
+            }
+        }
+        for (String excluded : permanentlyExcludedHeaders) {
+            if (header.equalsIgnoreCase(excluded)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String namespaceURI(OMAttribute attribute) {
+        return attribute.getNamespace() != null ? attribute.getNamespace().getNamespaceURI() : null;
+    }
+
+    private static int compareNullable(String s1, String s2) {
+        if (s1 == null) {
+            return s2 == null ? 0 : -1;
+        }
+        return s2 == null ? 1 : s1.compareTo(s2);
+    }
+
+    @Override
+    public void init(Map<String, Object> properties) {
+        if (properties.get("headers-to-exclude") != null) {
+            headers = (String[]) properties.get("headers-to-exclude");
+        }
+        if (properties.get(CachingConstants.PERMANENTLY_EXCLUDED_HEADERS_STRING) != null) {
+            permanentlyExcludedHeaders =
+                    (String[]) properties.get(CachingConstants.PERMANENTLY_EXCLUDED_HEADERS_STRING);
+        }
+    }
+}
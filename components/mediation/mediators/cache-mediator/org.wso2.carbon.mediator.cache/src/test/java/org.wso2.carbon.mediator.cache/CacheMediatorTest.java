@@ -21,8 +21,10 @@ import com.google.common.net.HttpHeaders;
 import org.apache.axiom.om.OMAbstractFactory;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.util.UUIDGenerator;
+import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axiom.util.UIDGenerator;
 import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
@@ -32,20 +34,32 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.mediators.base.SequenceMediator;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
 import org.custommonkey.xmlunit.XMLTestCase;
 import org.custommonkey.xmlunit.XMLUnit;
+import org.wso2.carbon.mediator.cache.digest.Murmur3StreamingHashGenerator;
+import org.wso2.carbon.mediator.cache.digest.StreamingHashGenerator;
 import org.wso2.carbon.mediator.cache.util.HttpCachingFilter;
 
+import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
 
 /**
  * Test the functionality of the {@link CacheMediatorFactory} and the {@link CacheMediatorSerializer}
@@ -102,6 +116,48 @@ public class CacheMediatorTest extends XMLTestCase {
     }
 
 
+    /**
+     * Test that a cache mediator without an id attribute gets the same id whenever its artifact is deployed, e.g. in
+     * the other nodes of a cluster, and a different one from the other cache mediators of the artifact.
+     */
+    public void testDefaultIdFromArtifact() {
+        String sequenceXml = "<sequence xmlns=\"http://ws.apache.org/ns/synapse\" name=\"CachedSequence\">" +
+                "<log/><cache collector=\"false\" timeout=\"60\"/><cache collector=\"true\"/>" +
+                "<filter><then><cache collector=\"false\"/></then></filter>" +
+                "<cache collector=\"false\" id=\"configured\"/></sequence>";
+        CacheMediator cache = createMediator(sequenceXml, 1);
+        assertEquals("sequence:CachedSequence/cache[1]", cache.getId());
+        assertEquals("The id differs in another deployment of the artifact", cache.getId(),
+                createMediator(sequenceXml, 1).getId());
+        assertEquals("sequence:CachedSequence/filter[3]/then[0]/cache[0]", createMediator(sequenceXml, 3).getId());
+        assertEquals("The configured id is not used", "configured", createMediator(sequenceXml, 4).getId());
+
+        CacheMediatorFactory factory = new CacheMediatorFactory();
+        CacheMediator standalone =
+                (CacheMediator) factory.createSpecificMediator(SynapseConfigUtils.stringToOM(mediatorXml),
+                        new Properties());
+        assertNotNull("A mediator outside an artifact has no id", standalone.getId());
+    }
+
+    /**
+     * Create the cache mediator at the given position of an artifact.
+     *
+     * @param artifactXml the artifact configuration.
+     * @param position    the position of the cache mediator within the artifact.
+     * @return the created cache mediator.
+     */
+    private CacheMediator createMediator(String artifactXml, int position) {
+        Iterator children = SynapseConfigUtils.stringToOM(artifactXml).getChildElements();
+        OMElement mediatorElement = null;
+        for (int i = 0; i <= position; i++) {
+            mediatorElement = (OMElement) children.next();
+        }
+        if (!CachingConstants.CACHE_Q.equals(mediatorElement.getQName())) {
+            mediatorElement = mediatorElement.getFirstElement().getFirstElement();
+        }
+        return (CacheMediator) new CacheMediatorFactory().createSpecificMediator(mediatorElement, new Properties());
+    }
+
     public void testMediatorSerializer() {
         OMElement mediatorElement = SynapseConfigUtils.stringToOM(mediatorXml);
 
@@ -219,6 +275,204 @@ public class CacheMediatorTest extends XMLTestCase {
         assertEquals(dateFormat.format(cachedResponse.getResponseFetchedTime()), responseOriginatedTime);
     }
 
+    /**
+     * Test case for the eviction of payloads from the OffHeapResponseStore once its size limit is reached.
+     */
+    public void testOffHeapResponseStoreEviction() {
+        OffHeapResponseStore offHeapStore = new OffHeapResponseStore(10, 2);
+        CachableResponse first = new CachableResponse();
+        first.setRequestHash("first");
+        CachableResponse second = new CachableResponse();
+        second.setRequestHash("second");
+
+        assertFalse("Payload below the threshold is kept off-heap.", offHeapStore.store(first, new byte[1]));
+        assertTrue(offHeapStore.store(first, new byte[]{1, 2, 3, 4, 5, 6}));
+        assertTrue(Arrays.equals(first.getResponsePayload(), new byte[]{1, 2, 3, 4, 5, 6}));
+        ByteBuffer view = first.getResponsePayloadView();
+        assertTrue("Off-heap payload is copied to serve it.", view.isDirect() && view.isReadOnly());
+        assertEquals(6, view.remaining());
+        view.get();
+        assertEquals("Reading a view moves the position of the stored payload.", 6,
+                first.getResponsePayloadView().remaining());
+        assertTrue(offHeapStore.store(second, new byte[6]));
+
+        assertNull("Least recently used payload is not evicted.", first.getResponsePayload());
+        assertNotNull(second.getResponsePayload());
+        assertEquals(6, offHeapStore.getUsedSize());
+        assertEquals(1, offHeapStore.getEvictionCount());
+
+        offHeapStore.remove("second", second);
+        assertEquals(0, offHeapStore.getUsedSize());
+        assertEquals(0, offHeapStore.getEntryCount());
+    }
+
+    /**
+     * Test case for the coalesce configuration and the release of the requests waiting for an in-flight backend call.
+     */
+    public void testRequestCoalescing() {
+        String coalesceXml = "<cache xmlns=\"http://ws.apache.org/ns/synapse\" collector=\"false\" timeout=\"60\">" +
+                "<coalesce waitTimeout=\"2000\" staleWhileRevalidate=\"30\"/></cache>";
+        CacheMediator mediator = (CacheMediator) new CacheMediatorFactory().createSpecificMediator(
+                SynapseConfigUtils.stringToOM(coalesceXml), new Properties());
+        assertTrue("Incorrect value for the coalesce", mediator.isCoalescingEnabled());
+        assertEquals("Incorrect value for the waitTimeout", 2000, mediator.getCoalesceWaitTimeout());
+        assertEquals("Incorrect value for the staleWhileRevalidate", 30, mediator.getStaleWhileRevalidate());
+
+        OMElement serialized = new CacheMediatorSerializer().serializeSpecificMediator(mediator);
+        assertNotNull("Coalesce configuration is not serialized", serialized.getFirstChildWithName(
+                new QName(CachingConstants.CACHE_Q.getNamespaceURI(), CachingConstants.COALESCE_STRING)));
+
+        InFlightRequest inFlight = new InFlightRequest(mediator, "hash");
+        MessageContext waiter = new Axis2MessageContext(new org.apache.axis2.context.MessageContext(), null, null);
+        assertTrue(inFlight.addWaiter(waiter));
+        assertEquals(Collections.singletonList(waiter), inFlight.complete());
+        assertFalse("Request is parked after the backend call completed.", inFlight.addWaiter(waiter));
+        assertTrue(inFlight.complete().isEmpty());
+    }
+
+    /**
+     * Test case for a request parked while an expired response is revalidated, which is resumed with the new response
+     * once it replaces the expired one in the cache.
+     *
+     * @throws Exception when exception happens on message context creation or on waiting for the resumed request.
+     */
+    public void testResumeAfterRevalidation() throws Exception {
+        String coalesceXml = "<cache xmlns=\"http://ws.apache.org/ns/synapse\" collector=\"false\" timeout=\"60\">" +
+                "<coalesce waitTimeout=\"2000\" staleWhileRevalidate=\"30\"/></cache>";
+        CacheMediator mediator = (CacheMediator) new CacheMediatorFactory().createSpecificMediator(
+                SynapseConfigUtils.stringToOM(coalesceXml), new Properties());
+        final CountDownLatch served = new CountDownLatch(1);
+        SequenceMediator onCacheHit = new SequenceMediator();
+        onCacheHit.addChild(new AbstractMediator() {
+            @Override
+            public boolean mediate(MessageContext synCtx) {
+                served.countDown();
+                return true;
+            }
+        });
+        mediator.setOnCacheHitSequence(onCacheHit);
+
+        CachableResponse expired = mediator.getMediatorCache().get("hash");
+        expired.setResponseEnvelope(createEnvelope("expired"));
+        expired.setStoredTime(System.currentTimeMillis() - 61000);
+        CachableResponse revalidating = mediator.newRevalidatingResponse("hash", "GET");
+        assertNotSame("Expired response is reused for the revalidation.", expired, revalidating);
+        assertFalse(revalidating.hasResponse());
+
+        // a revalidation which does not give a cacheable response keeps the expired one
+        mediator.onInFlightRequestComplete(new InFlightRequest(mediator, "hash"), null);
+        assertSame(expired, mediator.getMediatorCache().get("hash"));
+
+        InFlightRequest inFlight = new InFlightRequest(mediator, "hash");
+        MessageContext waiter = createSynapseMessageContext();
+        waiter.setEnvironment(new Axis2SynapseEnvironment(new SynapseConfiguration()));
+        assertTrue(inFlight.addWaiter(waiter));
+        revalidating.setResponseEnvelope(createEnvelope("revalidated"));
+        revalidating.setStoredTime(System.currentTimeMillis());
+        mediator.onInFlightRequestComplete(inFlight, revalidating);
+
+        assertSame("Revalidated response does not replace the expired one.", revalidating,
+                mediator.getMediatorCache().get("hash"));
+        assertEquals("Expired response is modified by the revalidation.", "expired",
+                expired.getResponseEnvelope().getBody().getFirstElement().getLocalName());
+        assertTrue("Parked request is not resumed.", served.await(10, TimeUnit.SECONDS));
+        assertEquals("Parked request is not served the revalidated response.", "revalidated",
+                waiter.getEnvelope().getBody().getFirstElement().getLocalName());
+        mediator.destroy();
+    }
+
+    /**
+     * Test case for the StreamingHashGenerator with the header order, header case and payload of the request.
+     *
+     * @throws Exception when exception happens on message context creation or digest generation.
+     */
+    public void testStreamingHashGenerator() throws Exception {
+        StreamingHashGenerator digestGenerator = new StreamingHashGenerator();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("headers-to-exclude", new String[]{"ab"});
+        digestGenerator.init(properties);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept", "application/xml");
+        headers.put("Content-Type", "text/xml");
+        headers.put("ab", "excluded");
+        Map<String, String> reorderedHeaders = new TreeMap<>(Collections.reverseOrder());
+        reorderedHeaders.put("content-type", "text/xml");
+        reorderedHeaders.put("accept", "application/xml");
+
+        String digest = digestGenerator.getDigest(createRequest("<a x=\"1\" y=\"2\">b</a>", headers));
+        assertEquals(digest, digestGenerator.getDigest(createRequest("<a y=\"2\" x=\"1\">b</a>", reorderedHeaders)));
+        assertFalse(digest.equals(digestGenerator.getDigest(createRequest("<a x=\"1\" y=\"2\">c</a>", headers))));
+        assertEquals("SHA-256 is not the default hash function.", 64, digest.length());
+    }
+
+    /**
+     * Test case for the StreamingHashGenerator with requests which differ only in where one field ends and the next
+     * one starts.
+     *
+     * @throws Exception when exception happens on message context creation or digest generation.
+     */
+    public void testStreamingHashGeneratorFieldBoundaries() throws Exception {
+        StreamingHashGenerator digestGenerator = new StreamingHashGenerator();
+        digestGenerator.init(new HashMap<String, Object>());
+        Map<String, String> headers = Collections.singletonMap("Accept", "text/xml");
+
+        assertFalse(digestGenerator.getDigest(createRequest("<a x=\"12\" y=\"3\"/>", headers))
+                .equals(digestGenerator.getDigest(createRequest("<a x=\"1\" y=\"23\"/>", headers))));
+        Map<String, String> first = new HashMap<>();
+        first.put("a", "bc");
+        first.put("d", "");
+        Map<String, String> second = new HashMap<>();
+        second.put("a", "b");
+        second.put("cd", "");
+        assertFalse(digestGenerator.getDigest(createRequest("<a/>", first))
+                .equals(digestGenerator.getDigest(createRequest("<a/>", second))));
+    }
+
+    /**
+     * Test case for the opt-in Murmur3 variant of the StreamingHashGenerator.
+     *
+     * @throws Exception when exception happens on message context creation or digest generation.
+     */
+    public void testMurmur3StreamingHashGenerator() throws Exception {
+        StreamingHashGenerator digestGenerator = new Murmur3StreamingHashGenerator();
+        digestGenerator.init(new HashMap<String, Object>());
+        Map<String, String> headers = Collections.singletonMap("Accept", "text/xml");
+
+        String digest = digestGenerator.getDigest(createRequest("<a>b</a>", headers));
+        assertEquals(32, digest.length());
+        assertEquals(digest, digestGenerator.getDigest(createRequest("<a>b</a>", headers)));
+    }
+
+    /**
+     * Create an Axis2 POST request with the given payload and transport headers.
+     *
+     * @return the created request.
+     * @throws AxisFault when exception happens on message context creation.
+     */
+    private org.apache.axis2.context.MessageContext createRequest(String payload, Map<String, String> headers)
+            throws AxisFault {
+        MessageContext synCtx = createMessageContext();
+        synCtx.getEnvelope().getBody().addChild(SynapseConfigUtils.stringToOM(payload));
+        org.apache.axis2.context.MessageContext msgCtx = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        msgCtx.setTo(new EndpointReference("http://localhost:8280/test"));
+        msgCtx.setProperty(org.apache.axis2.Constants.Configuration.HTTP_METHOD, "POST");
+        msgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headers);
+        return msgCtx;
+    }
+
+    /**
+     * Create a SOAP envelope to be cached.
+     *
+     * @param payload the local name of the body element.
+     * @return the created envelope.
+     */
+    private SOAPEnvelope createEnvelope(String payload) {
+        SOAPEnvelope envelope = OMAbstractFactory.getSOAP11Factory().getDefaultEnvelope();
+        envelope.getBody().addChild(OMAbstractFactory.getOMFactory().createOMElement(new QName(payload)));
+        return envelope;
+    }
+
     /**
      * Create Axis2 Message Context.
      *
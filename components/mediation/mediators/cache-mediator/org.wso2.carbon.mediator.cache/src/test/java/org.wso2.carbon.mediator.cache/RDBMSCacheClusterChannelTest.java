@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mediator.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import junit.framework.TestCase;
+
+/**
+ * Test that the invalidations broadcast through the {@link RDBMSCacheClusterChannel} are applied to the matching
+ * caches of the receiving node.
+ */
+public class RDBMSCacheClusterChannelTest extends TestCase {
+
+    /**
+     * The id of a cache mediator without an id attribute, which contains the key separator.
+     */
+    private static final String CACHE_ID = "api:Orders/resource[0]/inSequence[0]/filter[1]/then[0]/cache[0]";
+
+    private static final String OTHER_CACHE_ID = "sequence:Stock|Quotes/cache[2]";
+
+    private CacheManager cacheManager;
+
+    private RDBMSCacheClusterChannel channel;
+
+    @Override
+    protected void setUp() {
+        cacheManager = new CacheManager();
+        cacheManager.put(CACHE_ID, createCache("a", "b"));
+        cacheManager.put(OTHER_CACHE_ID, createCache("a", "b"));
+        channel = new RDBMSCacheClusterChannel(cacheManager);
+    }
+
+    public void testEntryInvalidation() {
+        channel.cacheInvalidated(RDBMSCacheClusterChannel.toCacheKey(CACHE_ID, "a"));
+
+        assertNull("The invalidated entry is not removed", cacheManager.get(CACHE_ID).getIfPresent("a"));
+        assertNotNull("Another entry is removed", cacheManager.get(CACHE_ID).getIfPresent("b"));
+        assertNotNull("The entry of another cache is removed", cacheManager.get(OTHER_CACHE_ID).getIfPresent("a"));
+        assertEquals(1, cacheManager.getStatistics(CACHE_ID).getRemoteInvalidationCount());
+    }
+
+    public void testEntryInvalidationOfIdWithSeparator() {
+        channel.cacheInvalidated(RDBMSCacheClusterChannel.toCacheKey(OTHER_CACHE_ID, "b"));
+
+        assertNull("The invalidated entry is not removed", cacheManager.get(OTHER_CACHE_ID).getIfPresent("b"));
+        assertNotNull("Another entry is removed", cacheManager.get(OTHER_CACHE_ID).getIfPresent("a"));
+        assertNotNull("The entry of another cache is removed", cacheManager.get(CACHE_ID).getIfPresent("b"));
+    }
+
+    public void testCacheInvalidation() {
+        channel.cacheInvalidated(RDBMSCacheClusterChannel.toCacheKey(CACHE_ID, null));
+
+        assertEquals("The invalidated cache is not cleared", 0, cacheManager.get(CACHE_ID).size());
+        assertEquals("Another cache is cleared", 2, cacheManager.get(OTHER_CACHE_ID).size());
+    }
+
+    public void testUnknownCacheInvalidation() {
+        channel.cacheInvalidated(RDBMSCacheClusterChannel.toCacheKey("sequence:Unknown/cache[0]", "a"));
+
+        assertEquals(2, cacheManager.get(CACHE_ID).size());
+        assertEquals(2, cacheManager.get(OTHER_CACHE_ID).size());
+    }
+
+    public void testInvalidateAll() {
+        channel.cacheInvalidated(RDBMSCacheClusterChannel.toCacheKey(null, null));
+
+        assertNull("The caches are not cleared", cacheManager.get(CACHE_ID));
+        assertNull("The caches are not cleared", cacheManager.get(OTHER_CACHE_ID));
+    }
+
+    private static LoadingCache<String, CachableResponse> createCache(String... requestHashes) {
+        LoadingCache<String, CachableResponse> cache = CacheBuilder.newBuilder().build(
+                new CacheLoader<String, CachableResponse>() {
+                    @Override
+                    public CachableResponse load(String requestHash) {
+                        CachableResponse response = new CachableResponse();
+                        response.setRequestHash(requestHash);
+                        return response;
+                    }
+                });
+        for (String requestHash : requestHashes) {
+            cache.getUnchecked(requestHash);
+        }
+        return cache;
+    }
+}
@@ -32,10 +32,13 @@ import org.wso2.micro.integrator.ntask.core.impl.standalone.ScheduledTaskManager
 import org.wso2.micro.integrator.ntask.core.internal.DataHolder;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Scheduler class, which runs periodically to retrieve all the scheduled tasks assigned to the node and schedule
@@ -77,8 +80,10 @@ public class CoordinatedTaskScheduler implements Runnable {
     public void run() {
 
         try {
-            pauseDeactivatedTasks();
-            scheduleAssignedTasks(CoordinatedTask.States.ACTIVATED);
+            Map<CoordinatedTask.States, List<String>> tasksOfThisNode = retrieveTasksOfThisNode();
+            pauseDeactivatedTasks(tasksOfThisNode.get(CoordinatedTask.States.DEACTIVATED));
+            scheduleAssignedTasks(tasksOfThisNode.get(CoordinatedTask.States.ACTIVATED),
+                                  CoordinatedTask.States.ACTIVATED);
             if (clusterCoordinator.isLeader()) {
                 // cleaning will run for each n times resolving frequency . ( n = 0,1,2 ... ).
                 if (resolveCount % resolvingFrequency == 0) {
@@ -89,25 +94,46 @@ public class CoordinatedTaskScheduler implements Runnable {
                 LOG.debug("This node is leader hence resolving unassigned tasks.");
                 addFailedTasks();
                 resolveCount++;
-                resolveUnassignedNotCompletedTasksAndUpdateStore();
+                if (resolveUnassignedNotCompletedTasksAndUpdateStore()) {
+                    // some of the resolved tasks are assigned to this node, hence they need to be scheduled as well
+                    tasksOfThisNode = retrieveTasksOfThisNode();
+                }
             } else {
                 LOG.debug("This node is not leader. Hence not cleaning task store or resolving un assigned tasks.");
             }
             // schedule all tasks assigned to this node and in state none
-            scheduleAssignedTasks(CoordinatedTask.States.NONE);
+            scheduleAssignedTasks(tasksOfThisNode.get(CoordinatedTask.States.NONE), CoordinatedTask.States.NONE);
         } catch (Throwable throwable) { // catching throwable to prohibit permanent stopping of the executor service.
             LOG.fatal("Unexpected error occurred while trying to schedule tasks.", throwable);
         }
     }
 
     /**
-     * Pause ( stop execution ) the deactivated tasks.
+     * Retrieves all the tasks assigned to this node in a single query and groups them by their state.
      *
+     * @return - Names of the tasks assigned to this node against their states.
      * @throws TaskCoordinationException - when something goes wrong while retrieving tasks information from store.
      */
-    private void pauseDeactivatedTasks() throws TaskCoordinationException {
+    private Map<CoordinatedTask.States, List<String>> retrieveTasksOfThisNode() throws TaskCoordinationException {
+
+        Map<CoordinatedTask.States, List<String>> tasksByState = new EnumMap<>(CoordinatedTask.States.class);
+        for (CoordinatedTask.States state : CoordinatedTask.States.values()) {
+            tasksByState.put(state, new ArrayList<>());
+        }
+        for (CoordinatedTask task : taskStore.retrieveTasks(localNodeId)) {
+            tasksByState.get(task.getTaskState()).add(task.getTaskName());
+        }
+        return tasksByState;
+    }
+
+    /**
+     * Pause ( stop execution ) the deactivated tasks.
+     *
+     * @param deactivatedTasks - Names of the deactivated tasks assigned to this node.
+     * @throws TaskCoordinationException - when something goes wrong while updating tasks information in store.
+     */
+    private void pauseDeactivatedTasks(List<String> deactivatedTasks) throws TaskCoordinationException {
 
-        List<String> deactivatedTasks = taskStore.retrieveTaskNames(localNodeId, CoordinatedTask.States.DEACTIVATED);
         if (LOG.isDebugEnabled()) {
             deactivatedTasks.stream().map(
                     task -> "Task [" + task + "] retrieved in [" + CoordinatedTask.States.DEACTIVATED + "] state.")
@@ -115,7 +141,7 @@ public class CoordinatedTaskScheduler implements Runnable {
         }
         ScheduledTaskManager scheduledTaskManager = taskManager;
         List<String> pausedTasks = new ArrayList<>();
-        List<String> deployedTasks = taskManager.getAllCoordinatedTasksDeployed();
+        Set<String> deployedTasks = new HashSet<>(taskManager.getAllCoordinatedTasksDeployed());
         deactivatedTasks.forEach(task -> {
             if (deployedTasks.contains(task)) {
                 try {
@@ -154,56 +180,58 @@ public class CoordinatedTaskScheduler implements Runnable {
     }
 
     /**
-     * Schedules all tasks assigned to this node.
+     * Schedules all tasks assigned to this node. The states of the tasks are updated in the store in a single batch.
      *
-     * @param state - The state of the tasks which need to be scheduled.
-     * @throws TaskCoordinationException - When something goes wrong while retrieving all the assigned tasks.
+     * @param tasksOfThisNode - Names of the tasks assigned to this node, which need to be scheduled.
+     * @param state           - The state of the tasks which need to be scheduled.
+     * @throws TaskCoordinationException - When something goes wrong while updating the errored tasks.
      */
-    private void scheduleAssignedTasks(CoordinatedTask.States state) throws TaskCoordinationException {
+    private void scheduleAssignedTasks(List<String> tasksOfThisNode, CoordinatedTask.States state)
+            throws TaskCoordinationException {
 
-        LOG.debug("Retrieving tasks assigned to this node and to be scheduled.");
-        List<String> tasksOfThisNode = taskStore.retrieveTaskNames(localNodeId, state);
         if (tasksOfThisNode.isEmpty()) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("No tasks assigned to this node to be scheduled in state " + state);
             }
             return;
         }
-        List<String> deployedCoordinatedTasks = taskManager.getAllCoordinatedTasksDeployed();
-        List<String> erroredTasks = new ArrayList<>();
+        Set<String> deployedCoordinatedTasks = new HashSet<>(taskManager.getAllCoordinatedTasksDeployed());
+        List<String> tasksToBeScheduled = new ArrayList<>(tasksOfThisNode.size());
         for (String taskName : tasksOfThisNode) {
             if (deployedCoordinatedTasks.contains(taskName)) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Submitting retrieved task [" + taskName + "] to the task manager.");
                 }
-                try {
-                    taskManager.scheduleCoordinatedTask(taskName);
-                } catch (TaskException ex) {
-                    if (!TaskException.Code.DATABASE_ERROR.equals(ex.getCode())) {
-                        erroredTasks.add(taskName);
-                    }
-                    LOG.error("Exception occurred while scheduling coordinated task : " + taskName, ex);
-                }
+                tasksToBeScheduled.add(taskName);
             } else {
                 LOG.info("The task [" + taskName + "] retrieved to be scheduled is not a deployed task "
                                  + "in this node or an invalid entry, hence ignoring it.");
             }
         }
-        taskStore.updateTaskState(erroredTasks, CoordinatedTask.States.NONE);
+        if (tasksToBeScheduled.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> erroredTasks = taskManager.scheduleCoordinatedTasks(tasksToBeScheduled);
+            taskStore.updateTaskState(erroredTasks, CoordinatedTask.States.NONE);
+        } catch (TaskException ex) {
+            LOG.error("Exception occurred while scheduling coordinated tasks : " + tasksToBeScheduled, ex);
+        }
     }
 
     /**
      * Resolves the un assigned tasks and update the task store.
      * Synchronized since this will be triggered in leader periodically and upon member addition.
      *
+     * @return whether any of the tasks is assigned to this node
      * @throws TaskCoordinationException when something goes wrong connecting to the store
      */
-    public synchronized void resolveUnassignedNotCompletedTasksAndUpdateStore() throws TaskCoordinationException {
+    public synchronized boolean resolveUnassignedNotCompletedTasksAndUpdateStore() throws TaskCoordinationException {
 
         List<String> unAssignedTasks = taskStore.retrieveAllUnAssignedAndIncompleteTasks();
         if (unAssignedTasks.isEmpty()) {
             LOG.debug("No un assigned tasks found.");
-            return;
+            return false;
         }
         Map<String, String> tasksToBeUpdated = new HashMap<>();
         unAssignedTasks.forEach(taskName -> {
@@ -213,5 +241,6 @@ public class CoordinatedTaskScheduler implements Runnable {
             }
         });
         taskStore.updateAssignmentAndState(tasksToBeUpdated);
+        return tasksToBeUpdated.containsValue(localNodeId);
     }
 }
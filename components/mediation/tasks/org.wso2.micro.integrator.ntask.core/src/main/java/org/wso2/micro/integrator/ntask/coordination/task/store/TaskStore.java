@@ -74,6 +74,17 @@ public class TaskStore {
         return rdmbsConnector.retrieveTaskNames(nodeID, state);
     }
 
+    /**
+     * Retrieves all the tasks assigned to a node, along with their states.
+     *
+     * @param nodeID - Id of the node, for which the tasks need to be retrieved.
+     * @return - List of tasks.
+     */
+    public List<CoordinatedTask> retrieveTasks(String nodeID) throws TaskCoordinationException {
+
+        return rdmbsConnector.retrieveTasks(nodeID);
+    }
+
     /**
      * Removes all the tasks assigned to the node.
      *
@@ -180,6 +191,21 @@ public class TaskStore {
         return rdmbsConnector.updateTaskState(taskName, updatedState, destinedId);
     }
 
+    /**
+     * Update the state of a set of tasks in a single batch.
+     *
+     * @param tasks        Names of the tasks.
+     * @param updatedState Updated state.
+     * @param destinedId   Destined Node Id.
+     * @return Names of the tasks which were updated, i.e. which are still assigned to the destined node.
+     * @throws TaskCoordinationException when something goes wrong while updating.
+     */
+    public List<String> updateTaskState(List<String> tasks, CoordinatedTask.States updatedState, String destinedId)
+            throws TaskCoordinationException {
+
+        return rdmbsConnector.updateTaskState(tasks, updatedState, destinedId);
+    }
+
     /**
      * Get All unassigned tasks except the completed ones.
      *
@@ -29,6 +29,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +44,7 @@ import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.REMOVE_ASSIGNMENT_AND_UPDATE_STATE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.REMOVE_TASKS_OF_NODE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_ALL_TASKS;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_ALL_TASKS_OF_NODE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_TASKS_OF_NODE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_UNASSIGNED_NOT_COMPLETED_TASKS;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.TASK_NAME;
@@ -156,6 +158,23 @@ public class RDMBSConnector {
         }
     }
 
+    /**
+     * Retrieves all the tasks assigned to a node, along with their states, in a single query.
+     *
+     * @param nodeID - Id of the node, for which the tasks need to be retrieved.
+     * @return - List of tasks.
+     */
+    public List<CoordinatedTask> retrieveTasks(String nodeID) throws TaskCoordinationException {
+
+        try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
+                RETRIEVE_ALL_TASKS_OF_NODE)) {
+            preparedStatement.setString(1, nodeID);
+            return executeQuery(preparedStatement, "for node [" + nodeID + "].");
+        } catch (SQLException ex) {
+            throw new TaskCoordinationException(ERROR_MSG, ex);
+        }
+    }
+
     private void printDebugLogs(List<Object> tasks, String msg) {
         if (LOG.isDebugEnabled()) {
             LOG.debug(msg);
@@ -259,9 +278,10 @@ public class RDMBSConnector {
      * Helper method query data base and return task list.
      *
      * @param preparedStatement - Statement to be executed to retrieve the list of tasks.
+     * @param debug             - Description of the retrieved tasks for the debug logs.
      * @throws SQLException - Exception.
      */
-    private List<CoordinatedTask> executeQuery(PreparedStatement preparedStatement) throws SQLException {
+    private List<CoordinatedTask> executeQuery(PreparedStatement preparedStatement, String debug) throws SQLException {
 
         List<CoordinatedTask> tasks = new ArrayList<>();
         try (ResultSet resultSet = preparedStatement.executeQuery()) {
@@ -271,8 +291,7 @@ public class RDMBSConnector {
                                               CoordinatedTask.States.valueOf(resultSet.getString(TASK_STATE))));
             }
         }
-        printDebugLogs(new ArrayList<>(tasks),
-                       "Following list of tasks were retrieved for assigned and incomplete tasks.");
+        printDebugLogs(new ArrayList<>(tasks), "Following list of tasks were retrieved " + debug);
         return tasks;
     }
 
@@ -300,7 +319,7 @@ public class RDMBSConnector {
 
         try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
                 GET_ALL_ASSIGNED_INCOMPLETE_TASKS)) {
-            return executeQuery(preparedStatement);
+            return executeQuery(preparedStatement, "for assigned and incomplete tasks.");
         } catch (SQLException ex) {
             throw new TaskCoordinationException(ERROR_MSG, ex);
         }
@@ -389,6 +408,47 @@ public class RDMBSConnector {
         }
     }
 
+    /**
+     * Update the state of a set of tasks in a single batch, if they are still assigned to the given node.
+     *
+     * @param tasks        Names of the tasks.
+     * @param updatedState Updated state.
+     * @param destinedId   Destined Node Id.
+     * @return Names of the tasks which were updated.
+     * @throws TaskCoordinationException when something goes wrong while updating.
+     */
+    public List<String> updateTaskState(List<String> tasks, CoordinatedTask.States updatedState, String destinedId)
+            throws TaskCoordinationException {
+
+        List<String> updatedTasks = new ArrayList<>();
+        if (tasks.isEmpty()) {
+            return updatedTasks;
+        }
+        try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
+                UPDATE_TASK_STATE_FOR_DESTINED_NODE)) {
+            for (String task : tasks) {
+                preparedStatement.setString(1, updatedState.name());
+                preparedStatement.setString(2, task);
+                preparedStatement.setString(3, destinedId);
+                preparedStatement.addBatch();
+            }
+            int[] results = preparedStatement.executeBatch();
+            for (int i = 0; i < results.length; i++) {
+                // drivers which do not report the row count of each statement are trusted, as the non batched update
+                if (results[i] == 1 || results[i] == Statement.SUCCESS_NO_INFO) {
+                    updatedTasks.add(tasks.get(i));
+                }
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Updated state to [" + updatedState + "] for " + updatedTasks.size() + " of " + tasks.size()
+                                  + " tasks with destined nodeId [" + destinedId + "]");
+            }
+            return updatedTasks;
+        } catch (SQLException ex) {
+            throw new TaskCoordinationException(ERROR_MSG, ex);
+        }
+    }
+
     /**
      * Updates the stat of a task.
      *
@@ -397,8 +457,10 @@ public class RDMBSConnector {
      */
     public void updateTaskState(List<String> tasks, CoordinatedTask.States state) throws TaskCoordinationException {
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(EMPTY_LIST + " for    update assignment and state change to none if running.");
+        if (tasks.isEmpty()) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(EMPTY_LIST + " for state change to [" + state + "].");
+            }
             return;
         }
         try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
@@ -410,7 +472,8 @@ public class RDMBSConnector {
             }
             preparedStatement.executeBatch();
             if (LOG.isDebugEnabled()) {
-                tasks.stream().map(task -> "Paused task [" + task + "]").forEachOrdered(LOG::debug);
+                tasks.stream().map(task -> "Updated state to [" + state + "] for task [" + task + "]")
+                        .forEachOrdered(LOG::debug);
             }
         } catch (SQLException ex) {
             throw new TaskCoordinationException(ERROR_MSG, ex);
@@ -71,6 +71,10 @@ public class TaskQueryHelper {
             "SELECT " + TASK_NAME + " FROM " + TABLE_NAME + "  WHERE " + DESTINED_NODE_ID + " =? AND " + TASK_STATE
                     + " =?";
 
+    static final String RETRIEVE_ALL_TASKS_OF_NODE =
+            "SELECT " + TASK_NAME + ", " + DESTINED_NODE_ID + ", " + TASK_STATE + " FROM " + TABLE_NAME + " WHERE "
+                    + DESTINED_NODE_ID + " =?";
+
     static final String REMOVE_ASSIGNMENT_AND_UPDATE_STATE =
             "UPDATE " + TABLE_NAME + " SET " + DESTINED_NODE_ID + " = NULL , " + TASK_STATE + " = " + TASK_STATE_CONST
                     + " WHERE " + TASK_NAME + " =?";
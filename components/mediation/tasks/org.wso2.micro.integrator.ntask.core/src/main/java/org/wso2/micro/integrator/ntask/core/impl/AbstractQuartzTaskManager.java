@@ -19,6 +19,7 @@ package org.wso2.micro.integrator.ntask.core.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.Job;
 import org.quartz.JobBuilder;
@@ -28,6 +29,7 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobKey;
 import org.quartz.Matcher;
 import org.quartz.Scheduler;
+import org.quartz.SchedulerContext;
 import org.quartz.SchedulerException;
 import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
@@ -63,6 +65,8 @@ public abstract class AbstractQuartzTaskManager implements TaskManager {
 
     private static final Log log = LogFactory.getLog(AbstractQuartzTaskManager.class);
 
+    private static final String CONCURRENCY_LIMITER_KEY_PREFIX = "TaskConcurrencyLimiter.";
+
     /**
      * The set of listeners to be notified when a local task is deleted where each listener is mapped to the job that
      * it should be notified of the deletion.
@@ -87,6 +91,54 @@ public abstract class AbstractQuartzTaskManager implements TaskManager {
         }
     }
 
+    /**
+     * Make the concurrency limiter of the task classes of the task group of this task manager available to its jobs,
+     * through the scheduler context, unless it is already. The task managers created for the same task group share
+     * the limiter.
+     */
+    private void initConcurrencyLimiter() throws TaskException {
+        String taskGroup = this.getTenantTaskGroup();
+        synchronized (AbstractQuartzTaskManager.class) {
+            TaskConcurrencyLimiter limiter;
+            try {
+                SchedulerContext context = this.getScheduler().getContext();
+                String key = getConcurrencyLimiterKey(taskGroup);
+                if (context.containsKey(key)) {
+                    return;
+                }
+                limiter = new TaskConcurrencyLimiter(TasksDSComponent.getMaxConcurrentExecutionsPerTaskClass());
+                context.put(key, limiter);
+            } catch (SchedulerException e) {
+                throw new TaskException("Error in initiating task concurrency limiter", TaskException.Code.UNKNOWN,
+                                        e);
+            }
+            MBeanRegistrar.getInstance().registerMBean(limiter, TaskConcurrencyLimiter.MBEAN_CATEGORY, taskGroup);
+        }
+    }
+
+    /**
+     * Remove the concurrency limiter of the task group of this task manager and its MBean, once the group has no
+     * tasks left.
+     */
+    private void destroyConcurrencyLimiterIfUnused() throws TaskException {
+        String taskGroup = this.getTenantTaskGroup();
+        synchronized (AbstractQuartzTaskManager.class) {
+            try {
+                if (!this.getScheduler().getJobKeys(GroupMatcher.jobGroupEquals(taskGroup)).isEmpty()
+                        || this.getScheduler().getContext().remove(getConcurrencyLimiterKey(taskGroup)) == null) {
+                    return;
+                }
+            } catch (SchedulerException e) {
+                throw new TaskException("Error in removing task concurrency limiter", TaskException.Code.UNKNOWN, e);
+            }
+            MBeanRegistrar.getInstance().unRegisterMBean(TaskConcurrencyLimiter.MBEAN_CATEGORY, taskGroup);
+        }
+    }
+
+    static String getConcurrencyLimiterKey(String taskGroup) {
+        return CONCURRENCY_LIMITER_KEY_PREFIX + taskGroup;
+    }
+
     protected TaskRepository getTaskRepository() {
         return taskRepository;
     }
@@ -142,6 +194,7 @@ public abstract class AbstractQuartzTaskManager implements TaskManager {
             result = this.getScheduler().deleteJob(new JobKey(taskName, taskGroup));
             if (result) {
                 log.info("Task deleted: [" + this.getTaskType() + "][" + taskName + "]");
+                this.destroyConcurrencyLimiterIfUnused();
                 //notify the listeners of the task deletion
                 LocalTaskActionListener listener = localTaskActionListeners.get(taskName);
                 if (null != listener) {
@@ -215,6 +268,7 @@ public abstract class AbstractQuartzTaskManager implements TaskManager {
         JobDetail job = JobBuilder.newJob(jobClass).withIdentity(taskName, taskGroup).usingJobData(
                 this.getJobDataMapFromTaskInfo(taskInfo)).build();
         Trigger trigger = this.getTriggerFromInfo(taskName, taskGroup, taskInfo.getTriggerInfo());
+        this.initConcurrencyLimiter();
         try {
             this.getScheduler().scheduleJob(job, trigger);
             if (paused) {
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.ntask.core.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Quartz thread pool implementation with a bounded number of threads and a bounded number of waiting tasks. The
+ * scheduler is held back in {@link #blockForAvailableThreads()} while all the threads are busy and the queue is full,
+ * so that a burst of triggers does not spawn an unbounded number of threads, and {@link #runInThread(Runnable)} blocks
+ * until the task is accepted, so that a fired trigger is never rejected.
+ * <p>
+ * The capacity of the pool, i.e. the number of threads plus the queue capacity, is guarded by a semaphore whose permit
+ * is only released after a task has completed, so that a task is never offered to a pool whose threads are still
+ * returning from the previous tasks.
+ * <p>
+ * The pool is configured through the "org.quartz.threadPool" properties, e.g. "org.quartz.threadPool.threadCount",
+ * and its statistics are exposed through the {@link TaskThreadPoolMXBean}.
+ */
+public class QuartzBoundedThreadPool implements ThreadPool, TaskThreadPoolMXBean {
+
+    private static final Log log = LogFactory.getLog(QuartzBoundedThreadPool.class);
+
+    public static final int DEFAULT_THREAD_COUNT = 100;
+
+    static final String MBEAN_CATEGORY = "TaskThreadPool";
+
+    private int threadCount = DEFAULT_THREAD_COUNT;
+
+    private int queueCapacity = 0;
+
+    private String threadNamePrefix = "task-worker";
+
+    private String instanceName = "DefaultQuartzScheduler";
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Permits for the threads and the queue slots of the pool, which are held from the time a task is accepted until
+     * it completes
+     */
+    private Semaphore capacity;
+
+    /**
+     * Guards the waits for an available thread
+     */
+    private final Object availabilityLock = new Object();
+
+    private volatile boolean shutdown;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final LongAdder completedCount = new LongAdder();
+
+    private final LongAdder totalQueueWaitTime = new LongAdder();
+
+    private final AtomicLong maxQueueWaitTime = new AtomicLong();
+
+    private final LongAdder totalRunTime = new LongAdder();
+
+    private final AtomicLong maxRunTime = new AtomicLong();
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    @Override
+    public void initialize() throws SchedulerConfigException {
+        if (threadCount < 1) {
+            throw new SchedulerConfigException("Thread count of the task thread pool should be greater than 0 : "
+                                                       + threadCount);
+        }
+        if (queueCapacity < 0) {
+            throw new SchedulerConfigException("Queue capacity of the task thread pool should not be negative : "
+                                                       + queueCapacity);
+        }
+        capacity = new Semaphore(threadCount + queueCapacity);
+        /* the queue of the executor is not bounded, since the tasks it holds are bounded by the capacity permits */
+        executor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<Runnable>(),
+                                          new WorkerThreadFactory(threadNamePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        MBeanRegistrar.getInstance().registerMBean(this, MBEAN_CATEGORY, instanceName);
+        if (log.isDebugEnabled()) {
+            log.debug("Task thread pool initialized with " + threadCount + " threads and a queue of "
+                              + queueCapacity);
+        }
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        synchronized (availabilityLock) {
+            while (!shutdown && capacity.availablePermits() < 1) {
+                try {
+                    availabilityLock.wait(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return capacity.availablePermits();
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        return threadCount;
+    }
+
+    /**
+     * Run the given task, waiting for a free thread or queue slot if there is none.
+     *
+     * @param task task to be run
+     * @return false only if the pool has been shut down, or the scheduler thread is interrupted while waiting
+     */
+    @Override
+    public boolean runInThread(Runnable task) {
+        if (task == null || shutdown) {
+            return false;
+        }
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for a thread of the task thread pool. The task is not run");
+            return false;
+        }
+        try {
+            executor.execute(new MeasuredTask(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            /* the executor only rejects tasks once it is shut down */
+            releaseCapacity();
+            log.warn("Task thread pool is shut down. The task is not run");
+            return false;
+        }
+    }
+
+    private void releaseCapacity() {
+        capacity.release();
+        synchronized (availabilityLock) {
+            availabilityLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void setInstanceId(String instanceId) {
+    }
+
+    @Override
+    public void setInstanceName(String instanceName) {
+        this.instanceName = instanceName;
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        shutdown = true;
+        synchronized (availabilityLock) {
+            availabilityLock.notifyAll();
+        }
+        if (executor != null) {
+            if (waitForJobsToComplete) {
+                executor.shutdown();
+                try {
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                executor.shutdownNow();
+            }
+            MBeanRegistrar.getInstance().unRegisterMBean(MBEAN_CATEGORY, instanceName);
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    @Override
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        int pendingCount = threadCount + queueCapacity - capacity.availablePermits();
+        return Math.max(0, pendingCount - activeCount.get());
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    @Override
+    public double getAverageQueueWaitTime() {
+        long completed = completedCount.sum();
+        return completed == 0 ? 0 : (double) totalQueueWaitTime.sum() / completed;
+    }
+
+    @Override
+    public long getMaxQueueWaitTime() {
+        return maxQueueWaitTime.get();
+    }
+
+    @Override
+    public double getAverageRunTime() {
+        long completed = completedCount.sum();
+        return completed == 0 ? 0 : (double) totalRunTime.sum() / completed;
+    }
+
+    @Override
+    public long getMaxRunTime() {
+        return maxRunTime.get();
+    }
+
+    @Override
+    public void resetStatistics() {
+        completedCount.reset();
+        totalQueueWaitTime.reset();
+        maxQueueWaitTime.set(0);
+        totalRunTime.reset();
+        maxRunTime.set(0);
+    }
+
+    /**
+     * Wraps a task to record the time it waited for a thread and the time it ran, and to release its capacity
+     * permit once it has completed.
+     */
+    private class MeasuredTask implements Runnable {
+
+        private final Runnable task;
+
+        private final long submittedTime = System.currentTimeMillis();
+
+        MeasuredTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long startTime = System.currentTimeMillis();
+            long queueWaitTime = startTime - submittedTime;
+            totalQueueWaitTime.add(queueWaitTime);
+            updateMax(maxQueueWaitTime, queueWaitTime);
+            activeCount.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                long runTime = System.currentTimeMillis() - startTime;
+                totalRunTime.add(runTime);
+                updateMax(maxRunTime, runTime);
+                completedCount.increment();
+                activeCount.decrementAndGet();
+                releaseCapacity();
+            }
+        }
+    }
+
+    /**
+     * Creates the named daemon threads of the pool.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        WorkerThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.ntask.core.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of concurrent executions of each task class of a task manager, so that a single kind of task,
+ * e.g. a set of blocking inbound endpoint pollers, cannot occupy all the threads of the task thread pool. A repeating
+ * task execution which would exceed the limit of its class is skipped and the task runs again on its next trigger.
+ */
+public class TaskConcurrencyLimiter implements TaskConcurrencyLimiterMXBean {
+
+    private static final Log log = LogFactory.getLog(TaskConcurrencyLimiter.class);
+
+    static final String MBEAN_CATEGORY = "TaskConcurrencyLimiter";
+
+    /**
+     * Slot returned when there is no limit, which never blocks and whose release has no effect.
+     */
+    static final Semaphore NO_LIMIT = new Semaphore(Integer.MAX_VALUE) {
+
+        @Override
+        public void release() {
+        }
+    };
+
+    private final ConcurrentMap<String, ResizableSemaphore> permits = new ConcurrentHashMap<>();
+
+    private final LongAdder throttledCount = new LongAdder();
+
+    private int maxConcurrentExecutions;
+
+    /**
+     * @param maxConcurrentExecutions maximum number of concurrent executions of a task class, or a non-positive value
+     *                                for no limit
+     */
+    public TaskConcurrencyLimiter(int maxConcurrentExecutions) {
+        this.maxConcurrentExecutions = maxConcurrentExecutions > 0 ? maxConcurrentExecutions : -1;
+    }
+
+    /**
+     * Set the maximum number of concurrent executions of a task class. The executions in progress keep their slots,
+     * so a reduced limit applies once enough of them have completed.
+     *
+     * @param maxConcurrentExecutions maximum number of concurrent executions, or a non-positive value for no limit
+     */
+    @Override
+    public synchronized void setMaxConcurrentExecutions(int maxConcurrentExecutions) {
+        int limit = maxConcurrentExecutions > 0 ? maxConcurrentExecutions : -1;
+        if (limit == this.maxConcurrentExecutions) {
+            return;
+        }
+        if (this.maxConcurrentExecutions < 0 || limit < 0) {
+            /* the executions started without a limit do not hold slots, so the slots are counted afresh */
+            permits.clear();
+        } else {
+            for (ResizableSemaphore semaphore : permits.values()) {
+                semaphore.resize(limit - this.maxConcurrentExecutions);
+            }
+        }
+        this.maxConcurrentExecutions = limit;
+    }
+
+    @Override
+    public synchronized int getMaxConcurrentExecutions() {
+        return maxConcurrentExecutions;
+    }
+
+    /**
+     * Try to reserve an execution slot for the given task class.
+     *
+     * @param taskClassName class name of the task
+     * @return the reserved slot which should be released once the task completes, or null if the limit is reached
+     */
+    Semaphore tryAcquire(String taskClassName) {
+        Semaphore semaphore = getSemaphore(taskClassName);
+        if (semaphore.tryAcquire()) {
+            return semaphore;
+        }
+        throttledCount.increment();
+        if (log.isDebugEnabled()) {
+            log.debug("Skipping the execution of a " + taskClassName + " task since " + getMaxConcurrentExecutions()
+                              + " executions of the task class are in progress");
+        }
+        return null;
+    }
+
+    /**
+     * Reserve an execution slot for the given task class, waiting for one if the limit is reached.
+     *
+     * @param taskClassName class name of the task
+     * @return the reserved slot which should be released once the task completes
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    Semaphore acquire(String taskClassName) throws InterruptedException {
+        Semaphore semaphore = getSemaphore(taskClassName);
+        if (!semaphore.tryAcquire()) {
+            throttledCount.increment();
+            semaphore.acquire();
+        }
+        return semaphore;
+    }
+
+    private synchronized Semaphore getSemaphore(String taskClassName) {
+        int limit = maxConcurrentExecutions;
+        if (limit < 0) {
+            return NO_LIMIT;
+        }
+        return permits.computeIfAbsent(taskClassName, name -> new ResizableSemaphore(limit));
+    }
+
+    @Override
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    @Override
+    public void resetStatistics() {
+        throttledCount.reset();
+    }
+
+    /**
+     * Semaphore whose number of permits can be changed while some of them are held.
+     */
+    private static class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        void resize(int delta) {
+            if (delta > 0) {
+                release(delta);
+            } else if (delta < 0) {
+                reducePermits(-delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.ntask.core.impl;
+
+/**
+ * MBean interface to expose the concurrency limit of the task classes of a task manager using JMX.
+ */
+public interface TaskConcurrencyLimiterMXBean {
+
+    /**
+     * @return maximum number of concurrent executions of a task class, or -1 if there is no limit
+     */
+    int getMaxConcurrentExecutions();
+
+    /**
+     * Set the maximum number of concurrent executions of a task class.
+     *
+     * @param maxConcurrentExecutions maximum number of concurrent executions, or a non-positive value for no limit
+     */
+    void setMaxConcurrentExecutions(int maxConcurrentExecutions);
+
+    /**
+     * @return number of task executions skipped, or delayed, since the limit of their task class was reached
+     */
+    long getThrottledCount();
+
+    /**
+     * Reset the count of the throttled task executions.
+     */
+    void resetStatistics();
+}
@@ -23,11 +23,13 @@ import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.SchedulerException;
 import org.wso2.micro.integrator.ntask.common.TaskConstants;
 import org.wso2.micro.integrator.ntask.core.Task;
 import org.wso2.micro.integrator.ntask.core.internal.TasksDSComponent;
 
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 /**
  * This class represents an adapter class used to wrap a Task in a Quartz Job.
@@ -54,6 +56,10 @@ public class TaskQuartzJobAdapter implements Job {
         if (taskClassName == null) {
             throw new JobExecutionException("The task class is missing in the job data map");
         }
+        Semaphore executionSlot = this.acquireExecutionSlot(ctx, taskClassName);
+        if (executionSlot == null) {
+            return;
+        }
         try {
             org.wso2.micro.integrator.ntask.core.Task task = (Task) Class.forName(taskClassName).newInstance();
             Map<String, String> properties = (Map<String, String>) dataMap.get(TaskConstants.TASK_PROPERTIES);
@@ -66,6 +72,40 @@ public class TaskQuartzJobAdapter implements Job {
             String msg = "Error in executing task: " + e.getMessage();
             log.error(msg, e);
             throw new JobExecutionException(msg, e);
+        } finally {
+            executionSlot.release();
+        }
+    }
+
+    /**
+     * Reserve an execution slot from the concurrency limiter of the task manager of the job. A repeating task skips
+     * this execution if the limit of its class is reached, since it runs again on its next trigger, whereas a task
+     * without a next trigger waits for a slot.
+     *
+     * @return the reserved slot, or null if the execution should be skipped
+     */
+    private Semaphore acquireExecutionSlot(JobExecutionContext ctx, String taskClassName)
+            throws JobExecutionException {
+        TaskConcurrencyLimiter limiter;
+        try {
+            limiter = (TaskConcurrencyLimiter) ctx.getScheduler().getContext().get(
+                    AbstractQuartzTaskManager.getConcurrencyLimiterKey(ctx.getJobDetail().getKey().getGroup()));
+        } catch (SchedulerException e) {
+            throw new JobExecutionException("Error in reading the scheduler context", e);
+        }
+        if (limiter == null) {
+            return TaskConcurrencyLimiter.NO_LIMIT;
+        }
+        if (ctx.getTrigger().getNextFireTime() != null) {
+            return limiter.tryAcquire(taskClassName);
+        }
+        try {
+            return limiter.acquire(taskClassName);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the concurrency limit of the task class " + taskClassName
+                             + ". The task " + ctx.getJobDetail().getKey().getName() + " is not executed");
+            return null;
         }
     }
 
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.ntask.core.impl;
+
+/**
+ * MBean interface to expose the state of the task thread pool using JMX.
+ */
+public interface TaskThreadPoolMXBean {
+
+    /**
+     * @return maximum number of threads executing tasks
+     */
+    int getThreadCount();
+
+    /**
+     * @return maximum number of tasks waiting for a thread
+     */
+    int getQueueCapacity();
+
+    /**
+     * @return number of threads currently executing tasks
+     */
+    int getActiveCount();
+
+    /**
+     * @return number of tasks currently waiting for a thread
+     */
+    int getQueuedCount();
+
+    /**
+     * @return number of tasks executed
+     */
+    long getCompletedCount();
+
+    /**
+     * @return average time in milliseconds the tasks waited for a thread
+     */
+    double getAverageQueueWaitTime();
+
+    /**
+     * @return maximum time in milliseconds a task waited for a thread
+     */
+    long getMaxQueueWaitTime();
+
+    /**
+     * @return average task execution time in milliseconds
+     */
+    double getAverageRunTime();
+
+    /**
+     * @return maximum task execution time in milliseconds
+     */
+    long getMaxRunTime();
+
+    /**
+     * Reset the counts and the times of the executed tasks.
+     */
+    void resetStatistics();
+}
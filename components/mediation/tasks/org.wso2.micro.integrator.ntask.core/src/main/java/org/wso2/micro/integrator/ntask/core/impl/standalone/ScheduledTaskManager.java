@@ -35,7 +35,9 @@ import org.wso2.micro.integrator.ntask.core.internal.TasksDSComponent;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This class is responsible for handling / scheduling all tasks in Micro Integrator.
@@ -161,12 +163,7 @@ public class ScheduledTaskManager extends AbstractQuartzTaskManager {
 
         try {
             if (taskStore.updateTaskState(taskName, CoordinatedTask.States.RUNNING, localNodeId)) {
-                if (!isPreviouslyScheduled(taskName, getTenantTaskGroup())) {
-                    scheduleTask(taskName);
-                } else {
-                    resumeLocalTask(taskName);
-                }
-                locallyRunningCoordinatedTasks.add(taskName);
+                scheduleRunningCoordinatedTask(taskName);
             } else {
                 log.error("Failed to update state as " + CoordinatedTask.States.RUNNING + " for task [" + taskName + "]"
                                   + ". Hence not scheduling.");
@@ -178,6 +175,54 @@ public class ScheduledTaskManager extends AbstractQuartzTaskManager {
         }
     }
 
+    /**
+     * Schedules a set of coordinated tasks, updating their states in the task store in a single batch.
+     *
+     * @param taskNames The names of the tasks to be scheduled.
+     * @return The names of the tasks which failed to be scheduled locally after their state was updated, except for
+     * database errors.
+     * @throws TaskException If the states of the tasks could not be updated.
+     */
+    public List<String> scheduleCoordinatedTasks(List<String> taskNames) throws TaskException {
+
+        Set<String> updatedTasks;
+        try {
+            updatedTasks = new HashSet<>(taskStore.updateTaskState(taskNames, CoordinatedTask.States.RUNNING,
+                                                                   localNodeId));
+        } catch (TaskCoordinationException e) {
+            throw new TaskException("Exception occurred while updating the state of the tasks : " + taskNames
+                                            + " to : " + CoordinatedTask.States.RUNNING,
+                                    TaskException.Code.DATABASE_ERROR, e);
+        }
+        List<String> failedTasks = new ArrayList<>();
+        for (String taskName : taskNames) {
+            if (!updatedTasks.contains(taskName)) {
+                log.error("Failed to update state as " + CoordinatedTask.States.RUNNING + " for task [" + taskName
+                                  + "]. Hence not scheduling.");
+                continue;
+            }
+            try {
+                scheduleRunningCoordinatedTask(taskName);
+            } catch (TaskException e) {
+                if (!TaskException.Code.DATABASE_ERROR.equals(e.getCode())) {
+                    failedTasks.add(taskName);
+                }
+                log.error("Exception occurred while scheduling coordinated task : " + taskName, e);
+            }
+        }
+        return failedTasks;
+    }
+
+    private void scheduleRunningCoordinatedTask(String taskName) throws TaskException {
+
+        if (!isPreviouslyScheduled(taskName, getTenantTaskGroup())) {
+            scheduleTask(taskName);
+        } else {
+            resumeLocalTask(taskName);
+        }
+        locallyRunningCoordinatedTasks.add(taskName);
+    }
+
     public List<String> getLocallyRunningCoordinatedTasks() {
         return new ArrayList<>(locallyRunningCoordinatedTasks);
     }
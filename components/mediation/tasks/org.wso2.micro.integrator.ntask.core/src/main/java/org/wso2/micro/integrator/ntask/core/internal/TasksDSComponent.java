@@ -47,6 +47,7 @@ import org.wso2.micro.integrator.ntask.coordination.task.resolver.ActivePassiveR
 import org.wso2.micro.integrator.ntask.coordination.task.resolver.TaskLocationResolver;
 import org.wso2.micro.integrator.ntask.coordination.task.store.TaskStore;
 import org.wso2.micro.integrator.ntask.core.TaskStartupHandler;
+import org.wso2.micro.integrator.ntask.core.impl.QuartzBoundedThreadPool;
 import org.wso2.micro.integrator.ntask.core.impl.QuartzCachedThreadPool;
 import org.wso2.micro.integrator.ntask.core.impl.standalone.ScheduledTaskManager;
 import org.wso2.micro.integrator.ntask.core.service.TaskService;
@@ -75,6 +76,9 @@ public class TasksDSComponent {
     private static final String RESOLVING_PERIOD = "resolving_period";
     private static final String RESOLVING_FREQUENCY = "resolving_frequency";
     private static final String TASK_RESOLVER = "task_resolver";
+    private static final String THREAD_POOL_THREAD_COUNT = "thread_pool_thread_count";
+    private static final String THREAD_POOL_QUEUE_CAPACITY = "thread_pool_queue_capacity";
+    private static final String MAX_CONCURRENT_EXECUTIONS_PER_TASK_CLASS = "max_concurrent_executions_per_task_class";
 
     private final Log log = LogFactory.getLog(TasksDSComponent.class);
 
@@ -84,6 +88,8 @@ public class TasksDSComponent {
 
     private static TaskService taskService;
 
+    private static int maxConcurrentExecutionsPerTaskClass = -1;
+
     private static ExecutorService executor = Executors.newCachedThreadPool();
     private static DataSourceService dataSourceService;
     private Object coordinationDatasourceObject;
@@ -108,6 +114,7 @@ public class TasksDSComponent {
             } else {
                 fac = new StdSchedulerFactory(this.getStandardQuartzProps());
             }
+            setTaskConcurrencyLimit();
             TasksDSComponent.scheduler = fac.getScheduler();
             TasksDSComponent.getScheduler().start();
 
@@ -158,6 +165,8 @@ public class TasksDSComponent {
                         scheduledTaskManager, taskStore, clusterCoordinator, resolver);
                 // join cluster
                 clusterCoordinator.startCoordinator();
+                // expose the coordinator to the other components, e.g. to broadcast mediator cache invalidations
+                bundleContext.registerService(ClusterCoordinator.class.getName(), clusterCoordinator, null);
                 setSchedulerProperties();
                 coordinatedTaskScheduleManager.startTaskScheduler("");
             }
@@ -166,6 +175,20 @@ public class TasksDSComponent {
         }
     }
 
+    private void setTaskConcurrencyLimit() {
+
+        Object maxExecutions = ConfigParser.getParsedConfigs().get(
+                TASK_CONFIG + "." + MAX_CONCURRENT_EXECUTIONS_PER_TASK_CLASS);
+        if (maxExecutions != null) {
+            try {
+                TasksDSComponent.maxConcurrentExecutionsPerTaskClass = Integer.parseInt(maxExecutions.toString());
+            } catch (NumberFormatException e) {
+                log.warn(MAX_CONCURRENT_EXECUTIONS_PER_TASK_CLASS + " should be an integer. The value " + maxExecutions
+                                 + " will be ignored and the task classes will not be limited.");
+            }
+        }
+    }
+
     private void setSchedulerProperties() {
 
         Map<String, Object> configs = ConfigParser.getParsedConfigs();
@@ -259,7 +282,23 @@ public class TasksDSComponent {
 
         Properties result = new Properties();
         result.put("org.quartz.scheduler.skipUpdateCheck", "true");
-        result.put("org.quartz.threadPool.class", QuartzCachedThreadPool.class.getName());
+        Map<String, Object> configs = ConfigParser.getParsedConfigs();
+        Object threadCount = configs.get(TASK_CONFIG + "." + THREAD_POOL_THREAD_COUNT);
+        Object queueCapacity = configs.get(TASK_CONFIG + "." + THREAD_POOL_QUEUE_CAPACITY);
+        if (threadCount == null) {
+            // the tasks run on an unbounded pool unless its size is configured
+            result.put("org.quartz.threadPool.class", QuartzCachedThreadPool.class.getName());
+            if (queueCapacity != null) {
+                log.warn(THREAD_POOL_QUEUE_CAPACITY + " is ignored since " + THREAD_POOL_THREAD_COUNT
+                                 + " is not configured and the task thread pool is unbounded.");
+            }
+            return result;
+        }
+        result.put("org.quartz.threadPool.class", QuartzBoundedThreadPool.class.getName());
+        result.put("org.quartz.threadPool.threadCount", threadCount.toString());
+        if (queueCapacity != null) {
+            result.put("org.quartz.threadPool.queueCapacity", queueCapacity.toString());
+        }
         return result;
     }
 
@@ -292,6 +331,11 @@ public class TasksDSComponent {
         return scheduler;
     }
 
+    public static int getMaxConcurrentExecutionsPerTaskClass() {
+
+        return maxConcurrentExecutionsPerTaskClass;
+    }
+
     public static SecretCallbackHandlerService getSecretCallbackHandlerService() {
 
         return TasksDSComponent.secretCallbackHandlerService;
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.ntask.core.impl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Test the bounded Quartz thread pool.
+ */
+public class QuartzBoundedThreadPoolTest {
+
+    private QuartzBoundedThreadPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new QuartzBoundedThreadPool();
+        pool.setThreadCount(1);
+        pool.setInstanceName("QuartzBoundedThreadPoolTest");
+        pool.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown(false);
+    }
+
+    /**
+     * A task submitted as soon as the only thread has completed the previous task should be accepted, although the
+     * thread may not be waiting for a new task yet.
+     */
+    @Test
+    public void testTaskSubmittedRightAfterCompletionIsAccepted() throws Exception {
+        int taskCount = 500;
+        CountDownLatch completed = new CountDownLatch(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            Assert.assertTrue("Task " + i + " was rejected", pool.blockForAvailableThreads() > 0);
+            Assert.assertTrue("Task " + i + " was rejected", pool.runInThread(completed::countDown));
+        }
+        Assert.assertTrue(completed.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(taskCount, pool.getCompletedCount());
+    }
+
+    @Test
+    public void testRunInThreadWaitsForCapacity() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Assert.assertTrue(pool.runInThread(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        }));
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, pool.getActiveCount());
+
+        AtomicBoolean accepted = new AtomicBoolean();
+        CountDownLatch ran = new CountDownLatch(1);
+        Thread scheduler = new Thread(() -> accepted.set(pool.runInThread(ran::countDown)));
+        scheduler.start();
+        scheduler.join(500);
+        Assert.assertTrue("The task should wait for a thread", scheduler.isAlive());
+        Assert.assertEquals(1, ran.getCount());
+
+        release.countDown();
+        scheduler.join(10000);
+        Assert.assertTrue(accepted.get());
+        Assert.assertTrue(ran.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueuedTasks() throws Exception {
+        QuartzBoundedThreadPool queuedPool = new QuartzBoundedThreadPool();
+        queuedPool.setThreadCount(1);
+        queuedPool.setQueueCapacity(2);
+        queuedPool.setInstanceName("QuartzBoundedThreadPoolTest-queued");
+        queuedPool.initialize();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger ran = new AtomicInteger();
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(queuedPool.runInThread(() -> {
+                    awaitQuietly(release);
+                    ran.incrementAndGet();
+                }));
+            }
+            waitFor(() -> queuedPool.getActiveCount() == 1);
+            Assert.assertEquals(2, queuedPool.getQueuedCount());
+
+            release.countDown();
+            waitFor(() -> queuedPool.getCompletedCount() == 3);
+            Assert.assertEquals(3, ran.get());
+            waitFor(() -> queuedPool.blockForAvailableThreads() == 3);
+        } finally {
+            queuedPool.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testRunInThreadAfterShutdown() {
+        pool.shutdown(true);
+        Assert.assertFalse(pool.runInThread(() -> {
+        }));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Timed out waiting for the pool", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.ntask.core.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Test the limit of the concurrent executions of the task classes.
+ */
+public class TaskConcurrencyLimiterTest {
+
+    private static final String TASK_CLASS = "org.example.PollingTask";
+
+    private static final String OTHER_TASK_CLASS = "org.example.OtherTask";
+
+    @Test
+    public void testLimitPerTaskClass() {
+        TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter(1);
+        Semaphore slot = limiter.tryAcquire(TASK_CLASS);
+        Assert.assertNotNull(slot);
+        Assert.assertNull(limiter.tryAcquire(TASK_CLASS));
+        Assert.assertEquals(1, limiter.getThrottledCount());
+        Assert.assertNotNull("Other task classes should not be limited", limiter.tryAcquire(OTHER_TASK_CLASS));
+
+        slot.release();
+        Assert.assertNotNull(limiter.tryAcquire(TASK_CLASS));
+    }
+
+    @Test
+    public void testNoLimit() {
+        TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter(0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNotNull(limiter.tryAcquire(TASK_CLASS));
+        }
+        Assert.assertEquals(0, limiter.getThrottledCount());
+        Assert.assertEquals(-1, limiter.getMaxConcurrentExecutions());
+    }
+
+    @Test
+    public void testLimitsAreNotShared() {
+        TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter(1);
+        TaskConcurrencyLimiter otherLimiter = new TaskConcurrencyLimiter(1);
+        Assert.assertNotNull(limiter.tryAcquire(TASK_CLASS));
+        Assert.assertNotNull(otherLimiter.tryAcquire(TASK_CLASS));
+    }
+
+    @Test
+    public void testIncreaseLimitWhileSlotsAreHeld() {
+        TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter(1);
+        Semaphore slot = limiter.tryAcquire(TASK_CLASS);
+        Assert.assertNotNull(slot);
+
+        limiter.setMaxConcurrentExecutions(2);
+        Semaphore secondSlot = limiter.tryAcquire(TASK_CLASS);
+        Assert.assertNotNull(secondSlot);
+        Assert.assertNull(limiter.tryAcquire(TASK_CLASS));
+
+        slot.release();
+        secondSlot.release();
+        Assert.assertNotNull(limiter.tryAcquire(TASK_CLASS));
+        Assert.assertNotNull(limiter.tryAcquire(TASK_CLASS));
+        Assert.assertNull(limiter.tryAcquire(TASK_CLASS));
+    }
+
+    @Test
+    public void testReduceLimitWhileSlotsAreHeld() {
+        TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter(2);
+        Semaphore slot = limiter.tryAcquire(TASK_CLASS);
+        Semaphore secondSlot = limiter.tryAcquire(TASK_CLASS);
+        Assert.assertNotNull(slot);
+        Assert.assertNotNull(secondSlot);
+
+        limiter.setMaxConcurrentExecutions(1);
+        slot.release();
+        Assert.assertNull("The held slots should count against the reduced limit", limiter.tryAcquire(TASK_CLASS));
+
+        secondSlot.release();
+        Assert.assertNotNull(limiter.tryAcquire(TASK_CLASS));
+        Assert.assertNull(limiter.tryAcquire(TASK_CLASS));
+    }
+
+    @Test
+    public void testAcquireWaitsForSlot() throws Exception {
+        TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter(1);
+        Semaphore slot = limiter.tryAcquire(TASK_CLASS);
+        Assert.assertNotNull(slot);
+        Semaphore[] acquired = new Semaphore[1];
+        Thread waiter = new Thread(() -> {
+            try {
+                acquired[0] = limiter.acquire(TASK_CLASS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        waiter.join(500);
+        Assert.assertTrue("A one-shot task should wait for a slot", waiter.isAlive());
+
+        slot.release();
+        waiter.join(10000);
+        Assert.assertNotNull(acquired[0]);
+    }
+}
@@ -26,6 +26,7 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
@@ -55,16 +56,21 @@ import org.wso2.micro.integrator.websocket.transport.service.ServiceReferenceHol
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.channels.ClosedChannelException;
 
 public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object> {
     private final WebSocketClientHandshaker handshaker;
     private ChannelPromise handshakeFuture;
+    private volatile ChannelFuture connectionFuture;
     private static final Log log = LogFactory.getLog(WebSocketClientHandler.class);
     private String dispatchSequence;
     private String dispatchErrorSequence;
     private ChannelHandlerContext ctx;
     private InboundResponseSender responseSender;
     private String tenantDomain;
+    private WebsocketTransportStatistics statistics;
+    private volatile long lastActiveTime = System.currentTimeMillis();
+    private boolean binaryMessageStreamed = false;
 
     public void setTenantDomain(String tenantDomain) {
         this.tenantDomain = tenantDomain;
@@ -86,6 +92,20 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
         return handshakeFuture;
     }
 
+    /**
+     * Returns the future which completes on the event loop of the connection once it is open and its handshake is
+     * done, or once it has failed.
+     *
+     * @return the connection future
+     */
+    public ChannelFuture connectionFuture() {
+        return connectionFuture;
+    }
+
+    public void setConnectionFuture(ChannelFuture connectionFuture) {
+        this.connectionFuture = connectionFuture;
+    }
+
     public ChannelHandlerContext getChannelHandlerContext() {
         return this.ctx;
     }
@@ -94,6 +114,39 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
         this.responseSender = responseSender;
     }
 
+    public void setStatistics(WebsocketTransportStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Marks the connection as used, which defers its eviction when the connection pool has an idle timeout.
+     */
+    public void markActive() {
+        this.lastActiveTime = System.currentTimeMillis();
+    }
+
+    public long getLastActiveTime() {
+        return lastActiveTime;
+    }
+
+    /**
+     * Closes the connection to the backend with a going away close frame.
+     *
+     * @return whether the connection was open
+     */
+    public boolean closeConnection() {
+        if (ctx == null || !ctx.channel().isActive()) {
+            return false;
+        }
+        if (handshaker.isHandshakeComplete()) {
+            handshaker.close(ctx.channel(), new CloseWebSocketFrame(1001, "Connection idle"))
+                    .addListener(ChannelFutureListener.CLOSE);
+        } else {
+            ctx.close();
+        }
+        return true;
+    }
+
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) {
         handshakeFuture = ctx.newPromise();
@@ -107,6 +160,9 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
+        if (!handshakeFuture.isDone()) {
+            handshakeFuture.setFailure(new ClosedChannelException());
+        }
         if (log.isDebugEnabled()) {
             log.debug("WebSocket client disconnected on context id : " + ctx.channel().toString());
         }
@@ -169,13 +225,23 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
                 } else if ((frame instanceof BinaryWebSocketFrame) && ((handshaker.actualSubprotocol() == null) || (
                         (handshaker.actualSubprotocol() != null) && !handshaker.actualSubprotocol()
                                 .contains(WebsocketConstants.SYNAPSE_SUBPROTOCOL_PREFIX)))) {
+                    binaryMessageStreamed = true;
                     handleWebsocketBinaryFrame(frame);
                     return;
                 } else if ((frame instanceof TextWebSocketFrame) && ((handshaker.actualSubprotocol() == null) || (
                         (handshaker.actualSubprotocol() != null) && !handshaker.actualSubprotocol()
                                 .contains(WebsocketConstants.SYNAPSE_SUBPROTOCOL_PREFIX)))) {
+                    binaryMessageStreamed = false;
                     handlePassthroughTextFrame(frame);
                     return;
+                } else if (frame instanceof ContinuationWebSocketFrame) {
+                    // fragments of a streamed message are passed through as the type of its first fragment
+                    if (binaryMessageStreamed) {
+                        handleWebsocketBinaryFrame(frame);
+                    } else {
+                        handlePassthroughTextFrame(frame);
+                    }
+                    return;
                 } else if ((frame instanceof TextWebSocketFrame) && ((handshaker.actualSubprotocol() != null)
                         && handshaker.actualSubprotocol().contains(WebsocketConstants.SYNAPSE_SUBPROTOCOL_PREFIX))) {
 
@@ -229,6 +295,10 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
         if (msg instanceof FullHttpResponse) {
             handleHandshake(ctx, (FullHttpResponse) msg);
         } else if (msg instanceof WebSocketFrame) {
+            markActive();
+            if (statistics != null) {
+                statistics.recordFrameReceived();
+            }
             handleWebSocketFrame(ctx, (WebSocketFrame) msg);
         }
     }
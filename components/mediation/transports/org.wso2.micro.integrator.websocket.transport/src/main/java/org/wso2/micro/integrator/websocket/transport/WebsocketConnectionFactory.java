@@ -24,10 +24,10 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
@@ -42,11 +42,14 @@ import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.TransportOutDescription;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
 import org.wso2.micro.integrator.websocket.transport.utils.SSLUtil;
 
 import java.net.URI;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.net.ssl.SSLException;
 import javax.xml.namespace.QName;
 
@@ -55,7 +58,12 @@ public class WebsocketConnectionFactory {
     private static final Log log = LogFactory.getLog(WebsocketConnectionFactory.class);
 
     private final TransportOutDescription transportOut;
-    private ConcurrentHashMap<String, ConcurrentHashMap<String, WebSocketClientHandler>> channelHandlerPool = new ConcurrentHashMap<String, ConcurrentHashMap<String, WebSocketClientHandler>>();
+    private final WebsocketConnectionPool connectionPool;
+    private final WebsocketTransportStatistics statistics;
+    private final boolean streamFrames;
+    private final int maxAggregatedFrameSize;
+    private final int connectTimeout;
+    private ScheduledFuture<?> idleEvictionTask;
 
     public WebsocketConnectionFactory(TransportOutDescription transportOut) throws AxisFault {
         this.transportOut = transportOut;
@@ -80,12 +88,74 @@ public class WebsocketConnectionFactory {
                                 + WebsocketConstants.TRUST_STORE_PASSWORD + " from Transport configurations");
             }
         }
+
+        streamFrames = Boolean.parseBoolean(getParameter(WebsocketConstants.WEBSOCKET_STREAM_FRAMES, "true"));
+        maxAggregatedFrameSize = getIntParameter(WebsocketConstants.WEBSOCKET_MAX_AGGREGATED_FRAME_SIZE,
+                                                 WebsocketConstants.WEBSOCKET_DEFAULT_MAX_AGGREGATED_FRAME_SIZE);
+        connectTimeout = getIntParameter(WebsocketConstants.WEBSOCKET_CONNECT_TIMEOUT,
+                                         WebsocketConstants.WEBSOCKET_DEFAULT_CONNECT_TIMEOUT);
+        connectionPool = new WebsocketConnectionPool(
+                getIntParameter(WebsocketConstants.WEBSOCKET_MAX_CONNECTIONS_PER_BACKEND, 0));
+        statistics = new WebsocketTransportStatistics(connectionPool);
+
+        WebsocketEventLoopGroupManager.acquire(getIntParameter(WebsocketConstants.WEBSOCKET_CLIENT_IO_THREADS, 0),
+                                               Boolean.parseBoolean(getParameter(
+                                                       WebsocketConstants.WEBSOCKET_CLIENT_NATIVE_TRANSPORT,
+                                                       "false")));
+
+        final long idleTimeout = getIntParameter(WebsocketConstants.WEBSOCKET_CONNECTION_IDLE_TIMEOUT, 0);
+        if (idleTimeout > 0) {
+            long interval = Math.max(1000, idleTimeout / 2);
+            idleEvictionTask = WebsocketEventLoopGroupManager.getEventLoopGroup().scheduleAtFixedRate(() -> {
+                int evicted = connectionPool.evictIdleConnections(idleTimeout);
+                for (int i = 0; i < evicted; i++) {
+                    statistics.recordConnectionEvicted();
+                }
+                if (evicted > 0 && log.isDebugEnabled()) {
+                    log.debug("Closed " + evicted + " WebSocket connections idle for more than " + idleTimeout
+                                      + " milliseconds.");
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        MBeanRegistrar.getInstance()
+                .registerMBean(statistics, WebsocketTransportStatistics.MBEAN_CATEGORY, transportOut.getName());
     }
 
+    /**
+     * Closes the connections of the factory and releases the shared event loop group.
+     */
+    public void shutdown() {
+        if (idleEvictionTask != null) {
+            idleEvictionTask.cancel(false);
+        }
+        connectionPool.closeAll();
+        MBeanRegistrar.getInstance()
+                .unRegisterMBean(WebsocketTransportStatistics.MBEAN_CATEGORY, transportOut.getName());
+        WebsocketEventLoopGroupManager.release();
+    }
+
+    public WebsocketTransportStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return maximum time in milliseconds to wait for a connection to open and complete its handshake
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Returns the connection to the given backend, opening it if needed. The connection may still be opening, the
+     * frames have to be written once its {@link WebSocketClientHandler#connectionFuture()} completes. This method
+     * does not wait for the connection, since the caller may itself run on one of the event loops shared by the
+     * connections.
+     */
     public WebSocketClientHandler getChannelHandler(final URI uri, final String sourceIdentifier,
                                                     final boolean handshakePresent, final String dispatchSequence,
                                                     final String dispatchErrorSequence, final String contentType,
-                                                    final Map<String, Object> headers) throws InterruptedException {
+                                                    final Map<String, Object> headers) throws AxisFault {
         WebSocketClientHandler channelHandler;
         if (handshakePresent) {
             channelHandler = cacheNewConnection(uri, sourceIdentifier, dispatchSequence, dispatchErrorSequence,
@@ -97,7 +167,9 @@ public class WebsocketConnectionFactory {
                                                     contentType, headers);
             }
         }
-        channelHandler.handshakeFuture().sync();
+        if (channelHandler == null) {
+            throw new AxisFault("Could not get a connection to the WS endpoint " + uri);
+        }
         return channelHandler;
     }
 
@@ -187,40 +259,78 @@ public class WebsocketConnectionFactory {
                 }
             }
 
-            final EventLoopGroup group = new NioEventLoopGroup();
             handler = new WebSocketClientHandler(WebSocketClientHandshakerFactory
                                                          .newHandshaker(uri, WebSocketVersion.V13, contentType != null ?
                                                                  SubprotocolBuilderUtil
                                                                          .contentTypeToSyanapeSubprotocol(contentType) :
                                                                  null, false, defaultHttpHeaders));
+            handler.setStatistics(statistics);
+            final boolean aggregateFrames = !streamFrames || contentType != null;
+            // the event loop of the connection is chosen up front, so that the connection future notifies the
+            // senders on it, in the same order as the frames they write
+            final EventLoop eventLoop = WebsocketEventLoopGroupManager.getEventLoopGroup().next();
+            final Class<? extends SocketChannel> channelClass = WebsocketEventLoopGroupManager.getChannelClass();
             Bootstrap b = new Bootstrap();
-            b.group(group).channel(NioSocketChannel.class).handler(new ChannelInitializer<SocketChannel>() {
+            b.group(eventLoop).channel(channelClass).handler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 protected void initChannel(SocketChannel ch) {
                     ChannelPipeline p = ch.pipeline();
                     if (sslCtx != null) {
                         p.addLast(sslCtx.newHandler(ch.alloc(), host, port));
                     }
-                    p.addLast(new HttpClientCodec(), new HttpObjectAggregator(8192),
-                              new WebSocketFrameAggregator(Integer.MAX_VALUE), handler);
+                    p.addLast(new HttpClientCodec(), new HttpObjectAggregator(8192));
+                    // messages built into the Synapse message context need all their fragments, the others are
+                    // passed through fragment by fragment
+                    if (aggregateFrames) {
+                        p.addLast(new WebSocketFrameAggregator(maxAggregatedFrameSize));
+                    }
+                    p.addLast(handler);
                 }
             });
 
-            Channel ch = b.connect(uri.getHost(), port).sync().channel();
-            ch.closeFuture().addListener(new ChannelFutureListener() {
+            final String clientIdentifier = getClientHandlerIdentifier(uri);
+            if (!connectionPool.reserve(clientIdentifier)) {
+                statistics.recordConnectionRejected();
+                log.error("Maximum number of connections to the WS endpoint " + uri + " has been reached.");
+                return null;
+            }
+
+            ChannelFuture connectFuture = b.connect(uri.getHost(), port);
+            Channel ch = connectFuture.channel();
+            final AtomicBoolean released = new AtomicBoolean();
+            final Runnable releaseConnection = () -> {
+                if (released.compareAndSet(false, true)) {
+                    connectionPool.remove(sourceIdentifier, clientIdentifier, handler);
+                    connectionPool.release(clientIdentifier);
+                }
+            };
+            ch.closeFuture().addListener((ChannelFutureListener) future -> releaseConnection.run());
+            final ChannelPromise connectionFuture = new DefaultChannelPromise(ch, eventLoop);
+            handler.setConnectionFuture(connectionFuture);
+            connectFuture.addListener(new ChannelFutureListener() {
                 @Override
-                public void operationComplete(ChannelFuture channelFuture) throws Exception {
-                    group.shutdownGracefully();
-                    removeChannelHandler(sourceIdentifier, getClientHandlerIdentifier(uri));
+                public void operationComplete(ChannelFuture channelFuture) {
+                    if (!channelFuture.isSuccess()) {
+                        log.error("Error occurred while connecting to the WS endpoint " + uri, channelFuture.cause());
+                        releaseConnection.run();
+                        connectionFuture.setFailure(channelFuture.cause());
+                        return;
+                    }
+                    statistics.recordConnectionOpened();
+                    handler.handshakeFuture().addListener((ChannelFutureListener) handshakeFuture -> {
+                        if (handshakeFuture.isSuccess()) {
+                            connectionFuture.setSuccess();
+                        } else {
+                            connectionFuture.setFailure(handshakeFuture.cause());
+                        }
+                    });
                 }
             });
             handler.setDispatchSequence(dispatchSequence);
             handler.setDispatchErrorSequence(dispatchErrorSequence);
-            addChannelHandler(sourceIdentifier, getClientHandlerIdentifier(uri), handler);
+            addChannelHandler(sourceIdentifier, clientIdentifier, handler);
             return handler;
 
-        } catch (InterruptedException e) {
-            log.error("Interruption occured while connecting to the remote WS endpoint", e);
         } catch (SSLException e) {
             log.error("Error occurred while building the SSL context fo WSS endpoint", e);
         }
@@ -235,28 +345,41 @@ public class WebsocketConnectionFactory {
 
     public void addChannelHandler(String sourceIdentifier, String clientIdentifier,
                                   WebSocketClientHandler clientHandler) {
-        ConcurrentHashMap<String, WebSocketClientHandler> handlerMap = channelHandlerPool.get(sourceIdentifier);
-        if (handlerMap == null) {
-            handlerMap = new ConcurrentHashMap<String, WebSocketClientHandler>();
-            handlerMap.put(clientIdentifier, clientHandler);
-            channelHandlerPool.put(sourceIdentifier, handlerMap);
-        } else {
-            handlerMap.put(clientIdentifier, clientHandler);
-        }
+        connectionPool.put(sourceIdentifier, clientIdentifier, clientHandler);
     }
 
     public WebSocketClientHandler getChannelHandlerFromPool(String sourceIdentifier, String clientIdentifier) {
-        ConcurrentHashMap<String, WebSocketClientHandler> handlerMap = channelHandlerPool.get(sourceIdentifier);
-        if (handlerMap == null) {
-            return null;
-        } else {
-            return handlerMap.get(clientIdentifier);
-        }
+        return connectionPool.get(sourceIdentifier, clientIdentifier);
     }
 
+    /**
+     * Removes the connection of the given source to the given backend from the pool. The connection is not closed,
+     * and closed connections are removed from the pool on their own.
+     */
     public void removeChannelHandler(String sourceIdentifier, String clientIdentifier) {
-        ConcurrentHashMap<String, WebSocketClientHandler> handlerMap = channelHandlerPool.get(sourceIdentifier);
-        handlerMap.remove(clientIdentifier);
+        connectionPool.remove(sourceIdentifier, clientIdentifier);
+    }
+
+    private String getParameter(String name, String defaultValue) {
+        Parameter param = transportOut.getParameter(name);
+        if (param == null || param.getValue() == null) {
+            return defaultValue;
+        }
+        return param.getValue().toString().trim();
+    }
+
+    private int getIntParameter(String name, int defaultValue) {
+        String value = getParameter(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value '" + value + "' for parameter " + name + " of the " + transportOut.getName()
+                             + " transport sender. Default value " + defaultValue + " will be used.");
+            return defaultValue;
+        }
     }
 
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.websocket.transport;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound WebSocket connections of a transport sender, keyed by the source the connection was opened for and the
+ * backend it is connected to. The number of connections to a backend may be bounded, in which case a connection has
+ * to be reserved before it is opened and released when it is closed.
+ */
+public class WebsocketConnectionPool {
+
+    private final int maxConnectionsPerBackend;
+
+    private final ConcurrentHashMap<ConnectionKey, WebSocketClientHandler> connections = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Integer> backendConnectionCounts = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    /**
+     * @param maxConnectionsPerBackend maximum number of connections to a backend, or 0 for no limit
+     */
+    public WebsocketConnectionPool(int maxConnectionsPerBackend) {
+        this.maxConnectionsPerBackend = maxConnectionsPerBackend;
+    }
+
+    /**
+     * Reserves a connection to the given backend.
+     *
+     * @param clientIdentifier identifier of the backend
+     * @return whether the connection was reserved. This is false if the backend has the maximum number of connections
+     */
+    public boolean reserve(String clientIdentifier) {
+        final boolean[] reserved = { false };
+        backendConnectionCounts.compute(clientIdentifier, (backend, count) -> {
+            int current = count == null ? 0 : count;
+            if (maxConnectionsPerBackend > 0 && current >= maxConnectionsPerBackend) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        if (reserved[0]) {
+            connectionCount.incrementAndGet();
+        }
+        return reserved[0];
+    }
+
+    /**
+     * Releases a connection reserved to the given backend, once it is closed or could not be opened.
+     *
+     * @param clientIdentifier identifier of the backend
+     */
+    public void release(String clientIdentifier) {
+        final boolean[] released = { false };
+        backendConnectionCounts.computeIfPresent(clientIdentifier, (backend, count) -> {
+            released[0] = true;
+            return count > 1 ? count - 1 : null;
+        });
+        if (released[0]) {
+            connectionCount.decrementAndGet();
+        }
+    }
+
+    public WebSocketClientHandler get(String sourceIdentifier, String clientIdentifier) {
+        WebSocketClientHandler handler = connections.get(new ConnectionKey(sourceIdentifier, clientIdentifier));
+        if (handler != null) {
+            handler.markActive();
+        }
+        return handler;
+    }
+
+    public void put(String sourceIdentifier, String clientIdentifier, WebSocketClientHandler handler) {
+        connections.put(new ConnectionKey(sourceIdentifier, clientIdentifier), handler);
+    }
+
+    /**
+     * Removes the given connection, unless it has already been replaced by a newer connection for the same source and
+     * backend.
+     */
+    public void remove(String sourceIdentifier, String clientIdentifier, WebSocketClientHandler handler) {
+        connections.remove(new ConnectionKey(sourceIdentifier, clientIdentifier), handler);
+    }
+
+    /**
+     * Removes the connection of the given source to the given backend, whichever it is.
+     */
+    public void remove(String sourceIdentifier, String clientIdentifier) {
+        connections.remove(new ConnectionKey(sourceIdentifier, clientIdentifier));
+    }
+
+    /**
+     * Closes the connections which have not been used for longer than the given time. The connections are removed
+     * from the pool once they are closed.
+     *
+     * @param idleTimeout idle time in milliseconds after which a connection is closed
+     * @return number of connections closed
+     */
+    public int evictIdleConnections(long idleTimeout) {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (WebSocketClientHandler handler : connections.values()) {
+            if (now - handler.getLastActiveTime() > idleTimeout && handler.closeConnection()) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public void closeAll() {
+        for (WebSocketClientHandler handler : connections.values()) {
+            handler.closeConnection();
+        }
+    }
+
+    /**
+     * @return number of connections reserved, which are either open or being opened
+     */
+    public int size() {
+        return connectionCount.get();
+    }
+
+    private static class ConnectionKey {
+
+        private final String sourceIdentifier;
+        private final String clientIdentifier;
+
+        ConnectionKey(String sourceIdentifier, String clientIdentifier) {
+            this.sourceIdentifier = sourceIdentifier;
+            this.clientIdentifier = clientIdentifier;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConnectionKey)) {
+                return false;
+            }
+            ConnectionKey that = (ConnectionKey) o;
+            return sourceIdentifier.equals(that.sourceIdentifier) && clientIdentifier.equals(that.clientIdentifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourceIdentifier, clientIdentifier);
+        }
+    }
+}
@@ -51,4 +51,15 @@ public class WebsocketConstants {
     public static final String WEBSOCKET_SUBSCRIBER_PATH = "websocket.subscriber.path";
 
     public static final String WEBSOCKET_CUSTOM_HEADER_PREFIX = "websocket.custom.header.";
+
+    public static final String WEBSOCKET_CLIENT_IO_THREADS = "ws.client.io.threads";
+    public static final String WEBSOCKET_CLIENT_NATIVE_TRANSPORT = "ws.client.native.transport";
+    public static final String WEBSOCKET_MAX_CONNECTIONS_PER_BACKEND = "ws.client.max.connections.per.backend";
+    public static final String WEBSOCKET_CONNECTION_IDLE_TIMEOUT = "ws.client.connection.idle.timeout";
+    public static final String WEBSOCKET_CONNECT_TIMEOUT = "ws.client.connect.timeout";
+    public static final String WEBSOCKET_STREAM_FRAMES = "ws.client.stream.frames";
+    public static final String WEBSOCKET_MAX_AGGREGATED_FRAME_SIZE = "ws.client.max.aggregated.frame.size";
+
+    public static final int WEBSOCKET_DEFAULT_MAX_AGGREGATED_FRAME_SIZE = 10 * 1024 * 1024;
+    public static final int WEBSOCKET_DEFAULT_CONNECT_TIMEOUT = 30000;
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.websocket.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.EventExecutor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Holds the event loop group shared by all the outbound WebSocket connections of the ws and wss transport senders.
+ * The group is created by the first sender which is initialized and is shut down when the last sender is stopped.
+ * The native epoll transport is used if it is requested and the netty-transport-native-epoll library is available
+ * at runtime, and the NIO transport is used otherwise.
+ */
+public class WebsocketEventLoopGroupManager {
+
+    private static final Log log = LogFactory.getLog(WebsocketEventLoopGroupManager.class);
+
+    private static final String EPOLL_CLASS = "io.netty.channel.epoll.Epoll";
+    private static final String EPOLL_EVENT_LOOP_GROUP_CLASS = "io.netty.channel.epoll.EpollEventLoopGroup";
+    private static final String EPOLL_SOCKET_CHANNEL_CLASS = "io.netty.channel.epoll.EpollSocketChannel";
+
+    private static EventLoopGroup eventLoopGroup;
+    private static Class<? extends SocketChannel> channelClass;
+    private static int references = 0;
+
+    private WebsocketEventLoopGroupManager() {
+    }
+
+    /**
+     * Registers a user of the shared event loop group, creating the group if this is the first user.
+     *
+     * @param threads         number of event loop threads, or 0 to use the netty default of twice the cores
+     * @param nativeTransport whether to use the native epoll transport if it is available
+     */
+    public static synchronized void acquire(int threads, boolean nativeTransport) {
+        if (references++ > 0) {
+            return;
+        }
+        if (nativeTransport && createEpollEventLoopGroup(threads)) {
+            log.info("Using the native epoll transport for outbound WebSocket connections.");
+            return;
+        }
+        eventLoopGroup = new NioEventLoopGroup(threads);
+        channelClass = NioSocketChannel.class;
+    }
+
+    /**
+     * Unregisters a user of the shared event loop group, shutting the group down if this was the last user.
+     */
+    public static synchronized void release() {
+        if (references == 0 || --references > 0) {
+            return;
+        }
+        eventLoopGroup.shutdownGracefully();
+        eventLoopGroup = null;
+        channelClass = null;
+    }
+
+    public static synchronized EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    public static synchronized Class<? extends SocketChannel> getChannelClass() {
+        return channelClass;
+    }
+
+    /**
+     * @return whether the calling thread is one of the event loops of the shared group
+     */
+    public static boolean inEventLoop() {
+        EventLoopGroup group = getEventLoopGroup();
+        if (group == null) {
+            return false;
+        }
+        for (EventExecutor eventLoop : group) {
+            if (eventLoop.inEventLoop()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean createEpollEventLoopGroup(int threads) {
+        try {
+            Class<?> epoll = Class.forName(EPOLL_CLASS);
+            if (!(Boolean) epoll.getMethod("isAvailable").invoke(null)) {
+                log.warn("Native epoll transport is not available on this platform. Using the NIO transport for "
+                                 + "outbound WebSocket connections.");
+                return false;
+            }
+            eventLoopGroup = (EventLoopGroup) Class.forName(EPOLL_EVENT_LOOP_GROUP_CLASS).getConstructor(int.class)
+                    .newInstance(threads);
+            channelClass = (Class<? extends SocketChannel>) Class.forName(EPOLL_SOCKET_CHANNEL_CLASS);
+            return true;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Native epoll transport could not be loaded. Using the NIO transport for outbound WebSocket "
+                             + "connections.", e);
+            return false;
+        }
+    }
+}
@@ -18,8 +18,10 @@
 
 package org.wso2.micro.integrator.websocket.transport;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import org.apache.axiom.om.OMOutputFormat;
@@ -63,6 +65,15 @@ public class WebsocketTransportSender extends AbstractTransportSender {
         connectionFactory = new WebsocketConnectionFactory(transportOut);
     }
 
+    @Override
+    public void stop() {
+        super.stop();
+        if (connectionFactory != null) {
+            connectionFactory.shutdown();
+            connectionFactory = null;
+        }
+    }
+
     public void sendMessage(MessageContext msgCtx, String targetEPR, OutTransportInfo trpOut) throws AxisFault {
         String sourceIdentier = null;
         boolean handshakePresent = false;
@@ -124,11 +135,12 @@ public class WebsocketTransportSender extends AbstractTransportSender {
             if (log.isDebugEnabled()) {
                 log.debug("Fetching a Connection from the WS(WSS) Connection Factory.");
             }
-            WebSocketClientHandler clientHandler = connectionFactory
+            final WebSocketClientHandler clientHandler = connectionFactory
                     .getChannelHandler(new URI(targetEPR), sourceIdentier, handshakePresent, responceDispatchSequence,
                                        responceErrorSequence, messageType, customHeaders);
 
             clientHandler.setTenantDomain(org.wso2.micro.core.Constants.SUPER_TENANT_DOMAIN_NAME);
+            awaitConnection(clientHandler, targetEPR);
 
             if (!sourceIdentier.equals(WebsocketConstants.UNIVERSAL_SOURCE_IDENTIFIER)) {
                 clientHandler.registerWebsocketResponseSender(responseSender);
@@ -138,25 +150,13 @@ public class WebsocketTransportSender extends AbstractTransportSender {
 
             if (msgCtx.getProperty(WebsocketConstants.WEBSOCKET_BINARY_FRAME_PRESENT) != null && msgCtx
                     .getProperty(WebsocketConstants.WEBSOCKET_BINARY_FRAME_PRESENT).equals(true)) {
-                WebSocketFrame frame = (BinaryWebSocketFrame) msgCtx
+                WebSocketFrame frame = (WebSocketFrame) msgCtx
                         .getProperty(WebsocketConstants.WEBSOCKET_BINARY_FRAME);
-                if (log.isDebugEnabled()) {
-                    log.debug("Sending the binary frame to the WS server on context id : " + clientHandler
-                            .getChannelHandlerContext().channel().toString());
-                }
-                if (clientHandler.getChannelHandlerContext().channel().isActive()) {
-                    clientHandler.getChannelHandlerContext().channel().writeAndFlush(frame.retain());
-                }
+                sendFrame(clientHandler, frame.retain(), "binary frame");
             } else if (msgCtx.getProperty(WebsocketConstants.WEBSOCKET_TEXT_FRAME_PRESENT) != null && msgCtx
                     .getProperty(WebsocketConstants.WEBSOCKET_TEXT_FRAME_PRESENT).equals(true)) {
-                WebSocketFrame frame = (TextWebSocketFrame) msgCtx.getProperty(WebsocketConstants.WEBSOCKET_TEXT_FRAME);
-                if (log.isDebugEnabled()) {
-                    log.debug("Sending the passthrough text frame to the WS server on context id : " + clientHandler
-                            .getChannelHandlerContext().channel().toString());
-                }
-                if (clientHandler.getChannelHandlerContext().channel().isActive()) {
-                    clientHandler.getChannelHandlerContext().channel().writeAndFlush(frame.retain());
-                }
+                WebSocketFrame frame = (WebSocketFrame) msgCtx.getProperty(WebsocketConstants.WEBSOCKET_TEXT_FRAME);
+                sendFrame(clientHandler, frame.retain(), "passthrough text frame");
             } else {
                 if (!handshakePresent) {
                     RelayUtils.buildMessage(msgCtx, false);
@@ -167,26 +167,86 @@ public class WebsocketTransportSender extends AbstractTransportSender {
                     messageFormatter.writeTo(msgCtx, format, out, true);
                     out.close();
                     final String msg = sw.toString();
-                    WebSocketFrame frame = new TextWebSocketFrame(msg);
-                    if (log.isDebugEnabled()) {
-                        log.debug("Sending the text frame to the WS server on context id : " + clientHandler
-                                .getChannelHandlerContext().channel().toString());
-                    }
-                    if (clientHandler.getChannelHandlerContext().channel().isActive()) {
-                        clientHandler.getChannelHandlerContext().channel().writeAndFlush(frame.retain());
-                    }
+                    sendFrame(clientHandler, new TextWebSocketFrame(msg), "text frame");
                 } else {
-                    clientHandler.acknowledgeHandshake();
+                    clientHandler.connectionFuture().addListener((ChannelFutureListener) future -> {
+                        if (future.isSuccess()) {
+                            clientHandler.acknowledgeHandshake();
+                        } else {
+                            log.error("Could not complete the handshake with the WS endpoint " + targetEPR,
+                                      future.cause());
+                        }
+                    });
                 }
             }
+        } catch (AxisFault e) {
+            // connection failures are reported to the caller so that the fault sequence runs
+            throw e;
         } catch (URISyntaxException e) {
             log.error("Error parsing the WS endpoint url", e);
         } catch (IOException e) {
             log.error("Error writting to the websocket channel", e);
-        } catch (InterruptedException e) {
-            log.error("Error writting to the websocket channel", e);
         } catch (XMLStreamException e) {
             handleException("Error while building message", e);
         }
     }
+
+    /**
+     * Waits for the connection to open and complete its handshake, up to the connect timeout, and fails if it could
+     * not. A caller running on one of the event loops shared by the connections does not wait, since the connection
+     * would be opened by the same event loops, and a failure to open the connection is only logged in that case.
+     *
+     * @param clientHandler handler of the connection
+     * @param targetEPR     the WS endpoint
+     * @throws AxisFault if the connection could not be opened in time
+     */
+    private void awaitConnection(WebSocketClientHandler clientHandler, String targetEPR) throws AxisFault {
+        ChannelFuture connectionFuture = clientHandler.connectionFuture();
+        if (!connectionFuture.isDone()) {
+            if (WebsocketEventLoopGroupManager.inEventLoop()) {
+                return;
+            }
+            try {
+                if (!connectionFuture.await(connectionFactory.getConnectTimeout())) {
+                    handleException("Timed out while connecting to the WS endpoint " + targetEPR);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                handleException("Interrupted while connecting to the WS endpoint " + targetEPR, e);
+            }
+        }
+        if (!connectionFuture.isSuccess()) {
+            String msg = "Could not connect to the WS endpoint " + targetEPR;
+            log.error(msg, connectionFuture.cause());
+            throw new AxisFault(msg, connectionFuture.cause());
+        }
+    }
+
+    /**
+     * Writes the frame once the connection is open, on the event loop of the connection, so that the caller does not
+     * wait for the connection and the frames are written in the order they are sent. The frame is released if it can
+     * not be written.
+     *
+     * @param clientHandler handler of the connection
+     * @param frame         the frame to write, which is released once it is written
+     * @param description   description of the frame to log
+     */
+    private void sendFrame(final WebSocketClientHandler clientHandler, final WebSocketFrame frame,
+                           final String description) {
+        final WebsocketTransportStatistics statistics = connectionFactory.getStatistics();
+        clientHandler.connectionFuture().addListener((ChannelFutureListener) future -> {
+            Channel channel = future.channel();
+            if (!future.isSuccess() || !channel.isActive()) {
+                frame.release();
+                log.error("Could not send the " + description + ", the connection to the WS server on context id : "
+                                  + channel.toString() + " is not open.", future.cause());
+                return;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Sending the " + description + " to the WS server on context id : " + channel.toString());
+            }
+            channel.writeAndFlush(frame);
+            statistics.recordFrameSent();
+        });
+    }
 }
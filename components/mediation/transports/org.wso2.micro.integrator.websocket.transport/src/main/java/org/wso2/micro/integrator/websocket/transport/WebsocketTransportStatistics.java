@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.websocket.transport;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the outbound WebSocket connections of a transport sender.
+ */
+public class WebsocketTransportStatistics implements WebsocketTransportStatisticsMXBean {
+
+    public static final String MBEAN_CATEGORY = "WebsocketTransport";
+
+    /**
+     * Minimum time in milliseconds between two measurements of the frame rates
+     */
+    private static final long RATE_INTERVAL = 1000;
+
+    private final WebsocketConnectionPool connectionPool;
+
+    private final LongAdder openedConnectionCount = new LongAdder();
+
+    private final LongAdder idleEvictedConnectionCount = new LongAdder();
+
+    private final LongAdder rejectedConnectionCount = new LongAdder();
+
+    private final LongAdder sentFrameCount = new LongAdder();
+
+    private final LongAdder receivedFrameCount = new LongAdder();
+
+    private final FrameRate sentFrameRate = new FrameRate(sentFrameCount);
+
+    private final FrameRate receivedFrameRate = new FrameRate(receivedFrameCount);
+
+    WebsocketTransportStatistics(WebsocketConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    void recordConnectionOpened() {
+        openedConnectionCount.increment();
+    }
+
+    void recordConnectionEvicted() {
+        idleEvictedConnectionCount.increment();
+    }
+
+    void recordConnectionRejected() {
+        rejectedConnectionCount.increment();
+    }
+
+    void recordFrameSent() {
+        sentFrameCount.increment();
+    }
+
+    void recordFrameReceived() {
+        receivedFrameCount.increment();
+    }
+
+    @Override
+    public int getOpenConnectionCount() {
+        return connectionPool.size();
+    }
+
+    @Override
+    public long getOpenedConnectionCount() {
+        return openedConnectionCount.sum();
+    }
+
+    @Override
+    public long getIdleEvictedConnectionCount() {
+        return idleEvictedConnectionCount.sum();
+    }
+
+    @Override
+    public long getRejectedConnectionCount() {
+        return rejectedConnectionCount.sum();
+    }
+
+    @Override
+    public long getSentFrameCount() {
+        return sentFrameCount.sum();
+    }
+
+    @Override
+    public long getReceivedFrameCount() {
+        return receivedFrameCount.sum();
+    }
+
+    @Override
+    public double getSentFramesPerSecond() {
+        return sentFrameRate.get();
+    }
+
+    @Override
+    public double getReceivedFramesPerSecond() {
+        return receivedFrameRate.get();
+    }
+
+    /**
+     * Rate of a frame counter, measured when it is read at most once per {@link #RATE_INTERVAL}.
+     */
+    private static class FrameRate {
+
+        private final LongAdder counter;
+
+        private long measuredTime = System.currentTimeMillis();
+
+        private long measuredCount;
+
+        private double perSecond;
+
+        FrameRate(LongAdder counter) {
+            this.counter = counter;
+        }
+
+        synchronized double get() {
+            long now = System.currentTimeMillis();
+            long elapsed = now - measuredTime;
+            if (elapsed >= RATE_INTERVAL) {
+                long count = counter.sum();
+                perSecond = (count - measuredCount) * 1000.0 / elapsed;
+                measuredCount = count;
+                measuredTime = now;
+            }
+            return perSecond;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.websocket.transport;
+
+/**
+ * MBean interface to expose the state of the outbound WebSocket connections of a transport sender using JMX.
+ */
+public interface WebsocketTransportStatisticsMXBean {
+
+    /**
+     * @return number of outbound connections currently open
+     */
+    int getOpenConnectionCount();
+
+    /**
+     * @return number of outbound connections opened since the sender was initialized
+     */
+    long getOpenedConnectionCount();
+
+    /**
+     * @return number of outbound connections closed since they were idle longer than the idle timeout
+     */
+    long getIdleEvictedConnectionCount();
+
+    /**
+     * @return number of connection attempts rejected since the backend had the maximum number of connections
+     */
+    long getRejectedConnectionCount();
+
+    /**
+     * @return number of frames written to the backends
+     */
+    long getSentFrameCount();
+
+    /**
+     * @return number of frames received from the backends
+     */
+    long getReceivedFrameCount();
+
+    /**
+     * @return number of frames written to the backends per second, over the last measurement interval
+     */
+    double getSentFramesPerSecond();
+
+    /**
+     * @return number of frames received from the backends per second, over the last measurement interval
+     */
+    double getReceivedFramesPerSecond();
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.websocket.transport;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+
+/**
+ * Test the connection limits, the replacement and the idle eviction of the outbound WebSocket connections.
+ */
+public class WebsocketConnectionPoolTest {
+
+    private static final String SOURCE = "source";
+
+    private static final String BACKEND = "localhost8080/echo";
+
+    private static final String OTHER_BACKEND = "localhost8081/echo";
+
+    @Test
+    public void testReserveLimitPerBackend() {
+        WebsocketConnectionPool pool = new WebsocketConnectionPool(2);
+        Assert.assertTrue(pool.reserve(BACKEND));
+        Assert.assertTrue(pool.reserve(BACKEND));
+        Assert.assertFalse("The connection over the limit of the backend is reserved", pool.reserve(BACKEND));
+        Assert.assertTrue("Other backends should not be limited", pool.reserve(OTHER_BACKEND));
+        Assert.assertEquals(3, pool.size());
+
+        pool.release(BACKEND);
+        Assert.assertEquals(2, pool.size());
+        Assert.assertTrue("The released connection is not available", pool.reserve(BACKEND));
+    }
+
+    @Test
+    public void testNoLimit() {
+        WebsocketConnectionPool pool = new WebsocketConnectionPool(0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(pool.reserve(BACKEND));
+        }
+        Assert.assertEquals(100, pool.size());
+    }
+
+    @Test
+    public void testReleaseWithoutReservation() {
+        WebsocketConnectionPool pool = new WebsocketConnectionPool(1);
+        pool.release(BACKEND);
+        Assert.assertEquals(0, pool.size());
+        Assert.assertTrue(pool.reserve(BACKEND));
+        pool.release(BACKEND);
+        pool.release(BACKEND);
+        Assert.assertEquals("A connection is released more than once", 0, pool.size());
+        Assert.assertTrue(pool.reserve(BACKEND));
+        Assert.assertFalse(pool.reserve(BACKEND));
+    }
+
+    @Test
+    public void testRemoveKeepsReplacement() throws Exception {
+        WebsocketConnectionPool pool = new WebsocketConnectionPool(0);
+        WebSocketClientHandler closed = createHandler();
+        WebSocketClientHandler replacement = createHandler();
+        pool.put(SOURCE, BACKEND, closed);
+        pool.put(SOURCE, BACKEND, replacement);
+
+        pool.remove(SOURCE, BACKEND, closed);
+        Assert.assertSame("The replacement connection is removed with the closed one", replacement,
+                          pool.get(SOURCE, BACKEND));
+
+        pool.remove(SOURCE, BACKEND, replacement);
+        Assert.assertNull(pool.get(SOURCE, BACKEND));
+    }
+
+    @Test
+    public void testRemoveAnyConnection() throws Exception {
+        WebsocketConnectionPool pool = new WebsocketConnectionPool(0);
+        pool.put(SOURCE, BACKEND, createHandler());
+        pool.put(SOURCE, OTHER_BACKEND, createHandler());
+
+        pool.remove(SOURCE, BACKEND);
+        Assert.assertNull("The connection is not removed", pool.get(SOURCE, BACKEND));
+        Assert.assertNotNull("The connection to another backend is removed", pool.get(SOURCE, OTHER_BACKEND));
+    }
+
+    @Test
+    public void testEvictIdleConnections() throws Exception {
+        WebsocketConnectionPool pool = new WebsocketConnectionPool(0);
+        WebSocketClientHandler used = createHandler();
+        WebSocketClientHandler idle = createHandler();
+        EmbeddedChannel usedChannel = new EmbeddedChannel(used);
+        EmbeddedChannel idleChannel = new EmbeddedChannel(idle);
+        pool.put(SOURCE, BACKEND, used);
+        pool.put(SOURCE, OTHER_BACKEND, idle);
+
+        Thread.sleep(200);
+        Assert.assertEquals("A connection used recently is evicted", 0, pool.evictIdleConnections(60000));
+        pool.get(SOURCE, BACKEND);
+        Assert.assertEquals("Only the idle connection should be evicted", 1, pool.evictIdleConnections(100));
+        Assert.assertTrue("The connection in use is closed", usedChannel.isOpen());
+        Assert.assertFalse("The idle connection is not closed", idleChannel.isOpen());
+
+        Assert.assertEquals("A closed connection is evicted again", 0, pool.evictIdleConnections(100));
+    }
+
+    private static WebSocketClientHandler createHandler() throws Exception {
+        return new WebSocketClientHandler(WebSocketClientHandshakerFactory.newHandshaker(
+                new URI("ws://localhost:8080/echo"), WebSocketVersion.V13, null, false, new DefaultHttpHeaders()));
+    }
+}
@@ -96,6 +96,15 @@ public class ClusterCoordinator {
         return nodeIds;
     }
 
+    /**
+     * Broadcasts the invalidation of a cache entry to all the other nodes in the cluster.
+     *
+     * @param cacheKey - Key of the invalidated cache entry.
+     */
+    public void broadcastCacheInvalidation(String cacheKey) throws ClusterCoordinationException {
+        rdbmsCoordinationStrategy.broadcastCacheInvalidation(cacheKey);
+    }
+
     /**
      * Returns the id of this node.
      *
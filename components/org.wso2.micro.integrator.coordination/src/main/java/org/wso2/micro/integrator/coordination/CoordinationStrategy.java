@@ -66,5 +66,12 @@ public interface CoordinationStrategy {
      */
     void joinGroup();
 
+    /**
+     * Broadcast the invalidation of a cache entry to all the other nodes of the group.
+     *
+     * @param cacheKey key of the invalidated cache entry
+     */
+    void broadcastCacheInvalidation(String cacheKey) throws ClusterCoordinationException;
+
 }
 
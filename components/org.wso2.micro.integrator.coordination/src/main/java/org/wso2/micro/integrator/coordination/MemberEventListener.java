@@ -60,6 +60,14 @@ public abstract class MemberEventListener {
      */
     public abstract void reJoined(String nodeId);
 
+    /**
+     * Invoked when another member of the cluster invalidates a cache entry.
+     *
+     * @param cacheKey key of the invalidated cache entry
+     */
+    public void cacheInvalidated(String cacheKey) {
+    }
+
     public String getGroupId() {
         return this.groupId;
     }
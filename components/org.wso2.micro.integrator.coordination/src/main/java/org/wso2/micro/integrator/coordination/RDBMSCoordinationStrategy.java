@@ -286,6 +286,20 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
         return UUID.randomUUID().toString();
     }
 
+    @Override
+    public void broadcastCacheInvalidation(String cacheKey) throws ClusterCoordinationException {
+        List<String> clusterNodes = new ArrayList<>();
+        for (NodeDetail nodeDetail : getAllNodeDetails()) {
+            if (!localNodeId.equals(nodeDetail.getNodeId())) {
+                clusterNodes.add(nodeDetail.getNodeId());
+            }
+        }
+        if (!clusterNodes.isEmpty()) {
+            communicationBusContext.storeMembershipEvent(cacheKey, localGroupId, clusterNodes,
+                                                         MemberEventType.CACHE_INVALIDATED.getCode());
+        }
+    }
+
     /**
      * Gives the id of this node.
      * @return The Node ID of this node.
@@ -85,6 +85,9 @@ public class RDBMSMemberEventListenerTask implements Runnable {
                         case COORDINATOR_CHANGED:
                             notifyCoordinatorChangeEvent(event.getTargetNodeId(), event.getTargetGroupId());
                             break;
+                        case CACHE_INVALIDATED:
+                            notifyCacheInvalidationEvent(event.getTargetNodeId(), event.getTargetGroupId());
+                            break;
                         default:
                             log.error("Unknown cluster event type: " + event.getMembershipEventType());
                             break;
@@ -124,6 +127,19 @@ public class RDBMSMemberEventListenerTask implements Runnable {
         }
     }
 
+    /**
+     * Notifies the cache invalidation event to the registered listeners.
+     *
+     * @param cacheKey The key of the invalidated cache entry
+     */
+    private void notifyCacheInvalidationEvent(String cacheKey, String groupId) {
+        for (MemberEventListener listener : listeners) {
+            if (listener.getGroupId().equals(groupId)) {
+                listener.cacheInvalidated(cacheKey);
+            }
+        }
+    }
+
     /**
      * Notifies the member removal  event to the registered listeners.
      *
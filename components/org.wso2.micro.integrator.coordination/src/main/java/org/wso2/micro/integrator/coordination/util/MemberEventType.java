@@ -21,10 +21,10 @@ package org.wso2.micro.integrator.coordination.util;
 import org.wso2.micro.integrator.coordination.exception.ClusterCoordinationException;
 
 /**
- * Enumeration for the three event types being broadcast to listeners.
+ * Enumeration for the event types being broadcast to listeners.
  */
 public enum MemberEventType {
-    MEMBER_ADDED(1), MEMBER_REMOVED(2), COORDINATOR_CHANGED(3);
+    MEMBER_ADDED(1), MEMBER_REMOVED(2), COORDINATOR_CHANGED(3), CACHE_INVALIDATED(4);
 
     /**
      * Integer identifying the event type.
@@ -49,6 +49,8 @@ public enum MemberEventType {
                 return MEMBER_REMOVED;
             case 3:
                 return COORDINATOR_CHANGED;
+            case 4:
+                return CACHE_INVALIDATED;
             default:
                 throw new ClusterCoordinationException("Invalid membership event type");
         }
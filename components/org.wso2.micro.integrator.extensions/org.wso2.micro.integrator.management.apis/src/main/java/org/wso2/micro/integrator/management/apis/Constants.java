@@ -44,6 +44,7 @@ public class Constants {
     public static final String PREFIX_SERVER_DATA = "/server";
     public static final String PREFIX_LOG_FILES = "/logs";
     public static final String PREFIX_REQ_COUNT = "/transactions";
+    public static final String PREFIX_FLOW_SAMPLING = "/flow-sampling";
 
     public static final String COUNT = "count";
     public static final String LIST = "list";
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.management.apis;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.json.JSONObject;
+import org.wso2.micro.integrator.analytics.messageflow.data.publisher.services.FlowSamplingPolicy;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.wso2.micro.integrator.management.apis.Constants.BAD_REQUEST;
+
+/**
+ * Resource for viewing and changing which message flows are published by the mediation flow statistics reporter.
+ * <p>
+ * Handles resources in the form "management/flow-sampling". A PATCH request with any of the "sampleRate",
+ * "slowFlowThreshold" and "keepFaultyFlows" attributes updates the corresponding settings at runtime.
+ */
+public class FlowSamplingResource implements MiApiResource {
+
+    private static final Log LOG = LogFactory.getLog(FlowSamplingResource.class);
+
+    private static final String SAMPLE_RATE = "sampleRate";
+    private static final String SLOW_FLOW_THRESHOLD = "slowFlowThreshold";
+    private static final String KEEP_FAULTY_FLOWS = "keepFaultyFlows";
+
+    @Override
+    public Set<String> getMethods() {
+
+        Set<String> methods = new HashSet<>();
+        methods.add(Constants.HTTP_GET);
+        methods.add(Constants.HTTP_METHOD_PATCH);
+        return methods;
+    }
+
+    @Override
+    public boolean invoke(MessageContext synCtx,
+                          org.apache.axis2.context.MessageContext axis2MessageContext,
+                          SynapseConfiguration synapseConfiguration) {
+
+        axis2MessageContext.removeProperty(Constants.NO_ENTITY_BODY);
+        if (synCtx.isDoingGET()) {
+            Utils.setJsonPayLoad(axis2MessageContext, getSamplingConfiguration());
+            return true;
+        }
+        try {
+            if (!JsonUtil.hasAJsonPayload(axis2MessageContext)) {
+                Utils.setJsonPayLoad(axis2MessageContext,
+                                     Utils.createJsonError("JSON payload is missing", axis2MessageContext,
+                                                           BAD_REQUEST));
+                return true;
+            }
+            JsonObject payload = Utils.getJsonPayload(axis2MessageContext);
+            updateSamplingConfiguration(payload);
+            Utils.setJsonPayLoad(axis2MessageContext, getSamplingConfiguration());
+        } catch (IOException e) {
+            LOG.error("Error when parsing JSON payload", e);
+            Utils.setJsonPayLoad(axis2MessageContext,
+                                 Utils.createJsonError("Error when parsing JSON payload", axis2MessageContext,
+                                                       BAD_REQUEST));
+        } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException e) {
+            Utils.setJsonPayLoad(axis2MessageContext,
+                                 Utils.createJsonError("Invalid sampling configuration : " + e.getMessage(),
+                                                       axis2MessageContext, BAD_REQUEST));
+        }
+        return true;
+    }
+
+    private JSONObject getSamplingConfiguration() {
+
+        FlowSamplingPolicy samplingPolicy = FlowSamplingPolicy.getInstance();
+        JSONObject jsonBody = new JSONObject();
+        jsonBody.put(SAMPLE_RATE, samplingPolicy.getSampleRate());
+        jsonBody.put(SLOW_FLOW_THRESHOLD, samplingPolicy.getSlowFlowThreshold());
+        jsonBody.put(KEEP_FAULTY_FLOWS, samplingPolicy.isKeepFaultyFlows());
+        return jsonBody;
+    }
+
+    // Validates all the attributes before applying any of them, so that a bad request leaves the settings unchanged.
+    private void updateSamplingConfiguration(JsonObject payload) {
+
+        FlowSamplingPolicy samplingPolicy = FlowSamplingPolicy.getInstance();
+        double sampleRate = samplingPolicy.getSampleRate();
+        long slowFlowThreshold = samplingPolicy.getSlowFlowThreshold();
+        boolean keepFaultyFlows = samplingPolicy.isKeepFaultyFlows();
+
+        JsonElement element = payload.get(SAMPLE_RATE);
+        if (element != null) {
+            sampleRate = element.getAsDouble();
+            if (Double.isNaN(sampleRate) || sampleRate < 0 || sampleRate > 1) {
+                throw new IllegalArgumentException(SAMPLE_RATE + " should be between 0 and 1");
+            }
+        }
+        element = payload.get(SLOW_FLOW_THRESHOLD);
+        if (element != null) {
+            slowFlowThreshold = element.getAsLong();
+        }
+        element = payload.get(KEEP_FAULTY_FLOWS);
+        if (element != null) {
+            // gson reads any value other than true as false, so anything but a JSON boolean is rejected
+            if (!element.isJsonPrimitive() || !element.getAsJsonPrimitive().isBoolean()) {
+                throw new IllegalArgumentException(KEEP_FAULTY_FLOWS + " should be true or false");
+            }
+            keepFaultyFlows = element.getAsBoolean();
+        }
+
+        samplingPolicy.setSampleRate(sampleRate);
+        samplingPolicy.setSlowFlowThreshold(slowFlowThreshold);
+        samplingPolicy.setKeepFaultyFlows(keepFaultyFlows);
+        LOG.info("Updated message flow sampling configuration. Sample rate : " + sampleRate
+                         + ", slow flow threshold : " + slowFlowThreshold + " ms, keep faulty flows : "
+                         + keepFaultyFlows);
+    }
+}
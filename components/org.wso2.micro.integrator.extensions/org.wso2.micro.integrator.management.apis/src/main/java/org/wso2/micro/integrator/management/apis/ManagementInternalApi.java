@@ -35,6 +35,7 @@ import static org.wso2.micro.integrator.management.apis.Constants.PREFIX_CARBON_
 import static org.wso2.micro.integrator.management.apis.Constants.PREFIX_CONNECTORS;
 import static org.wso2.micro.integrator.management.apis.Constants.PREFIX_DATA_SERVICES;
 import static org.wso2.micro.integrator.management.apis.Constants.PREFIX_ENDPOINTS;
+import static org.wso2.micro.integrator.management.apis.Constants.PREFIX_FLOW_SAMPLING;
 import static org.wso2.micro.integrator.management.apis.Constants.PREFIX_INBOUND_ENDPOINTS;
 import static org.wso2.micro.integrator.management.apis.Constants.PREFIX_LOCAL_ENTRIES;
 import static org.wso2.micro.integrator.management.apis.Constants.PREFIX_LOGGING;
@@ -86,6 +87,7 @@ public class ManagementInternalApi implements InternalAPI {
         resourcesList.add(new ApiResourceAdapter(PREFIX_SERVER_DATA, new MetaDataResource()));
         resourcesList.add(new LogFilesResource(PREFIX_LOG_FILES));
         resourcesList.add(new ApiResourceAdapter(PREFIX_REQ_COUNT, new RequestCountResource()));
+        resourcesList.add(new ApiResourceAdapter(PREFIX_FLOW_SAMPLING, new FlowSamplingResource()));
 
         resources = new APIResource[resourcesList.size()];
         resources = resourcesList.toArray(resources);
@@ -87,6 +87,8 @@ public class RDBMSConfiguration {
 
 	private String jdbcInterceptors;
 
+	private Integer statementCacheSize;
+
 	private Long validationInterval;
 
 	private Boolean jmxEnabled;
@@ -360,6 +362,18 @@ public class RDBMSConfiguration {
 		this.jdbcInterceptors = jdbcInterceptors;
 	}
 
+	/**
+	 * Returns the maximum number of prepared statements cached across the connections of the pool,
+	 * with the "StatementCache" JDBC interceptor. A null or non-positive value disables it.
+	 */
+	public Integer getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public void setStatementCacheSize(Integer statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
 	public Long getValidationInterval() {
 		return validationInterval;
 	}
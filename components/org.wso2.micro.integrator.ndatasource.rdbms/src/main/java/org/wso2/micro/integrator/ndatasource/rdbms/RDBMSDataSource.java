@@ -55,16 +55,25 @@ public class RDBMSDataSource {
 
 	public RDBMSDataSource(RDBMSConfiguration config) throws DataSourceException {
 		this.poolProperties = RDBMSDataSourceUtils.createPoolConfiguration(config);
-		this.populateStandardProps();
+		this.populateStandardProps(config);
 	}
 
-	private void populateStandardProps() {
+	private void populateStandardProps(RDBMSConfiguration config) {
 		String jdbcInterceptors = this.poolProperties.getJdbcInterceptors();
 		if (jdbcInterceptors == null) {
 			jdbcInterceptors = "";
 		}
+		jdbcInterceptors = getJDBCInterceptors(jdbcInterceptors);
+		//Statement cache interceptor is added unless it is already configured by the user
+		Integer statementCacheSize = config.getStatementCacheSize();
+		if (statementCacheSize != null && statementCacheSize > 0
+				&& !jdbcInterceptors.contains(RDBMSDataSourceConstants.STATEMENT_CACHE_INTERCEPTOR)) {
+			jdbcInterceptors = jdbcInterceptors + RDBMSDataSourceConstants.STATEMENT_CACHE_INTERCEPTOR
+					+ "(prepared=true,callable=false,max=" + statementCacheSize + ")"
+					+ RDBMSDataSourceConstants.JDBC_INTERCEPTOR_SEPARATOR;
+		}
 		//Correlation log interceptor is added to the interceptor chain
-		jdbcInterceptors = RDBMSDataSourceConstants.STANDARD_JDBC_INTERCEPTORS + getJDBCInterceptors(jdbcInterceptors)
+		jdbcInterceptors = RDBMSDataSourceConstants.STANDARD_JDBC_INTERCEPTORS + jdbcInterceptors
 		+ RDBMSDataSourceConstants.CORRELATION_LOG_INTERCEPTOR;
 		this.poolProperties.setJdbcInterceptors(jdbcInterceptors);
 	}
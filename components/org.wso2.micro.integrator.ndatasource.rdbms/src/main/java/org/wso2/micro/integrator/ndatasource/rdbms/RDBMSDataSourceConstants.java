@@ -34,6 +34,8 @@ public class RDBMSDataSourceConstants {
 
 	public static final String STANDARD_JDBC_INTERCEPTORS = "ConnectionState;StatementFinalizer;";
 
+	public static final String STATEMENT_CACHE_INTERCEPTOR = "StatementCache";
+
 	public static final class TX_ISOLATION_LEVELS {
 
 		public static final String NONE = "NONE";